@@ -0,0 +1,99 @@
+package com.avaje.ebean.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compare JMH json results (-rf json) against a baseline results file.
+ * <p>
+ * Usage: <code>BaselineCompare baseline.json current.json [thresholdPercent]</code>
+ * </p>
+ * <p>
+ * Prints the score of each benchmark (by benchmark name and params) for both runs with the
+ * change as a percentage. Exits with status 1 if any benchmark regressed by more than the
+ * threshold (default 10%). For the avgt/sample/ss modes a higher score is worse and for
+ * thrpt a lower score is worse.
+ * </p>
+ */
+public class BaselineCompare {
+
+  public static void main(String[] args) throws IOException {
+
+    if (args.length < 2) {
+      System.err.println("Usage: BaselineCompare baseline.json current.json [thresholdPercent]");
+      System.exit(2);
+    }
+    double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : 10d;
+
+    Map<String, Result> baseline = read(new File(args[0]));
+    Map<String, Result> current = read(new File(args[1]));
+
+    int regressions = 0;
+    System.out.println(String.format("%-80s %14s %14s %9s", "benchmark", "baseline", "current", "change"));
+    for (Map.Entry<String, Result> entry : current.entrySet()) {
+      Result now = entry.getValue();
+      Result base = baseline.get(entry.getKey());
+      if (base == null) {
+        System.out.println(String.format("%-80s %14s %14.3f %9s", entry.getKey(), "-", now.score, "new"));
+        continue;
+      }
+      double change = (now.score - base.score) * 100d / base.score;
+      boolean regression = now.higherIsWorse() ? change > threshold : change < -threshold;
+      if (regression) {
+        regressions++;
+      }
+      System.out.println(String.format("%-80s %14.3f %14.3f %8.1f%% %s %s", entry.getKey(), base.score, now.score, change, now.unit, regression ? "REGRESSION" : ""));
+    }
+
+    if (regressions > 0) {
+      System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Read the JMH json results keyed by benchmark name and params.
+   */
+  static Map<String, Result> read(File file) throws IOException {
+
+    Map<String, Result> results = new LinkedHashMap<String, Result>();
+    JsonNode root = new ObjectMapper().readTree(file);
+    for (JsonNode node : root) {
+      StringBuilder key = new StringBuilder(node.get("benchmark").asText());
+      JsonNode params = node.get("params");
+      if (params != null) {
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+          Map.Entry<String, JsonNode> param = fields.next();
+          key.append(" ").append(param.getKey()).append("=").append(param.getValue().asText());
+        }
+      }
+      JsonNode metric = node.get("primaryMetric");
+      results.put(key.toString(), new Result(node.get("mode").asText(), metric.get("score").asDouble(), metric.get("scoreUnit").asText()));
+    }
+    return results;
+  }
+
+  static class Result {
+
+    final String mode;
+    final double score;
+    final String unit;
+
+    Result(String mode, double score, String unit) {
+      this.mode = mode;
+      this.score = score;
+      this.unit = unit;
+    }
+
+    boolean higherIsWorse() {
+      return !"thrpt".equals(mode);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Find by id hitting and missing the L2 bean cache (DefaultServerCache.get).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanCacheBenchmark {
+
+  private static final int BEANS = 1000;
+
+  EbeanServer server;
+
+  Long[] ids;
+
+  int pos;
+
+  @Setup
+  public void setup() {
+    server = BenchDatabase.create();
+    List<Long> idList = BenchDatabase.insertCustomers(server, BEANS);
+    ids = idList.toArray(new Long[idList.size()]);
+    for (Long id : ids) {
+      // load the bean cache
+      server.find(BCustomer.class, id);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.shutdown(true, false);
+  }
+
+  private Long nextId() {
+    pos = (pos + 1) % ids.length;
+    return ids[pos];
+  }
+
+  @Benchmark
+  public BCustomer hit() {
+    return server.find(BCustomer.class, nextId());
+  }
+
+  @Benchmark
+  public BCustomer miss() {
+    Long id = nextId();
+    server.getServerCacheManager().getBeanCache(BCustomer.class).remove(id);
+    return server.find(BCustomer.class, id);
+  }
+}
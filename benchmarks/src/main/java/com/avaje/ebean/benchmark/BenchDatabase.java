@@ -0,0 +1,102 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import com.avaje.ebean.benchmark.domain.BWide;
+import com.avaje.ebean.config.ServerConfig;
+import org.avaje.datasource.DataSourceConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates EbeanServer instances against embedded H2 for the benchmarks.
+ */
+public class BenchDatabase {
+
+  private static final AtomicInteger counter = new AtomicInteger();
+
+  /**
+   * Create a new EbeanServer with its own in memory H2 database.
+   */
+  public static EbeanServer create(int persistBatchSize) {
+
+    String name = "bench" + counter.incrementAndGet();
+
+    DataSourceConfig dataSourceConfig = new DataSourceConfig();
+    dataSourceConfig.setDriver("org.h2.Driver");
+    dataSourceConfig.setUrl("jdbc:h2:mem:" + name);
+    dataSourceConfig.setUsername("sa");
+    dataSourceConfig.setPassword("");
+    dataSourceConfig.setMinConnections(1);
+    dataSourceConfig.setMaxConnections(20);
+
+    ServerConfig config = new ServerConfig();
+    config.setName(name);
+    config.setDataSourceConfig(dataSourceConfig);
+    config.setDefaultServer(false);
+    config.setRegister(false);
+    config.setDdlGenerate(true);
+    config.setDdlRun(true);
+    config.setCacheWarmingDelay(-1);
+    config.setPersistBatchSize(persistBatchSize);
+    config.addClass(BCustomer.class);
+    config.addClass(BWide.class);
+
+    return EbeanServerFactory.create(config);
+  }
+
+  /**
+   * Create a new EbeanServer with the default persist batch size.
+   */
+  public static EbeanServer create() {
+    return create(20);
+  }
+
+  /**
+   * Insert the given number of customers returning their ids.
+   */
+  public static List<Long> insertCustomers(EbeanServer server, int count) {
+
+    List<BCustomer> customers = new ArrayList<BCustomer>(count);
+    for (int i = 0; i < count; i++) {
+      customers.add(new BCustomer("customer-" + i, i % 10));
+    }
+    saveAll(server, customers);
+
+    List<Long> ids = new ArrayList<Long>(count);
+    for (BCustomer customer : customers) {
+      ids.add(customer.getId());
+    }
+    return ids;
+  }
+
+  /**
+   * Insert the given number of wide beans.
+   */
+  public static void insertWide(EbeanServer server, int count) {
+
+    List<BWide> beans = new ArrayList<BWide>(count);
+    for (int i = 0; i < count; i++) {
+      BWide bean = new BWide();
+      bean.populate(i);
+      beans.add(bean);
+    }
+    saveAll(server, beans);
+  }
+
+  private static void saveAll(EbeanServer server, List<?> beans) {
+    Transaction txn = server.beginTransaction();
+    try {
+      txn.setBatchMode(true);
+      txn.setBatchSize(100);
+      server.saveAll(beans, txn);
+      txn.commit();
+    } finally {
+      txn.end();
+    }
+  }
+}
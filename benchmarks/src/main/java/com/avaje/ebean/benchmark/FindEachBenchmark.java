@@ -0,0 +1,60 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.QueryEachConsumer;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming a query result with findEach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindEachBenchmark {
+
+  @Param({"10000"})
+  int rows;
+
+  EbeanServer server;
+
+  @Setup
+  public void setup() {
+    server = BenchDatabase.create();
+    BenchDatabase.insertCustomers(server, rows);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.shutdown(true, false);
+  }
+
+  @Benchmark
+  public void findEach(final Blackhole blackhole) {
+    server.find(BCustomer.class)
+        .setUseCache(false)
+        .findEach(new QueryEachConsumer<BCustomer>() {
+          @Override
+          public void accept(BCustomer bean) {
+            blackhole.consume(bean);
+          }
+        });
+  }
+}
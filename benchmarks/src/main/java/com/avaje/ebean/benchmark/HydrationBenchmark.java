@@ -0,0 +1,69 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import com.avaje.ebean.benchmark.domain.BWide;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean hydration cost (CQuery.readBean) by number of rows for a narrow (6 column)
+ * and a wide (21 column) entity.
+ * <p>
+ * Divide the score by rows for the per row cost and compare narrow with wide for
+ * the per column cost.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HydrationBenchmark {
+
+  @Param({"1", "100", "1000"})
+  int rows;
+
+  EbeanServer server;
+
+  @Setup
+  public void setup() {
+    server = BenchDatabase.create();
+    BenchDatabase.insertCustomers(server, rows);
+    BenchDatabase.insertWide(server, rows);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.shutdown(true, false);
+  }
+
+  @Benchmark
+  public List<BCustomer> narrow() {
+    return server.find(BCustomer.class)
+        .setUseCache(false)
+        .setMaxRows(rows)
+        .findList();
+  }
+
+  @Benchmark
+  public List<BWide> wide() {
+    return server.find(BWide.class)
+        .setMaxRows(rows)
+        .findList();
+  }
+}
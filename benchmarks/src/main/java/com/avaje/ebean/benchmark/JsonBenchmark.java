@@ -0,0 +1,67 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import com.avaje.ebean.text.json.JsonContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON write (WriteJson) and read (ReadJson) of a list of beans through DJsonContext.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+  @Param({"1", "100"})
+  int beans;
+
+  EbeanServer server;
+
+  JsonContext json;
+
+  List<BCustomer> list;
+
+  String listJson;
+
+  @Setup
+  public void setup() {
+    server = BenchDatabase.create();
+    BenchDatabase.insertCustomers(server, beans);
+    json = server.json();
+    list = server.find(BCustomer.class).setUseCache(false).findList();
+    listJson = json.toJson(list);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.shutdown(true, false);
+  }
+
+  @Benchmark
+  public String write() {
+    return json.toJson(list);
+  }
+
+  @Benchmark
+  public List<BCustomer> read() {
+    return json.toList(BCustomer.class, listJson);
+  }
+}
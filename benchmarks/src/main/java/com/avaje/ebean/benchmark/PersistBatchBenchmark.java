@@ -0,0 +1,91 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert and update of 1000 beans in a transaction (BatchedPstmtHolder.flush) by persistBatchSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistBatchBenchmark {
+
+  private static final int BEANS = 1000;
+
+  @Param({"1", "20", "100"})
+  int persistBatchSize;
+
+  EbeanServer server;
+
+  List<BCustomer> inserted;
+
+  @Setup
+  public void setup() {
+    server = BenchDatabase.create(persistBatchSize);
+  }
+
+  @Setup(Level.Invocation)
+  public void loadForUpdate() {
+    inserted = new ArrayList<BCustomer>(BEANS);
+    for (int i = 0; i < BEANS; i++) {
+      inserted.add(new BCustomer("customer-" + i, i % 10));
+    }
+    save(inserted);
+    for (BCustomer customer : inserted) {
+      customer.setStatus("UPDATED");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.shutdown(true, false);
+  }
+
+  @Benchmark
+  public void insert() {
+    List<BCustomer> beans = new ArrayList<BCustomer>(BEANS);
+    for (int i = 0; i < BEANS; i++) {
+      beans.add(new BCustomer("customer-" + i, i % 10));
+    }
+    save(beans);
+  }
+
+  @Benchmark
+  public void update() {
+    save(inserted);
+  }
+
+  private void save(List<BCustomer> beans) {
+    Transaction txn = server.beginTransaction();
+    try {
+      txn.setBatchMode(persistBatchSize > 1);
+      txn.setBatchSize(persistBatchSize);
+      server.saveAll(beans, txn);
+      txn.commit();
+    } finally {
+      txn.end();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.avaje.ebean.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.benchmark.domain.BCustomer;
+import com.avaje.ebeaninternal.api.CQueryPlanKey;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.SpiQuery;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.query.CQueryPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a query, calculating its plan key and looking up BeanDescriptor.queryPlanCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryPlanBenchmark {
+
+  EbeanServer server;
+
+  BeanDescriptor<BCustomer> descriptor;
+
+  @Setup
+  public void setup() {
+    server = BenchDatabase.create();
+    descriptor = ((SpiEbeanServer) server).getBeanDescriptor(BCustomer.class);
+    // execute once such that the query plan is cached
+    query().findList();
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.shutdown(true, false);
+  }
+
+  private SpiQuery<BCustomer> query() {
+    return (SpiQuery<BCustomer>) server.find(BCustomer.class)
+        .setUseCache(false)
+        .where()
+        .eq("status", "NEW")
+        .gt("rating", 3)
+        .startsWith("name", "customer")
+        .query();
+  }
+
+  @Benchmark
+  public CQueryPlan lookup() {
+    CQueryPlanKey key = query().prepare(null);
+    return descriptor.getQueryPlan(key);
+  }
+}
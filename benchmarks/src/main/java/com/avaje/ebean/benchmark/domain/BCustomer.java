@@ -0,0 +1,90 @@
+package com.avaje.ebean.benchmark.domain;
+
+import com.avaje.ebean.annotation.Cache;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.sql.Timestamp;
+
+/**
+ * Narrow entity (few columns) that is also bean cached.
+ */
+@Cache
+@Entity
+@Table(name = "bench_customer")
+public class BCustomer {
+
+  @Id
+  Long id;
+
+  String name;
+
+  String status;
+
+  int rating;
+
+  Timestamp registered;
+
+  @Version
+  long version;
+
+  public BCustomer() {
+  }
+
+  public BCustomer(String name, int rating) {
+    this.name = name;
+    this.rating = rating;
+    this.status = "NEW";
+    this.registered = new Timestamp(System.currentTimeMillis());
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public int getRating() {
+    return rating;
+  }
+
+  public void setRating(int rating) {
+    this.rating = rating;
+  }
+
+  public Timestamp getRegistered() {
+    return registered;
+  }
+
+  public void setRegistered(Timestamp registered) {
+    this.registered = registered;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+}
@@ -0,0 +1,251 @@
+package com.avaje.ebean.benchmark.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+
+/**
+ * Wide entity (21 columns) used to measure hydration cost per column.
+ */
+@Entity
+@Table(name = "bench_wide")
+public class BWide {
+
+  @Id
+  Long id;
+
+  String s1;
+
+  String s2;
+
+  String s3;
+
+  String s4;
+
+  Integer i1;
+
+  Integer i2;
+
+  Integer i3;
+
+  Integer i4;
+
+  Long l1;
+
+  Long l2;
+
+  Long l3;
+
+  Long l4;
+
+  Double d1;
+
+  Double d2;
+
+  Double d3;
+
+  Double d4;
+
+  Boolean b1;
+
+  Boolean b2;
+
+  Timestamp t1;
+
+  Timestamp t2;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Populate all the properties based on the given seed.
+   */
+  public void populate(int seed) {
+    s1 = "value-" + seed;
+    s2 = "value-" + seed;
+    s3 = "value-" + seed;
+    s4 = "value-" + seed;
+    i1 = seed;
+    i2 = seed;
+    i3 = seed;
+    i4 = seed;
+    l1 = (long) seed;
+    l2 = (long) seed;
+    l3 = (long) seed;
+    l4 = (long) seed;
+    d1 = seed * 1.5d;
+    d2 = seed * 1.5d;
+    d3 = seed * 1.5d;
+    d4 = seed * 1.5d;
+    b1 = seed % 2 == 0;
+    b2 = seed % 2 == 0;
+    t1 = new Timestamp(seed * 1000L);
+    t2 = new Timestamp(seed * 1000L);
+  }
+
+  public String getS1() {
+    return s1;
+  }
+
+  public void setS1(String s1) {
+    this.s1 = s1;
+  }
+
+  public String getS2() {
+    return s2;
+  }
+
+  public void setS2(String s2) {
+    this.s2 = s2;
+  }
+
+  public String getS3() {
+    return s3;
+  }
+
+  public void setS3(String s3) {
+    this.s3 = s3;
+  }
+
+  public String getS4() {
+    return s4;
+  }
+
+  public void setS4(String s4) {
+    this.s4 = s4;
+  }
+
+  public Integer getI1() {
+    return i1;
+  }
+
+  public void setI1(Integer i1) {
+    this.i1 = i1;
+  }
+
+  public Integer getI2() {
+    return i2;
+  }
+
+  public void setI2(Integer i2) {
+    this.i2 = i2;
+  }
+
+  public Integer getI3() {
+    return i3;
+  }
+
+  public void setI3(Integer i3) {
+    this.i3 = i3;
+  }
+
+  public Integer getI4() {
+    return i4;
+  }
+
+  public void setI4(Integer i4) {
+    this.i4 = i4;
+  }
+
+  public Long getL1() {
+    return l1;
+  }
+
+  public void setL1(Long l1) {
+    this.l1 = l1;
+  }
+
+  public Long getL2() {
+    return l2;
+  }
+
+  public void setL2(Long l2) {
+    this.l2 = l2;
+  }
+
+  public Long getL3() {
+    return l3;
+  }
+
+  public void setL3(Long l3) {
+    this.l3 = l3;
+  }
+
+  public Long getL4() {
+    return l4;
+  }
+
+  public void setL4(Long l4) {
+    this.l4 = l4;
+  }
+
+  public Double getD1() {
+    return d1;
+  }
+
+  public void setD1(Double d1) {
+    this.d1 = d1;
+  }
+
+  public Double getD2() {
+    return d2;
+  }
+
+  public void setD2(Double d2) {
+    this.d2 = d2;
+  }
+
+  public Double getD3() {
+    return d3;
+  }
+
+  public void setD3(Double d3) {
+    this.d3 = d3;
+  }
+
+  public Double getD4() {
+    return d4;
+  }
+
+  public void setD4(Double d4) {
+    this.d4 = d4;
+  }
+
+  public Boolean getB1() {
+    return b1;
+  }
+
+  public void setB1(Boolean b1) {
+    this.b1 = b1;
+  }
+
+  public Boolean getB2() {
+    return b2;
+  }
+
+  public void setB2(Boolean b2) {
+    this.b2 = b2;
+  }
+
+  public Timestamp getT1() {
+    return t1;
+  }
+
+  public void setT1(Timestamp t1) {
+    this.t1 = t1;
+  }
+
+  public Timestamp getT2() {
+    return t2;
+  }
+
+  public void setT2(Timestamp t2) {
+    this.t2 = t2;
+  }
+}
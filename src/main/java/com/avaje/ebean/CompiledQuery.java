@@ -0,0 +1,77 @@
+package com.avaje.ebean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A query that has been compiled once such that each execution only binds the
+ * parameter values and reads the rows.
+ * <p>
+ * The query plan, SQL and the positions of the bind values are determined when the
+ * query is compiled. Each execution skips building the expressions, calculating the
+ * query plan key and preparing the predicates. Values that change per execution are
+ * defined in the query using {@link NamedParam} and supplied by name on execution.
+ * </p>
+ * <p>
+ * A CompiledQuery is thread safe and is expected to be created once and then used
+ * for many executions.
+ * </p>
+ * <p>
+ * Compiled queries do not use the L2 bean or query caches, AutoTune or a
+ * BeanQueryAdapter. A NamedParam must be used with scalar properties (for an
+ * associated bean use the id property such as <code>customer.id</code>).
+ * </p>
+ *
+ * <pre>{@code
+ *
+ *   CompiledQuery<Order> ordersByCustomer = server.createCompiledQuery(
+ *     server.find(Order.class)
+ *       .where().eq("customer.id", new NamedParam("customerId"))
+ *       .orderBy().asc("orderDate"));
+ *
+ *   Map<String, Object> params = new HashMap<String, Object>();
+ *   params.put("customerId", 42);
+ *   List<Order> orders = ordersByCustomer.findList(params);
+ *
+ * }</pre>
+ *
+ * @see EbeanServer#createCompiledQuery(Query)
+ */
+public interface CompiledQuery<T> {
+
+  /**
+   * Execute the query with the given parameter values returning the list of beans.
+   */
+  List<T> findList(Map<String, Object> params);
+
+  /**
+   * Execute the query with the given parameter values using an explicit transaction.
+   */
+  List<T> findList(Map<String, Object> params, Transaction transaction);
+
+  /**
+   * Execute the query with the given parameter values returning a single bean or null.
+   *
+   * @throws javax.persistence.NonUniqueResultException if more than one bean is found
+   */
+  T findUnique(Map<String, Object> params);
+
+  /**
+   * Execute the query with the given parameter values using an explicit transaction
+   * returning a single bean or null.
+   *
+   * @throws javax.persistence.NonUniqueResultException if more than one bean is found
+   */
+  T findUnique(Map<String, Object> params, Transaction transaction);
+
+  /**
+   * Return the names of the parameters that must be supplied on execution.
+   */
+  Set<String> getParameterNames();
+
+  /**
+   * Return the SQL executed by this query.
+   */
+  String getGeneratedSql();
+}
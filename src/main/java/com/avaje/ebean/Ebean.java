@@ -937,6 +937,16 @@ public final class Ebean {
     return serverMgr.getDefaultServer().createUpdate(beanType, ormUpdate);
   }
 
+  /**
+   * Compile the query such that it can be executed many times binding just the
+   * {@link NamedParam} values.
+   *
+   * @see EbeanServer#createCompiledQuery(Query)
+   */
+  public static <T> CompiledQuery<T> createCompiledQuery(Query<T> query) {
+    return serverMgr.getDefaultServer().createCompiledQuery(query);
+  }
+
   /**
    * Create a CsvReader for a given beanType.
    */
@@ -1055,6 +1065,25 @@ public final class Ebean {
     return serverMgr.getDefaultServer().filter(beanType);
   }
 
+  /**
+   * Create indexes on the given properties of a list of beans for filtering and sorting
+   * the list in memory.
+   *
+   * @see EbeanServer#createFilterIndex(Class, List, String...)
+   */
+  public static <T> FilterIndex<T> createFilterIndex(Class<T> beanType, List<T> list, String... properties) {
+    return serverMgr.getDefaultServer().createFilterIndex(beanType, list, properties);
+  }
+
+  /**
+   * Create indexes on the given properties of all the beans of the given type.
+   *
+   * @see EbeanServer#createFilterIndex(Class, String...)
+   */
+  public static <T> FilterIndex<T> createFilterIndex(Class<T> beanType, String... properties) {
+    return serverMgr.getDefaultServer().createFilterIndex(beanType, properties);
+  }
+
   /**
    * Execute a Sql Update Delete or Insert statement. This returns the number of
    * rows that where updated, deleted or inserted. If is executed in batch then
@@ -206,6 +206,22 @@ public interface EbeanServer {
    */
   <T> Query<T> createQuery(Class<T> beanType);
 
+  /**
+   * Compile the query such that it can be executed many times binding just the
+   * {@link NamedParam} values.
+   * <p>
+   * The query plan, SQL and bind positions are determined once here and each
+   * execution of the returned {@link CompiledQuery} only binds values and reads rows.
+   * The query passed in is copied and can be modified afterwards without affecting
+   * the compiled query.
+   * </p>
+   *
+   * @param query The ORM query (RawSql queries are not supported)
+   * @return The compiled query which is thread safe
+   * @see CompiledQuery
+   */
+  <T> CompiledQuery<T> createCompiledQuery(Query<T> query);
+
   /**
    * Create a query for a type of entity bean.
    * <p>
@@ -273,6 +289,33 @@ public interface EbeanServer {
    */
   <T> Filter<T> filter(Class<T> beanType);
 
+  /**
+   * Create indexes on the given properties of a list of beans for filtering and sorting
+   * the list in memory using the indexes rather than scanning and sorting the whole list.
+   * <p>
+   * Refer to {@link FilterIndex} for an example of its use.
+   * </p>
+   *
+   * @param beanType   The type of entity bean
+   * @param list       The list of beans (a snapshot of the list is indexed)
+   * @param properties The properties to index
+   */
+  <T> FilterIndex<T> createFilterIndex(Class<T> beanType, List<T> list, String... properties);
+
+  /**
+   * Create indexes on the given properties of all the beans of the given type.
+   * <p>
+   * This is intended for reference data that is L2 cached. The beans are loaded using
+   * the query cache (when the bean type has query caching) and loaded into the bean
+   * cache (when the bean type has bean caching). The index is a snapshot and should
+   * be created again when the underlying data changes.
+   * </p>
+   *
+   * @param beanType   The type of entity bean
+   * @param properties The properties to index
+   */
+  <T> FilterIndex<T> createFilterIndex(Class<T> beanType, String... properties);
+
   /**
    * Sort the list in memory using the sortByClause which can contain a comma delimited
    * list of property names and keywords asc, desc, nullsHigh and nullsLow.
@@ -734,6 +777,19 @@ public interface EbeanServer {
    */
   <T> void findEach(Query<T> query, QueryEachConsumer<T> consumer, Transaction transaction);
 
+  /**
+   * Execute the query processing the beans on background threads while the
+   * query results are being read.
+   * <p>
+   * The calling thread reads the query results and the beans are passed to the
+   * consumer via a bounded queue with the consumer called by tasks executed by
+   * the BackgroundExecutor.
+   * </p>
+   *
+   * @see Query#findEachPipelined(QueryEachConsumer)
+   */
+  <T> void findEachPipelined(Query<T> query, QueryEachConsumer<T> consumer, Transaction transaction);
+
   /**
    * Execute the query visiting the each bean one at a time.
    * <p>
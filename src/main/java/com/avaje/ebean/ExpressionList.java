@@ -154,6 +154,14 @@ public interface ExpressionList<T> {
    */
   void findEach(QueryEachConsumer<T> consumer);
 
+  /**
+   * Execute the query processing the beans on background threads while the
+   * query results are being read.
+   *
+   * @see Query#findEachPipelined(QueryEachConsumer)
+   */
+  void findEachPipelined(QueryEachConsumer<T> consumer);
+
   /**
    * Execute the query processing the beans one at a time with the ability to
    * stop processing before reading all the beans.
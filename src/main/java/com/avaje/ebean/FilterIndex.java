@@ -0,0 +1,56 @@
+package com.avaje.ebean;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Indexes on chosen properties of an in memory list of beans used to filter and sort
+ * the list without scanning or sorting the whole list each time.
+ * <p>
+ * Each indexed property has a sorted index (with a hash lookup on the distinct values)
+ * that is used to answer <code>eq</code>, <code>in</code>, <code>between</code> and
+ * <code>startsWith</code> predicates and a <code>sort</code> on that property. The
+ * most selective indexed predicate determines the candidate beans and any other
+ * predicates are evaluated against just those candidates.
+ * </p>
+ * <p>
+ * The index is built on a snapshot of the list and is thread safe such that it is
+ * typically built once for reference data and shared. When the underlying data
+ * changes a new FilterIndex should be created.
+ * </p>
+ *
+ * <pre>{@code
+ *
+ *   FilterIndex<Country> countries = server.createFilterIndex(Country.class, allCountries, "region", "name");
+ *
+ *   List<Country> list = countries.filter()
+ *       .eq("region", "EMEA")
+ *       .startsWith("name", "S")
+ *       .sort("name desc")
+ *       .filter(countries.getList());
+ *
+ * }</pre>
+ *
+ * @see EbeanServer#createFilterIndex(Class, List, String...)
+ */
+public interface FilterIndex<T> {
+
+  /**
+   * Create a Filter that uses these indexes.
+   * <p>
+   * Pass the indexed list (or null) to {@link Filter#filter(List)} to use the indexes.
+   * Any other list is filtered by scanning it as per a normal Filter.
+   * </p>
+   */
+  Filter<T> filter();
+
+  /**
+   * Return the indexed list (an unmodifiable snapshot).
+   */
+  List<T> getList();
+
+  /**
+   * Return the names of the indexed properties.
+   */
+  Set<String> getIndexedProperties();
+}
@@ -0,0 +1,67 @@
+package com.avaje.ebean;
+
+/**
+ * A named parameter used as a placeholder for a value in the expressions of a query
+ * that is compiled via {@link EbeanServer#createCompiledQuery(Query)}.
+ *
+ * <pre>{@code
+ *
+ *   CompiledQuery<Customer> byStatus = server.createCompiledQuery(
+ *     server.find(Customer.class)
+ *       .where()
+ *         .eq("status", new NamedParam("status"))
+ *         .gt("id", new NamedParam("minId"))
+ *       .query());
+ *
+ *   Map<String, Object> params = new HashMap<String, Object>();
+ *   params.put("status", Customer.Status.ACTIVE);
+ *   params.put("minId", 10);
+ *
+ *   List<Customer> customers = byStatus.findList(params);
+ *
+ * }</pre>
+ * <p>
+ * A NamedParam can not be the value of an association property (as the id values are
+ * read from the bean) so use the id property instead such as <code>customer.id</code>.
+ * A NamedParam is bound to a single value so it can not be used in an IN expression and
+ * the parameter value can not be a collection.
+ * </p>
+ *
+ * @see CompiledQuery
+ */
+public final class NamedParam {
+
+  private final String name;
+
+  /**
+   * Create with the name of the parameter.
+   */
+  public NamedParam(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name is null");
+    }
+    this.name = name;
+  }
+
+  /**
+   * Return the name of the parameter.
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof NamedParam && name.equals(((NamedParam) o).name));
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return ":" + name;
+  }
+}
@@ -370,6 +370,18 @@ public interface Query<T> {
    */
   Query<T> setLazyLoadBatchSize(int lazyLoadBatchSize);
 
+  /**
+   * Set the maximum number of secondary queries (query joins) to execute in parallel.
+   * <p>
+   * This only has an effect when parallel secondary queries are enabled via
+   * {@link com.avaje.ebean.config.ServerConfig#setQueryJoinMaxParallel(int)}. Set this to
+   * 1 to execute the secondary queries of this query one after another.
+   * </p>
+   *
+   * @param parallelism the maximum number of secondary queries to execute in parallel
+   */
+  Query<T> setQueryJoinParallelism(int parallelism);
+
   /**
    * Execute the query including soft deleted rows.
    * <p>
@@ -583,6 +595,47 @@ public interface Query<T> {
    */
   void findEach(QueryEachConsumer<T> consumer);
 
+  /**
+   * Execute the query processing the beans on background threads while the
+   * query results are being read.
+   * <p>
+   * This is a pipelined version of {@link #findEach(QueryEachConsumer)} such that
+   * the reading of the resultSet (including the building of the beans and executing
+   * secondary queries) runs concurrently with the processing of the beans. This is
+   * useful when processing the beans is relatively expensive.
+   * </p>
+   * <p>
+   * The calling thread reads the query results putting the beans into a bounded
+   * queue and the consumer is called by tasks executed by the BackgroundExecutor.
+   * The size of the queue and the number of consumer tasks are configured via
+   * {@link com.avaje.ebean.config.ServerConfig#setFindEachPipelineQueueSize(int)} and
+   * {@link com.avaje.ebean.config.ServerConfig#setFindEachPipelineThreads(int)}.
+   * </p>
+   * <p>
+   * The consumer must be thread safe when more than one consumer thread is used and
+   * with more than one consumer thread the beans are not processed in query order.
+   * This method returns when all the beans have been processed and an exception
+   * thrown by the consumer stops the query and is rethrown.
+   * </p>
+   *
+   * <pre>{@code
+   *
+   *  ebeanServer.find(Customer.class)
+   *     .where().eq("status", Status.NEW)
+   *     .order().asc("id")
+   *     .findEachPipelined((Customer customer) -> {
+   *
+   *       // expensive processing of customer
+   *       ...
+   *     });
+   *
+   * }</pre>
+   *
+   * @param consumer
+   *          the consumer used to process the queried beans.
+   */
+  void findEachPipelined(QueryEachConsumer<T> consumer);
+
   /**
    * Execute the query using callbacks to a visitor to process the resulting
    * beans one at a time.
@@ -345,6 +345,17 @@ public final class EntityBeanIntercept implements Serializable {
     this.dirty = false;
   }
 
+  /**
+   * Set the bean back to the new state.
+   * <p>
+   * Used when the transaction that inserted the bean was rolled back such that
+   * it can be inserted again.
+   * </p>
+   */
+  public void setNew() {
+    this.state = STATE_NEW;
+  }
+
   /**
    * When finished loading for lazy or refresh on an already partially populated
    * bean.
@@ -0,0 +1,52 @@
+package com.avaje.ebean.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base class for ServerCache implementations that can read many keys at once.
+ * <p>
+ * A cache implementation that extends this can override {@link #getAll(Set)} to
+ * fetch the values in a single request (for example a remote cache). ServerCache
+ * implementations that do not extend this are read key by key.
+ * </p>
+ */
+public abstract class ServerCacheAdapter implements ServerCache {
+
+  /**
+   * Return the values for the given keys reading each key using {@link #get(Object)}.
+   * <p>
+   * The returned map contains only the keys found in the cache. Override this
+   * to fetch the values in a single request.
+   * </p>
+   */
+  public Map<Object, Object> getAll(Set<Object> keys) {
+    return getEach(this, keys);
+  }
+
+  /**
+   * Return the values for the given keys from the cache.
+   * <p>
+   * This uses the bulk getAll() when the cache extends ServerCacheAdapter and
+   * otherwise reads each key.
+   * </p>
+   */
+  public static Map<Object, Object> getAll(ServerCache cache, Set<Object> keys) {
+    if (cache instanceof ServerCacheAdapter) {
+      return ((ServerCacheAdapter) cache).getAll(keys);
+    }
+    return getEach(cache, keys);
+  }
+
+  private static Map<Object, Object> getEach(ServerCache cache, Set<Object> keys) {
+    Map<Object, Object> values = new LinkedHashMap<Object, Object>();
+    for (Object key : keys) {
+      Object value = cache.get(key);
+      if (value != null) {
+        values.put(key, value);
+      }
+    }
+    return values;
+  }
+}
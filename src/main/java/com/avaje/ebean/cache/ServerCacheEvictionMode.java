@@ -0,0 +1,24 @@
+package com.avaje.ebean.cache;
+
+/**
+ * Defines how the default L2 cache implementation enforces maxSize, max idle time
+ * and max time to live.
+ *
+ * @see ServerCacheOptions#setEvictionMode(ServerCacheEvictionMode)
+ * @see com.avaje.ebean.config.ServerConfig#setCacheEvictionMode(ServerCacheEvictionMode)
+ */
+public enum ServerCacheEvictionMode {
+
+  /**
+   * Periodically scan all the entries sorting them by last access time to trim
+   * the cache. This is the original mode and is fine for smaller caches.
+   */
+  TRIM,
+
+  /**
+   * Maintain approximate LRU and insertion order as entries are put and accessed such
+   * that maxSize, max idle time and max time to live are enforced at O(1) cost per
+   * operation. This is recommended for large caches.
+   */
+  LRU
+}
@@ -12,6 +12,7 @@ public class ServerCacheOptions {
   private int maxIdleSecs;
   private int maxSecsToLive;
   private int trimFrequency;
+  private ServerCacheEvictionMode evictionMode;
 
   /**
    * Construct with no set options.
@@ -57,6 +58,9 @@ public class ServerCacheOptions {
     if (trimFrequency == 0) {
       trimFrequency = defaults.getTrimFrequency();
     }
+    if (evictionMode == null) {
+      evictionMode = defaults.getEvictionMode();
+    }
   }
 
   /**
@@ -69,6 +73,7 @@ public class ServerCacheOptions {
     copy.maxIdleSecs = maxIdleSecs;
     copy.maxSecsToLive = maxSecsToLive;
     copy.trimFrequency = trimFrequency;
+    copy.evictionMode = evictionMode;
     return copy;
   }
 
@@ -127,4 +132,18 @@ public class ServerCacheOptions {
   public void setTrimFrequency(int trimFrequency) {
     this.trimFrequency = trimFrequency;
   }
+
+  /**
+   * Return the eviction mode (null means use the default TRIM mode).
+   */
+  public ServerCacheEvictionMode getEvictionMode() {
+    return evictionMode;
+  }
+
+  /**
+   * Set the eviction mode used to enforce max size, idle time and time to live.
+   */
+  public void setEvictionMode(ServerCacheEvictionMode evictionMode) {
+    this.evictionMode = evictionMode;
+  }
 }
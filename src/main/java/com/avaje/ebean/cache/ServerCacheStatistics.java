@@ -39,6 +39,12 @@ public class ServerCacheStatistics {
 
   protected long evictByLRU;
 
+  protected int nearSize;
+
+  protected long nearHitCount;
+
+  protected long nearMissCount;
+
   public String toString() {
     //noinspection StringBufferReplaceableByString
     StringBuilder sb = new StringBuilder(80);
@@ -57,6 +63,11 @@ public class ServerCacheStatistics {
     sb.append(" evictByLRU:").append(evictByLRU);
     sb.append(" evictionRunCount:").append(evictionRunCount);
     sb.append(" evictionRunMicros:").append(evictionRunMicros);
+    if (nearHitCount + nearMissCount > 0) {
+      sb.append(" nearSize:").append(nearSize);
+      sb.append(" nearHit:").append(nearHitCount);
+      sb.append(" nearMiss:").append(nearMissCount);
+    }
     return sb.toString();
   }
 
@@ -274,4 +285,52 @@ public class ServerCacheStatistics {
   public long getEvictByLRU() {
     return evictByLRU;
   }
+
+  /**
+   * Set the number of entries in the near cache (when using a near cache).
+   */
+  public void setNearSize(int nearSize) {
+    this.nearSize = nearSize;
+  }
+
+  /**
+   * Return the number of entries in the near cache (when using a near cache).
+   */
+  public int getNearSize() {
+    return nearSize;
+  }
+
+  /**
+   * Set the hit count of the near cache (when using a near cache).
+   */
+  public void setNearHitCount(long nearHitCount) {
+    this.nearHitCount = nearHitCount;
+  }
+
+  /**
+   * Return the hit count of the near cache (when using a near cache).
+   * <p>
+   * The hits of the remote cache are the hit count less the near hit count.
+   * </p>
+   */
+  public long getNearHitCount() {
+    return nearHitCount;
+  }
+
+  /**
+   * Set the miss count of the near cache (when using a near cache).
+   */
+  public void setNearMissCount(long nearMissCount) {
+    this.nearMissCount = nearMissCount;
+  }
+
+  /**
+   * Return the miss count of the near cache (when using a near cache).
+   * <p>
+   * This is the number of gets that went to the remote cache.
+   * </p>
+   */
+  public long getNearMissCount() {
+    return nearMissCount;
+  }
 }
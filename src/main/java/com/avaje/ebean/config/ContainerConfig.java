@@ -12,6 +12,12 @@ public class ContainerConfig {
 
   protected boolean clusterActive;
 
+  protected long clusterBatchWindowMillis = 100;
+
+  protected int clusterBatchMaxIds = 1000;
+
+  protected int clusterCompressThreshold = 512;
+
   protected Properties properties;
 
   /**
@@ -28,6 +34,56 @@ public class ContainerConfig {
     this.clusterActive = clusterActive;
   }
 
+  /**
+   * Return the time in millis over which cluster changes are coalesced into one message.
+   * <p>
+   * This is used when the cluster transport is provided by a ClusterTransportFactory.
+   * </p>
+   */
+  public long getClusterBatchWindowMillis() {
+    return clusterBatchWindowMillis;
+  }
+
+  /**
+   * Set the time in millis over which cluster changes are coalesced into one message.
+   * <p>
+   * Set to 0 to send the changes of each transaction immediately.
+   * </p>
+   */
+  public void setClusterBatchWindowMillis(long clusterBatchWindowMillis) {
+    this.clusterBatchWindowMillis = clusterBatchWindowMillis;
+  }
+
+  /**
+   * Return the number of pending ids at which the cluster changes are sent without waiting
+   * for the end of the window.
+   */
+  public int getClusterBatchMaxIds() {
+    return clusterBatchMaxIds;
+  }
+
+  /**
+   * Set the number of pending ids at which the cluster changes are sent without waiting
+   * for the end of the window.
+   */
+  public void setClusterBatchMaxIds(int clusterBatchMaxIds) {
+    this.clusterBatchMaxIds = clusterBatchMaxIds;
+  }
+
+  /**
+   * Return the message size in bytes from which cluster messages are compressed.
+   */
+  public int getClusterCompressThreshold() {
+    return clusterCompressThreshold;
+  }
+
+  /**
+   * Set the message size in bytes from which cluster messages are compressed.
+   */
+  public void setClusterCompressThreshold(int clusterCompressThreshold) {
+    this.clusterCompressThreshold = clusterCompressThreshold;
+  }
+
   /**
    * Return the deployment properties.
    */
@@ -48,6 +104,9 @@ public class ContainerConfig {
   public void loadFromProperties(Properties properties) {
     this.properties = properties;
     this.clusterActive = getProperty(properties, "ebean.cluster.active", clusterActive);
+    this.clusterBatchWindowMillis = getProperty(properties, "ebean.cluster.batchWindowMillis", (int) clusterBatchWindowMillis);
+    this.clusterBatchMaxIds = getProperty(properties, "ebean.cluster.batchMaxIds", clusterBatchMaxIds);
+    this.clusterCompressThreshold = getProperty(properties, "ebean.cluster.compressThreshold", clusterCompressThreshold);
   }
 
   /**
@@ -57,4 +116,12 @@ public class ContainerConfig {
     return "true".equalsIgnoreCase(properties.getProperty(key, Boolean.toString(defaultValue)));
   }
 
+  /**
+   * Return the int property setting.
+   */
+  protected int getProperty(Properties properties, String key, int defaultValue) {
+    String value = properties.getProperty(key);
+    return (value == null) ? defaultValue : Integer.parseInt(value.trim());
+  }
+
 }
@@ -3,6 +3,7 @@ package com.avaje.ebean.config;
 import com.avaje.ebean.EbeanServerFactory;
 import com.avaje.ebean.PersistenceContextScope;
 import com.avaje.ebean.annotation.Encrypted;
+import com.avaje.ebean.cache.ServerCacheEvictionMode;
 import com.avaje.ebean.cache.ServerCacheManager;
 import com.avaje.ebean.cache.ServerCachePlugin;
 import com.avaje.ebean.config.dbplatform.DatabasePlatform;
@@ -193,6 +194,11 @@ public class ServerConfig {
 
   private int persistBatchSize = 20;
 
+  /**
+   * Set to true to rewrite batched inserts into multi-row insert statements.
+   */
+  private boolean persistBatchMultiRowInsert;
+
   /**
    * The default batch size for lazy loading
    */
@@ -351,6 +357,61 @@ public class ServerConfig {
    */
   private PersistenceContextScope persistenceContextScope = PersistenceContextScope.TRANSACTION;
 
+  /**
+   * Set to true to use the concurrent (lock free read) PersistenceContext implementation.
+   */
+  private boolean persistenceContextConcurrent;
+
+  /**
+   * The maximum number of PreparedStatements cached per transaction (0 for no caching).
+   */
+  private int transactionPstmtCacheSize;
+
+  /**
+   * The window in millis over which implicit transaction saves are grouped (0 for no group commit).
+   */
+  private int groupCommitMillis;
+
+  /**
+   * The maximum number of beans saved in a group commit.
+   */
+  private int groupCommitMaxBeans = 100;
+
+  /**
+   * The capacity of each post commit pipeline stage queue (0 to use the background executor).
+   */
+  private int postCommitQueueCapacity;
+
+  /**
+   * The maximum number of beans read ahead of the consumers for findEachPipelined.
+   */
+  private int findEachPipelineQueueSize = 1000;
+
+  /**
+   * The number of consumer threads for findEachPipelined.
+   */
+  private int findEachPipelineThreads = 1;
+
+  /**
+   * The maximum number of secondary queries executing in parallel across all queries (0 disables).
+   */
+  private int queryJoinMaxParallel;
+
+  /**
+   * The default maximum number of secondary queries executed in parallel for a query.
+   */
+  private int queryJoinParallelism = 4;
+
+  /**
+   * The maximum number of query plans held per bean type.
+   */
+  private int queryPlanCacheMaxSize = 1000;
+
+  /**
+   * The maximum number of update plans held per bean type.
+   */
+  private int updatePlanCacheMaxSize = 1000;
+
   private JsonFactory jsonFactory;
 
   private boolean localTimeWithNanos;
@@ -374,9 +435,16 @@ public class ServerConfig {
   // defaults for the L2 bean caching
 
   private int cacheWarmingDelay = 30;
+  private String cacheWarmingFile;
+  private int cacheWarmingMaxIds = 1000;
+  private int cacheWarmingSnapshotSecs = 300;
+  private int cacheLoadWaitMillis;
+  private int cacheNearMaxSize;
+  private int cacheNearMaxSecsToLive = 60;
   private int cacheMaxSize = 10000;
   private int cacheMaxIdleTime = 600;
   private int cacheMaxTimeToLive = 60 * 60 * 6;
+  private ServerCacheEvictionMode cacheEvictionMode = ServerCacheEvictionMode.TRIM;
 
   // defaults for the L2 query caching
 
@@ -395,6 +463,11 @@ public class ServerConfig {
    */
   private boolean expressionNativeIlike;
 
+  /**
+   * Set to true to pad the number of bind values used for IN expressions.
+   */
+  private boolean expressionInPadding;
+
   private String jodaLocalTimeMode;
 
   /**
@@ -659,6 +732,34 @@ public class ServerConfig {
     this.persistBatchSize = persistBatchSize;
   }
 
+  /**
+   * Return true if batched inserts are executed as multi-row insert statements.
+   */
+  public boolean isPersistBatchMultiRowInsert() {
+    return persistBatchMultiRowInsert;
+  }
+
+  /**
+   * Set to true to execute batched inserts as multi-row insert statements
+   * (insert into ... values (..),(..),(..)).
+   * <p>
+   * Rather than relying on the JDBC driver executeBatch() (which for some drivers
+   * executes a statement per row) the inserts queued in a batch for the same table
+   * are executed as multi-row insert statements each sized to the bind parameter
+   * limit of the DatabasePlatform. Generated keys are set back to the beans for
+   * platforms that return the keys of all the rows (Postgres, MySql) and otherwise
+   * multi-row insert is only used when the Id values are set prior to the insert.
+   * </p>
+   * <p>
+   * This only has an effect when the platform supports multi-row insert and
+   * is used with JDBC batch (see {@link #setPersistBatch(PersistBatch)}).
+   * The number of rows per statement is also bounded by the batch size.
+   * </p>
+   */
+  public void setPersistBatchMultiRowInsert(boolean persistBatchMultiRowInsert) {
+    this.persistBatchMultiRowInsert = persistBatchMultiRowInsert;
+  }
+
   /**
    * Gets the query batch size. This defaults to 100.
    *
@@ -1096,6 +1197,121 @@ public class ServerConfig {
     this.cacheWarmingDelay = cacheWarmingDelay;
   }
 
+  /**
+   * Return the file used to hold the snapshot of hot bean cache ids (null when cache warming is not used).
+   */
+  public String getCacheWarmingFile() {
+    return cacheWarmingFile;
+  }
+
+  /**
+   * Set the file used to hold the snapshot of hot bean cache ids.
+   * <p>
+   * When set the ids of the most used beans in the bean caches are written to this
+   * file periodically and on shutdown and on start (after the cache warming delay) those beans are
+   * loaded into the bean and natural key caches in the background.
+   * </p>
+   */
+  public void setCacheWarmingFile(String cacheWarmingFile) {
+    this.cacheWarmingFile = cacheWarmingFile;
+  }
+
+  /**
+   * Return the maximum number of ids per bean type held in the cache warming snapshot.
+   */
+  public int getCacheWarmingMaxIds() {
+    return cacheWarmingMaxIds;
+  }
+
+  /**
+   * Set the maximum number of ids per bean type held in the cache warming snapshot.
+   */
+  public void setCacheWarmingMaxIds(int cacheWarmingMaxIds) {
+    this.cacheWarmingMaxIds = cacheWarmingMaxIds;
+  }
+
+  /**
+   * Return the interval in seconds at which the cache warming snapshot is written.
+   */
+  public int getCacheWarmingSnapshotSecs() {
+    return cacheWarmingSnapshotSecs;
+  }
+
+  /**
+   * Set the interval in seconds at which the cache warming snapshot is written (in addition
+   * to on shutdown) such that a snapshot exists if the process is stopped without a shutdown.
+   * <p>
+   * This defaults to 300 (5 minutes). Set to 0 to only write the snapshot on shutdown.
+   * </p>
+   */
+  public void setCacheWarmingSnapshotSecs(int cacheWarmingSnapshotSecs) {
+    this.cacheWarmingSnapshotSecs = cacheWarmingSnapshotSecs;
+  }
+
+  /**
+   * Return the maximum time in millis a query waits for a concurrent load of the same cache key.
+   */
+  public int getCacheLoadWaitMillis() {
+    return cacheLoadWaitMillis;
+  }
+
+  /**
+   * Set the maximum time in millis a query waits for a concurrent load of the same cache key.
+   * <p>
+   * On a bean cache, natural key cache or query cache miss only one thread executes the query
+   * for a given id, natural key or query (with the same bind values) and other threads wait for
+   * that query and then read the result from the cache (or share the empty result when the
+   * query found nothing). When the wait time is exceeded the waiting thread executes the query
+   * itself.
+   * </p>
+   * <p>
+   * Defaults to 0 which means the loading on cache misses is not coalesced.
+   * </p>
+   */
+  public void setCacheLoadWaitMillis(int cacheLoadWaitMillis) {
+    this.cacheLoadWaitMillis = cacheLoadWaitMillis;
+  }
+
+  /**
+   * Return the max size of the near cache used in front of a ServerCachePlugin cache.
+   */
+  public int getCacheNearMaxSize() {
+    return cacheNearMaxSize;
+  }
+
+  /**
+   * Set the max size of the near cache used in front of a ServerCachePlugin cache.
+   * <p>
+   * When a ServerCachePlugin is used (typically a remote or distributed cache) a small
+   * on-heap near cache can be put in front of each cache such that gets are served without
+   * a network hop. Changes are written through to both the near cache and the plugin cache.
+   * </p>
+   * <p>
+   * Defaults to 0 meaning no near cache is used.
+   * </p>
+   */
+  public void setCacheNearMaxSize(int cacheNearMaxSize) {
+    this.cacheNearMaxSize = cacheNearMaxSize;
+  }
+
+  /**
+   * Return the max time to live in seconds of entries in the near cache.
+   */
+  public int getCacheNearMaxSecsToLive() {
+    return cacheNearMaxSecsToLive;
+  }
+
+  /**
+   * Set the max time to live in seconds of entries in the near cache.
+   * <p>
+   * This bounds how long a near cache can hold a value changed by another server
+   * sharing the plugin cache. Defaults to 60 seconds.
+   * </p>
+   */
+  public void setCacheNearMaxSecsToLive(int cacheNearMaxSecsToLive) {
+    this.cacheNearMaxSecsToLive = cacheNearMaxSecsToLive;
+  }
+
   /**
    * Return the L2 cache default max size.
    */
@@ -1138,6 +1354,24 @@ public class ServerConfig {
     this.cacheMaxTimeToLive = cacheMaxTimeToLive;
   }
 
+  /**
+   * Return the eviction mode used by the default L2 cache implementation.
+   */
+  public ServerCacheEvictionMode getCacheEvictionMode() {
+    return cacheEvictionMode;
+  }
+
+  /**
+   * Set the eviction mode used by the default L2 cache implementation.
+   * <p>
+   * Use LRU for large caches such that eviction is O(1) per operation rather
+   * than periodically scanning and sorting all the entries.
+   * </p>
+   */
+  public void setCacheEvictionMode(ServerCacheEvictionMode cacheEvictionMode) {
+    this.cacheEvictionMode = cacheEvictionMode;
+  }
+
   /**
    * Return the L2 query cache default max size.
    */
@@ -2137,6 +2371,250 @@ public class ServerConfig {
     this.persistenceContextScope = persistenceContextScope;
   }
 
+  /**
+   * Return true if the concurrent PersistenceContext implementation should be used.
+   */
+  public boolean isPersistenceContextConcurrent() {
+    return persistenceContextConcurrent;
+  }
+
+  /**
+   * Set to true to use a concurrent PersistenceContext implementation.
+   * <p>
+   * The concurrent implementation holds a separate context per bean type with lock free
+   * reads and primitive keyed maps for Long and Integer ids. This is useful for large
+   * object graphs (findEach processing many rows) and where secondary queries load
+   * into the same persistence context concurrently.
+   * </p>
+   * <p>
+   * This defaults to false using the synchronized default implementation.
+   * </p>
+   */
+  public void setPersistenceContextConcurrent(boolean persistenceContextConcurrent) {
+    this.persistenceContextConcurrent = persistenceContextConcurrent;
+  }
+
+  /**
+   * Return the maximum number of PreparedStatements cached per transaction.
+   */
+  public int getTransactionPstmtCacheSize() {
+    return transactionPstmtCacheSize;
+  }
+
+  /**
+   * Set the maximum number of PreparedStatements cached per transaction.
+   * <p>
+   * When greater than 0 ORM queries and non batched DML reuse their PreparedStatements
+   * within a transaction (keyed by SQL with least recently used statements closed). The
+   * cached statements are closed when the transaction ends.
+   * </p>
+   * <p>
+   * This defaults to 0 (no caching) as the Ebean DataSourcePool already caches statements
+   * per connection. Set this when using a DataSource and JDBC driver that do not cache
+   * statements themselves.
+   * </p>
+   */
+  public void setTransactionPstmtCacheSize(int transactionPstmtCacheSize) {
+    this.transactionPstmtCacheSize = transactionPstmtCacheSize;
+  }
+
+  /**
+   * Return the window in millis over which implicit transaction saves are grouped (0 for no group commit).
+   */
+  public int getGroupCommitMillis() {
+    return groupCommitMillis;
+  }
+
+  /**
+   * Set the window in millis over which implicit transaction saves are grouped into
+   * a single transaction.
+   * <p>
+   * When greater than 0 the save(), insert() and update() of a bean that is not in a
+   * transaction (so would use its own implicit transaction) is instead queued and saved
+   * together with other beans queued in the window using a single batched transaction.
+   * This results in one commit and one post commit processing (cache notification,
+   * listeners and cluster broadcast) for the group. The caller waits until the group
+   * has committed.
+   * </p>
+   * <p>
+   * If any statement of the group fails the group is rolled back and each bean is then
+   * saved in its own transaction such that each caller gets its own success or failure.
+   * </p>
+   * <p>
+   * Beans of a type with a persist controller, who created/modified properties, cascading
+   * saves or embedded beans are not grouped and are saved in their own transaction.
+   * </p>
+   * <p>
+   * This defaults to 0 (no group commit). This is intended for many small concurrent
+   * writes where the commit rate is a bottleneck and adds up to this latency to each save.
+   * </p>
+   */
+  public void setGroupCommitMillis(int groupCommitMillis) {
+    this.groupCommitMillis = groupCommitMillis;
+  }
+
+  /**
+   * Return the maximum number of beans saved in a group commit.
+   */
+  public int getGroupCommitMaxBeans() {
+    return groupCommitMaxBeans;
+  }
+
+  /**
+   * Set the maximum number of beans saved in a group commit (defaults to 100).
+   * <p>
+   * A group is committed when it reaches this size without waiting for the rest of the window.
+   * </p>
+   */
+  public void setGroupCommitMaxBeans(int groupCommitMaxBeans) {
+    this.groupCommitMaxBeans = groupCommitMaxBeans;
+  }
+
+  /**
+   * Return the capacity of each post commit pipeline stage queue (0 to use the background executor).
+   */
+  public int getPostCommitQueueCapacity() {
+    return postCommitQueueCapacity;
+  }
+
+  /**
+   * Set the capacity of each post commit pipeline stage queue.
+   * <p>
+   * When greater than 0 the post commit processing (L2 cache changes, persist listeners,
+   * cluster broadcast and document store updates) runs in a dedicated pipeline with a
+   * stage (thread and bounded queue) for each of these rather than as a task per
+   * transaction on the shared background executor. Stages coalesce the cluster and
+   * document store events of queued transactions and when a stage queue is full the
+   * committing thread waits (back pressure).
+   * </p>
+   * <p>
+   * This defaults to 0 which uses the background executor.
+   * </p>
+   */
+  public void setPostCommitQueueCapacity(int postCommitQueueCapacity) {
+    this.postCommitQueueCapacity = postCommitQueueCapacity;
+  }
+
+  /**
+   * Return the maximum number of beans read ahead of the consumers for findEachPipelined.
+   */
+  public int getFindEachPipelineQueueSize() {
+    return findEachPipelineQueueSize;
+  }
+
+  /**
+   * Set the maximum number of beans read ahead of the consumers for findEachPipelined.
+   * <p>
+   * When the queue is full the reading of the query results blocks until the consumers
+   * have caught up (back pressure). This defaults to 1000.
+   * </p>
+   *
+   * @see com.avaje.ebean.Query#findEachPipelined(com.avaje.ebean.QueryEachConsumer)
+   */
+  public void setFindEachPipelineQueueSize(int findEachPipelineQueueSize) {
+    this.findEachPipelineQueueSize = findEachPipelineQueueSize;
+  }
+
+  /**
+   * Return the number of consumer threads for findEachPipelined.
+   */
+  public int getFindEachPipelineThreads() {
+    return findEachPipelineThreads;
+  }
+
+  /**
+   * Set the number of consumer threads for findEachPipelined.
+   * <p>
+   * The consumers are executed by the BackgroundExecutor so the number that run
+   * concurrently is also limited by the size of the BackgroundExecutor thread pool.
+   * This defaults to 1 which processes the beans in query order.
+   * </p>
+   *
+   * @see com.avaje.ebean.Query#findEachPipelined(com.avaje.ebean.QueryEachConsumer)
+   */
+  public void setFindEachPipelineThreads(int findEachPipelineThreads) {
+    this.findEachPipelineThreads = findEachPipelineThreads;
+  }
+
+  /**
+   * Return the maximum number of secondary queries executing in parallel across all queries.
+   */
+  public int getQueryJoinMaxParallel() {
+    return queryJoinMaxParallel;
+  }
+
+  /**
+   * Set the maximum number of secondary queries (query joins) executing in parallel on
+   * background threads across all queries.
+   * <p>
+   * When set to a value greater than 0 a query with multiple query joins (FetchConfig.query())
+   * executes its secondary queries in parallel each with their own connection. This only
+   * applies to queries that are not executed in an explicit transaction and are not
+   * findEach / findIterate queries. This defaults to 0 which executes secondary queries
+   * one after another.
+   * </p>
+   *
+   * @see com.avaje.ebean.Query#setQueryJoinParallelism(int)
+   */
+  public void setQueryJoinMaxParallel(int queryJoinMaxParallel) {
+    this.queryJoinMaxParallel = queryJoinMaxParallel;
+  }
+
+  /**
+   * Return the default maximum number of secondary queries executed in parallel for a query.
+   */
+  public int getQueryJoinParallelism() {
+    return queryJoinParallelism;
+  }
+
+  /**
+   * Set the default maximum number of secondary queries executed in parallel for a query.
+   * <p>
+   * This can be set per query via {@link com.avaje.ebean.Query#setQueryJoinParallelism(int)}
+   * and only applies when {@link #setQueryJoinMaxParallel(int)} is set. This defaults to 4.
+   * </p>
+   */
+  public void setQueryJoinParallelism(int queryJoinParallelism) {
+    this.queryJoinParallelism = queryJoinParallelism;
+  }
+
+  /**
+   * Return the maximum number of query plans held per bean type.
+   */
+  public int getQueryPlanCacheMaxSize() {
+    return queryPlanCacheMaxSize;
+  }
+
+  /**
+   * Set the maximum number of query plans held per bean type.
+   * <p>
+   * When exceeded the least recently used query plans are evicted (along with
+   * their execution statistics). Set to 0 for no limit. This defaults to 1000.
+   * </p>
+   */
+  public void setQueryPlanCacheMaxSize(int queryPlanCacheMaxSize) {
+    this.queryPlanCacheMaxSize = queryPlanCacheMaxSize;
+  }
+
+  /**
+   * Return the maximum number of update plans held per bean type.
+   */
+  public int getUpdatePlanCacheMaxSize() {
+    return updatePlanCacheMaxSize;
+  }
+
+  /**
+   * Set the maximum number of update plans held per bean type.
+   * <p>
+   * With updateChangesOnly there is an update plan per combination of changed
+   * properties. When exceeded the least recently used update plans are evicted.
+   * Set to 0 for no limit. This defaults to 1000.
+   * </p>
+   */
+  public void setUpdatePlanCacheMaxSize(int updatePlanCacheMaxSize) {
+    this.updatePlanCacheMaxSize = updatePlanCacheMaxSize;
+  }
+
   /**
    * Return the ClassLoadConfig which is used to detect Joda, Java8 types etc and also
    * create new instances of plugins given a className.
@@ -2303,6 +2781,13 @@ public class ServerConfig {
     serverCachePlugin = createInstance(p, ServerCachePlugin.class, "serverCachePlugin", serverCachePlugin);
     serverCacheManager = createInstance(p, ServerCacheManager.class, "serverCacheManager", serverCacheManager);
     cacheWarmingDelay = p.getInt("cacheWarmingDelay", cacheWarmingDelay);
+    cacheWarmingFile = p.get("cacheWarmingFile", cacheWarmingFile);
+    cacheWarmingMaxIds = p.getInt("cacheWarmingMaxIds", cacheWarmingMaxIds);
+    cacheWarmingSnapshotSecs = p.getInt("cacheWarmingSnapshotSecs", cacheWarmingSnapshotSecs);
+    cacheLoadWaitMillis = p.getInt("cacheLoadWaitMillis", cacheLoadWaitMillis);
+    cacheNearMaxSize = p.getInt("cacheNearMaxSize", cacheNearMaxSize);
+    cacheNearMaxSecsToLive = p.getInt("cacheNearMaxSecsToLive", cacheNearMaxSecsToLive);
+    cacheEvictionMode = p.getEnum(ServerCacheEvictionMode.class, "cacheEvictionMode", cacheEvictionMode);
 
     if (packages != null) {
       String packagesProp = p.get("search.packages", p.get("packages", null));
@@ -2327,12 +2812,25 @@ public class ServerConfig {
 
     int batchSize = p.getInt("batch.size", persistBatchSize);
     persistBatchSize = p.getInt("persistBatchSize", batchSize);
+    persistBatchMultiRowInsert = p.getBoolean("persistBatchMultiRowInsert", persistBatchMultiRowInsert);
 
     persistenceContextScope = PersistenceContextScope.valueOf(p.get("persistenceContextScope", "TRANSACTION"));
+    persistenceContextConcurrent = p.getBoolean("persistenceContextConcurrent", persistenceContextConcurrent);
+    transactionPstmtCacheSize = p.getInt("transactionPstmtCacheSize", transactionPstmtCacheSize);
+    groupCommitMillis = p.getInt("groupCommitMillis", groupCommitMillis);
+    groupCommitMaxBeans = p.getInt("groupCommitMaxBeans", groupCommitMaxBeans);
+    postCommitQueueCapacity = p.getInt("postCommitQueueCapacity", postCommitQueueCapacity);
+    findEachPipelineQueueSize = p.getInt("findEachPipelineQueueSize", findEachPipelineQueueSize);
+    findEachPipelineThreads = p.getInt("findEachPipelineThreads", findEachPipelineThreads);
+    queryJoinMaxParallel = p.getInt("queryJoinMaxParallel", queryJoinMaxParallel);
+    queryJoinParallelism = p.getInt("queryJoinParallelism", queryJoinParallelism);
+    queryPlanCacheMaxSize = p.getInt("queryPlanCacheMaxSize", queryPlanCacheMaxSize);
+    updatePlanCacheMaxSize = p.getInt("updatePlanCacheMaxSize", updatePlanCacheMaxSize);
 
     changeLogIncludeInserts = p.getBoolean("changeLogIncludeInserts", changeLogIncludeInserts);
     expressionEqualsWithNullAsNoop = p.getBoolean("expressionEqualsWithNullAsNoop", expressionEqualsWithNullAsNoop);
     expressionNativeIlike = p.getBoolean("expressionNativeIlike", expressionNativeIlike);
+    expressionInPadding = p.getBoolean("expressionInPadding", expressionInPadding);
 
     dataTimeZone = p.get("dataTimeZone", dataTimeZone);
     asOfViewSuffix = p.get("asOfViewSuffix", asOfViewSuffix);
@@ -2485,6 +2983,30 @@ public class ServerConfig {
     this.expressionNativeIlike = expressionNativeIlike;
   }
 
+  /**
+   * Return true if the number of bind values used for IN expressions is padded (default false).
+   */
+  public boolean isExpressionInPadding() {
+    return expressionInPadding;
+  }
+
+  /**
+   * Set to true to pad the number of bind values used for IN expressions.
+   * <p>
+   * With padding the number of bind values is rounded up to one of 5, 10, 20, 50, 100, 200, 500
+   * or 1000 with the padded positions binding a repeat of the last value. This bounds the number
+   * of distinct query plans and SQL statements for IN expressions with differing numbers of values
+   * and improves the hit ratio of the query plan cache and the database statement cache.
+   * </p>
+   * <p>
+   * This changes the SQL generated for IN expressions with more than 5 values and defaults
+   * to false.
+   * </p>
+   */
+  public void setExpressionInPadding(boolean expressionInPadding) {
+    this.expressionInPadding = expressionInPadding;
+  }
+
   /**
    * Return true if L2 cache is disabled.
    */
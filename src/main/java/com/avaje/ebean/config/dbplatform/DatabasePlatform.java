@@ -161,6 +161,21 @@ public class DatabasePlatform {
    */
   protected boolean disallowBatchOnCascade;
 
+  /**
+   * The maximum number of bind parameters in a statement (0 for unknown).
+   */
+  protected int maxBindParameters;
+
+  /**
+   * Set to true if the DB supports multi-row insert (insert ... values (..),(..)).
+   */
+  protected boolean multiRowInsert;
+
+  /**
+   * Set to true if getGeneratedKeys returns the keys of all rows of a multi-row insert.
+   */
+  protected boolean multiRowInsertGeneratedKeys;
+
   protected PlatformDdl platformDdl;
 
   /**
@@ -517,6 +532,48 @@ public class DatabasePlatform {
     return selectCountWithAlias;
   }
 
+  /**
+   * Return the maximum number of bind parameters supported in a statement (0 for unknown).
+   */
+  public int getMaxBindParameters() {
+    return maxBindParameters;
+  }
+
+  /**
+   * Set the maximum number of bind parameters supported in a statement.
+   */
+  public void setMaxBindParameters(int maxBindParameters) {
+    this.maxBindParameters = maxBindParameters;
+  }
+
+  /**
+   * Return true if the DB supports multi-row insert statements.
+   * <p>
+   * Multi-row insert is used with JDBC batch when
+   * {@link ServerConfig#setPersistBatchMultiRowInsert(boolean)} is set and
+   * requires the max bind parameters to be known.
+   * </p>
+   */
+  public boolean isMultiRowInsert() {
+    return multiRowInsert && maxBindParameters > 0;
+  }
+
+  /**
+   * Set to true if the DB supports multi-row insert statements.
+   */
+  public void setMultiRowInsert(boolean multiRowInsert) {
+    this.multiRowInsert = multiRowInsert;
+  }
+
+  /**
+   * Return true if getGeneratedKeys returns the keys for all the rows of a multi-row
+   * insert (in insert order). When false multi-row insert is only used when the Id
+   * values are set prior to the insert (e.g. sequences or UUID).
+   */
+  public boolean isMultiRowInsertGeneratedKeys() {
+    return multiRowInsertGeneratedKeys;
+  }
+
   public String completeSql(String sql, Query<?> query) {
     if (Boolean.TRUE.equals(query.isForUpdate())) {
       sql = withForUpdate(sql);
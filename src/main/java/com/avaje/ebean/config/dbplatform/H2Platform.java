@@ -19,6 +19,11 @@ public class H2Platform extends DatabasePlatform {
     this.nativeUuidType = true;
     this.dbDefaultValue.setNow("now()");
 
+    // no hard limit on bind parameters but getGeneratedKeys only returns
+    // the last key so multi-row insert is used with SEQUENCE only
+    this.maxBindParameters = 32767;
+    this.multiRowInsert = true;
+
     // only support getGeneratedKeys with non-batch JDBC
     // so generally use SEQUENCE instead of IDENTITY for H2
     this.dbIdentity.setIdType(IdType.SEQUENCE);
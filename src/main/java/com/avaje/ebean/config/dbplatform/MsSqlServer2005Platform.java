@@ -24,6 +24,7 @@ public class MsSqlServer2005Platform extends DatabasePlatform {
     this.disallowBatchOnCascade = true;
     this.idInExpandedForm = true;
     this.selectCountWithAlias = true;
+    this.maxBindParameters = 2100;
     this.sqlLimiter = new MsSqlServer2005SqlLimiter();
     this.platformDdl = new MsSqlServerDdl(this);
     this.dbIdentity.setIdType(IdType.IDENTITY);
@@ -24,6 +24,9 @@ public class MySqlPlatform extends DatabasePlatform {
     this.useExtraTransactionOnIterateSecondaryQueries = true;
     this.likeClause = "like ? escape''";
     this.selectCountWithAlias = true;
+    this.maxBindParameters = 65535;
+    this.multiRowInsert = true;
+    this.multiRowInsertGeneratedKeys = true;
     this.dbEncrypt = new MySqlDbEncrypt();
     this.platformDdl = new MySqlDdl(this);
     this.historySupport = new MySqlHistorySupport();
@@ -26,6 +26,9 @@ public class PostgresPlatform extends DatabasePlatform {
     this.blobDbType = Types.LONGVARBINARY;
     this.clobDbType = Types.VARCHAR;
     this.nativeUuidType = true;
+    this.maxBindParameters = 32767;
+    this.multiRowInsert = true;
+    this.multiRowInsertGeneratedKeys = true;
 
     this.dbEncrypt = new PostgresDbEncrypt();
     this.historySupport = new PostgresHistorySupport();
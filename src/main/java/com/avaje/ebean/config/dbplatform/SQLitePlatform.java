@@ -10,6 +10,8 @@ public class SQLitePlatform extends DatabasePlatform {
     super();
     this.name = "sqlite";
     this.platformDdl = new SQLiteDdl(this);
+    this.maxBindParameters = 999;
+    this.multiRowInsert = true;
 
     this.dbIdentity.setIdType(IdType.IDENTITY);
     this.dbIdentity.setSupportsGetGeneratedKeys(false);
@@ -0,0 +1,108 @@
+package com.avaje.ebean.config.dbplatform;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free buffer of sequence values used by SequenceIdGenerator.
+ * <p>
+ * The values are held as blocks (one block per load from the database) and threads
+ * take values from the head block by incrementing its index. Taking a value does
+ * not take a lock and updates no other shared state. The number of values available
+ * and taken are derived from the blocks.
+ * </p>
+ */
+final class SequenceIdBuffer {
+
+  private final ConcurrentLinkedQueue<Block> blocks = new ConcurrentLinkedQueue<Block>();
+
+  /**
+   * The number of values taken from blocks that have been removed.
+   */
+  private final AtomicLong removedTaken = new AtomicLong();
+
+  /**
+   * The total number of values added.
+   */
+  private final AtomicLong added = new AtomicLong();
+
+  /**
+   * Add the values to the end of the buffer.
+   */
+  void add(List<Long> ids) {
+    if (!ids.isEmpty()) {
+      blocks.add(new Block(ids.toArray(new Long[ids.size()])));
+      added.addAndGet(ids.size());
+    }
+  }
+
+  /**
+   * Take the next value returning null when the buffer is empty.
+   */
+  Long take() {
+    Block block;
+    while ((block = blocks.peek()) != null) {
+      int index = block.next.getAndIncrement();
+      if (index < block.ids.length) {
+        return block.ids[index];
+      }
+      // exhausted so remove it (if not already removed by another thread)
+      if (blocks.remove(block)) {
+        removedTaken.addAndGet(block.ids.length);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the number of values available (approximate while values are being taken).
+   */
+  long available() {
+    long available = 0;
+    for (Block block : blocks) {
+      available += block.ids.length - block.taken();
+    }
+    return available;
+  }
+
+  /**
+   * Return the total number of values taken (approximate while values are being taken).
+   */
+  long taken() {
+    long taken = removedTaken.get();
+    for (Block block : blocks) {
+      taken += block.taken();
+    }
+    return taken;
+  }
+
+  /**
+   * Return the total number of values added.
+   */
+  long added() {
+    return added.get();
+  }
+
+  /**
+   * A block of values loaded together.
+   */
+  private static final class Block {
+
+    private final Long[] ids;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    Block(Long[] ids) {
+      this.ids = ids;
+    }
+
+    /**
+     * Return the number of values taken from this block.
+     */
+    int taken() {
+      return Math.min(next.get(), ids.length);
+    }
+  }
+}
@@ -5,6 +5,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.PersistenceException;
 import javax.sql.DataSource;
@@ -16,19 +19,42 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Database sequence based IdGenerator.
+ * <p>
+ * Sequence values are loaded in batches and held in a lock free buffer such that
+ * nextId() does not contend when many threads are inserting. The
+ * batch size adapts to the rate the values are used, growing from the configured
+ * batch size (up to a multiple of it) such that a busy sequence is loaded about
+ * twice a second.
+ * </p>
  */
 public abstract class SequenceIdGenerator implements PlatformIdGenerator {
 
   private static final Logger logger = LoggerFactory.getLogger(SequenceIdGenerator.class);
 
   /**
-   * Used to synchronise the idList access.
+   * The maximum batch size as a multiple of the configured batch size.
+   */
+  private static final int MAX_BATCH_FACTOR = 100;
+
+  /**
+   * The target time between background loads used to size the batch.
+   */
+  private static final long TARGET_LOAD_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  /**
+   * The maximum number of values loaded by a single query when pre-allocating.
+   */
+  private static final int MAX_LOAD_SIZE = 10000;
+
+  /**
+   * Used to synchronise the loading when the buffer is empty.
    */
   protected final Object monitor = new Object();
 
   /**
-   * Used to synchronise background loading (loadBatchInBackground).
+   * Deprecated and no longer used, background loading is guarded by a flag.
    */
+  @Deprecated
   protected final Object backgroundLoadMonitor = new Object();
 
   /**
@@ -40,12 +66,58 @@ public abstract class SequenceIdGenerator implements PlatformIdGenerator {
 
   protected final BackgroundExecutor backgroundExecutor;
 
-  protected final ArrayList<Long> idList = new ArrayList<Long>(50);
+  /**
+   * Deprecated and no longer used, the loaded values are held in a lock free buffer.
+   */
+  @Deprecated
+  protected final ArrayList<Long> idList = new ArrayList<Long>(0);
 
+  /**
+   * The configured (and minimum) batch size.
+   */
   protected final int batchSize;
 
+  /**
+   * Deprecated and no longer used, background loading is guarded by a flag.
+   */
+  @Deprecated
   protected int currentlyBackgroundLoading;
 
+  /**
+   * The maximum batch size the adaptive sizing can grow to.
+   */
+  protected final int maxBatchSize;
+
+  /**
+   * The loaded values not yet used.
+   */
+  private final SequenceIdBuffer buffer = new SequenceIdBuffer();
+
+  /**
+   * Set while a background load is in progress.
+   */
+  private final AtomicBoolean backgroundLoading = new AtomicBoolean();
+
+  /**
+   * The number of values requested by preAllocateIds not yet loaded.
+   */
+  private final AtomicInteger pendingAllocation = new AtomicInteger();
+
+  /**
+   * The current batch size (adapted to the rate values are used).
+   */
+  private volatile int currentBatchSize;
+
+  /**
+   * The number of values taken at the last background load.
+   */
+  private long lastLoadTaken;
+
+  /**
+   * The time of the last background load.
+   */
+  private long lastLoadNanos;
+
   /**
    * Construct given a dataSource and sql to return the next sequence value.
    */
@@ -54,6 +126,9 @@ public abstract class SequenceIdGenerator implements PlatformIdGenerator {
     this.dataSource = ds;
     this.seqName = seqName;
     this.batchSize = batchSize;
+    this.maxBatchSize = (batchSize > 1) ? batchSize * MAX_BATCH_FACTOR : batchSize;
+    this.currentBatchSize = batchSize;
+    this.lastLoadNanos = System.nanoTime();
   }
 
   public abstract String getSql(int batchSize);
@@ -73,21 +148,28 @@ public abstract class SequenceIdGenerator implements PlatformIdGenerator {
   }
 
   /**
-   * If allocateSize is large load some sequences in a background thread.
+   * Return the current batch size (which adapts to the rate values are used).
+   */
+  public int getCurrentBatchSize() {
+    return currentBatchSize;
+  }
+
+  /**
+   * If allocateSize is large load the sequence values in a background thread.
    * <p>
    * For example, when inserting a bean with a cascade on a OneToMany with many
-   * beans Ebean can call this to ensure .
+   * beans or inserting a collection of beans Ebean calls this to load the values
+   * ahead of the inserts. The values not already available are loaded (in queries
+   * of at most 10,000 values each).
    * </p>
    */
   public void preAllocateIds(int allocateSize) {
     if (batchSize > 1 && allocateSize > batchSize) {
-      // only bother if allocateSize is bigger than
-      // the normal loading batchSize
-      if (allocateSize > 100) {
-        // max out at 100 for now
-        allocateSize = 100;
+      // only bother if allocateSize is bigger than the normal loading batchSize
+      long required = allocateSize - buffer.available() - pendingAllocation.get();
+      if (required > batchSize) {
+        loadLargeAllocation((int) required);
       }
-      loadLargeAllocation(allocateSize);
     }
   }
 
@@ -96,11 +178,20 @@ public abstract class SequenceIdGenerator implements PlatformIdGenerator {
    * to be needed shortly.
    */
   protected void loadLargeAllocation(final int allocateSize) {
-    // preAllocateIds was called with a relatively large batchSize
-    // so we will just go ahead and load those anyway in background
+    pendingAllocation.addAndGet(allocateSize);
     backgroundExecutor.execute(new Runnable() {
       public void run() {
-        loadMoreIds(allocateSize, null);
+        int remaining = allocateSize;
+        try {
+          while (remaining > 0) {
+            int loadSize = Math.min(remaining, MAX_LOAD_SIZE);
+            loadMoreIds(loadSize, null);
+            remaining -= loadSize;
+            pendingAllocation.addAndGet(-loadSize);
+          }
+        } finally {
+          pendingAllocation.addAndGet(-remaining);
+        }
       }
     });
   }
@@ -112,20 +203,34 @@ public abstract class SequenceIdGenerator implements PlatformIdGenerator {
    * </p>
    */
   public Object nextId(Transaction t) {
-    synchronized (monitor) {
 
-      if (idList.size() == 0) {
-        loadMoreIds(batchSize, t);
-      }
-      Long nextId = idList.remove(0);
+    Long nextId = buffer.take();
+    if (nextId == null) {
+      nextId = loadAndTake(t);
+    }
+    if (batchSize > 1 && buffer.available() <= currentBatchSize / 2) {
+      loadBatchInBackground();
+    }
+    return nextId;
+  }
 
-      if (batchSize > 1) {
-        if (idList.size() <= batchSize / 2) {
-          loadBatchInBackground();
+  /**
+   * Load more values in this thread (the buffer is empty).
+   */
+  private Long loadAndTake(Transaction t) {
+    synchronized (monitor) {
+      while (true) {
+        // another thread may have loaded while we waited
+        Long nextId = buffer.take();
+        if (nextId != null) {
+          return nextId;
+        }
+        long added = buffer.added();
+        loadMoreIds(currentBatchSize, t);
+        if (buffer.added() == added) {
+          throw new PersistenceException("No values returned for sequence " + seqName);
         }
       }
-
-      return nextId;
     }
   }
 
@@ -134,41 +239,60 @@ public abstract class SequenceIdGenerator implements PlatformIdGenerator {
    */
   protected void loadBatchInBackground() {
 
-    // single threaded processing...
-    synchronized (backgroundLoadMonitor) {
-
-      if (currentlyBackgroundLoading > 0) {
-        // skip as already background loading
-        logger.debug("... skip background sequence load (another load in progress)");
-        return;
-      }
-
-      currentlyBackgroundLoading = batchSize;
-
+    if (!backgroundLoading.compareAndSet(false, true)) {
+      // skip as already background loading
+      return;
+    }
+    final int loadSize = adaptBatchSize();
+    try {
       backgroundExecutor.execute(new Runnable() {
         public void run() {
-          loadMoreIds(batchSize, null);
-          synchronized (backgroundLoadMonitor) {
-            currentlyBackgroundLoading = 0;
+          try {
+            loadMoreIds(loadSize, null);
+          } finally {
+            backgroundLoading.set(false);
           }
         }
       });
+    } catch (RuntimeException e) {
+      backgroundLoading.set(false);
+      throw e;
     }
   }
 
+  /**
+   * Adjust the batch size based on the rate the values have been used since the last
+   * background load. Called by the single thread that triggers the background load.
+   */
+  private int adaptBatchSize() {
+
+    long now = System.nanoTime();
+    long taken = buffer.taken();
+    long elapsed = now - lastLoadNanos;
+    long used = taken - lastLoadTaken;
+    lastLoadNanos = now;
+    lastLoadTaken = taken;
+
+    if (elapsed > 0 && used > 0) {
+      // the number of values used in the target time at the measured rate
+      long target = used * TARGET_LOAD_NANOS / elapsed;
+      long size = (currentBatchSize + target) / 2;
+      currentBatchSize = (int) Math.max(batchSize, Math.min(maxBatchSize, size));
+    }
+    return currentBatchSize;
+  }
+
+  /**
+   * Load the values into the buffer.
+   */
   protected void loadMoreIds(final int numberToLoad, Transaction t) {
 
     ArrayList<Long> newIds = getMoreIds(numberToLoad, t);
 
     if (logger.isDebugEnabled()) {
-      logger.debug("... seq:" + seqName + " loaded:" + numberToLoad + " ids:" + newIds);
-    }
-
-    synchronized (monitor) {
-      for (int i = 0; i < newIds.size(); i++) {
-        idList.add(newIds.get(i));
-      }
+      logger.debug("... seq:" + seqName + " loaded:" + newIds.size() + " of:" + numberToLoad);
     }
+    buffer.add(newIds);
   }
 
   /**
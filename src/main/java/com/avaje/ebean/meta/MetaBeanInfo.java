@@ -14,4 +14,14 @@ public interface MetaBeanInfo {
    */  
   List<MetaQueryPlanStatistic> collectAllQueryPlanStatistics(boolean reset);
 
+  /**
+   * Collect the statistics of the query plan and update plan caches.
+   */
+  List<MetaPlanCacheStatistic> collectPlanCacheStatistics(boolean reset);
+
+  /**
+   * Collect the execution time statistics for insert, update, delete and L2 cache loading.
+   */
+  List<MetaTimedStatistic> collectTimedStatistics(boolean reset);
+
 }
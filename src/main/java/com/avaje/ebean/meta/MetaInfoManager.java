@@ -26,6 +26,31 @@ public interface MetaInfoManager {
    */
   List<MetaQueryPlanStatistic> collectQueryPlanStatistics(boolean reset);
 
+  /**
+   * Collect and return the query plan and update plan cache statistics for all the beans.
+   * <p>
+   * These show the hit, miss and eviction counts of the plan caches. A high
+   * eviction count indicates the plan cache max size is too small for the number
+   * of distinct queries (or changed property combinations) in use.
+   * </p>
+   *
+   * @param reset Set to true to reset the hit, miss and eviction counts after collection.
+   * @see com.avaje.ebean.config.ServerConfig#setQueryPlanCacheMaxSize(int)
+   */
+  List<MetaPlanCacheStatistic> collectPlanCacheStatistics(boolean reset);
+
+  /**
+   * Collect and return the execution time statistics of insert, update, delete
+   * and loading beans from the L2 cache for all the beans.
+   * <p>
+   * Note that this excludes the statistics where there has been no executions
+   * (since the last collection with reset).
+   * </p>
+   *
+   * @param reset Set to true to reset the underlying statistics after collection.
+   */
+  List<MetaTimedStatistic> collectTimedStatistics(boolean reset);
+
   /**
    * Collect and return the ObjectGraphNode statistics.
    * <p>
@@ -0,0 +1,45 @@
+package com.avaje.ebean.meta;
+
+/**
+ * Statistics of a bean type's query plan or update plan cache.
+ *
+ * @see MetaInfoManager#collectPlanCacheStatistics(boolean)
+ */
+public interface MetaPlanCacheStatistic {
+
+  /**
+   * Return the bean type the plans are for.
+   */
+  Class<?> getBeanType();
+
+  /**
+   * Return the name of the plan cache ("query" or "update").
+   */
+  String getName();
+
+  /**
+   * Return the maximum number of plans held (0 for unbounded).
+   */
+  int getMaxSize();
+
+  /**
+   * Return the number of plans held.
+   */
+  int getSize();
+
+  /**
+   * Return the number of times a plan was found in the cache.
+   */
+  long getHitCount();
+
+  /**
+   * Return the number of times a plan was not found in the cache (and built).
+   */
+  long getMissCount();
+
+  /**
+   * Return the number of plans evicted to keep the cache within its maximum size.
+   */
+  long getEvictionCount();
+
+}
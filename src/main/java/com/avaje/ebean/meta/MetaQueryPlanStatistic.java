@@ -70,6 +70,15 @@ public interface MetaQueryPlanStatistic {
    */
   long getAvgTimeMicros();
 
+  /**
+   * Return the query execution time in microseconds at the given percentile (0 to 100).
+   * <p>
+   * For example, use 95 or 99 to return the 95th or 99th percentile execution time.
+   * The value has a relative error of at most 6.25%.
+   * </p>
+   */
+  long getPercentileTimeMicros(double percentile);
+
   /**
    * Return the average number of bean loaded per query.
    * <p>
@@ -0,0 +1,55 @@
+package com.avaje.ebean.meta;
+
+/**
+ * Execution time statistics for a bean type and operation such as insert,
+ * update, delete and loading beans from the L2 cache.
+ *
+ * @see MetaInfoManager#collectTimedStatistics(boolean)
+ */
+public interface MetaTimedStatistic {
+
+  /**
+   * Return the bean type.
+   */
+  Class<?> getBeanType();
+
+  /**
+   * Return the name of the operation (insert, update, delete or cacheLoad).
+   */
+  String getName();
+
+  /**
+   * Return the number of executions.
+   */
+  long getCount();
+
+  /**
+   * Return the total execution time in microseconds.
+   */
+  long getTotalTimeMicros();
+
+  /**
+   * Return the max execution time in microseconds.
+   */
+  long getMaxTimeMicros();
+
+  /**
+   * Return the mean execution time in microseconds.
+   */
+  long getMeanTimeMicros();
+
+  /**
+   * Return the execution time in microseconds at the given percentile (0 to 100).
+   * <p>
+   * For example, use 99 to return the 99th percentile execution time. The value
+   * has a relative error of at most 6.25%.
+   * </p>
+   */
+  long getPercentileTimeMicros(double percentile);
+
+  /**
+   * Return the time collection started (or was last reset).
+   */
+  long getCollectionStart();
+
+}
@@ -0,0 +1,61 @@
+package com.avaje.ebean.text.csv;
+
+import com.avaje.ebean.EbeanServer;
+
+/**
+ * A CsvCallback that supports processing the rows in parallel.
+ * <p>
+ * When {@link CsvReader#setParallelism(int)} is greater than 1 and the callback
+ * implements this interface the rows are converted and saved in chunks by worker
+ * threads. {@link #processLine(int, String[])} is called for each row but
+ * {@link #processBean(int, String[], Object)} is NOT called as the workers save
+ * the beans themselves (each chunk using its own transaction).
+ * </p>
+ * <p>
+ * Each chunk commits independently so chunks can commit in any order. The
+ * committed row ranges are passed to {@link #committed(int, int, int)} such that
+ * after a failure the caller knows exactly which rows were committed.
+ * </p>
+ *
+ * @param <T> the type of bean being loaded
+ */
+public interface CsvParallelCallback<T> extends CsvCallback<T> {
+
+  /**
+   * The parallel processing is about to begin.
+   * <p>
+   * This is called instead of {@link #begin(EbeanServer)} and should not create
+   * a transaction.
+   * </p>
+   */
+  void beginParallel(EbeanServer server);
+
+  /**
+   * Return the JDBC batch size used when saving the beans of a chunk.
+   */
+  int getPersistBatchSize();
+
+  /**
+   * A chunk of rows has been saved and committed.
+   *
+   * @param fromRow  the first row of the chunk
+   * @param toRow    the last row of the chunk (inclusive)
+   * @param rowCount the number of beans saved (rows ignored by processLine are not included)
+   */
+  void committed(int fromRow, int toRow, int rowCount);
+
+  /**
+   * Return the number of beans processed so far.
+   */
+  long getRowCount();
+
+  /**
+   * Return the execution time in millis (the time elapsed so far when processing has not ended).
+   */
+  long getExeMillis();
+
+  /**
+   * Return the throughput as the number of beans processed per second.
+   */
+  long getRowsPerSecond();
+}
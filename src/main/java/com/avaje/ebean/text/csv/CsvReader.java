@@ -1,5 +1,6 @@
 package com.avaje.ebean.text.csv;
 
+import java.io.File;
 import java.io.Reader;
 import java.util.Locale;
 
@@ -112,6 +113,30 @@ public interface CsvReader<T> {
    */
   void setLogInfoFrequency(int logInfoFrequency);
 
+  /**
+   * Set the number of threads used to convert and save the rows when using
+   * {@link #process(Reader)} or {@link #process(File)}.
+   * <p>
+   * The default is 1 which processes all the rows on the calling thread in a
+   * single transaction. With a parallelism greater than 1 the rows are read in
+   * chunks and each chunk is converted into beans and saved by a worker thread
+   * using its own transaction (and connection). Each chunk transaction is
+   * committed as soon as the chunk is saved so the import as a whole is NOT
+   * atomic and chunks can commit in any order. If a chunk fails no further
+   * chunks are started and the chunks that have already committed remain
+   * committed. The committed row ranges are logged and passed to
+   * {@link CsvParallelCallback#committed(int, int, int)}.
+   * </p>
+   * <p>
+   * Parallel processing is also used when processing with a callback that
+   * implements {@link CsvParallelCallback} (such as {@link DefaultCsvCallback}).
+   * Its processLine() is called for each row and getRowCount(), getExeMillis()
+   * and getRowsPerSecond() return the throughput of the parallel processing.
+   * Parallel processing is not used with other CsvCallback implementations.
+   * </p>
+   */
+  void setParallelism(int parallelism);
+
   /**
    * Ignore the next column of data.
    */
@@ -170,4 +195,23 @@ public interface CsvReader<T> {
    */
   void process(Reader reader, CsvCallback<T> callback) throws Exception;
 
+  /**
+   * Process the CSV content of a UTF-8 encoded file.
+   * <p>
+   * The file is read by memory mapping it which suits large files. Otherwise
+   * this is the same as {@link #process(Reader)}.
+   * </p>
+   */
+  void process(File file) throws Exception;
+
+  /**
+   * Process the CSV content of a UTF-8 encoded file passing the bean to the
+   * CsvCallback after each row.
+   * <p>
+   * The file is read by memory mapping it which suits large files. Otherwise
+   * this is the same as {@link #process(Reader, CsvCallback)}.
+   * </p>
+   */
+  void process(File file, CsvCallback<T> callback) throws Exception;
+
 }
\ No newline at end of file
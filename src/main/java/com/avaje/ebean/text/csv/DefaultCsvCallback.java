@@ -15,12 +15,17 @@ import org.slf4j.LoggerFactory;
  * For customising the processing you can extend this object and override the
  * appropriate methods.
  * </p>
+ * <p>
+ * This supports parallel processing (see {@link CsvReader#setParallelism(int)})
+ * in which case processBean() is not called. A subclass that overrides
+ * processBean() should not be used with a parallelism greater than 1.
+ * </p>
  * 
  * @author rob
  * 
  * @param <T>
  */
-public class DefaultCsvCallback<T> implements CsvCallback<T> {
+public class DefaultCsvCallback<T> implements CsvParallelCallback<T> {
 
   private static final Logger logger = LoggerFactory.getLogger(DefaultCsvCallback.class);
 
@@ -59,6 +64,11 @@ public class DefaultCsvCallback<T> implements CsvCallback<T> {
    */
   protected long exeTime;
 
+  /**
+   * The number of beans processed.
+   */
+  protected volatile long rowCount;
+
   /**
    * Construct with a default batch size of 30 and logging info messages every
    * 1000 rows.
@@ -86,6 +96,18 @@ public class DefaultCsvCallback<T> implements CsvCallback<T> {
     initTransactionIfRequired();
   }
 
+  /**
+   * Start processing in parallel (see {@link CsvReader#setParallelism(int)}).
+   * <p>
+   * This does not create a transaction as each chunk of rows is saved by a
+   * worker thread using its own transaction.
+   * </p>
+   */
+  public void beginParallel(EbeanServer server) {
+    this.server = server;
+    this.startTime = System.currentTimeMillis();
+  }
+
   /**
    * Override to read the heading line.
    * <p>
@@ -130,9 +152,10 @@ public class DefaultCsvCallback<T> implements CsvCallback<T> {
     // assumes single bean or Cascade.PERSIST will save any
     // related beans (e.g. customer -> customer.billingAddress
     server.save(bean, transaction);
+    rowCount++;
 
     if (logInfoFrequency > 0 && (row % logInfoFrequency == 0)) {
-      logger.info("processed " + row + " rows");
+      logger.info("processed " + row + " rows, rowsPerSecond[" + getRowsPerSecond() + "]");
     }
   }
 
@@ -144,7 +167,7 @@ public class DefaultCsvCallback<T> implements CsvCallback<T> {
     commitTransactionIfCreated();
 
     exeTime = System.currentTimeMillis() - startTime;
-    logger.info("Csv finished, rows[" + row + "] exeMillis[" + exeTime + "]");
+    logger.info("Csv finished, rows[" + row + "] exeMillis[" + exeTime + "] rowsPerSecond[" + getRowsPerSecond() + "]");
   }
 
   /**
@@ -154,6 +177,54 @@ public class DefaultCsvCallback<T> implements CsvCallback<T> {
     rollbackTransactionIfCreated(e);
   }
 
+  /**
+   * A chunk of rows has been saved and committed by a worker when processing in
+   * parallel.
+   */
+  public synchronized void committed(int fromRow, int toRow, int rows) {
+    long before = rowCount;
+    rowCount += rows;
+    if (logInfoFrequency > 0 && (rowCount / logInfoFrequency) > (before / logInfoFrequency)) {
+      logger.info("processed " + rowCount + " rows, rowsPerSecond[" + getRowsPerSecond() + "]");
+    }
+  }
+
+  /**
+   * Return the batch size used when saving the beans.
+   */
+  public int getPersistBatchSize() {
+    return persistBatchSize;
+  }
+
+  /**
+   * Return the number of beans processed so far.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Return the execution time in millis.
+   * <p>
+   * This is the total time once processing has ended and otherwise the time
+   * elapsed so far.
+   * </p>
+   */
+  public long getExeMillis() {
+    if (exeTime > 0) {
+      return exeTime;
+    }
+    return startTime == 0 ? 0 : System.currentTimeMillis() - startTime;
+  }
+
+  /**
+   * Return the throughput as the number of beans processed per second.
+   */
+  public long getRowsPerSecond() {
+    long millis = getExeMillis();
+    return millis <= 0 ? rowCount : rowCount * 1000 / millis;
+  }
+
   /**
    * Create a transaction if one is not already active and set its batch mode
    * and batch size.
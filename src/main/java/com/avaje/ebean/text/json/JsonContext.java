@@ -1,6 +1,8 @@
 package com.avaje.ebean.text.json;
 
 import com.avaje.ebean.FetchPath;
+import com.avaje.ebean.QueryEachConsumer;
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.plugin.BeanType;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -120,6 +122,58 @@ public interface JsonContext {
    */
   <T> List<T> toList(Class<T> cls, JsonParser json, JsonReadOptions options) throws JsonIOException;
 
+  /**
+   * Read the json array of beans one bean at a time passing each bean to the consumer.
+   * <p>
+   * Unlike toList() the beans are not held in a list such that a large json array
+   * can be processed with constant memory. Beans with the same id are only
+   * de-duplicated within a chunk of the persist batch size (unless a persistence
+   * context is provided via JsonReadOptions).
+   * </p>
+   *
+   * @throws JsonIOException When IOException occurs
+   */
+  <T> void toEach(Class<T> cls, Reader json, QueryEachConsumer<T> consumer) throws JsonIOException;
+
+  /**
+   * Read the json array of beans one bean at a time passing each bean to the consumer
+   * additionally using JsonReadOptions.
+   *
+   * @throws JsonIOException When IOException occurs
+   */
+  <T> void toEach(Class<T> cls, JsonParser json, JsonReadOptions options, QueryEachConsumer<T> consumer) throws JsonIOException;
+
+  /**
+   * Read the json array of beans inserting them in batches via insertAll() returning
+   * the number of beans inserted.
+   * <p>
+   * The beans are inserted in chunks of the persist batch size in a single transaction
+   * that is committed at the end.
+   * </p>
+   * <pre>{@code
+   *
+   *   Reader reader = new InputStreamReader(new FileInputStream("customers.json"), "UTF-8");
+   *   int count = server.json().insertAll(Customer.class, reader);
+   *
+   * }</pre>
+   *
+   * @throws JsonIOException When IOException occurs
+   */
+  <T> int insertAll(Class<T> cls, Reader json) throws JsonIOException;
+
+  /**
+   * Read the json array of beans inserting them in batches of the given size via insertAll().
+   * <p>
+   * When a transaction is passed the inserts use that transaction (and it is not committed)
+   * otherwise a transaction is created and committed at the end.
+   * </p>
+   *
+   * @param batchSize   the number of beans per insertAll() (0 for the persist batch size)
+   * @param transaction the transaction to use (can be null)
+   * @throws JsonIOException When IOException occurs
+   */
+  <T> int insertAll(Class<T> cls, JsonParser json, JsonReadOptions options, int batchSize, Transaction transaction) throws JsonIOException;
+
   /**
    * Use the genericType to determine if this should be converted into a List or
    * bean.
@@ -1,6 +1,7 @@
 package com.avaje.ebeaninternal.api;
 
 import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
@@ -32,18 +33,18 @@ public class LoadManyRequest extends LoadRequest {
    * Construct for lazy loading.
    */
   public LoadManyRequest(LoadManyBuffer loadContext, boolean onlyIds, boolean loadCache) {
-    this(loadContext, null, true, onlyIds, loadCache);
+    this(loadContext, null, null, true, onlyIds, loadCache);
   }
 
   /**
    * Construct for secondary query.
    */
-  public LoadManyRequest(LoadManyBuffer loadContext, OrmQueryRequest<?> parentRequest) {
-    this(loadContext, parentRequest, false, false, false);
+  public LoadManyRequest(LoadManyBuffer loadContext, OrmQueryRequest<?> parentRequest, Transaction transaction) {
+    this(loadContext, parentRequest, transaction, false, false, false);
   }
 
-  private LoadManyRequest(LoadManyBuffer loadContext, OrmQueryRequest<?> parentRequest,  boolean lazy, boolean onlyIds, boolean loadCache) {
-    super(parentRequest, lazy);
+  private LoadManyRequest(LoadManyBuffer loadContext, OrmQueryRequest<?> parentRequest, Transaction transaction, boolean lazy, boolean onlyIds, boolean loadCache) {
+    super(parentRequest, transaction, lazy);
     this.loadContext = loadContext;
     this.batch = loadContext.getBatch();
     this.onlyIds = onlyIds;
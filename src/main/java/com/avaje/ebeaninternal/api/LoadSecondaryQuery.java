@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.api;
 
+import com.avaje.ebean.Transaction;
 import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
 
 /**
@@ -13,6 +14,10 @@ public interface LoadSecondaryQuery {
 
 	/**
 	 * Execute the secondary query with a given batch size.
+	 *
+	 * @param parentRequest the parent query request
+	 * @param transaction   the transaction to execute the secondary query with
+	 * @param forEach       true when the parent query is a findEach / findIterate query
 	 */
-	void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, boolean forEach);
+	void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, Transaction transaction, boolean forEach);
 }
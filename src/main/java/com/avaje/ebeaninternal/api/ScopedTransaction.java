@@ -9,6 +9,7 @@ import com.avaje.ebean.event.changelog.ChangeSet;
 import com.avaje.ebeaninternal.server.core.PersistRequest;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.persist.BatchControl;
+import com.avaje.ebeaninternal.server.transaction.PstmtCache;
 
 import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
@@ -310,6 +311,11 @@ public class ScopedTransaction implements SpiTransaction {
     return transaction.getBatchControl();
   }
 
+  @Override
+  public PstmtCache getPstmtCache() {
+    return transaction.getPstmtCache();
+  }
+
   @Override
   public void setBatchControl(BatchControl control) {
     transaction.setBatchControl(control);
@@ -2,11 +2,18 @@ package com.avaje.ebeaninternal.api;
 
 import com.avaje.ebean.BackgroundExecutor;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Internal Extension to BackgroundExecutor with shutdown.
  */
 public interface SpiBackgroundExecutor extends BackgroundExecutor {
 
+  /**
+   * Execute a task once in a background thread after the given delay.
+   */
+  void executeLater(Runnable r, long delay, TimeUnit unit);
+
 	/**
 	 * Shutdown any associated thread pools.
 	 */
@@ -9,11 +9,13 @@ import com.avaje.ebean.bean.BeanCollectionLoader;
 import com.avaje.ebean.bean.BeanLoader;
 import com.avaje.ebean.bean.CallStack;
 import com.avaje.ebean.bean.ObjectGraphNode;
+import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebean.config.ServerConfig;
 import com.avaje.ebean.config.dbplatform.DatabasePlatform;
 import com.avaje.ebean.event.readaudit.ReadAuditLogger;
 import com.avaje.ebean.event.readaudit.ReadAuditPrepare;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.loadcontext.SecondaryQueryExecutor;
 import com.avaje.ebeaninternal.server.query.CQuery;
 import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
 import com.avaje.ebeaninternal.server.core.timezone.DataTimeZone;
@@ -64,6 +66,16 @@ public interface SpiEbeanServer extends EbeanServer, BeanLoader, BeanCollectionL
    */
   PersistenceContextScope getPersistenceContextScope(SpiQuery<?> query);
 
+  /**
+   * Create a new PersistenceContext (default or concurrent implementation based on configuration).
+   */
+  PersistenceContext createPersistenceContext();
+
+  /**
+   * Return the executor used to execute secondary queries in parallel (null when not enabled).
+   */
+  SecondaryQueryExecutor getSecondaryQueryExecutor();
+
   /**
    * Clear the query execution statistics.
    */
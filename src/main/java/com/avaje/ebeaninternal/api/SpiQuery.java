@@ -161,6 +161,11 @@ public interface SpiQuery<T> extends Query<T> {
    */
   int getLazyLoadBatchSize();
 
+  /**
+   * Return the maximum number of secondary queries to execute in parallel (0 for the default).
+   */
+  int getQueryJoinParallelism();
+
   /**
    * Return true if select all properties was used to ensure the property
    * invoking a lazy load was included in the query.
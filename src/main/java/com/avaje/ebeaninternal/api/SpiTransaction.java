@@ -8,6 +8,7 @@ import com.avaje.ebean.event.changelog.ChangeSet;
 import com.avaje.ebeaninternal.server.core.PersistRequest;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.persist.BatchControl;
+import com.avaje.ebeaninternal.server.transaction.PstmtCache;
 
 import java.sql.Connection;
 import java.util.List;
@@ -181,6 +182,11 @@ public interface SpiTransaction extends Transaction {
    */
   BatchControl getBatchControl();
 
+  /**
+   * Return the cache of PreparedStatements for this transaction or null if statements are not cached.
+   */
+  PstmtCache getPstmtCache();
+
   /**
    * Set the BatchControl used to batch up persist requests. There should only be one
    * PersistQueue set per transaction.
@@ -53,6 +53,24 @@ public class CacheChangeSet {
     return viewInvalidation;
   }
 
+  /**
+   * Add the changes of a later change set such that the changes of many transactions are
+   * applied together.
+   * <p>
+   * The bean changes are applied in order. Query cache clears and view invalidations are
+   * only applied once. For a many property a clear or remove in either change set wins
+   * over a put such that the merged changes never leave stale entries in the cache.
+   * </p>
+   */
+  public void merge(CacheChangeSet other) {
+    queryCaches.addAll(other.queryCaches);
+    entries.addAll(other.entries);
+    for (ManyChange otherChange : other.manyChangeMap.values()) {
+      many(otherChange.key).merge(otherChange);
+    }
+    viewInvalidation.addAll(other.viewInvalidation);
+  }
+
   /**
    * Add an entry to clear a query cache.
    */
@@ -103,7 +121,7 @@ public class CacheChangeSet {
   /**
    * Update a bean entry.
    */
-  public <T> void addBeanUpdate(BeanDescriptor<T> desc, Object id, Map<String, Object> changes, boolean updateNaturalKey, long version) {
+  public <T> void addBeanUpdate(BeanDescriptor<T> desc, Object id, CachedBeanData changes, boolean updateNaturalKey, long version) {
     entries.add(new CacheChangeBeanUpdate(desc, id, changes, updateNaturalKey, version));
     if (viewEntityInvalidation) {
       viewInvalidation.add(desc.getBaseTable());
@@ -121,7 +139,10 @@ public class CacheChangeSet {
    * Return the ManyChange for the given descriptor and property manyProperty.
    */
   private ManyChange many(BeanDescriptor<?> desc, String manyProperty) {
-    ManyKey key = new ManyKey(desc, manyProperty);
+    return many(new ManyKey(desc, manyProperty));
+  }
+
+  private ManyChange many(ManyKey key) {
     ManyChange manyChange = manyChangeMap.get(key);
     if (manyChange == null) {
       manyChange = new ManyChange(key);
@@ -171,6 +192,18 @@ public class CacheChangeSet {
       puts.put(parentId, entry);
     }
 
+    /**
+     * Add the changes of a later transaction.
+     */
+    void merge(ManyChange other) {
+      if (other.clear) {
+        setClear();
+      } else if (!clear) {
+        removes.addAll(other.removes);
+      }
+      puts.putAll(other.puts);
+    }
+
     @Override
     public void apply() {
       if (clear) {
@@ -0,0 +1,337 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheManager;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.InheritInfo;
+import com.avaje.ebeaninternal.server.deploy.id.IdBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Warms the bean and natural key caches on startup with the beans that were most used
+ * prior to the last shutdown.
+ * <p>
+ * The hit counts of the bean cache (and natural key cache) entries are sampled and the
+ * ids of the most used beans per bean type are written with their hit counts to a
+ * compressed snapshot file. The snapshot is written periodically and on shutdown. On
+ * start the snapshot is read and the beans are loaded in batches (findList with id in)
+ * putting them into the bean cache (and natural key cache).
+ * </p>
+ * <p>
+ * The ids are written using the IdBinder of the bean type (no java serialisation) and
+ * the ids of each bean type are prefixed by their length in bytes such that a bean type
+ * that is no longer cached or that has a different id type is skipped.
+ * </p>
+ * <p>
+ * Only caches that are a DefaultServerCache (the default cache implementation) are
+ * sampled as the hit counts per entry are required.
+ * </p>
+ */
+public final class CacheWarmer {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+  private static final int SNAPSHOT_VERSION = 2;
+
+  /**
+   * The number of ids loaded per query.
+   */
+  private static final int LOAD_BATCH_SIZE = 100;
+
+  /**
+   * The maximum size in bytes of the ids of a bean type (guards a corrupt snapshot).
+   */
+  private static final int MAX_TYPE_BYTES = 64 * 1024 * 1024;
+
+  private static final Comparator<Map.Entry<Object, Integer>> BY_HITS = new Comparator<Map.Entry<Object, Integer>>() {
+    @Override
+    public int compare(Map.Entry<Object, Integer> e1, Map.Entry<Object, Integer> e2) {
+      return e2.getValue().compareTo(e1.getValue());
+    }
+  };
+
+  private final SpiEbeanServer server;
+
+  private final File file;
+
+  private final int maxIds;
+
+  /**
+   * Set when warm() has completed such that periodic snapshots do not replace the
+   * snapshot with the ids of caches that have not been warmed yet.
+   */
+  private volatile boolean warmed;
+
+  /**
+   * Create given the snapshot file and maximum number of ids per bean type.
+   */
+  public CacheWarmer(SpiEbeanServer server, File file, int maxIds) {
+    this.server = server;
+    this.file = file;
+    this.maxIds = maxIds;
+  }
+
+  /**
+   * Return the hit counts of the most used beans by id (most used first) keyed by bean type (class name).
+   */
+  Map<String, Map<Object, Integer>> collectHotIds() {
+
+    ServerCacheManager cacheManager = server.getServerCacheManager();
+
+    Map<String, Map<Object, Integer>> hotIds = new LinkedHashMap<String, Map<Object, Integer>>();
+    for (BeanDescriptor<?> desc : server.getBeanDescriptors()) {
+      InheritInfo inheritInfo = desc.getInheritInfo();
+      if (!desc.isBeanCaching() || (inheritInfo != null && !inheritInfo.isRoot())) {
+        continue;
+      }
+      Class<?> beanType = desc.getBeanType();
+      Map<Object, Integer> hits = new LinkedHashMap<Object, Integer>();
+      ServerCache beanCache = cacheManager.getBeanCache(beanType);
+      if (beanCache instanceof DefaultServerCache) {
+        for (DefaultServerCache.CacheEntry entry : ((DefaultServerCache) beanCache).getHotEntries(maxIds)) {
+          addHits(hits, entry.getKey(), entry.getHitCount());
+        }
+      }
+      if (desc.getCacheOptions().getNaturalKey() != null) {
+        // natural key cache values are the ids
+        ServerCache naturalKeyCache = cacheManager.getNaturalKeyCache(beanType);
+        if (naturalKeyCache instanceof DefaultServerCache) {
+          for (DefaultServerCache.CacheEntry entry : ((DefaultServerCache) naturalKeyCache).getHotEntries(maxIds)) {
+            addHits(hits, entry.getValue(), entry.getHitCount());
+          }
+        }
+      }
+      if (!hits.isEmpty()) {
+        hotIds.put(beanType.getName(), mostUsed(hits));
+      }
+    }
+    return hotIds;
+  }
+
+  private void addHits(Map<Object, Integer> hits, Object id, int hitCount) {
+    if (id != null) {
+      Integer current = hits.get(id);
+      hits.put(id, (current == null) ? hitCount : current + hitCount);
+    }
+  }
+
+  /**
+   * Return the maxIds most used ids (most used first).
+   */
+  private Map<Object, Integer> mostUsed(Map<Object, Integer> hits) {
+    List<Map.Entry<Object, Integer>> entries = new ArrayList<Map.Entry<Object, Integer>>(hits.entrySet());
+    Collections.sort(entries, BY_HITS);
+    Map<Object, Integer> mostUsed = new LinkedHashMap<Object, Integer>();
+    for (int i = 0; i < entries.size() && i < maxIds; i++) {
+      mostUsed.put(entries.get(i).getKey(), entries.get(i).getValue());
+    }
+    return mostUsed;
+  }
+
+  /**
+   * Write the snapshot of the hot ids. Called on shutdown.
+   */
+  public void writeSnapshot() {
+
+    try {
+      Map<String, Map<Object, Integer>> hotIds = collectHotIds();
+      write(hotIds);
+      logger.debug("Cache warming snapshot written to {} for {} bean types", file, hotIds.size());
+
+    } catch (Exception e) {
+      logger.error("Error writing cache warming snapshot " + file, e);
+    }
+  }
+
+  /**
+   * Write the snapshot of the hot ids if the caches have been warmed. Called periodically
+   * such that a snapshot exists when the process stops without a shutdown.
+   */
+  public void writePeriodicSnapshot() {
+    if (warmed) {
+      writeSnapshot();
+    }
+  }
+
+  /**
+   * Write the snapshot to a temporary file and then replace the snapshot file with it.
+   */
+  void write(Map<String, Map<Object, Integer>> hotIds) throws IOException {
+
+    File tempFile = new File(file.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))));
+    try {
+      out.writeInt(SNAPSHOT_VERSION);
+      List<byte[]> types = new ArrayList<byte[]>();
+      List<String> names = new ArrayList<String>();
+      for (Map.Entry<String, Map<Object, Integer>> entry : hotIds.entrySet()) {
+        BeanDescriptor<?> desc = server.getBeanDescriptorById(entry.getKey());
+        if (desc != null) {
+          names.add(entry.getKey());
+          types.add(writeIds(desc.getIdBinder(), entry.getValue()));
+        }
+      }
+      out.writeInt(types.size());
+      for (int i = 0; i < types.size(); i++) {
+        byte[] ids = types.get(i);
+        out.writeUTF(names.get(i));
+        out.writeInt(ids.length);
+        out.write(ids);
+      }
+    } finally {
+      out.close();
+    }
+    if (!tempFile.renameTo(file)) {
+      // some platforms do not rename over an existing file
+      if (!file.delete() || !tempFile.renameTo(file)) {
+        throw new IOException("Unable to rename " + tempFile + " to " + file);
+      }
+    }
+  }
+
+  /**
+   * Return the ids and hit counts of a bean type in the snapshot format.
+   */
+  private byte[] writeIds(IdBinder idBinder, Map<Object, Integer> hits) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(hits.size());
+    for (Map.Entry<Object, Integer> entry : hits.entrySet()) {
+      idBinder.writeData(out, entry.getKey());
+      out.writeInt(entry.getValue());
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Read the snapshot returning an empty map when there is no snapshot.
+   * <p>
+   * The bean types that are no longer cached or where the ids can not be read are skipped.
+   * </p>
+   */
+  Map<String, Map<Object, Integer>> read() throws IOException {
+
+    Map<String, Map<Object, Integer>> hotIds = new LinkedHashMap<String, Map<Object, Integer>>();
+    if (!file.exists()) {
+      return hotIds;
+    }
+    DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+    try {
+      int version = in.readInt();
+      if (version != SNAPSHOT_VERSION) {
+        logger.info("Ignoring cache warming snapshot {} with version {}", file, version);
+        return hotIds;
+      }
+      int typeCount = in.readInt();
+      for (int i = 0; i < typeCount; i++) {
+        String beanType = in.readUTF();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_TYPE_BYTES) {
+          throw new IOException("Invalid length " + length + " for " + beanType);
+        }
+        byte[] ids = new byte[length];
+        in.readFully(ids);
+        BeanDescriptor<?> desc = server.getBeanDescriptorById(beanType);
+        if (desc == null || !desc.isBeanCaching()) {
+          // bean type removed or no longer cached
+          continue;
+        }
+        try {
+          hotIds.put(beanType, readIds(desc.getIdBinder(), ids));
+        } catch (Exception e) {
+          logger.info("Ignoring cache warming ids for {} - {}", beanType, e.getMessage());
+        }
+      }
+      return hotIds;
+    } finally {
+      in.close();
+    }
+  }
+
+  private Map<Object, Integer> readIds(IdBinder idBinder, byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int idCount = in.readInt();
+    Map<Object, Integer> hits = new LinkedHashMap<Object, Integer>();
+    for (int i = 0; i < idCount; i++) {
+      Object id = idBinder.readData(in);
+      hits.put(id, in.readInt());
+    }
+    return hits;
+  }
+
+  /**
+   * Load the beans in the snapshot into the bean caches. Executed in the background on start.
+   */
+  public void warm() {
+
+    try {
+      warmCaches();
+    } finally {
+      warmed = true;
+    }
+  }
+
+  private void warmCaches() {
+
+    Map<String, Map<Object, Integer>> hotIds;
+    try {
+      hotIds = read();
+    } catch (Exception e) {
+      logger.error("Error reading cache warming snapshot " + file, e);
+      return;
+    }
+
+    long startNanos = System.nanoTime();
+    int beanCount = 0;
+    for (Map.Entry<String, Map<Object, Integer>> entry : hotIds.entrySet()) {
+      BeanDescriptor<?> desc = server.getBeanDescriptorById(entry.getKey());
+      try {
+        beanCount += load(desc, new ArrayList<Object>(entry.getValue().keySet()));
+      } catch (Exception e) {
+        logger.error("Error warming bean cache for " + entry.getKey(), e);
+      }
+    }
+    if (beanCount > 0) {
+      long millis = (System.nanoTime() - startNanos) / 1000000;
+      logger.info("Cache warming loaded {} beans for {} bean types in {} millis", beanCount, hotIds.size(), millis);
+    }
+  }
+
+  /**
+   * Load the beans in batches putting them into the bean cache.
+   */
+  private int load(BeanDescriptor<?> desc, List<Object> ids) {
+
+    int count = 0;
+    for (int i = 0; i < ids.size(); i += LOAD_BATCH_SIZE) {
+      List<Object> batch = ids.subList(i, Math.min(ids.size(), i + LOAD_BATCH_SIZE));
+      count += server.find(desc.getBeanType())
+          .setLoadBeanCache(true)
+          .where().idIn(batch)
+          .findList().size();
+    }
+    return count;
+  }
+}
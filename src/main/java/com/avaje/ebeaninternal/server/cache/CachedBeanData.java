@@ -4,19 +4,37 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * Data held in the bean cache for cached beans.
+ * <p>
+ * The property values are held in an array indexed by property position (the
+ * same position as used by EntityBeanIntercept) along with a bitset of the
+ * properties that are loaded. The data is treated as immutable with update()
+ * returning a copy.
+ * </p>
+ * <p>
+ * As the values are positional the data holds the model hash of the bean type
+ * that wrote it (see BeanDescriptor.getCacheModelHash()). Data read from a remote
+ * cache written by a different version of the model is treated as a cache miss.
+ * </p>
  */
 public class CachedBeanData implements Externalizable {
 
+  private int modelHash;
   private long whenCreated;
   private long version;
   private String discValue;
-  private Map<String, Object> data;
+
+  /**
+   * Property values by property position.
+   */
+  private Object[] data;
+
+  /**
+   * Bitset of the loaded property positions.
+   */
+  private long[] loaded;
 
   /**
    * The sharable bean is effectively transient (near cache only).
@@ -25,12 +43,18 @@ public class CachedBeanData implements Externalizable {
 
   /**
    * Construct from a loaded bean.
+   *
+   * @param data   the property values by property position
+   * @param loaded the loaded bitset as created by {@link #newLoaded(int)}
+   * @param modelHash the model hash of the bean type the data is extracted from
    */
-  public CachedBeanData(Object sharableBean, String discValue, Map<String, Object> data, long version) {
+  public CachedBeanData(Object sharableBean, String discValue, Object[] data, long[] loaded, long version, int modelHash) {
+    this.modelHash = modelHash;
     this.whenCreated = System.currentTimeMillis();
     this.sharableBean = sharableBean;
     this.discValue = discValue;
     this.data = data;
+    this.loaded = loaded;
     this.version = version;
   }
 
@@ -40,8 +64,28 @@ public class CachedBeanData implements Externalizable {
   public CachedBeanData() {
   }
 
+  /**
+   * Create an empty loaded bitset for the given number of properties.
+   */
+  public static long[] newLoaded(int propertyLength) {
+    return new long[(propertyLength + 63) >>> 6];
+  }
+
+  /**
+   * Mark the property position as loaded in the given bitset.
+   */
+  public static void setLoaded(long[] loaded, int position) {
+    loaded[position >>> 6] |= (1L << position);
+  }
+
+  private static boolean isLoaded(long[] loaded, int position) {
+    int word = position >>> 6;
+    return word < loaded.length && (loaded[word] & (1L << position)) != 0;
+  }
+
   @Override
   public void writeExternal(ObjectOutput out) throws IOException {
+    out.writeInt(modelHash);
     out.writeLong(version);
     out.writeLong(whenCreated);
     boolean hasDisc = discValue != null;
@@ -49,44 +93,77 @@ public class CachedBeanData implements Externalizable {
     if (hasDisc) {
       out.writeUTF(discValue);
     }
-    out.writeInt(data.size());
-    for (Map.Entry<String, Object> entry : data.entrySet()) {
-      out.writeUTF(entry.getKey());
-      out.writeObject(entry.getValue());
+    // write the bitset and then only the loaded values
+    out.writeShort(data.length);
+    for (int i = 0; i < loaded.length; i++) {
+      out.writeLong(loaded[i]);
+    }
+    for (int i = 0; i < data.length; i++) {
+      if (isLoaded(loaded, i)) {
+        out.writeObject(data[i]);
+      }
     }
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+    modelHash = in.readInt();
     version = in.readLong();
     whenCreated = in.readLong();
     if (in.readBoolean()) {
       discValue = in.readUTF();
     }
-    data = new LinkedHashMap<String, Object>();
-    int count = in.readInt();
-    for (int i = 0; i < count; i++) {
-      String key = in.readUTF();
-      Object val = in.readObject();
-      data.put(key, val);
+    int length = in.readShort();
+    data = new Object[length];
+    loaded = newLoaded(length);
+    for (int i = 0; i < loaded.length; i++) {
+      loaded[i] = in.readLong();
+    }
+    for (int i = 0; i < length; i++) {
+      if (isLoaded(loaded, i)) {
+        data[i] = in.readObject();
+      }
     }
   }
 
   public String toString() {
-    return data.toString();
+    StringBuilder sb = new StringBuilder(60);
+    sb.append("{");
+    for (int i = 0; i < data.length; i++) {
+      if (isLoaded(loaded, i)) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(i).append("=").append(data[i]);
+      }
+    }
+    return sb.append("}").toString();
   }
 
   /**
    * Create and return a new version of CachedBeanData based on this
    * entry applying the given changes.
+   * <p>
+   * The changes are the loaded properties of the given data (typically
+   * just the dirty properties of an updated bean).
+   * </p>
    */
-  public CachedBeanData update(Map<String, Object> changes, long version) {
-
-    Map<String, Object> copy = new HashMap<String, Object>();
-    copy.putAll(data);
-    copy.putAll(changes);
-    return new CachedBeanData(null, discValue, copy, version);
+  public CachedBeanData update(CachedBeanData changes, long version) {
+
+    int length = Math.max(data.length, changes.data.length);
+    Object[] newData = new Object[length];
+    System.arraycopy(data, 0, newData, 0, data.length);
+    long[] newLoaded = newLoaded(length);
+    System.arraycopy(loaded, 0, newLoaded, 0, loaded.length);
+
+    long[] changed = changes.loaded;
+    for (int i = 0; i < changes.data.length; i++) {
+      if (isLoaded(changed, i)) {
+        newData[i] = changes.data[i];
+        setLoaded(newLoaded, i);
+      }
+    }
+    return new CachedBeanData(null, discValue, newData, newLoaded, version, modelHash);
   }
 
   /**
@@ -96,6 +173,13 @@ public class CachedBeanData implements Externalizable {
     return whenCreated;
   }
 
+  /**
+   * Return the model hash of the bean type that the data was extracted from.
+   */
+  public int getModelHash() {
+    return modelHash;
+  }
+
   /**
    * Return the version value.
    */
@@ -118,23 +202,23 @@ public class CachedBeanData implements Externalizable {
   }
 
   /**
-   * Return true if the property is held.
+   * Return the number of property positions.
    */
-  public boolean isLoaded(String propertyName) {
-    return data.containsKey(propertyName);
+  public int getPropertyLength() {
+    return data.length;
   }
 
   /**
-   * Return the value for a given property name.
+   * Return true if the property at the given position is held.
    */
-  public Object getData(String propertyName) {
-    return data.get(propertyName);
+  public boolean isLoaded(int position) {
+    return position < data.length && isLoaded(loaded, position);
   }
 
   /**
-   * Return all the property data.
+   * Return the value for the property at the given position.
    */
-  public Map<String,Object> getData() {
-    return data;
+  public Object getData(int position) {
+    return position < data.length ? data[position] : null;
   }
 }
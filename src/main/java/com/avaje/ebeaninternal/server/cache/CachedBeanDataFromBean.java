@@ -5,9 +5,6 @@ import com.avaje.ebean.bean.EntityBeanIntercept;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-
 public class CachedBeanDataFromBean {
 
 
@@ -15,13 +12,16 @@ public class CachedBeanDataFromBean {
 
     EntityBeanIntercept ebi = bean._ebean_getIntercept();
 
-    Map<String,Object> data = new LinkedHashMap<String,Object>();
+    int propertyLength = ebi.getPropertyLength();
+    Object[] data = new Object[propertyLength];
+    long[] loaded = CachedBeanData.newLoaded(propertyLength);
 
     BeanProperty idProperty = desc.getIdProperty();
     if (idProperty != null) {
       int propertyIndex = idProperty.getPropertyIndex();
       if (ebi.isLoadedProperty(propertyIndex)) {
-        data.put(idProperty.getName(), idProperty.getCacheDataValue(bean));
+        data[propertyIndex] = idProperty.getCacheDataValue(bean);
+        CachedBeanData.setLoaded(loaded, propertyIndex);
       }
     }
     BeanProperty[] props = desc.propertiesNonMany();
@@ -29,14 +29,16 @@ public class CachedBeanDataFromBean {
     // extract all the non-many properties
     for (int i = 0; i < props.length; i++) {
       BeanProperty prop = props[i];
-      if (ebi.isLoadedProperty(prop.getPropertyIndex())) {
-        data.put(prop.getName(), prop.getCacheDataValue(bean));
+      int propertyIndex = prop.getPropertyIndex();
+      if (ebi.isLoadedProperty(propertyIndex)) {
+        data[propertyIndex] = prop.getCacheDataValue(bean);
+        CachedBeanData.setLoaded(loaded, propertyIndex);
       }
     }
 
     long version = desc.getVersion(bean);
     EntityBean sharableBean = createSharableBean(desc, bean, ebi);
-    return new CachedBeanData(sharableBean, desc.getDiscValue(), data, version);
+    return new CachedBeanData(sharableBean, desc.getDiscValue(), data, loaded, version, desc.getCacheModelHash());
   }
 
   private static EntityBean createSharableBean(BeanDescriptor<?> desc, EntityBean bean, EntityBeanIntercept beanEbi) {
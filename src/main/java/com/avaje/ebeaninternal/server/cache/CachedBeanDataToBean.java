@@ -36,9 +36,10 @@ public class CachedBeanDataToBean {
 
   private static void loadProperty(EntityBean bean, CachedBeanData cacheBeanData, EntityBeanIntercept ebi, BeanProperty prop, PersistenceContext context) {
 
-    if (cacheBeanData.isLoaded(prop.getName())) {
-      if (!ebi.isLoadedProperty(prop.getPropertyIndex())) {
-        Object value = cacheBeanData.getData(prop.getName());
+    int propertyIndex = prop.getPropertyIndex();
+    if (cacheBeanData.isLoaded(propertyIndex)) {
+      if (!ebi.isLoadedProperty(propertyIndex)) {
+        Object value = cacheBeanData.getData(propertyIndex);
         prop.setCacheDataValue(bean, value, context);
       }
     }
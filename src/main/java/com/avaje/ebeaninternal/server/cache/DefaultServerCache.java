@@ -2,7 +2,7 @@ package com.avaje.ebeaninternal.server.cache;
 
 import com.avaje.ebean.BackgroundExecutor;
 import com.avaje.ebean.EbeanServer;
-import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheAdapter;
 import com.avaje.ebean.cache.ServerCacheOptions;
 import com.avaje.ebean.cache.ServerCacheStatistics;
 import com.avaje.ebeaninternal.server.util.LongAdder;
@@ -14,8 +14,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -25,7 +27,7 @@ import java.util.concurrent.TimeUnit;
  * The periodic trimming means that an LRU list does not have to be maintained.
  * </p>
  */
-public class DefaultServerCache implements ServerCache {
+public class DefaultServerCache extends ServerCacheAdapter {
 
   protected static final Logger logger = LoggerFactory.getLogger(DefaultServerCache.class);
 
@@ -34,6 +36,11 @@ public class DefaultServerCache implements ServerCache {
    */
   public static final CompareByLastAccess BY_LAST_ACCESS = new CompareByLastAccess();
 
+  /**
+   * Compare by hit count descending (most used first).
+   */
+  public static final CompareByHitCount BY_HIT_COUNT = new CompareByHitCount();
+
   /**
    * The underlying map (ConcurrentHashMap or similar)
    */
@@ -223,6 +230,51 @@ public class DefaultServerCache implements ServerCache {
     }
   }
 
+  /**
+   * Put the value only if the entry for the key is still the expected entry (null
+   * for no entry) returning the new entry or null if the entry had changed.
+   */
+  CacheEntry replaceEntry(Object key, CacheEntry expected, Object value) {
+    CacheEntry entry = new CacheEntry(key, value);
+    if (map instanceof ConcurrentMap) {
+      ConcurrentMap<Object, CacheEntry> concurrentMap = (ConcurrentMap<Object, CacheEntry>) map;
+      boolean replaced = (expected == null) ? concurrentMap.putIfAbsent(key, entry) == null : concurrentMap.replace(key, expected, entry);
+      if (!replaced) {
+        return null;
+      }
+    } else {
+      synchronized (map) {
+        if (map.get(key) != expected) {
+          return null;
+        }
+        map.put(key, entry);
+      }
+    }
+    if (expected == null) {
+      insertCount.increment();
+    } else {
+      updateCount.increment();
+    }
+    return entry;
+  }
+
+  /**
+   * Remove the entry only if it is still the entry for the key.
+   */
+  void removeEntry(Object key, CacheEntry expected) {
+    boolean removed;
+    if (map instanceof ConcurrentMap) {
+      removed = ((ConcurrentMap<Object, CacheEntry>) map).remove(key, expected);
+    } else {
+      synchronized (map) {
+        removed = map.get(key) == expected && map.remove(key) != null;
+      }
+    }
+    if (removed) {
+      removeCount.increment();
+    }
+  }
+
   /**
    * Remove an entry from the cache.
    */
@@ -245,6 +297,29 @@ public class DefaultServerCache implements ServerCache {
     return map.size();
   }
 
+  /**
+   * Return the most used entries (that have had at least one hit) ordered by hit count descending.
+   * <p>
+   * Used by cache warming to record the hot keys. The hit counts are approximate.
+   * </p>
+   *
+   * @param maxCount the maximum number of entries to return
+   */
+  public List<CacheEntry> getHotEntries(int maxCount) {
+
+    ArrayList<CacheEntry> hot = new ArrayList<CacheEntry>();
+    for (CacheEntry entry : map.values()) {
+      if (entry.getHitCount() > 0) {
+        hot.add(entry);
+      }
+    }
+    Collections.sort(hot, BY_HIT_COUNT);
+    if (hot.size() > maxCount) {
+      return new ArrayList<CacheEntry>(hot.subList(0, maxCount));
+    }
+    return hot;
+  }
+
   /**
    * Return the size to trim to based on the max size.
    * <p>
@@ -353,6 +428,20 @@ public class DefaultServerCache implements ServerCache {
     }
   }
 
+  /**
+   * Comparator for sorting by hit count descending.
+   */
+  public static class CompareByHitCount implements Comparator<CacheEntry>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public int compare(CacheEntry entry1, CacheEntry entry2) {
+      int x = entry1.getHitCount();
+      int y = entry2.getHitCount();
+      return (x > y) ? -1 : ((x == y) ? 0 : 1);
+    }
+  }
+
   /**
    * Wraps the value to additionally hold createTime and lastAccessTime and hit counter.
    */
@@ -362,6 +451,7 @@ public class DefaultServerCache implements ServerCache {
     private final Object value;
     private final long createTime;
     private long lastAccessTime;
+    private int hitCount;
 
     public CacheEntry(Object key, Object value) {
       this.key = key;
@@ -383,6 +473,15 @@ public class DefaultServerCache implements ServerCache {
     public Object getValue() {
       // long assignment should be atomic these days (Ref Cliff Click)
       lastAccessTime = System.currentTimeMillis();
+      // approximate count (lost increments are acceptable)
+      hitCount++;
+      return value;
+    }
+
+    /**
+     * Return the entry value without counting it as an access.
+     */
+    public Object peekValue() {
       return value;
     }
 
@@ -400,6 +499,13 @@ public class DefaultServerCache implements ServerCache {
       return lastAccessTime;
     }
 
+    /**
+     * Return the (approximate) number of times the entry has been read.
+     */
+    public int getHitCount() {
+      return hitCount;
+    }
+
   }
 
 }
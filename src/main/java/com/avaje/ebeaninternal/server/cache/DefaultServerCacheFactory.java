@@ -2,6 +2,7 @@ package com.avaje.ebeaninternal.server.cache;
 
 import com.avaje.ebean.BackgroundExecutor;
 import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheEvictionMode;
 import com.avaje.ebean.cache.ServerCacheFactory;
 import com.avaje.ebean.cache.ServerCacheOptions;
 import com.avaje.ebean.cache.ServerCacheType;
@@ -30,11 +31,21 @@ class DefaultServerCacheFactory implements ServerCacheFactory {
 
   public ServerCache createCache(ServerCacheType type, String cacheKey, ServerCacheOptions cacheOptions) {
 
-    DefaultServerCache cache = new DefaultServerCache(cacheKey, cacheOptions);
+    DefaultServerCache cache = createDefaultCache(cacheKey, cacheOptions);
     if (executor != null) {
       cache.periodicTrim(executor);
     }
     return cache;
   }
 
+  /**
+   * Create the cache implementation based on the eviction mode.
+   */
+  private DefaultServerCache createDefaultCache(String cacheKey, ServerCacheOptions cacheOptions) {
+    if (cacheOptions.getEvictionMode() == ServerCacheEvictionMode.LRU) {
+      return new LruServerCache(cacheKey, cacheOptions);
+    }
+    return new DefaultServerCache(cacheKey, cacheOptions);
+  }
+
 }
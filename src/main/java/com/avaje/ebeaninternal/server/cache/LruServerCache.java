@@ -0,0 +1,439 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.cache.ServerCacheOptions;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache implementation that enforces maxSize, max idle time and max time to live
+ * at O(1) cost per operation.
+ * <p>
+ * Entries are additionally linked into an access order list (for LRU and idle eviction)
+ * and an insertion order list (for time to live eviction). Reads do not take the lock
+ * but record the entry in a read buffer (striped by thread). The buffers are drained
+ * into the access list under the lock by writes, by the periodic trim and when a read
+ * fills its buffer slot range. The buffers are lossy (a slot may be overwritten before
+ * it is drained) which means the LRU ordering is approximate under heavy concurrent reads.
+ * </p>
+ * <p>
+ * Rather than scanning and sorting all the entries the periodic trim only walks
+ * the expired entries from the head of each list.
+ * </p>
+ */
+public class LruServerCache extends DefaultServerCache {
+
+  /**
+   * The number of read buffers (a power of 2).
+   */
+  private static final int READ_BUFFERS = readBuffers();
+
+  /**
+   * The number of slots in each read buffer (a power of 2).
+   */
+  private static final int READ_BUFFER_SIZE = 32;
+
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+  private static int readBuffers() {
+    int buffers = 1;
+    while (buffers < Runtime.getRuntime().availableProcessors() && buffers < 64) {
+      buffers <<= 1;
+    }
+    return buffers;
+  }
+
+  /**
+   * Guards the linked lists and all mutations of the map.
+   */
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  /**
+   * Sentinel for the access order list (head.accessNext is least recently used).
+   */
+  private final LruEntry accessHead = new LruEntry(null, null);
+
+  /**
+   * Sentinel for the insertion order list (head.writeNext is the oldest entry).
+   */
+  private final LruEntry writeHead = new LruEntry(null, null);
+
+  /**
+   * Entries read but not yet moved in the access list.
+   */
+  private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFERS];
+
+  /**
+   * Number of linked entries (only modified under the eviction lock).
+   */
+  private int linkedCount;
+
+  /**
+   * Construct using a ConcurrentHashMap and cache options.
+   */
+  public LruServerCache(String name, ServerCacheOptions options) {
+    super(name, new ConcurrentHashMap<Object, CacheEntry>(), options);
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+    resetLists();
+  }
+
+  private void resetLists() {
+    accessHead.accessNext = accessHead;
+    accessHead.accessPrev = accessHead;
+    writeHead.writeNext = writeHead;
+    writeHead.writePrev = writeHead;
+    linkedCount = 0;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      clearCount.increment();
+      map.clear();
+      clearReadBuffers();
+      resetLists();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object get(Object key) {
+
+    LruEntry entry = (LruEntry) map.get(key);
+    if (entry == null) {
+      missCount.increment();
+      return null;
+    }
+
+    long now = System.currentTimeMillis();
+    if (isExpired(entry, now)) {
+      // lazily evict rather than returning a stale entry
+      evictExpired(entry, now);
+      missCount.increment();
+      return null;
+    }
+
+    hitCount.increment();
+    Object value = entry.getValue();
+    recordRead(entry);
+    return value;
+  }
+
+  /**
+   * Record the read in the buffer of the current thread draining the buffers when
+   * this read completes a range of slots and the lock is uncontended.
+   */
+  private void recordRead(LruEntry entry) {
+    ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFERS - 1)];
+    // racy increment is fine as the buffer is lossy
+    int index = buffer.writes++ & READ_BUFFER_MASK;
+    buffer.slots.lazySet(index, entry);
+    if ((index & 7) == 7 && evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Move the entries recorded by reads to the tail of the access list (under the eviction lock).
+   */
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      AtomicReferenceArray<LruEntry> slots = buffer.slots;
+      for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+        LruEntry entry = slots.get(i);
+        if (entry != null) {
+          slots.lazySet(i, null);
+          if (entry.linked) {
+            moveToAccessTail(entry);
+          }
+        }
+      }
+    }
+  }
+
+  private void clearReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+        buffer.slots.lazySet(i, null);
+      }
+    }
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    LruEntry entry = new LruEntry(key, value);
+    evictionLock.lock();
+    try {
+      return putLocked(key, entry);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Put the entry returning the previous value (under the eviction lock).
+   */
+  private Object putLocked(Object key, LruEntry entry) {
+    // apply the recorded reads first such that max size evicts the least recently used
+    drainReadBuffers();
+    LruEntry old = (LruEntry) map.put(key, entry);
+    if (old != null) {
+      unlink(old);
+    }
+    link(entry);
+    if (maxSize > 0) {
+      while (linkedCount > maxSize) {
+        LruEntry eldest = accessHead.accessNext;
+        map.remove(eldest.getKey());
+        unlink(eldest);
+        evictByLRU.increment();
+      }
+    }
+    if (old == null) {
+      insertCount.increment();
+      return null;
+    } else {
+      updateCount.increment();
+      return old.getValue();
+    }
+  }
+
+  @Override
+  public Object remove(Object key) {
+    evictionLock.lock();
+    try {
+      return removeLocked(key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Remove the entry returning its value (under the eviction lock).
+   */
+  private Object removeLocked(Object key) {
+    LruEntry entry = (LruEntry) map.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    unlink(entry);
+    removeCount.increment();
+    return entry.getValue();
+  }
+
+  @Override
+  CacheEntry replaceEntry(Object key, CacheEntry expected, Object value) {
+    evictionLock.lock();
+    try {
+      if (map.get(key) != expected) {
+        return null;
+      }
+      putLocked(key, new LruEntry(key, value));
+      return map.get(key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  void removeEntry(Object key, CacheEntry expected) {
+    evictionLock.lock();
+    try {
+      if (map.get(key) == expected) {
+        removeLocked(key);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Run the eviction based on Idle time and Time to live.
+   * <p>
+   * Only the expired entries at the head of each list are visited. Max size is
+   * already enforced on each put.
+   * </p>
+   */
+  @Override
+  public void runEviction() {
+
+    if (maxIdleSecs == 0 && maxSecsToLive == 0) {
+      // nothing to trim on this cache
+      return;
+    }
+
+    long startNanos = System.nanoTime();
+
+    long trimmedByIdle = 0;
+    long trimmedByTTL = 0;
+
+    long now = System.currentTimeMillis();
+    long idleExpire = now - (maxIdleSecs * 1000L);
+    long ttlExpire = now - (maxSecsToLive * 1000L);
+
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      if (maxSecsToLive > 0) {
+        // insertion order means we stop at the first entry that has not expired
+        while (writeHead.writeNext != writeHead && ttlExpire > writeHead.writeNext.getCreateTime()) {
+          LruEntry oldest = writeHead.writeNext;
+          map.remove(oldest.getKey());
+          unlink(oldest);
+          trimmedByTTL++;
+        }
+      }
+      if (maxIdleSecs > 0) {
+        // reads lost from the read buffers can leave recently accessed entries near
+        // the head so move those to the tail (visiting each entry at most once)
+        int toVisit = linkedCount;
+        while (toVisit-- > 0 && accessHead.accessNext != accessHead) {
+          LruEntry eldest = accessHead.accessNext;
+          if (idleExpire > eldest.getLastAccessTime()) {
+            map.remove(eldest.getKey());
+            unlink(eldest);
+            trimmedByIdle++;
+          } else if (eldest.getLastAccessTime() > eldest.linkedAccessTime) {
+            moveToAccessTail(eldest);
+          } else {
+            break;
+          }
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+
+    long exeNanos = System.nanoTime() - startNanos;
+    long exeMicros = TimeUnit.MICROSECONDS.convert(exeNanos, TimeUnit.NANOSECONDS);
+
+    // increment the eviction statistics
+    evictMicros.add(exeMicros);
+    evictCount.increment();
+    evictByIdle.add(trimmedByIdle);
+    evictByTTL.add(trimmedByTTL);
+
+    if (logger.isTraceEnabled()) {
+      logger.trace("Executed trim of cache {} in [{}]micros idle[{}] timeToLive[{}]", name, exeMicros, trimmedByIdle, trimmedByTTL);
+    }
+  }
+
+  private boolean isExpired(LruEntry entry, long now) {
+    return (maxSecsToLive > 0 && now - (maxSecsToLive * 1000L) > entry.getCreateTime())
+        || (maxIdleSecs > 0 && now - (maxIdleSecs * 1000L) > entry.getLastAccessTime());
+  }
+
+  /**
+   * Remove an entry found to be expired on read.
+   */
+  private void evictExpired(LruEntry entry, long now) {
+    evictionLock.lock();
+    try {
+      // only remove if the entry has not been replaced in the meantime
+      if (entry.linked && map.get(entry.getKey()) == entry) {
+        map.remove(entry.getKey());
+        unlink(entry);
+        if (maxSecsToLive > 0 && now - (maxSecsToLive * 1000L) > entry.getCreateTime()) {
+          evictByTTL.increment();
+        } else {
+          evictByIdle.increment();
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Add the entry to the tail of both lists (under the eviction lock).
+   */
+  private void link(LruEntry entry) {
+    entry.accessPrev = accessHead.accessPrev;
+    entry.accessNext = accessHead;
+    accessHead.accessPrev.accessNext = entry;
+    accessHead.accessPrev = entry;
+
+    entry.writePrev = writeHead.writePrev;
+    entry.writeNext = writeHead;
+    writeHead.writePrev.writeNext = entry;
+    writeHead.writePrev = entry;
+
+    entry.linkedAccessTime = entry.getLastAccessTime();
+    entry.linked = true;
+    linkedCount++;
+  }
+
+  /**
+   * Remove the entry from both lists (under the eviction lock).
+   */
+  private void unlink(LruEntry entry) {
+    if (entry.linked) {
+      entry.accessPrev.accessNext = entry.accessNext;
+      entry.accessNext.accessPrev = entry.accessPrev;
+      entry.writePrev.writeNext = entry.writeNext;
+      entry.writeNext.writePrev = entry.writePrev;
+      entry.accessPrev = entry.accessNext = null;
+      entry.writePrev = entry.writeNext = null;
+      entry.linked = false;
+      linkedCount--;
+    }
+  }
+
+  /**
+   * Move the entry to the most recently used end of the access list (under the eviction lock).
+   */
+  private void moveToAccessTail(LruEntry entry) {
+    entry.linkedAccessTime = entry.getLastAccessTime();
+    if (accessHead.accessPrev != entry) {
+      entry.accessPrev.accessNext = entry.accessNext;
+      entry.accessNext.accessPrev = entry.accessPrev;
+
+      entry.accessPrev = accessHead.accessPrev;
+      entry.accessNext = accessHead;
+      accessHead.accessPrev.accessNext = entry;
+      accessHead.accessPrev = entry;
+    }
+  }
+
+  /**
+   * Lossy buffer of entries read by the threads mapped to it.
+   */
+  private static final class ReadBuffer {
+
+    final AtomicReferenceArray<LruEntry> slots = new AtomicReferenceArray<LruEntry>(READ_BUFFER_SIZE);
+
+    int writes;
+  }
+
+  /**
+   * Cache entry additionally linked into the access order and insertion order lists.
+   */
+  static class LruEntry extends CacheEntry {
+
+    LruEntry accessPrev;
+    LruEntry accessNext;
+    LruEntry writePrev;
+    LruEntry writeNext;
+
+    /**
+     * The last access time when this entry was last moved in the access list.
+     */
+    long linkedAccessTime;
+
+    boolean linked;
+
+    LruEntry(Object key, Object value) {
+      super(key, value);
+    }
+  }
+}
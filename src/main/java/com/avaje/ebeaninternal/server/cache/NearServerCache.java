@@ -0,0 +1,201 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheAdapter;
+import com.avaje.ebean.cache.ServerCacheStatistics;
+import com.avaje.ebeaninternal.server.util.LongAdder;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two tier cache with a small on-heap near cache in front of a (typically remote) cache.
+ * <p>
+ * Gets are served from the near cache and only go to the remote cache on a near miss
+ * with the remote value then put into the near cache. Puts, removes and clears (the
+ * changes applied from the CacheChangeSet on commit) are written through to both tiers.
+ * </p>
+ * <p>
+ * To avoid a concurrent get putting a stale remote value into the near cache after it
+ * was changed the near cache is only populated when no put, remove or clear occurred
+ * during the remote get. Additionally a CachedBeanData with a lower version does not
+ * replace a newer one held in the near cache.
+ * </p>
+ * <p>
+ * The near cache is bounded by its max size and time to live which also bounds the
+ * staleness relative to changes made by other servers sharing the remote cache.
+ * </p>
+ */
+public class NearServerCache extends ServerCacheAdapter {
+
+  private final ServerCache remote;
+
+  private final DefaultServerCache near;
+
+  /**
+   * Incremented on every put, remove and clear.
+   */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  /**
+   * Construct with the remote cache and the near cache in front of it.
+   */
+  public NearServerCache(ServerCache remote, DefaultServerCache near) {
+    this.remote = remote;
+    this.near = near;
+  }
+
+  /**
+   * Return the remote cache.
+   */
+  public ServerCache getRemote() {
+    return remote;
+  }
+
+  /**
+   * Return the near cache.
+   */
+  public DefaultServerCache getNear() {
+    return near;
+  }
+
+  @Override
+  public Object get(Object key) {
+
+    Object value = near.get(key);
+    if (value != null) {
+      hitCount.increment();
+      return value;
+    }
+    long epoch = invalidations.get();
+    value = remote.get(key);
+    if (value == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    putNear(key, value, epoch);
+    return value;
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Set<Object> keys) {
+
+    Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+    Set<Object> remoteKeys = new LinkedHashSet<Object>();
+    for (Object key : keys) {
+      Object value = near.get(key);
+      if (value != null) {
+        result.put(key, value);
+      } else {
+        remoteKeys.add(key);
+      }
+    }
+    if (!remoteKeys.isEmpty()) {
+      long epoch = invalidations.get();
+      Map<Object, Object> remoteValues = ServerCacheAdapter.getAll(remote, remoteKeys);
+      for (Map.Entry<Object, Object> entry : remoteValues.entrySet()) {
+        putNear(entry.getKey(), entry.getValue(), epoch);
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+    hitCount.add(result.size());
+    missCount.add(keys.size() - result.size());
+    return result;
+  }
+
+  /**
+   * Put a value read from the remote cache into the near cache.
+   */
+  private void putNear(Object key, Object value, long epoch) {
+
+    DefaultServerCache.CacheEntry entry;
+    do {
+      if (invalidations.get() != epoch) {
+        // put, removed or cleared while reading the remote cache so the value may be stale
+        return;
+      }
+      // read the entry directly so as to not count as a near cache hit
+      DefaultServerCache.CacheEntry existing = near.map.get(key);
+      if (existing != null && isNewer(existing.peekValue(), value)) {
+        // keep the newer version
+        return;
+      }
+      // only put if the entry has not changed since the version check
+      entry = near.replaceEntry(key, existing, value);
+    } while (entry == null);
+
+    if (invalidations.get() != epoch) {
+      // invalidated concurrently with the put so remove the possibly stale value
+      near.removeEntry(key, entry);
+    }
+  }
+
+  /**
+   * Return true if the existing value is a newer version of the bean than the value.
+   */
+  private boolean isNewer(Object existing, Object value) {
+    return existing instanceof CachedBeanData && value instanceof CachedBeanData
+        && ((CachedBeanData) existing).getVersion() > ((CachedBeanData) value).getVersion();
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    invalidations.incrementAndGet();
+    near.put(key, value);
+    return remote.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    invalidations.incrementAndGet();
+    near.remove(key);
+    return remote.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    invalidations.incrementAndGet();
+    near.clear();
+    remote.clear();
+  }
+
+  @Override
+  public int size() {
+    return remote.size();
+  }
+
+  @Override
+  public int getHitRatio() {
+    long hits = hitCount.sum();
+    long total = hits + missCount.sum();
+    return (total == 0) ? 0 : (int) (hits * 100 / total);
+  }
+
+  /**
+   * Return the statistics of the remote cache with the hits and misses of both tiers
+   * and the near cache statistics.
+   */
+  @Override
+  public ServerCacheStatistics getStatistics(boolean reset) {
+
+    ServerCacheStatistics nearStats = near.getStatistics(reset);
+    ServerCacheStatistics stats = remote.getStatistics(reset);
+    if (stats == null) {
+      stats = new ServerCacheStatistics();
+    }
+    stats.setHitCount(reset ? hitCount.sumThenReset() : hitCount.sum());
+    stats.setMissCount(reset ? missCount.sumThenReset() : missCount.sum());
+    stats.setNearHitCount(nearStats.getHitCount());
+    stats.setNearMissCount(nearStats.getMissCount());
+    stats.setNearSize(nearStats.getSize());
+    return stats;
+  }
+}
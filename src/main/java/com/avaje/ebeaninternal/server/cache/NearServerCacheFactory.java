@@ -0,0 +1,57 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheEvictionMode;
+import com.avaje.ebean.cache.ServerCacheFactory;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebean.cache.ServerCacheType;
+
+/**
+ * ServerCacheFactory that puts a near cache in front of the caches created by a
+ * ServerCachePlugin factory.
+ */
+public class NearServerCacheFactory implements ServerCacheFactory {
+
+  private final ServerCacheFactory remoteFactory;
+
+  private final BackgroundExecutor executor;
+
+  private final int nearMaxSize;
+
+  private final int nearMaxSecsToLive;
+
+  /**
+   * Create given the factory of the plugin and the near cache max size and time to live.
+   */
+  public NearServerCacheFactory(ServerCacheFactory remoteFactory, BackgroundExecutor executor, int nearMaxSize, int nearMaxSecsToLive) {
+    this.remoteFactory = remoteFactory;
+    this.executor = executor;
+    this.nearMaxSize = nearMaxSize;
+    this.nearMaxSecsToLive = nearMaxSecsToLive;
+  }
+
+  public ServerCache createCache(ServerCacheType type, String cacheKey, ServerCacheOptions cacheOptions) {
+
+    ServerCache remote = remoteFactory.createCache(type, cacheKey, cacheOptions);
+    if (remote instanceof DefaultServerCache) {
+      // already an on-heap cache
+      return remote;
+    }
+
+    ServerCacheOptions nearOptions = cacheOptions.copy();
+    nearOptions.setMaxSize(Math.min(nearMaxSize, positiveOr(cacheOptions.getMaxSize(), nearMaxSize)));
+    nearOptions.setMaxSecsToLive(Math.min(nearMaxSecsToLive, positiveOr(cacheOptions.getMaxSecsToLive(), nearMaxSecsToLive)));
+    nearOptions.setEvictionMode(ServerCacheEvictionMode.LRU);
+
+    LruServerCache near = new LruServerCache(cacheKey + "_near", nearOptions);
+    if (executor != null) {
+      near.periodicTrim(executor);
+    }
+    return new NearServerCache(remote, near);
+  }
+
+  private static int positiveOr(int value, int defaultValue) {
+    return value > 0 ? value : defaultValue;
+  }
+}
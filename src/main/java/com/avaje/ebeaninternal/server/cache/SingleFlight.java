@@ -0,0 +1,149 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebeaninternal.server.util.LongAdder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent loads of the same cache key such that only one thread
+ * executes the query on a cache miss.
+ * <p>
+ * The first thread to miss becomes the loader and executes the query (putting the
+ * result into the cache). Other threads missing on the same key wait for the
+ * loader to finish and then check the cache again rather than executing their own
+ * query. When the loader found nothing (which is not put into the cache) the waiting
+ * threads are told so and also do not execute the query. Waiting is bounded by the
+ * wait time after which the waiting thread executes the query itself.
+ * </p>
+ * <pre>{@code
+ *
+ *   switch (singleFlight.begin(key)) {
+ *     case LOAD:
+ *       boolean empty = false;
+ *       try {
+ *         // load and put into the cache (setting empty when nothing was found)
+ *       } finally {
+ *         singleFlight.end(key, empty);
+ *       }
+ *       break;
+ *     case EMPTY:
+ *       // another thread found nothing
+ *       break;
+ *     default:
+ *       // check the cache again
+ *   }
+ *
+ * }</pre>
+ */
+public final class SingleFlight {
+
+  /**
+   * The outcome of {@link SingleFlight#begin(Object)}.
+   */
+  public enum Result {
+
+    /**
+     * The caller should load the key (and must then call end).
+     */
+    LOAD,
+
+    /**
+     * Another thread loaded the key (or the wait timed out) so check the cache again.
+     */
+    CHECK_CACHE,
+
+    /**
+     * Another thread loaded the key and found nothing.
+     */
+    EMPTY
+  }
+
+  private final ConcurrentHashMap<Object, Flight> inFlight = new ConcurrentHashMap<Object, Flight>();
+
+  private final long waitMillis;
+
+  private final LongAdder coalescedCount = new LongAdder();
+
+  /**
+   * Create with the maximum time a thread waits for another thread loading the same key.
+   */
+  public SingleFlight(long waitMillis) {
+    this.waitMillis = waitMillis;
+  }
+
+  /**
+   * Return LOAD if the caller should load the key (and must then call {@link #end(Object, boolean)}).
+   * <p>
+   * If another thread is loading the key this waits for that load to finish and
+   * returns EMPTY if that load found nothing and otherwise CHECK_CACHE such that
+   * the caller checks the cache again.
+   * </p>
+   */
+  public Result begin(Object key) {
+
+    Flight flight = new Flight();
+    Flight existing = inFlight.putIfAbsent(key, flight);
+    if (existing == null) {
+      return Result.LOAD;
+    }
+    if (existing.owner == Thread.currentThread()) {
+      // nested load of the same key by the loading thread
+      return Result.CHECK_CACHE;
+    }
+    coalescedCount.increment();
+    try {
+      if (existing.latch.await(waitMillis, TimeUnit.MILLISECONDS) && existing.empty) {
+        return Result.EMPTY;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return Result.CHECK_CACHE;
+  }
+
+  /**
+   * The load of the key has finished so release the waiting threads.
+   *
+   * @param key   the key that was loaded
+   * @param empty true if the load completed successfully and found nothing
+   */
+  public void end(Object key, boolean empty) {
+    Flight flight = inFlight.get(key);
+    if (flight != null && flight.owner == Thread.currentThread()) {
+      flight.empty = empty;
+      inFlight.remove(key, flight);
+      flight.latch.countDown();
+    }
+  }
+
+  /**
+   * Return the number of loads currently in progress.
+   */
+  public int size() {
+    return inFlight.size();
+  }
+
+  /**
+   * Return the number of times a thread waited on the load of another thread.
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  /**
+   * A load in progress.
+   */
+  private static final class Flight {
+
+    private final Thread owner = Thread.currentThread();
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * Set by the loader before releasing the latch (which publishes it to the waiting threads).
+     */
+    private boolean empty;
+  }
+}
@@ -0,0 +1,161 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.lib.DaemonThreadFactory;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClusterBroadcast that coalesces the transaction events over a short window and
+ * sends them as compact (and when large compressed) messages via a ClusterTransport.
+ * <p>
+ * Rather than a message per committed transaction the changes are collected per server
+ * and sent every window (or sooner when the number of pending ids reaches the maximum).
+ * The ids are deduplicated per bean type such that a bulk job updating the same beans
+ * in many transactions results in a few small messages.
+ * </p>
+ * <p>
+ * The ClusterManager uses this when a ClusterTransportFactory is found via ServiceLoader.
+ * </p>
+ */
+public class BatchingClusterBroadcast implements ClusterBroadcast, ClusterTransport.Listener {
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchingClusterBroadcast.class);
+
+  private final ClusterManager manager;
+
+  private final ClusterTransport transport;
+
+  private final long windowMillis;
+
+  private final int maxPendingIds;
+
+  private final int compressThreshold;
+
+  private final Object monitor = new Object();
+
+  /**
+   * The pending changes keyed by server name.
+   */
+  private Map<String, ClusterInvalidation> pending = new LinkedHashMap<String, ClusterInvalidation>();
+
+  private int pendingIds;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Create with the transport.
+   *
+   * @param windowMillis      the time in millis over which events are coalesced
+   * @param maxPendingIds     the number of pending ids at which the changes are sent immediately
+   * @param compressThreshold the message size in bytes from which messages are compressed
+   */
+  public BatchingClusterBroadcast(ClusterManager manager, ClusterTransport transport, long windowMillis, int maxPendingIds, int compressThreshold) {
+    this.manager = manager;
+    this.transport = transport;
+    this.windowMillis = windowMillis;
+    this.maxPendingIds = maxPendingIds;
+    this.compressThreshold = compressThreshold;
+  }
+
+  @Override
+  public void startup() {
+    transport.startup(this);
+    if (windowMillis > 0) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ebean-cluster-batch"));
+      scheduler.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    // send the remaining changes
+    flush();
+    transport.shutdown();
+  }
+
+  @Override
+  public void broadcast(RemoteTransactionEvent event) {
+
+    boolean sendNow;
+    synchronized (monitor) {
+      String serverName = event.getServerName();
+      ClusterInvalidation invalidation = pending.get(serverName);
+      if (invalidation == null) {
+        invalidation = new ClusterInvalidation(serverName);
+        pending.put(serverName, invalidation);
+      }
+      int before = invalidation.getIdCount();
+      invalidation.add(event);
+      pendingIds += invalidation.getIdCount() - before;
+      sendNow = windowMillis <= 0 || pendingIds >= maxPendingIds;
+    }
+    if (sendNow) {
+      flush();
+    }
+  }
+
+  /**
+   * Send the pending changes.
+   */
+  public void flush() {
+
+    Map<String, ClusterInvalidation> toSend;
+    synchronized (monitor) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      toSend = pending;
+      pending = new LinkedHashMap<String, ClusterInvalidation>();
+      pendingIds = 0;
+    }
+    for (ClusterInvalidation invalidation : toSend.values()) {
+      if (!invalidation.isEmpty()) {
+        try {
+          transport.send(invalidation.write(compressThreshold));
+        } catch (Exception e) {
+          logger.error("Error sending cluster message " + invalidation, e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onMessage(byte[] message) {
+    try {
+      process(ClusterInvalidation.read(message, manager));
+    } catch (IOException e) {
+      logger.error("Error reading cluster message", e);
+    }
+  }
+
+  /**
+   * Process the changes received from another member of the cluster.
+   */
+  protected void process(ClusterInvalidation invalidation) {
+
+    EbeanServer server = manager.getServer(invalidation.getServerName());
+    if (server instanceof SpiEbeanServer) {
+      invalidation.createEvent((SpiEbeanServer) server).run();
+    } else {
+      logger.warn("Cluster message for unknown server {}", invalidation.getServerName());
+    }
+  }
+}
@@ -0,0 +1,529 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
+import com.avaje.ebeaninternal.server.core.PersistRequest;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.id.IdBinder;
+import com.avaje.ebeaninternal.server.transaction.BeanPersistIds;
+import com.avaje.ebeaninternal.server.transaction.DeleteByIdMap;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The changes of many transactions of one server coalesced into a single cluster message.
+ * <p>
+ * The ids are deduplicated per bean type and the tables per table name. The message is
+ * written in a compact binary form where numeric ids are sorted and written as varint
+ * deltas and the message is compressed when it is large.
+ * </p>
+ * <pre>
+ *   flags (byte: 1 = deflated)
+ *   serverName
+ *   tableCount (varint) then per table: name, iud flags (byte)
+ *   beanTypeCount (varint) then per bean type: descriptorId, insert ids, update ids, delete ids
+ *
+ *   ids: count (varint) then when count &gt; 0 the id kind (byte) followed by
+ *     NUMERIC: first (zigzag varint) then the deltas (varint) in ascending order
+ *     STRING: each as UTF
+ *     BINDER: each written by the IdBinder of the bean type
+ * </pre>
+ * <p>
+ * The uncompressed size of a received message is limited to {@link #MAX_MESSAGE_SIZE}.
+ * </p>
+ */
+public class ClusterInvalidation {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClusterInvalidation.class);
+
+  /**
+   * The maximum size in bytes of a received message after decompression.
+   */
+  public static final int MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
+
+  private static final int FLAG_DEFLATED = 1;
+
+  private static final int ID_NUMERIC = 0;
+  private static final int ID_STRING = 1;
+  private static final int ID_BINDER = 2;
+
+  private static final int TABLE_INSERT = 1;
+  private static final int TABLE_UPDATE = 2;
+  private static final int TABLE_DELETE = 4;
+
+  private final String serverName;
+
+  private final Map<String, Integer> tables = new LinkedHashMap<String, Integer>();
+
+  private final Map<String, BeanIds> beans = new LinkedHashMap<String, BeanIds>();
+
+  private int idCount;
+
+  /**
+   * Create for the given server.
+   */
+  public ClusterInvalidation(String serverName) {
+    this.serverName = serverName;
+  }
+
+  /**
+   * Return the name of the server.
+   */
+  public String getServerName() {
+    return serverName;
+  }
+
+  /**
+   * Return the number of (deduplicated) ids.
+   */
+  public int getIdCount() {
+    return idCount;
+  }
+
+  /**
+   * Return true if there are no changes.
+   */
+  public boolean isEmpty() {
+    return tables.isEmpty() && beans.isEmpty();
+  }
+
+  /**
+   * Add the changes of a transaction.
+   */
+  public void add(RemoteTransactionEvent event) {
+
+    List<TableIUD> tableList = event.getTableIUDList();
+    if (tableList != null) {
+      for (int i = 0; i < tableList.size(); i++) {
+        TableIUD tableIUD = tableList.get(i);
+        int flags = (tableIUD.isInsert() ? TABLE_INSERT : 0)
+            | (tableIUD.isUpdate() ? TABLE_UPDATE : 0)
+            | (tableIUD.isDelete() ? TABLE_DELETE : 0);
+        addTable(tableIUD.getTableName(), flags);
+      }
+    }
+    List<BeanPersistIds> beanPersistList = event.getBeanPersistList();
+    for (int i = 0; i < beanPersistList.size(); i++) {
+      add(beanPersistList.get(i));
+    }
+    DeleteByIdMap deleteByIdMap = event.getDeleteByIdMap();
+    if (deleteByIdMap != null) {
+      for (BeanPersistIds deleteIds : deleteByIdMap.values()) {
+        add(deleteIds);
+      }
+    }
+  }
+
+  private void add(BeanPersistIds persistIds) {
+    BeanDescriptor<?> desc = persistIds.getBeanDescriptor();
+    addIds(desc.getDescriptorId(), desc.getIdBinder(), persistIds.getInsertIds(), persistIds.getUpdateIds(), persistIds.getDeleteIds());
+  }
+
+  /**
+   * Add the inserted, updated and deleted ids of a bean type.
+   *
+   * @param idBinder writes the ids that are not numeric or strings
+   */
+  void addIds(String descriptorId, IdBinder idBinder, List<Object> insertIds, List<Object> updateIds, List<Object> deleteIds) {
+    BeanIds ids = beans.get(descriptorId);
+    if (ids == null) {
+      ids = new BeanIds(idBinder);
+      beans.put(descriptorId, ids);
+    }
+    idCount += addAll(ids.insertIds, insertIds);
+    idCount += addAll(ids.updateIds, updateIds);
+    idCount += addAll(ids.deleteIds, deleteIds);
+  }
+
+  private int addAll(Set<Object> set, List<Object> ids) {
+    if (ids == null) {
+      return 0;
+    }
+    int before = set.size();
+    set.addAll(ids);
+    return set.size() - before;
+  }
+
+  /**
+   * Add a table with its iud flags.
+   */
+  void addTable(String table, int flags) {
+    Integer existing = tables.get(table);
+    tables.put(table, existing == null ? flags : existing | flags);
+  }
+
+  /**
+   * Create the RemoteTransactionEvent to process on the receiving server.
+   */
+  public RemoteTransactionEvent createEvent(SpiEbeanServer server) {
+
+    RemoteTransactionEvent event = new RemoteTransactionEvent(server);
+    for (Map.Entry<String, Integer> table : tables.entrySet()) {
+      int flags = table.getValue();
+      event.addTableIUD(new TableIUD(table.getKey(), (flags & TABLE_INSERT) != 0, (flags & TABLE_UPDATE) != 0, (flags & TABLE_DELETE) != 0));
+    }
+    for (Map.Entry<String, BeanIds> entry : beans.entrySet()) {
+      BeanDescriptor<?> desc = server.getBeanDescriptorById(entry.getKey());
+      if (desc == null) {
+        logger.warn("No BeanDescriptor for descriptorId {} on server {}", entry.getKey(), serverName);
+        continue;
+      }
+      BeanIds ids = entry.getValue();
+      BeanPersistIds persistIds = new BeanPersistIds(desc);
+      addPersistIds(desc, persistIds, PersistRequest.Type.INSERT, ids.insertIds);
+      addPersistIds(desc, persistIds, PersistRequest.Type.UPDATE, ids.updateIds);
+      addPersistIds(desc, persistIds, PersistRequest.Type.DELETE, ids.deleteIds);
+      event.addBeanPersistIds(persistIds);
+    }
+    return event;
+  }
+
+  private void addPersistIds(BeanDescriptor<?> desc, BeanPersistIds persistIds, PersistRequest.Type type, Set<Object> ids) {
+    for (Object id : ids) {
+      persistIds.addId(type, (Serializable) desc.convertId(id));
+    }
+  }
+
+  /**
+   * Return the ids of the given bean type for testing.
+   */
+  Set<Object> getIds(String descriptorId, PersistRequest.Type type) {
+    BeanIds ids = beans.get(descriptorId);
+    if (ids == null) {
+      return null;
+    }
+    switch (type) {
+      case INSERT:
+        return ids.insertIds;
+      case UPDATE:
+        return ids.updateIds;
+      default:
+        return ids.deleteIds;
+    }
+  }
+
+  /**
+   * Return the tables and their iud flags for testing.
+   */
+  Map<String, Integer> getTables() {
+    return tables;
+  }
+
+  /**
+   * Write the message compressing it when it is larger than the given size in bytes.
+   */
+  public byte[] write(int compressThreshold) throws IOException {
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + idCount * 3);
+    DataOutputStream os = new DataOutputStream(buffer);
+    os.writeUTF(serverName);
+    writeVarint(os, tables.size());
+    for (Map.Entry<String, Integer> table : tables.entrySet()) {
+      os.writeUTF(table.getKey());
+      os.writeByte(table.getValue());
+    }
+    writeVarint(os, beans.size());
+    for (Map.Entry<String, BeanIds> entry : beans.entrySet()) {
+      BeanIds ids = entry.getValue();
+      Set<Object> updateIds = ids.updateIds;
+      if (!ids.deleteIds.isEmpty()) {
+        // an update and delete of the same id are processed the same on the receiving side
+        updateIds = new LinkedHashSet<Object>(updateIds);
+        updateIds.removeAll(ids.deleteIds);
+      }
+      String descriptorId = entry.getKey();
+      os.writeUTF(descriptorId);
+      writeIds(os, descriptorId, ids.idBinder, ids.insertIds);
+      writeIds(os, descriptorId, ids.idBinder, updateIds);
+      writeIds(os, descriptorId, ids.idBinder, ids.deleteIds);
+    }
+    os.flush();
+    byte[] payload = buffer.toByteArray();
+
+    if (payload.length >= compressThreshold) {
+      byte[] deflated = deflate(payload);
+      if (deflated.length < payload.length) {
+        return withFlags(FLAG_DEFLATED, deflated);
+      }
+    }
+    return withFlags(0, payload);
+  }
+
+  /**
+   * Read a message written by {@link #write(int)}.
+   * <p>
+   * The ids written by an IdBinder are read using the IdBinder of the bean type of the
+   * server obtained from the manager.
+   * </p>
+   */
+  public static ClusterInvalidation read(byte[] message, ClusterManager manager) throws IOException {
+
+    int flags = message[0];
+    byte[] payload = Arrays.copyOfRange(message, 1, message.length);
+    if ((flags & FLAG_DEFLATED) != 0) {
+      payload = inflate(payload);
+    }
+    DataInputStream is = new DataInputStream(new ByteArrayInputStream(payload));
+    ClusterInvalidation invalidation = new ClusterInvalidation(is.readUTF());
+    int tableCount = readVarint(is);
+    for (int i = 0; i < tableCount; i++) {
+      String table = is.readUTF();
+      invalidation.addTable(table, is.readByte());
+    }
+    int beanCount = readVarint(is);
+    for (int i = 0; i < beanCount; i++) {
+      IdReader reader = new IdReader(manager, invalidation.serverName, is.readUTF());
+      BeanIds ids = new BeanIds(null);
+      invalidation.beans.put(reader.descriptorId, ids);
+      invalidation.idCount += reader.readIds(is, ids.insertIds);
+      invalidation.idCount += reader.readIds(is, ids.updateIds);
+      invalidation.idCount += reader.readIds(is, ids.deleteIds);
+    }
+    return invalidation;
+  }
+
+  private static byte[] withFlags(int flags, byte[] payload) {
+    byte[] message = new byte[payload.length + 1];
+    message[0] = (byte) flags;
+    System.arraycopy(payload, 0, message, 1, payload.length);
+    return message;
+  }
+
+  private static void writeIds(DataOutputStream os, String descriptorId, IdBinder idBinder, Collection<Object> ids) throws IOException {
+
+    writeVarint(os, ids.size());
+    if (ids.isEmpty()) {
+      return;
+    }
+    int kind = idKind(ids);
+    os.writeByte(kind);
+    switch (kind) {
+      case ID_NUMERIC:
+        long[] values = new long[ids.size()];
+        int i = 0;
+        for (Object id : ids) {
+          values[i++] = ((Number) id).longValue();
+        }
+        Arrays.sort(values);
+        writeVarLong(os, (values[0] << 1) ^ (values[0] >> 63));
+        for (int j = 1; j < values.length; j++) {
+          writeVarLong(os, values[j] - values[j - 1]);
+        }
+        break;
+
+      case ID_STRING:
+        for (Object id : ids) {
+          os.writeUTF((String) id);
+        }
+        break;
+
+      default:
+        if (idBinder == null) {
+          throw new IOException("No IdBinder to write the ids of " + descriptorId);
+        }
+        for (Object id : ids) {
+          idBinder.writeData(os, id);
+        }
+    }
+  }
+
+  /**
+   * Return the kind of ids (all numeric, all strings or otherwise written by the IdBinder).
+   */
+  private static int idKind(Collection<Object> ids) {
+    boolean numeric = true;
+    boolean string = true;
+    for (Object id : ids) {
+      if (!(id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte)) {
+        numeric = false;
+      }
+      if (!(id instanceof String)) {
+        string = false;
+      }
+    }
+    return numeric ? ID_NUMERIC : (string ? ID_STRING : ID_BINDER);
+  }
+
+  private static void writeVarint(DataOutputStream os, int value) throws IOException {
+    writeVarLong(os, value);
+  }
+
+  private static int readVarint(DataInputStream is) throws IOException {
+    return (int) readVarLong(is);
+  }
+
+  /**
+   * Write an unsigned value 7 bits per byte.
+   */
+  private static void writeVarLong(DataOutputStream os, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      os.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    os.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream is) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = is.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid varint");
+  }
+
+  private static byte[] deflate(byte[] payload) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(payload);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+      byte[] chunk = new byte[1024];
+      while (!deflater.finished()) {
+        int len = deflater.deflate(chunk);
+        out.write(chunk, 0, len);
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] deflated) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(deflated);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(deflated.length * 3, MAX_MESSAGE_SIZE));
+      byte[] chunk = new byte[1024];
+      while (!inflater.finished()) {
+        int len = inflater.inflate(chunk);
+        if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IOException("Truncated cluster message");
+        }
+        if (out.size() + len > MAX_MESSAGE_SIZE) {
+          throw new IOException("Cluster message exceeds the maximum size of " + MAX_MESSAGE_SIZE + " bytes");
+        }
+        out.write(chunk, 0, len);
+      }
+      return out.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IOException("Invalid cluster message", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  public String toString() {
+    return "ClusterInvalidation server:" + serverName + " tables:" + tables.keySet() + " beanTypes:" + beans.keySet() + " ids:" + idCount;
+  }
+
+  /**
+   * The deduplicated ids of a bean type.
+   */
+  private static final class BeanIds {
+
+    private final IdBinder idBinder;
+
+    private final Set<Object> insertIds = new LinkedHashSet<Object>();
+    private final Set<Object> updateIds = new LinkedHashSet<Object>();
+    private final Set<Object> deleteIds = new LinkedHashSet<Object>();
+
+    BeanIds(IdBinder idBinder) {
+      this.idBinder = idBinder;
+    }
+  }
+
+  /**
+   * Reads the ids of a bean type obtaining the IdBinder when required.
+   */
+  private static final class IdReader {
+
+    private final ClusterManager manager;
+
+    private final String serverName;
+
+    private final String descriptorId;
+
+    private IdBinder idBinder;
+
+    IdReader(ClusterManager manager, String serverName, String descriptorId) {
+      this.manager = manager;
+      this.serverName = serverName;
+      this.descriptorId = descriptorId;
+    }
+
+    int readIds(DataInputStream is, Set<Object> ids) throws IOException {
+
+      int count = readVarint(is);
+      if (count == 0) {
+        return 0;
+      }
+      int kind = is.readByte();
+      switch (kind) {
+        case ID_NUMERIC:
+          long zigzag = readVarLong(is);
+          long value = (zigzag >>> 1) ^ -(zigzag & 1);
+          ids.add(value);
+          for (int i = 1; i < count; i++) {
+            value += readVarLong(is);
+            ids.add(value);
+          }
+          break;
+
+        case ID_STRING:
+          for (int i = 0; i < count; i++) {
+            ids.add(is.readUTF());
+          }
+          break;
+
+        case ID_BINDER:
+          IdBinder binder = getIdBinder();
+          for (int i = 0; i < count; i++) {
+            ids.add(binder.readData(is));
+          }
+          break;
+
+        default:
+          throw new IOException("Invalid id kind " + kind);
+      }
+      return count;
+    }
+
+    private IdBinder getIdBinder() throws IOException {
+      if (idBinder == null) {
+        EbeanServer server = (manager == null) ? null : manager.getServer(serverName);
+        if (!(server instanceof SpiEbeanServer)) {
+          throw new IOException("Unknown server " + serverName + " reading the ids of " + descriptorId);
+        }
+        BeanDescriptor<?> desc = ((SpiEbeanServer) server).getBeanDescriptorById(descriptorId);
+        if (desc == null) {
+          throw new IOException("No BeanDescriptor for descriptorId " + descriptorId + " on server " + serverName);
+        }
+        idBinder = desc.getIdBinder();
+      }
+      return idBinder;
+    }
+  }
+}
@@ -31,11 +31,27 @@ public class ClusterManager {
     if (!config.isClusterActive()) {
       broadcast = null;
     } else {
-      ClusterBroadcastFactory factory = createFactory();
-      broadcast = factory.create(this, config.getProperties());
+      ClusterTransportFactory transportFactory = createTransportFactory();
+      if (transportFactory != null) {
+        ClusterTransport transport = transportFactory.create(this, config.getProperties());
+        broadcast = new BatchingClusterBroadcast(this, transport, config.getClusterBatchWindowMillis(),
+            config.getClusterBatchMaxIds(), config.getClusterCompressThreshold());
+      } else {
+        ClusterBroadcastFactory factory = createFactory();
+        broadcast = factory.create(this, config.getProperties());
+      }
     }
   }
 
+  /**
+   * Return the ClusterTransportFactory via ServiceLoader (or null if there is none).
+   */
+  private ClusterTransportFactory createTransportFactory() {
+
+    Iterator<ClusterTransportFactory> iterator = ServiceLoader.load(ClusterTransportFactory.class).iterator();
+    return iterator.hasNext() ? iterator.next() : null;
+  }
+
   /**
    * Return the ClusterTransportFactory via ServiceLoader.
    */
@@ -0,0 +1,33 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+/**
+ * Transport of binary messages to the other members of the cluster.
+ */
+public interface ClusterTransport {
+
+  /**
+   * Receives the messages sent by the other members of the cluster.
+   */
+  interface Listener {
+
+    /**
+     * Process a message sent by another member of the cluster.
+     */
+    void onMessage(byte[] message);
+  }
+
+  /**
+   * Join the cluster delivering the received messages to the listener.
+   */
+  void startup(Listener listener);
+
+  /**
+   * Leave the cluster.
+   */
+  void shutdown();
+
+  /**
+   * Send the message to all the other members of the cluster.
+   */
+  void send(byte[] message);
+}
@@ -0,0 +1,18 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import java.util.Properties;
+
+/**
+ * Factory to create the transport used by the batching cluster broadcast.
+ * <p>
+ * When an implementation is found via ServiceLoader the ClusterManager uses a
+ * BatchingClusterBroadcast with this transport rather than a ClusterBroadcastFactory.
+ * </p>
+ */
+public interface ClusterTransportFactory {
+
+  /**
+   * Create the cluster transport with the manager and deployment properties.
+   */
+  ClusterTransport create(ClusterManager manager, Properties properties);
+}
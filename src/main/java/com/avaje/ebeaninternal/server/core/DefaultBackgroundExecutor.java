@@ -44,6 +44,17 @@ public class DefaultBackgroundExecutor implements SpiBackgroundExecutor {
 		schedulePool.scheduleWithFixedDelay(r, delay, delay, unit);
 	}
 
+	/**
+	 * Execute the Runnable using the (non-scheduled) pool after the delay.
+	 */
+	public void executeLater(final Runnable r, long delay, TimeUnit unit) {
+		schedulePool.schedule(new Runnable() {
+			public void run() {
+				pool.execute(r);
+			}
+		}, delay, unit);
+	}
+
 	public void shutdown() {
 		pool.shutdown();
 		schedulePool.shutdown();
@@ -0,0 +1,121 @@
+package com.avaje.ebeaninternal.server.core;
+
+import com.avaje.ebean.CompiledQuery;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebeaninternal.api.CQueryPlanKey;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.SpiQuery;
+import com.avaje.ebeaninternal.api.SpiQuerySecondary;
+import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.server.query.CQueryPlan;
+import com.avaje.ebeaninternal.server.query.CQueryPredicates;
+
+import javax.persistence.NonUniqueResultException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Default implementation of CompiledQuery.
+ * <p>
+ * Holds the prepared query along with the query plan, secondary queries and the
+ * predicates (with NamedParam bind values) determined when the query was compiled.
+ * Each execution copies the query (as the query and request hold per execution state)
+ * and binds a copy of the predicates with the supplied parameter values.
+ * </p>
+ */
+public class DefaultCompiledQuery<T> implements CompiledQuery<T> {
+
+  private final SpiEbeanServer server;
+
+  private final OrmQueryEngine queryEngine;
+
+  private final SpiQuery<T> query;
+
+  private final CQueryPlanKey queryPlanKey;
+
+  private final SpiQuerySecondary secondaryQueries;
+
+  private final CQueryPlan queryPlan;
+
+  private final CQueryPredicates predicates;
+
+  private final Set<String> parameterNames;
+
+  public DefaultCompiledQuery(SpiEbeanServer server, OrmQueryEngine queryEngine, OrmQueryRequest<T> request,
+                              CQueryPlan queryPlan, CQueryPredicates predicates, Set<String> parameterNames) {
+    this.server = server;
+    this.queryEngine = queryEngine;
+    this.query = request.getQuery();
+    this.queryPlanKey = request.getQueryPlanKey();
+    this.secondaryQueries = request.getSecondaryQueries();
+    this.queryPlan = queryPlan;
+    this.predicates = predicates;
+    this.parameterNames = Collections.unmodifiableSet(parameterNames);
+  }
+
+  @Override
+  public List<T> findList(Map<String, Object> params) {
+    return findList(params, null);
+  }
+
+  @Override
+  public List<T> findList(Map<String, Object> params, Transaction transaction) {
+
+    OrmQueryRequest<T> request = createRequest(params, transaction);
+    try {
+      request.initTransIfRequired();
+      return request.findList();
+
+    } finally {
+      request.endTransIfRequired();
+    }
+  }
+
+  @Override
+  public T findUnique(Map<String, Object> params) {
+    return findUnique(params, null);
+  }
+
+  @Override
+  public T findUnique(Map<String, Object> params, Transaction transaction) {
+
+    List<T> list = findList(params, transaction);
+    if (list.isEmpty()) {
+      return null;
+
+    } else if (list.size() > 1) {
+      throw new NonUniqueResultException("Unique expecting 0 or 1 results but got [" + list.size() + "]");
+
+    } else {
+      return list.get(0);
+    }
+  }
+
+  @Override
+  public Set<String> getParameterNames() {
+    return parameterNames;
+  }
+
+  @Override
+  public String getGeneratedSql() {
+    return queryPlan.getSql();
+  }
+
+  /**
+   * Create the request for an execution using the compiled plan and binding the parameter values.
+   */
+  private OrmQueryRequest<T> createRequest(Map<String, Object> params, Transaction transaction) {
+
+    if (params == null) {
+      params = Collections.emptyMap();
+    }
+    SpiQuery<T> copy = query.copy();
+    copy.setType(SpiQuery.Type.LIST);
+
+    OrmQueryRequest<T> request = new OrmQueryRequest<T>(server, queryEngine, copy, (SpiTransaction) transaction);
+    request.prepareCompiled(queryPlanKey, secondaryQueries, queryPlan, predicates.bindCopy(request, params));
+    return request;
+  }
+}
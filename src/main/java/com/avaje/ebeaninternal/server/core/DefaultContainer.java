@@ -16,6 +16,7 @@ import com.avaje.ebeaninternal.api.SpiBackgroundExecutor;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
 import com.avaje.ebeaninternal.server.cache.DefaultServerCachePlugin;
 import com.avaje.ebeaninternal.server.cache.DefaultServerCacheManager;
+import com.avaje.ebeaninternal.server.cache.NearServerCacheFactory;
 import com.avaje.ebeaninternal.server.cluster.ClusterManager;
 import com.avaje.ebeaninternal.server.core.bootup.BootupClassPathSearch;
 import com.avaje.ebeaninternal.server.core.bootup.BootupClasses;
@@ -163,13 +164,16 @@ public class DefaultContainer implements SpiContainer {
     beanOptions.setMaxSize(serverConfig.getCacheMaxSize());
     beanOptions.setMaxIdleSecs(serverConfig.getCacheMaxIdleTime());
     beanOptions.setMaxSecsToLive(serverConfig.getCacheMaxTimeToLive());
+    beanOptions.setEvictionMode(serverConfig.getCacheEvictionMode());
 
     // reasonable default settings for the query cache per bean type
     ServerCacheOptions queryOptions = new ServerCacheOptions();
     queryOptions.setMaxSize(serverConfig.getQueryCacheMaxSize());
     queryOptions.setMaxIdleSecs(serverConfig.getQueryCacheMaxIdleTime());
     queryOptions.setMaxSecsToLive(serverConfig.getQueryCacheMaxTimeToLive());
+    queryOptions.setEvictionMode(serverConfig.getCacheEvictionMode());
 
+    boolean defaultPlugin = false;
     ServerCachePlugin plugin = serverConfig.getServerCachePlugin();
     if (plugin == null) {
       ServiceLoader<ServerCachePlugin> cacheFactories = ServiceLoader.load(ServerCachePlugin.class);
@@ -181,10 +185,15 @@ public class DefaultContainer implements SpiContainer {
       } else {
         // use the built in default
         plugin = new DefaultServerCachePlugin();
+        defaultPlugin = true;
       }
     }
 
     ServerCacheFactory factory = plugin.create(serverConfig, executor);
+    if (!defaultPlugin && serverConfig.getCacheNearMaxSize() > 0) {
+      // on-heap near cache in front of the plugin caches
+      factory = new NearServerCacheFactory(factory, executor, serverConfig.getCacheNearMaxSize(), serverConfig.getCacheNearMaxSecsToLive());
+    }
     return new DefaultServerCacheManager(factory, beanOptions, queryOptions);
   }
 
@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.avaje.ebean.meta.MetaBeanInfo;
+import com.avaje.ebean.meta.MetaPlanCacheStatistic;
 import com.avaje.ebean.meta.MetaQueryPlanStatistic;
+import com.avaje.ebean.meta.MetaTimedStatistic;
 import com.avaje.ebean.meta.MetaInfoManager;
 import com.avaje.ebean.meta.MetaObjectGraphNodeStats;
 
@@ -41,6 +43,31 @@ public class DefaultMetaInfoManager implements MetaInfoManager {
     
     return list;    
   }
+
+  @Override
+  public List<MetaTimedStatistic> collectTimedStatistics(boolean reset) {
+
+    List<MetaTimedStatistic> list = new ArrayList<MetaTimedStatistic>();
+    for (MetaBeanInfo metaBeanInfo : getMetaBeanInfoList()) {
+      for (MetaTimedStatistic statistic : metaBeanInfo.collectTimedStatistics(reset)) {
+        if (statistic.getCount() > 0) {
+          // Only collect non-empty statistics
+          list.add(statistic);
+        }
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public List<MetaPlanCacheStatistic> collectPlanCacheStatistics(boolean reset) {
+
+    List<MetaPlanCacheStatistic> list = new ArrayList<MetaPlanCacheStatistic>();
+    for (MetaBeanInfo metaBeanInfo : getMetaBeanInfoList()) {
+      list.addAll(metaBeanInfo.collectPlanCacheStatistics(reset));
+    }
+    return list;
+  }
   
   public List<MetaObjectGraphNodeStats> collectNodeStatistics(boolean reset) {
 
@@ -9,6 +9,7 @@ import com.avaje.ebean.bean.ObjectGraphNode;
 import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebean.bean.PersistenceContext.WithOption;
 import com.avaje.ebean.cache.ServerCacheManager;
+import com.avaje.ebean.common.BeanList;
 import com.avaje.ebean.config.DbMigrationConfig;
 import com.avaje.ebean.config.EncryptKeyManager;
 import com.avaje.ebean.config.ServerConfig;
@@ -29,20 +30,28 @@ import com.avaje.ebeaninternal.api.ScopeTrans;
 import com.avaje.ebeaninternal.api.ScopedTransaction;
 import com.avaje.ebeaninternal.api.SpiBackgroundExecutor;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.SpiExpression;
+import com.avaje.ebeaninternal.api.SpiExpressionList;
 import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.api.SpiQuery.Type;
 import com.avaje.ebeaninternal.api.SpiTransaction;
 import com.avaje.ebeaninternal.api.TransactionEventTable;
 import com.avaje.ebeaninternal.server.autotune.AutoTuneService;
+import com.avaje.ebeaninternal.server.cache.CacheWarmer;
+import com.avaje.ebeaninternal.server.cache.SingleFlight;
 import com.avaje.ebeaninternal.server.core.timezone.DataTimeZone;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptorManager;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
 import com.avaje.ebeaninternal.server.deploy.InheritInfo;
 import com.avaje.ebeaninternal.server.el.ElFilter;
+import com.avaje.ebeaninternal.server.el.ElFilterIndex;
+import com.avaje.ebeaninternal.server.expression.IdInExpression;
 import com.avaje.ebeaninternal.server.lib.ShutdownManager;
+import com.avaje.ebeaninternal.server.loadcontext.SecondaryQueryExecutor;
 import com.avaje.ebeaninternal.server.query.CQuery;
 import com.avaje.ebeaninternal.server.query.CQueryEngine;
+import com.avaje.ebeaninternal.server.query.CQueryPredicates;
 import com.avaje.ebeaninternal.server.query.CallableQueryIds;
 import com.avaje.ebeaninternal.server.query.CallableQueryList;
 import com.avaje.ebeaninternal.server.query.CallableQueryRowCount;
@@ -55,6 +64,7 @@ import com.avaje.ebeaninternal.server.querydefn.DefaultOrmUpdate;
 import com.avaje.ebeaninternal.server.querydefn.DefaultRelationalQuery;
 import com.avaje.ebeaninternal.server.querydefn.DefaultUpdateQuery;
 import com.avaje.ebeaninternal.server.text.csv.TCsvReader;
+import com.avaje.ebeaninternal.server.transaction.ConcurrentPersistenceContext;
 import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
 import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
 import com.avaje.ebeaninternal.server.transaction.TransactionManager;
@@ -70,15 +80,19 @@ import javax.persistence.NonUniqueResultException;
 import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
 import javax.sql.DataSource;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The default server side implementation of EbeanServer.
@@ -159,6 +173,26 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
    */
   private final PersistenceContextScope defaultPersistenceContextScope;
 
+  /**
+   * Set true to use the concurrent PersistenceContext implementation.
+   */
+  private final boolean persistenceContextConcurrent;
+
+  /**
+   * Used to process findEachPipelined queries.
+   */
+  private final QueryEachPipeline findEachPipeline;
+
+  /**
+   * Used to execute secondary queries in parallel (null when not enabled).
+   */
+  private final SecondaryQueryExecutor secondaryQueryExecutor;
+
+  /**
+   * Warms the bean caches on start (null when cache warming is not used).
+   */
+  private final CacheWarmer cacheWarmer;
+
   /**
    * Flag set when the server has shutdown.
    */
@@ -204,6 +238,9 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     this.expressionFactory = config.getExpressionFactory();
     this.encryptKeyManager = serverConfig.getEncryptKeyManager();
     this.defaultPersistenceContextScope = serverConfig.getPersistenceContextScope();
+    this.persistenceContextConcurrent = serverConfig.isPersistenceContextConcurrent();
+    this.findEachPipeline = new QueryEachPipeline(backgroundExecutor, serverConfig.getFindEachPipelineQueueSize(), serverConfig.getFindEachPipelineThreads());
+    this.secondaryQueryExecutor = createSecondaryQueryExecutor();
 
     this.beanDescriptorManager = config.getBeanDescriptorManager();
     beanDescriptorManager.setEbeanServer(this);
@@ -234,6 +271,7 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
 
     this.serverPlugins = config.getPlugins();
     this.ddlGenerator = new DdlGenerator(this, serverConfig);
+    this.cacheWarmer = createCacheWarmer();
 
     configureServerPlugins();
     
@@ -350,6 +388,22 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
         runner.run(serverConfig.getDataSource());
       }
     }
+    if (cacheWarmer != null) {
+      backgroundExecutor.executeLater(new Runnable() {
+        public void run() {
+          cacheWarmer.warm();
+        }
+      }, serverConfig.getCacheWarmingDelay(), TimeUnit.SECONDS);
+
+      int snapshotSecs = serverConfig.getCacheWarmingSnapshotSecs();
+      if (snapshotSecs > 0) {
+        backgroundExecutor.executePeriodically(new Runnable() {
+          public void run() {
+            cacheWarmer.writePeriodicSnapshot();
+          }
+        }, snapshotSecs, TimeUnit.SECONDS);
+      }
+    }
   }
 
   /**
@@ -382,9 +436,15 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
       // already shutdown
       return;
     }
+    if (cacheWarmer != null) {
+      // snapshot the hot ids while the caches are populated
+      cacheWarmer.writeSnapshot();
+    }
     shutdownPlugins();
 
     autoTuneService.shutdown();
+    // commit any queued group commit
+    persister.shutdown();
     // shutdown background threads
     backgroundExecutor.shutdown();
     // shutdown DataSource (if its an Ebean one)
@@ -431,6 +491,37 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     return cqueryEngine.buildQuery(orm);
   }
 
+  @Override
+  public <T> CompiledQuery<T> createCompiledQuery(Query<T> query) {
+
+    SpiQuery<T> template = (SpiQuery<T>) query.copy();
+    if (template.isRawSql()) {
+      throw new IllegalArgumentException("RawSql queries are not supported by createCompiledQuery()");
+    }
+    if (template.isAsOfQuery() || template.isVersionsBetween() || template.isUseDocStore()) {
+      throw new IllegalArgumentException("AsOf, versions and doc store queries are not supported by createCompiledQuery()");
+    }
+    BeanDescriptor<T> desc = template.getBeanDescriptor();
+    if (desc.getQueryAdapter() != null) {
+      throw new IllegalStateException("createCompiledQuery() not supported for " + desc.getFullName() + " with a BeanQueryAdapter");
+    }
+    // tuning would change the query plan per execution
+    template.setAutoTune(false);
+
+    OrmQueryRequest<T> request = (OrmQueryRequest<T>) createQueryRequest(Type.LIST, template, null);
+    if (template.getMaxRows() > 1 || template.getFirstRow() > 0) {
+      // paging query so ensure unique row ordering as per CQueryEngine.findMany()
+      desc.appendOrderById(template);
+    }
+
+    CQuery<T> cquery = cqueryEngine.buildQuery(request);
+    CQueryPredicates predicates = cquery.getPredicates();
+    Set<String> parameterNames = new LinkedHashSet<String>();
+    predicates.addNamedParams(parameterNames);
+
+    return new DefaultCompiledQuery<T>(this, queryEngine, request, cquery.getQueryPlan(), predicates, parameterNames);
+  }
+
   public ServerCacheManager getServerCacheManager() {
     return serverCacheManager;
   }
@@ -868,6 +959,31 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     return new ElFilter<T>(desc);
   }
 
+  @Override
+  public <T> FilterIndex<T> createFilterIndex(Class<T> beanType, List<T> list, String... properties) {
+    BeanDescriptor<T> desc = getBeanDescriptor(beanType);
+    if (desc == null) {
+      String m = beanType.getName() + " is NOT an Entity Bean registered with this server?";
+      throw new PersistenceException(m);
+    }
+    return new ElFilterIndex<T>(desc, list, properties);
+  }
+
+  @Override
+  public <T> FilterIndex<T> createFilterIndex(Class<T> beanType, String... properties) {
+    BeanDescriptor<T> desc = getBeanDescriptor(beanType);
+    if (desc == null) {
+      String m = beanType.getName() + " is NOT an Entity Bean registered with this server?";
+      throw new PersistenceException(m);
+    }
+    List<T> list = find(beanType)
+        .setUseQueryCache(desc.isQueryCaching())
+        .setLoadBeanCache(desc.isBeanCaching())
+        .findList();
+
+    return new ElFilterIndex<T>(desc, list, properties);
+  }
+
   public <T> CsvReader<T> createCsvReader(Class<T> beanType) {
     BeanDescriptor<T> descriptor = getBeanDescriptor(beanType);
     if (descriptor == null) {
@@ -1014,11 +1130,49 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     return (scope != null) ? scope : defaultPersistenceContextScope;
   }
 
+  /**
+   * Create the CacheWarmer if a cache warming file is set.
+   */
+  private CacheWarmer createCacheWarmer() {
+    String warmingFile = serverConfig.getCacheWarmingFile();
+    if (warmingFile == null) {
+      return null;
+    }
+    return new CacheWarmer(this, new File(warmingFile), serverConfig.getCacheWarmingMaxIds());
+  }
+
+  /**
+   * Create the SecondaryQueryExecutor if parallel secondary queries are enabled.
+   */
+  private SecondaryQueryExecutor createSecondaryQueryExecutor() {
+    int maxParallel = serverConfig.getQueryJoinMaxParallel();
+    if (maxParallel < 1) {
+      return null;
+    }
+    return new SecondaryQueryExecutor(this, backgroundExecutor, maxParallel, serverConfig.getQueryJoinParallelism());
+  }
+
+  /**
+   * Return the executor used to execute secondary queries in parallel (null when not enabled).
+   */
+  public SecondaryQueryExecutor getSecondaryQueryExecutor() {
+    return secondaryQueryExecutor;
+  }
+
+  /**
+   * Create a new PersistenceContext (default or concurrent implementation based on configuration).
+   */
+  public PersistenceContext createPersistenceContext() {
+    return persistenceContextConcurrent ? new ConcurrentPersistenceContext() : new DefaultPersistenceContext();
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T findId(Query<T> query, Transaction t) {
 
     SpiQuery<T> spiQuery = (SpiQuery<T>) query;
     spiQuery.setType(Type.BEAN);
+    BeanDescriptor<T> desc = spiQuery.getBeanDescriptor();
+    Object loadId = null;
     if (SpiQuery.Mode.NORMAL.equals(spiQuery.getMode()) && !spiQuery.isLoadBeanCache()) {
       // See if we can skip doing the fetch completely by getting the bean from the
       // persistence context or the bean cache
@@ -1026,18 +1180,45 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
       if (bean != null) {
         return bean;
       }
+      if (spiQuery.isUseBeanCache()) {
+        // bean cache miss so only one thread loads a given id
+        Object id = desc.convertId(spiQuery.getId());
+        SingleFlight.Result load = desc.cacheBeanLoadBegin(id);
+        if (load == SingleFlight.Result.LOAD) {
+          loadId = id;
+        } else if (load == SingleFlight.Result.EMPTY) {
+          // another thread found no bean with this id
+          return null;
+        } else {
+          // another thread loaded the bean so check the bean cache again
+          bean = findIdCheckPersistenceContextAndCache(t, spiQuery,  id);
+          if (bean != null) {
+            return bean;
+          }
+        }
+      }
     }
 
-    SpiOrmQueryRequest<T> request = createQueryRequest(spiQuery, t);
-    if (request.isUseDocStore()) {
-      return docStore().find(request);
-    }
+    boolean notFound = false;
     try {
-      request.initTransIfRequired();
-      return (T) request.findId();
+      SpiOrmQueryRequest<T> request = createQueryRequest(spiQuery, t);
+      if (request.isUseDocStore()) {
+        return docStore().find(request);
+      }
+      try {
+        request.initTransIfRequired();
+        T bean = (T) request.findId();
+        // only share not found with other threads when no other predicates applied
+        notFound = (bean == null && spiQuery.getWhereExpressions() == null);
+        return bean;
 
+      } finally {
+        request.endTransIfRequired();
+      }
     } finally {
-      request.endTransIfRequired();
+      if (loadId != null) {
+        desc.cacheBeanLoadEnd(loadId, notFound);
+      }
     }
   }
 
@@ -1060,9 +1241,42 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
       }
     }
 
-    // a query that is expected to return either 0 or 1 rows
-    List<T> list = findList(query, t);
-    return extractUnique(list);
+    Object naturalKey = (id == null) ? desc.cacheNaturalKeyLookupKey(spiQuery) : null;
+    if (naturalKey == null) {
+      // a query that is expected to return either 0 or 1 rows
+      List<T> list = findList(query, t);
+      return extractUnique(list);
+    }
+
+    // natural key cache miss so only one thread loads a given natural key
+    SingleFlight.Result load = desc.cacheNaturalKeyLoadBegin(naturalKey);
+    if (load == SingleFlight.Result.EMPTY) {
+      // another thread found no bean with this natural key
+      return null;
+    }
+    if (load != SingleFlight.Result.LOAD) {
+      // another thread loaded the bean so check the natural key cache again
+      id = desc.cacheNaturalKeyIdLookup(spiQuery);
+      if (id != null) {
+        T bean = findIdCheckPersistenceContextAndCache(t, spiQuery, id);
+        if (bean != null) {
+          return bean;
+        }
+      }
+      return extractUnique(findList(query, t));
+    }
+    boolean notFound = false;
+    try {
+      T bean = extractUnique(findList(query, t));
+      if (bean != null) {
+        // put into the bean cache which also puts the natural key
+        desc.cacheBeanPut((EntityBean) bean);
+      }
+      notFound = (bean == null);
+      return bean;
+    } finally {
+      desc.cacheNaturalKeyLoadEnd(naturalKey, notFound);
+    }
   }
 
   private <T> T extractUnique(List<T> list) {
@@ -1218,7 +1432,7 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     spiQuery.setFutureFetch(true);
 
     // FutureList query always run in it's own persistence content
-    spiQuery.setPersistenceContext(new DefaultPersistenceContext());
+    spiQuery.setPersistenceContext(createPersistenceContext());
 
     if (!spiQuery.isDisableReadAudit()) {
       BeanDescriptor<T> desc = beanDescriptorManager.getBeanDescriptor(spiQuery.getBeanType());
@@ -1263,6 +1477,20 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     // no try finally - findEach guarantee's cleanup of the transaction if required
   }
 
+  public <T> void findEachPipelined(Query<T> query, QueryEachConsumer<T> consumer, Transaction t) {
+
+    SpiOrmQueryRequest<T> request = createQueryRequest(Type.ITERATE, query, t);
+
+    if (request.isUseDocStore()) {
+      docStore().findEach(request, consumer);
+      return;
+    }
+
+    request.initTransIfRequired();
+    request.findEachPipelined(consumer, findEachPipeline);
+    // no try finally - the pipeline guarantee's cleanup of the transaction if required
+  }
+
   public <T> void findEachWhile(Query<T> query, QueryEachWhileConsumer<T> consumer, Transaction t) {
 
     SpiOrmQueryRequest<T> request = createQueryRequest(Type.ITERATE, query, t);
@@ -1289,9 +1517,124 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
     }
   }
 
-  @SuppressWarnings("unchecked")
   public <T> List<T> findList(Query<T> query, Transaction t) {
 
+    SpiQuery<T> spiQuery = (SpiQuery<T>) query;
+    IdInExpression idIn = beanCacheIdIn(spiQuery);
+    if (idIn != null) {
+      return findListIdInWithBeanCache(spiQuery, idIn, t);
+    }
+    return findListQuery(query, t);
+  }
+
+  /**
+   * Return the IdInExpression if the query is a find by ids that can use the bean cache.
+   * <p>
+   * This is a query with only an id in expression and no select/fetch, order by,
+   * max rows or temporal mode such that the result is the same as finding each bean by id.
+   * </p>
+   */
+  private <T> IdInExpression beanCacheIdIn(SpiQuery<T> query) {
+
+    if (!query.isUseBeanCache() || query.isLoadBeanCache() || query.isUseQueryCache() || query.isUseDocStore()
+        || !SpiQuery.Mode.NORMAL.equals(query.getMode()) || SpiQuery.TemporalMode.CURRENT != query.getTemporalMode()
+        || query.isRawSql() || query.isForUpdate() || query.hasMaxRowsOrFirstRow() || !query.isDetailEmpty()
+        || query.getMapKey() != null || query.getId() != null) {
+      return null;
+    }
+    OrderBy<T> orderBy = query.getOrderBy();
+    if (orderBy != null && !orderBy.isEmpty()) {
+      return null;
+    }
+    SpiExpressionList<T> having = query.getHavingExpressions();
+    if (having != null && !having.isEmpty()) {
+      return null;
+    }
+    SpiExpressionList<T> where = query.getWhereExpressions();
+    if (where == null) {
+      return null;
+    }
+    List<SpiExpression> expressions = where.getUnderlyingList();
+    if (expressions.size() != 1 || !(expressions.get(0) instanceof IdInExpression)) {
+      return null;
+    }
+    return (IdInExpression) expressions.get(0);
+  }
+
+  /**
+   * Find by ids reading the beans in the bean cache and only querying the ids not in the cache.
+   * <p>
+   * The result is in the order of the ids. The beans loaded from the database are put into
+   * the bean cache.
+   * </p>
+   */
+  @SuppressWarnings("unchecked")
+  private <T> List<T> findListIdInWithBeanCache(SpiQuery<T> query, IdInExpression idIn, Transaction t) {
+
+    BeanDescriptor<T> desc = query.getBeanDescriptor();
+    Set<Object> ids = new LinkedHashSet<Object>();
+    for (Object id : idIn.getIdList()) {
+      ids.add(desc.convertId(id));
+    }
+
+    PersistenceContext pc = query.getPersistenceContext();
+    SpiTransaction trans = (SpiTransaction) t;
+    if (trans == null) {
+      trans = getCurrentServerTransaction();
+    }
+    if (pc == null && trans != null && useTransactionPersistenceContext(query)) {
+      pc = trans.getPersistenceContext();
+    }
+    if (pc == null) {
+      pc = createPersistenceContext();
+    }
+
+    Map<Object, T> beans = new HashMap<Object, T>();
+    Set<Object> cacheIds = new LinkedHashSet<Object>();
+    for (Object id : ids) {
+      WithOption o = desc.contextGetWithOption(pc, id);
+      if (o == null) {
+        cacheIds.add(id);
+      } else if (!o.isDeleted()) {
+        beans.put(id, (T) o.getBean());
+      }
+    }
+    if (!cacheIds.isEmpty()) {
+      beans.putAll(desc.cacheBeanGetAll(cacheIds, query.isReadOnly(), pc));
+    }
+
+    List<Object> missingIds = new ArrayList<Object>();
+    for (Object id : cacheIds) {
+      if (!beans.containsKey(id)) {
+        missingIds.add(id);
+      }
+    }
+    if (!missingIds.isEmpty()) {
+      // query the missing ids with the same persistence context and load them into the cache
+      SpiQuery<T> missing = query.copy();
+      List<SpiExpression> expressions = missing.getWhereExpressions().getUnderlyingList();
+      expressions.clear();
+      expressions.add(new IdInExpression(missingIds, serverConfig.isExpressionInPadding()));
+      missing.setPersistenceContext(pc);
+      missing.setLoadBeanCache(true);
+      for (T bean : findListQuery(missing, t)) {
+        beans.put(desc.getId((EntityBean) bean), bean);
+      }
+    }
+
+    List<T> list = new ArrayList<T>(ids.size());
+    for (Object id : ids) {
+      T bean = beans.get(id);
+      if (bean != null) {
+        list.add(bean);
+      }
+    }
+    return new BeanList<T>(list);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> List<T> findListQuery(Query<T> query, Transaction t) {
+
     SpiOrmQueryRequest<T> request = createQueryRequest(Type.LIST, query, t);
     Object result = request.getFromQueryCache();
     if (result != null) {
@@ -1459,6 +1802,7 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
       return;
     }
     
+    preAllocateIds(beans, true);
     TransWrapper wrap = initTransIfRequired(t);
     try {
       SpiTransaction trans = wrap.transaction;
@@ -1554,14 +1898,47 @@ public final class DefaultServer implements SpiServer, SpiEbeanServer {
   
   @Override
   public int saveAll(Collection<?> beans, Transaction transaction) throws OptimisticLockException {
+    preAllocateIds(beans, false);
     return saveAllInternal(beans.iterator(), transaction);
   }
 
   @Override
   public int saveAll(Collection<?> beans) throws OptimisticLockException {
+    preAllocateIds(beans, false);
     return saveAllInternal(beans.iterator(), null);
   }
 
+  /**
+   * Pre-allocate the ids for the beans to be inserted (sequence values loaded ahead of the inserts).
+   * <p>
+   * Uses the type of the first bean and for a save counts the new beans of that type.
+   * </p>
+   */
+  private void preAllocateIds(Collection<?> beans, boolean insert) {
+
+    if (beans.size() < 2) {
+      return;
+    }
+    Object first = beans.iterator().next();
+    if (!(first instanceof EntityBean)) {
+      return;
+    }
+    BeanDescriptor<?> desc = getBeanDescriptor(first.getClass());
+    if (desc == null) {
+      return;
+    }
+    int count = beans.size();
+    if (!insert) {
+      count = 0;
+      for (Object bean : beans) {
+        if (bean != null && bean.getClass() == first.getClass() && ((EntityBean) bean)._ebean_getIntercept().isNew()) {
+          count++;
+        }
+      }
+    }
+    desc.preAllocateIds(count);
+  }
+
   /**
    * Save all beans in the iterator with an explicit transaction.
    */
@@ -146,7 +146,7 @@ public class InternalConfiguration {
   private ExpressionFactory initExpressionFactory(ServerConfig serverConfig, DatabasePlatform databasePlatform) {
 
     boolean nativeIlike = serverConfig.isExpressionNativeIlike() && databasePlatform.isSupportsNativeIlike();
-    return new DefaultExpressionFactory(serverConfig.isExpressionEqualsWithNullAsNoop(), nativeIlike);
+    return new DefaultExpressionFactory(serverConfig.isExpressionEqualsWithNullAsNoop(), nativeIlike, serverConfig.isExpressionInPadding());
   }
 
   private DocStoreFactory initDocStoreFactory(DocStoreFactory service) {
@@ -21,6 +21,8 @@ import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.api.SpiQuery.Type;
 import com.avaje.ebeaninternal.api.SpiQuerySecondary;
 import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.server.cache.SingleFlight;
+import com.avaje.ebeaninternal.server.deploy.BeanCollectionHelpFactory;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocMany;
@@ -28,8 +30,8 @@ import com.avaje.ebeaninternal.server.deploy.DeployParser;
 import com.avaje.ebeaninternal.server.deploy.DeployPropertyParserMap;
 import com.avaje.ebeaninternal.server.loadcontext.DLoadContext;
 import com.avaje.ebeaninternal.server.query.CQueryPlan;
+import com.avaje.ebeaninternal.server.query.CQueryPredicates;
 import com.avaje.ebeaninternal.server.query.CancelableQuery;
-import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
 
 import javax.persistence.PersistenceException;
 import java.util.ArrayList;
@@ -63,10 +65,30 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
 
   private HashQuery cacheKey;
 
+  /**
+   * Set when this request executes the query on a query cache miss (other requests wait on it).
+   */
+  private boolean queryCacheLoading;
+
+  /**
+   * Set when the query executed on a query cache miss returned no rows (which is not cached).
+   */
+  private boolean queryCacheEmpty;
+
   private CQueryPlanKey queryPlanKey;
 
   private SpiQuerySecondary secondaryQueries;
 
+  /**
+   * Query plan of a compiled query (null for other queries).
+   */
+  private CQueryPlan compiledPlan;
+
+  /**
+   * Predicates with bind values of a compiled query (null for other queries).
+   */
+  private CQueryPredicates compiledPredicates;
+
   /**
    * Create the InternalQueryRequest.
    */
@@ -161,6 +183,41 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     this.queryPlanKey = query.prepare(this);
   }
 
+  /**
+   * Prepare using the plan of a compiled query.
+   * <p>
+   * The query has already been prepared when it was compiled so this skips the
+   * BeanQueryAdapter, converting joins and calculating the query plan key.
+   * </p>
+   */
+  public void prepareCompiled(CQueryPlanKey queryPlanKey, SpiQuerySecondary secondaryQueries, CQueryPlan plan, CQueryPredicates predicates) {
+    this.queryPlanKey = queryPlanKey;
+    this.secondaryQueries = secondaryQueries;
+    this.compiledPlan = plan;
+    this.compiledPredicates = predicates;
+  }
+
+  /**
+   * Return the secondary queries determined when the query was prepared.
+   */
+  public SpiQuerySecondary getSecondaryQueries() {
+    return secondaryQueries;
+  }
+
+  /**
+   * Return the query plan of a compiled query (or null if this is not a compiled query).
+   */
+  public CQueryPlan getCompiledPlan() {
+    return compiledPlan;
+  }
+
+  /**
+   * Return the predicates of a compiled query (or null if this is not a compiled query).
+   */
+  public CQueryPredicates getCompiledPredicates() {
+    return compiledPredicates;
+  }
+
   public boolean isRawSql() {
     return rawSql != null;
   }
@@ -236,7 +293,7 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
    * For iterate queries reset the persistenceContext and loadContext.
    */
   public void flushPersistenceContextOnIterate() {
-    persistenceContext = new DefaultPersistenceContext();
+    persistenceContext = ebeanServer.createPersistenceContext();
     loadContext.resetPersistenceContext(persistenceContext);
     if (jsonRead != null) {
       jsonRead.setPersistenceContext(persistenceContext);
@@ -257,7 +314,17 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
 
     // determine the scope (from the query and then server)
     PersistenceContextScope scope = ebeanServer.getPersistenceContextScope(query);
-    return (scope == PersistenceContextScope.QUERY || t == null) ? new DefaultPersistenceContext() : t.getPersistenceContext();
+    return (scope == PersistenceContextScope.QUERY || t == null) ? ebeanServer.createPersistenceContext() : t.getPersistenceContext();
+  }
+
+  /**
+   * Return true if the transaction was created just to execute this query.
+   * <p>
+   * In this case secondary queries can execute using other transactions (connections).
+   * </p>
+   */
+  public boolean isQueryOnlyTransaction() {
+    return createdTransaction;
   }
 
   /**
@@ -267,8 +334,15 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
    * </p>
    */
   public void endTransIfRequired() {
-    if (createdTransaction) {
-      transaction.commit();
+    try {
+      if (createdTransaction) {
+        transaction.commit();
+      }
+    } finally {
+      if (queryCacheLoading) {
+        queryCacheLoading = false;
+        beanDescriptor.queryCacheLoadEnd(cacheKey, queryCacheEmpty);
+      }
     }
   }
 
@@ -320,6 +394,14 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     }
   }
 
+  public void findEachPipelined(QueryEachConsumer<T> consumer, QueryEachPipeline pipeline) {
+    QueryIterator<T> it = queryEngine.findIterate(this);
+    if (it != null) {
+      // closes the iterator and hence ends the transaction if required
+      pipeline.process(it, consumer);
+    }
+  }
+
   public void findEachWhile(QueryEachWhileConsumer<T> consumer) {
     QueryIterator<T> it = queryEngine.findIterate(this);
     try {
@@ -438,6 +520,20 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     cacheKey = query.queryHash();
 
     BeanCollection<T> cached = beanDescriptor.queryCacheGet(cacheKey);
+    if (cached == null && !isUseDocStore()) {
+      // query cache miss so only one thread executes a given query
+      SingleFlight.Result load = beanDescriptor.queryCacheLoadBegin(cacheKey);
+      if (load == SingleFlight.Result.LOAD) {
+        queryCacheLoading = true;
+        return null;
+      }
+      if (load == SingleFlight.Result.EMPTY) {
+        // another thread executed the query and it returned no rows
+        return BeanCollectionHelpFactory.create(this).createEmptyNoParent();
+      }
+      // another thread executed the query so check the query cache again
+      cached = beanDescriptor.queryCacheGet(cacheKey);
+    }
 
     if (cached != null && isAuditReads() && readAuditQueryType()) {
       // raw sql can't use L2 cache so normal queries only in here
@@ -470,8 +566,18 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     }
   }
 
+  /**
+   * Put the query result into the query cache.
+   * <p>
+   * An empty result is not cached but is shared with the threads waiting on this query.
+   * </p>
+   */
   public void putToQueryCache(BeanCollection<T> queryResult) {
-    beanDescriptor.queryCachePut(cacheKey, queryResult);
+    if (queryResult.isEmpty()) {
+      queryCacheEmpty = true;
+    } else {
+      beanDescriptor.queryCachePut(cacheKey, queryResult);
+    }
   }
 
   /**
@@ -78,4 +78,8 @@ public interface Persister {
    */
   <T> List<T> draftRestore(Query<T> query, Transaction transaction);
 
+  /**
+   * Shutdown the persister completing any queued group commit.
+   */
+  void shutdown();
 }
@@ -0,0 +1,267 @@
+package com.avaje.ebeaninternal.server.core;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.QueryEachConsumer;
+
+import javax.persistence.PersistenceException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes a findEach query as a producer/consumer pipeline.
+ * <p>
+ * The calling thread reads the JDBC resultSet, builds the beans and executes the
+ * secondary queries (it holds the transaction and connection) putting the beans
+ * into a bounded queue. Consumer tasks run on the BackgroundExecutor taking beans
+ * from the queue such that the database IO overlaps with the processing of the beans.
+ * </p>
+ * <p>
+ * When the queue is full the reading thread blocks (back pressure). Reading starts
+ * once the consumer tasks have started. If no consumer task starts in time (for
+ * example the BackgroundExecutor is busy with other tasks) the reading thread
+ * processes all the beans itself such that the query always completes. A bean is
+ * never processed by the reading thread while consumer tasks are running.
+ * </p>
+ */
+public final class QueryEachPipeline {
+
+  private static final long POLL_MILLIS = 50;
+
+  /**
+   * The time to wait for the consumer tasks to start.
+   */
+  private static final long START_MILLIS = 1000;
+
+  private final BackgroundExecutor executor;
+
+  private final int queueSize;
+
+  private final int consumerThreads;
+
+  /**
+   * Create with the executor used to run the consumers.
+   *
+   * @param queueSize       the maximum number of beans read ahead of the consumers
+   * @param consumerThreads the number of consumer tasks to execute
+   */
+  public QueryEachPipeline(BackgroundExecutor executor, int queueSize, int consumerThreads) {
+    this.executor = executor;
+    this.queueSize = Math.max(1, queueSize);
+    this.consumerThreads = Math.max(1, consumerThreads);
+  }
+
+  /**
+   * Return the maximum number of beans read ahead of the consumers.
+   */
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  /**
+   * Return the number of consumer tasks.
+   */
+  public int getConsumerThreads() {
+    return consumerThreads;
+  }
+
+  /**
+   * Read all the beans from the iterator passing them to the consumer.
+   * <p>
+   * This returns when all the beans have been processed. The iterator (and hence the
+   * transaction) is closed after the consumers have finished. An exception thrown by
+   * the consumer stops the reading and is rethrown to the caller.
+   * </p>
+   */
+  public <T> void process(QueryIterator<T> iterator, QueryEachConsumer<T> consumer) {
+
+    Pipe<T> pipe = new Pipe<T>(queueSize, consumerThreads, consumer);
+    boolean success = false;
+    try {
+      for (int i = 0; i < consumerThreads; i++) {
+        executor.execute(pipe);
+      }
+      if (pipe.awaitConsumers()) {
+        while (iterator.hasNext()) {
+          pipe.put(iterator.next());
+        }
+      } else {
+        // no consumer task started so process all the beans here
+        while (iterator.hasNext()) {
+          consumer.accept(iterator.next());
+        }
+      }
+      success = true;
+    } finally {
+      try {
+        pipe.finish(success);
+      } finally {
+        iterator.close();
+      }
+    }
+    pipe.checkError();
+  }
+
+  /**
+   * The bounded queue shared by the reading thread and consumer tasks.
+   */
+  private static final class Pipe<T> implements Runnable {
+
+    private final BlockingQueue<T> queue;
+
+    private final QueryEachConsumer<T> consumer;
+
+    /**
+     * Counted down as each consumer task starts.
+     */
+    private final CountDownLatch started;
+
+    /**
+     * The number of consumer tasks running.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final Object monitor = new Object();
+
+    /**
+     * Set when the reading thread stops waiting for consumer tasks to start. A task
+     * that starts after this does nothing.
+     */
+    private boolean startClosed;
+
+    /**
+     * Set when all beans have been put into the queue.
+     */
+    private volatile boolean done;
+
+    /**
+     * Set when the processing should stop (error in reading or consuming).
+     */
+    private volatile boolean stop;
+
+    private volatile Throwable error;
+
+    Pipe(int queueSize, int consumerThreads, QueryEachConsumer<T> consumer) {
+      this.queue = new ArrayBlockingQueue<T>(queueSize);
+      this.started = new CountDownLatch(consumerThreads);
+      this.consumer = consumer;
+    }
+
+    /**
+     * Wait for the consumer tasks to start returning true if at least one has started.
+     * <p>
+     * After this returns no more consumer tasks start.
+     * </p>
+     */
+    boolean awaitConsumers() {
+      try {
+        started.await(START_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PersistenceException("Interrupted starting findEach pipeline", e);
+      } finally {
+        synchronized (monitor) {
+          startClosed = true;
+        }
+      }
+      return active.get() > 0;
+    }
+
+    /**
+     * Consumer task taking beans from the queue until the reading is done.
+     */
+    @Override
+    public void run() {
+      synchronized (monitor) {
+        if (startClosed) {
+          // started too late, the beans are not put into the queue
+          return;
+        }
+        active.incrementAndGet();
+      }
+      started.countDown();
+      try {
+        while (!stop) {
+          T bean = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+          if (bean != null) {
+            consumer.accept(bean);
+          } else if (done) {
+            break;
+          }
+        }
+      } catch (Throwable e) {
+        failed(e);
+      } finally {
+        synchronized (monitor) {
+          active.decrementAndGet();
+          monitor.notifyAll();
+        }
+      }
+    }
+
+    private void failed(Throwable e) {
+      if (error == null) {
+        error = e;
+      }
+      stop = true;
+    }
+
+    /**
+     * Put the bean into the queue blocking while the queue is full.
+     */
+    void put(T bean) {
+      checkError();
+      try {
+        while (!queue.offer(bean, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          checkError();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PersistenceException("Interrupted processing findEach pipeline", e);
+      }
+    }
+
+    /**
+     * Wait for the consumers to process the remaining beans in the queue.
+     * <p>
+     * When the reading was not successful the remaining beans are discarded.
+     * </p>
+     */
+    void finish(boolean success) {
+      done = true;
+      if (!success) {
+        stop = true;
+        queue.clear();
+      }
+      try {
+        synchronized (monitor) {
+          while (active.get() > 0) {
+            monitor.wait(POLL_MILLIS);
+          }
+        }
+      } catch (InterruptedException e) {
+        stop = true;
+        Thread.currentThread().interrupt();
+        throw new PersistenceException("Interrupted waiting for findEach pipeline", e);
+      }
+    }
+
+    /**
+     * Rethrow an exception thrown by a consumer.
+     */
+    void checkError() {
+      Throwable e = error;
+      if (e != null) {
+        if (e instanceof RuntimeException) {
+          throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+          throw (Error) e;
+        }
+        throw new PersistenceException(e);
+      }
+    }
+  }
+}
@@ -77,6 +77,11 @@ public interface SpiOrmQueryRequest<T> extends DocQueryRequest<T> {
    */
   void findEach(QueryEachConsumer<T> consumer);
 
+  /**
+   * Execute the find passing the beans to the consumer via the pipeline.
+   */
+  void findEachPipelined(QueryEachConsumer<T> consumer, QueryEachPipeline pipeline);
+
   /**
    * Execute the find returning a QueryIterator and visitor pattern.
    */
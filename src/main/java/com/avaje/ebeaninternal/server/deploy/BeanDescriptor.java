@@ -30,7 +30,9 @@ import com.avaje.ebean.event.readaudit.ReadAuditLogger;
 import com.avaje.ebean.event.readaudit.ReadAuditPrepare;
 import com.avaje.ebean.event.readaudit.ReadEvent;
 import com.avaje.ebean.meta.MetaBeanInfo;
+import com.avaje.ebean.meta.MetaPlanCacheStatistic;
 import com.avaje.ebean.meta.MetaQueryPlanStatistic;
+import com.avaje.ebean.meta.MetaTimedStatistic;
 import com.avaje.ebean.plugin.BeanDocType;
 import com.avaje.ebean.plugin.BeanType;
 import com.avaje.ebean.plugin.ExpressionPath;
@@ -44,6 +46,7 @@ import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
 import com.avaje.ebeaninternal.server.cache.CacheChangeSet;
 import com.avaje.ebeaninternal.server.cache.CachedBeanData;
 import com.avaje.ebeaninternal.server.cache.CachedManyIds;
+import com.avaje.ebeaninternal.server.cache.SingleFlight;
 import com.avaje.ebeaninternal.server.core.CacheOptions;
 import com.avaje.ebeaninternal.server.core.DefaultSqlUpdate;
 import com.avaje.ebeaninternal.server.core.DiffHelp;
@@ -64,9 +67,12 @@ import com.avaje.ebeaninternal.server.query.CQueryPlan;
 import com.avaje.ebeaninternal.server.query.CQueryPlanStats.Snapshot;
 import com.avaje.ebeaninternal.server.query.SplitName;
 import com.avaje.ebeaninternal.server.querydefn.OrmQueryDetail;
+import com.avaje.ebeaninternal.server.text.json.JsonWritePlan;
 import com.avaje.ebeaninternal.server.text.json.ReadJson;
 import com.avaje.ebeaninternal.server.text.json.WriteJson;
 import com.avaje.ebeaninternal.server.type.DataBind;
+import com.avaje.ebeaninternal.server.util.PlanCache;
+import com.avaje.ebeaninternal.server.util.TimedMetric;
 import com.avaje.ebeaninternal.util.SortByClause;
 import com.avaje.ebeaninternal.util.SortByClauseParser;
 import com.avaje.ebeanservice.docstore.api.DocStoreBeanAdapter;
@@ -90,6 +96,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -99,9 +106,17 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
 
   private static final Logger logger = LoggerFactory.getLogger(BeanDescriptor.class);
 
-  private final ConcurrentHashMap<Integer, SpiUpdatePlan> updatePlanCache = new ConcurrentHashMap<Integer, SpiUpdatePlan>();
+  private final PlanCache<Integer, SpiUpdatePlan> updatePlanCache;
 
-  private final ConcurrentHashMap<CQueryPlanKey, CQueryPlan> queryPlanCache = new ConcurrentHashMap<CQueryPlanKey, CQueryPlan>();
+  private final PlanCache<CQueryPlanKey, CQueryPlan> queryPlanCache;
+
+  private final TimedMetric metricInsert;
+
+  private final TimedMetric metricUpdate;
+
+  private final TimedMetric metricDelete;
+
+  private final TimedMetric metricCacheLoad;
 
   private final ConcurrentHashMap<String, ElPropertyValue> elCache = new ConcurrentHashMap<String, ElPropertyValue>();
 
@@ -342,6 +357,11 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
   private final BeanProperty[] propertiesNonTransient;
   protected final BeanProperty[] propertiesIndex;
 
+  /**
+   * Hash of the properties by position (derived on first use, 0 until then).
+   */
+  private int cacheModelHash;
+
   /**
    * The bean class name or the table name for MapBeans.
    */
@@ -412,6 +432,14 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     this.rootBeanType = PersistenceContextUtil.root(beanType);
     this.prototypeEntityBean = createPrototypeEntityBean(beanType);
 
+    ServerConfig serverConfig = owner.getServerConfig();
+    this.queryPlanCache = new PlanCache<CQueryPlanKey, CQueryPlan>(beanType, "query", serverConfig.getQueryPlanCacheMaxSize());
+    this.updatePlanCache = new PlanCache<Integer, SpiUpdatePlan>(beanType, "update", serverConfig.getUpdatePlanCacheMaxSize());
+    this.metricInsert = new TimedMetric(beanType, "insert");
+    this.metricUpdate = new TimedMetric(beanType, "update");
+    this.metricDelete = new TimedMetric(beanType, "delete");
+    this.metricCacheLoad = new TimedMetric(beanType, "cacheLoad");
+
     this.inheritInfo = deploy.getInheritInfo();
 
     this.beanFinder = deploy.getBeanFinder();
@@ -482,7 +510,7 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     boolean noRelationships = propertiesOne.length + propertiesMany.length == 0;
 
     this.cacheSharableBeans = noRelationships && deploy.getCacheOptions().isReadOnly();
-    this.cacheHelp = new BeanDescriptorCacheHelp<T>(this, owner.getCacheManager(), deploy.getCacheOptions(), cacheSharableBeans, propertiesOneImported);
+    this.cacheHelp = new BeanDescriptorCacheHelp<T>(this, owner.getCacheManager(), deploy.getCacheOptions(), cacheSharableBeans, propertiesOneImported, owner.getServerConfig().getCacheLoadWaitMillis());
     this.jsonHelp = new BeanDescriptorJsonHelp<T>(this);
     this.draftHelp = new BeanDescriptorDraftHelp<T>(this);
 
@@ -1079,6 +1107,21 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     cacheHelp.queryCachePut(id, query);
   }
 
+  /**
+   * Return LOAD if the caller should execute the query on a query cache miss and then call
+   * queryCacheLoadEnd(). Otherwise returns after waiting for another thread executing the same query.
+   */
+  public SingleFlight.Result queryCacheLoadBegin(Object id) {
+    return cacheHelp.queryCacheLoadBegin(id);
+  }
+
+  /**
+   * The execution of the query after a query cache miss has finished (with empty true when it found nothing).
+   */
+  public void queryCacheLoadEnd(Object id, boolean empty) {
+    cacheHelp.queryCacheLoadEnd(id, empty);
+  }
+
   /**
    * Add a query cache clear into the changeSet.
    */
@@ -1115,6 +1158,39 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     cacheHelp.manyPropClear(propertyName);
   }
 
+  /**
+   * Return a hash of the property names and types by property position.
+   * <p>
+   * This is held with the cached bean data such that data written by a different
+   * version of the model (for example into a remote cache shared across deployments)
+   * is not read into the wrong properties. Embedded beans contribute their own hash.
+   * </p>
+   */
+  public int getCacheModelHash() {
+    int hash = cacheModelHash;
+    if (hash == 0) {
+      // racy but idempotent
+      hash = deriveCacheModelHash();
+      cacheModelHash = hash;
+    }
+    return hash;
+  }
+
+  private int deriveCacheModelHash() {
+    int hash = fullName.hashCode();
+    for (int i = 0; i < propertiesIndex.length; i++) {
+      BeanProperty prop = propertiesIndex[i];
+      hash = 31 * hash + ((prop == null) ? 0 : prop.getName().hashCode());
+      if (prop != null && prop.getPropertyType() != null) {
+        hash = 31 * hash + prop.getPropertyType().getName().hashCode();
+        if (prop.isEmbedded() && prop instanceof BeanPropertyAssocOne<?>) {
+          hash = 31 * hash + ((BeanPropertyAssocOne<?>) prop).getTargetDescriptor().getCacheModelHash();
+        }
+      }
+    }
+    return (hash == 0) ? 1 : hash;
+  }
+
   /**
    * Extract the raw cache data from the embedded bean.
    */
@@ -1201,6 +1277,50 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     return cacheHelp.naturalKeyIdLookup(query);
   }
 
+  /**
+   * Return the natural key value if the query is a find by natural key using the natural key cache.
+   */
+  public Object cacheNaturalKeyLookupKey(SpiQuery<T> query) {
+    return cacheHelp.naturalKeyLookupKey(query);
+  }
+
+  /**
+   * Return LOAD if the caller should load the bean on a natural key cache miss and then call
+   * cacheNaturalKeyLoadEnd(). Otherwise returns after waiting for another thread loading the same key.
+   */
+  public SingleFlight.Result cacheNaturalKeyLoadBegin(Object naturalKey) {
+    return cacheHelp.naturalKeyLoadBegin(naturalKey);
+  }
+
+  /**
+   * The load of the bean after a natural key cache miss has finished (with empty true when it found nothing).
+   */
+  public void cacheNaturalKeyLoadEnd(Object naturalKey, boolean empty) {
+    cacheHelp.naturalKeyLoadEnd(naturalKey, empty);
+  }
+
+  /**
+   * Return the beans from the bean cache for the given ids (only the ids found are in the returned map).
+   */
+  public Map<Object, T> cacheBeanGetAll(Set<Object> ids, Boolean readOnly, PersistenceContext context) {
+    return cacheHelp.beanCacheGetAll(ids, readOnly, context);
+  }
+
+  /**
+   * Return LOAD if the caller should load the bean on a bean cache miss and then call
+   * cacheBeanLoadEnd(). Otherwise returns after waiting for another thread loading the same bean.
+   */
+  public SingleFlight.Result cacheBeanLoadBegin(Object id) {
+    return cacheHelp.beanCacheLoadBegin(id);
+  }
+
+  /**
+   * The load of the bean after a bean cache miss has finished (with empty true when it found nothing).
+   */
+  public void cacheBeanLoadEnd(Object id, boolean empty) {
+    cacheHelp.beanCacheLoadEnd(id, empty);
+  }
+
   public void cacheNaturalKeyPut(Object id, Object newKey) {
     cacheHelp.cacheNaturalKeyPut(id, newKey);
   }
@@ -1243,7 +1363,7 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
   /**
    * Apply the update to the cache.
    */
-  public void cacheBeanUpdate(Object id, Map<String, Object> changes, boolean updateNaturalKey, long version) {
+  public void cacheBeanUpdate(Object id, CachedBeanData changes, boolean updateNaturalKey, long version) {
     cacheHelp.cacheBeanUpdate(id, changes, updateNaturalKey, version);
   }
 
@@ -1337,8 +1457,9 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
   }
   
   public List<MetaQueryPlanStatistic> collectQueryPlanStatisticsInternal(boolean reset, boolean collectAll) {
-    List<MetaQueryPlanStatistic> list = new ArrayList<MetaQueryPlanStatistic>(queryPlanCache.size());
-    for (CQueryPlan queryPlan :  queryPlanCache.values()) {
+    List<CQueryPlan> queryPlans = queryPlanCache.values();
+    List<MetaQueryPlanStatistic> list = new ArrayList<MetaQueryPlanStatistic>(queryPlans.size());
+    for (CQueryPlan queryPlan : queryPlans) {
       Snapshot snapshot = queryPlan.getSnapshot(reset);
       if (collectAll || snapshot.getExecutionCount() > 0) {
         list.add(snapshot);
@@ -1347,6 +1468,52 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     return list;
   }
 
+  @Override
+  public List<MetaPlanCacheStatistic> collectPlanCacheStatistics(boolean reset) {
+    List<MetaPlanCacheStatistic> list = new ArrayList<MetaPlanCacheStatistic>(2);
+    list.add(queryPlanCache.getStatistics(reset));
+    list.add(updatePlanCache.getStatistics(reset));
+    return list;
+  }
+
+  @Override
+  public List<MetaTimedStatistic> collectTimedStatistics(boolean reset) {
+    List<MetaTimedStatistic> list = new ArrayList<MetaTimedStatistic>(4);
+    list.add(metricInsert.getStatistic(reset));
+    list.add(metricUpdate.getStatistic(reset));
+    list.add(metricDelete.getStatistic(reset));
+    list.add(metricCacheLoad.getStatistic(reset));
+    return list;
+  }
+
+  /**
+   * Return the execution time metric for inserts.
+   */
+  public TimedMetric getMetricInsert() {
+    return metricInsert;
+  }
+
+  /**
+   * Return the execution time metric for updates.
+   */
+  public TimedMetric getMetricUpdate() {
+    return metricUpdate;
+  }
+
+  /**
+   * Return the execution time metric for deletes.
+   */
+  public TimedMetric getMetricDelete() {
+    return metricDelete;
+  }
+
+  /**
+   * Return the execution time metric for loading beans from the L2 cache.
+   */
+  TimedMetric getMetricCacheLoad() {
+    return metricCacheLoad;
+  }
+
   /**
    * Reset the statistics on all the query plans.
    */
@@ -2851,6 +3018,13 @@ public class BeanDescriptor<T> implements MetaBeanInfo, BeanType<T> {
     jsonHelp.jsonWriteDirtyProperties(writeJson, bean, dirtyProps);
   }
 
+  /**
+   * Return the (cached) plan of the properties to write as JSON.
+   */
+  public JsonWritePlan jsonWritePlan(boolean explicitAllProps, Set<String> includeProps) {
+    return jsonHelp.jsonWritePlan(explicitAllProps, includeProps);
+  }
+
   public void jsonWrite(WriteJson writeJson, EntityBean bean) throws IOException {
     jsonHelp.jsonWrite(writeJson, bean, null);
   }  
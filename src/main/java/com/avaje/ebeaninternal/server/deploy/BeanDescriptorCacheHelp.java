@@ -5,6 +5,7 @@ import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebean.bean.EntityBeanIntercept;
 import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheAdapter;
 import com.avaje.ebean.cache.ServerCacheManager;
 import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
@@ -13,6 +14,7 @@ import com.avaje.ebeaninternal.server.cache.CachedBeanData;
 import com.avaje.ebeaninternal.server.cache.CachedBeanDataFromBean;
 import com.avaje.ebeaninternal.server.cache.CachedBeanDataToBean;
 import com.avaje.ebeaninternal.server.cache.CachedManyIds;
+import com.avaje.ebeaninternal.server.cache.SingleFlight;
 import com.avaje.ebeaninternal.server.core.CacheOptions;
 import com.avaje.ebeaninternal.server.core.PersistRequest;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
@@ -26,6 +28,7 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Helper for BeanDescriptor that manages the bean, query and collection caches.
@@ -57,12 +60,22 @@ final class BeanDescriptorCacheHelp<T> {
   private final String cacheName;
   
   private final BeanPropertyAssocOne<?>[] propertiesOneImported;
-  private final String naturalKeyProperty;
+  /**
+   * The property position of the natural key (-1 when there is no natural key).
+   */
+  private final int naturalKeyIndex;
 
   private final ServerCache beanCache;
   private final ServerCache naturalKeyCache;
   private final ServerCache queryCache;
 
+  /**
+   * Coalesce concurrent loads on bean, natural key and query cache misses (null when not used).
+   */
+  private final SingleFlight beanLoads;
+  private final SingleFlight naturalKeyLoads;
+  private final SingleFlight queryLoads;
+
   /**
    * Set to true if all persist changes need to notify the cache.
    */
@@ -74,7 +87,7 @@ final class BeanDescriptorCacheHelp<T> {
   private boolean cacheNotifyOnDelete;
 
   BeanDescriptorCacheHelp(BeanDescriptor<T> desc, ServerCacheManager cacheManager, CacheOptions cacheOptions,
-      boolean cacheSharableBeans, BeanPropertyAssocOne<?>[] propertiesOneImported) {
+      boolean cacheSharableBeans, BeanPropertyAssocOne<?>[] propertiesOneImported, int cacheLoadWaitMillis) {
 
     this.desc = desc;
     this.beanType = desc.rootBeanType;
@@ -83,7 +96,7 @@ final class BeanDescriptorCacheHelp<T> {
     this.cacheOptions = cacheOptions;
     this.cacheSharableBeans = cacheSharableBeans;
     this.propertiesOneImported = propertiesOneImported;
-    this.naturalKeyProperty = cacheOptions.getNaturalKey();
+    this.naturalKeyIndex = naturalKeyIndex(desc, cacheOptions.getNaturalKey());
 
     if (!cacheOptions.isEnableQueryCache()) {
       this.queryCache = null;
@@ -102,6 +115,73 @@ final class BeanDescriptorCacheHelp<T> {
       this.beanCache = null;
       this.naturalKeyCache = null;
     }
+
+    boolean coalesce = cacheLoadWaitMillis > 0;
+    this.beanLoads = (coalesce && beanCache != null) ? new SingleFlight(cacheLoadWaitMillis) : null;
+    this.naturalKeyLoads = (coalesce && naturalKeyCache != null) ? new SingleFlight(cacheLoadWaitMillis) : null;
+    this.queryLoads = (coalesce && queryCache != null) ? new SingleFlight(cacheLoadWaitMillis) : null;
+  }
+
+  /**
+   * Return LOAD if the caller should load the bean on a bean cache miss (and then call beanCacheLoadEnd).
+   * Otherwise returns after waiting for another thread loading the same bean.
+   */
+  SingleFlight.Result beanCacheLoadBegin(Object id) {
+    return beanLoads == null ? SingleFlight.Result.LOAD : beanLoads.begin(id);
+  }
+
+  /**
+   * The load of the bean after a bean cache miss has finished.
+   */
+  void beanCacheLoadEnd(Object id, boolean empty) {
+    if (beanLoads != null) {
+      beanLoads.end(id, empty);
+    }
+  }
+
+  /**
+   * Return LOAD if the caller should load the bean on a natural key cache miss (and then call
+   * naturalKeyLoadEnd). Otherwise returns after waiting for another thread loading the same key.
+   */
+  SingleFlight.Result naturalKeyLoadBegin(Object naturalKey) {
+    return naturalKeyLoads == null ? SingleFlight.Result.LOAD : naturalKeyLoads.begin(naturalKey);
+  }
+
+  /**
+   * The load of the bean after a natural key cache miss has finished.
+   */
+  void naturalKeyLoadEnd(Object naturalKey, boolean empty) {
+    if (naturalKeyLoads != null) {
+      naturalKeyLoads.end(naturalKey, empty);
+    }
+  }
+
+  /**
+   * Return LOAD if the caller should execute the query on a query cache miss (and then call
+   * queryCacheLoadEnd). Otherwise returns after waiting for another thread executing the same query.
+   */
+  SingleFlight.Result queryCacheLoadBegin(Object key) {
+    return queryLoads == null ? SingleFlight.Result.LOAD : queryLoads.begin(key);
+  }
+
+  /**
+   * The execution of the query after a query cache miss has finished.
+   */
+  void queryCacheLoadEnd(Object key, boolean empty) {
+    if (queryLoads != null) {
+      queryLoads.end(key, empty);
+    }
+  }
+
+  /**
+   * Return the property position of the natural key property.
+   */
+  private static int naturalKeyIndex(BeanDescriptor<?> desc, String naturalKeyProperty) {
+    if (naturalKeyProperty == null) {
+      return -1;
+    }
+    BeanProperty property = desc.getBeanProperty(naturalKeyProperty);
+    return (property == null) ? -1 : property.getPropertyIndex();
   }
 
   /**
@@ -312,6 +392,25 @@ final class BeanDescriptorCacheHelp<T> {
    */
   Object naturalKeyIdLookup(SpiQuery<T> query) {
 
+    Object naturalKey = naturalKeyLookupKey(query);
+    if (naturalKey == null) {
+      return null;
+    }
+
+    // try to lookup the id using the natural key
+    Object id = naturalKeyCache.get(naturalKey);
+    if (natLog.isTraceEnabled() && id != null) {
+      natLog.trace(" LOOKUP {}({}) - id:{}", cacheName, naturalKey, id);
+    }
+    return id;
+  }
+
+  /**
+   * Return the natural key value if the query is a find by natural key that can use the
+   * natural key cache (otherwise null).
+   */
+  Object naturalKeyLookupKey(SpiQuery<T> query) {
+
     if (!isNaturalKeyCaching(query.isUseBeanCache())) {
       // no natural key caching for this query
       return null;
@@ -320,16 +419,10 @@ final class BeanDescriptorCacheHelp<T> {
     // check if it is a find by unique id (using the natural key)
     NaturalKeyBindParam keyBindParam = query.getNaturalKeyBindParam();
     if (keyBindParam == null || !isNaturalKey(keyBindParam.getName())) {
-      // query is not appropriate 
+      // query is not appropriate
       return null;
     }
-
-    // try to lookup the id using the natural key
-    Object id = naturalKeyCache.get(keyBindParam.getValue());
-    if (natLog.isTraceEnabled() && id != null) {
-      natLog.trace(" LOOKUP {}({}) - id:{}", cacheName, keyBindParam.getValue(), id);
-    }
-    return id;
+    return keyBindParam.getValue();
   }
 
   private boolean isNaturalKeyCaching(Boolean queryUseCache) {
@@ -408,8 +501,8 @@ final class BeanDescriptorCacheHelp<T> {
     }
     getBeanCache().put(id, beanData);
 
-    if (naturalKeyProperty != null) {
-      Object naturalKey = beanData.getData(naturalKeyProperty);
+    if (naturalKeyIndex > -1) {
+      Object naturalKey = beanData.getData(naturalKeyIndex);
       if (naturalKey != null) {
         if (natLog.isDebugEnabled()) {
           natLog.debug(" PUT {}({}, {})", cacheName, naturalKey, id);
@@ -437,13 +530,75 @@ final class BeanDescriptorCacheHelp<T> {
   @SuppressWarnings("unchecked")
   private T beanCacheGetInternal(Object id, Boolean readOnly, PersistenceContext context) {
 
+    long startNanos = System.nanoTime();
     CachedBeanData data = (CachedBeanData) getBeanCache().get(id);
-    if (data == null) {
+    if (data == null || !isCurrentModel(id, data)) {
       if (beanLog.isTraceEnabled()) {
         beanLog.trace("   GET {}({}) - cache miss", cacheName, id);
       }
       return null;
     }
+    return beanFromData(id, data, readOnly, context, startNanos);
+  }
+
+  /**
+   * Return true if the cached data was written by the current model of its bean type.
+   * <p>
+   * Otherwise (a remote cache shared with a deployment of a different model) the
+   * entry is removed and treated as a cache miss.
+   * </p>
+   */
+  private boolean isCurrentModel(Object id, CachedBeanData data) {
+    BeanDescriptor<?> type = desc;
+    String discValue = data.getDiscValue();
+    if (discValue != null) {
+      InheritInfo typeInfo = (desc.inheritInfo == null) ? null : desc.inheritInfo.getRoot().getType(discValue);
+      type = (typeInfo == null) ? null : typeInfo.desc();
+    }
+    if (type != null && type.getCacheModelHash() == data.getModelHash()) {
+      return true;
+    }
+    if (beanLog.isDebugEnabled()) {
+      beanLog.debug("   REMOVE {}({}) - cached data from a different model", cacheName, id);
+    }
+    getBeanCache().remove(id);
+    return false;
+  }
+
+  /**
+   * Return the beans from the bean cache for the given ids.
+   * <p>
+   * The cached data is read from the cache in one call and the returned map
+   * contains only the ids that were found.
+   * </p>
+   */
+  Map<Object, T> beanCacheGetAll(Set<Object> ids, Boolean readOnly, PersistenceContext context) {
+
+    long startNanos = System.nanoTime();
+    Map<Object, Object> all = ServerCacheAdapter.getAll(getBeanCache(), ids);
+    if (beanLog.isTraceEnabled()) {
+      beanLog.trace("   GET ALL {}({}) - hits:{}", cacheName, ids, all.keySet());
+    }
+    Map<Object, T> beans = new LinkedHashMap<Object, T>();
+    for (Map.Entry<Object, Object> entry : all.entrySet()) {
+      CachedBeanData data = (CachedBeanData) entry.getValue();
+      if (!isCurrentModel(entry.getKey(), data)) {
+        continue;
+      }
+      T bean = beanFromData(entry.getKey(), data, readOnly, context, startNanos);
+      setupContext(bean, context);
+      beans.put(entry.getKey(), bean);
+      startNanos = System.nanoTime();
+    }
+    return beans;
+  }
+
+  /**
+   * Return the bean built from the cached data.
+   */
+  @SuppressWarnings("unchecked")
+  private T beanFromData(Object id, CachedBeanData data, Boolean readOnly, PersistenceContext context, long startNanos) {
+
     if (cacheSharableBeans && !Boolean.FALSE.equals(readOnly)) {
       Object bean = data.getSharableBean();
       if (bean != null) {
@@ -453,11 +608,14 @@ final class BeanDescriptorCacheHelp<T> {
         if (desc.isReadAuditing()) {
           desc.readAuditBean("l2", "", bean);
         }
+        desc.getMetricCacheLoad().addSinceNanos(startNanos);
         return (T) bean;
       }
     }
 
-    return (T)loadBean(id, readOnly, data, context);
+    EntityBean bean = loadBean(id, readOnly, data, context);
+    desc.getMetricCacheLoad().addSinceNanos(startNanos);
+    return (T) bean;
   }
 
   /**
@@ -555,15 +713,16 @@ final class BeanDescriptorCacheHelp<T> {
    */
   boolean beanCacheLoad(EntityBean bean, EntityBeanIntercept ebi, Object id, PersistenceContext context) {
 
+    long startNanos = System.nanoTime();
     CachedBeanData cacheData = (CachedBeanData) getBeanCache().get(id);
-    if (cacheData == null) {
+    if (cacheData == null || !isCurrentModel(id, cacheData)) {
       if (beanLog.isTraceEnabled()) {
         beanLog.trace("   LOAD {}({}) - cache miss", cacheName, id);
       }
       return false;
     }
     int lazyLoadProperty = ebi.getLazyLoadPropertyIndex();
-    if (lazyLoadProperty > -1 && !cacheData.isLoaded(ebi.getLazyLoadProperty())) {
+    if (lazyLoadProperty > -1 && !cacheData.isLoaded(lazyLoadProperty)) {
       if (beanLog.isTraceEnabled()) {
         beanLog.trace("   LOAD {}({}) - cache miss on property({})", cacheName, id, ebi.getLazyLoadProperty());
       }
@@ -571,6 +730,7 @@ final class BeanDescriptorCacheHelp<T> {
     }
 
     CachedBeanDataToBean.load(desc, bean, cacheData, context);
+    desc.getMetricCacheLoad().addSinceNanos(startNanos);
     if (beanLog.isDebugEnabled()) {
       beanLog.debug("   LOAD {}({}) - hit", cacheName, id);
     }
@@ -642,15 +802,17 @@ final class BeanDescriptorCacheHelp<T> {
 
       boolean updateNaturalKey = false;
 
-      Map<String, Object> changes = new LinkedHashMap<String, Object>();
       EntityBean bean = updateRequest.getEntityBean();
       boolean[] dirtyProperties = updateRequest.getDirtyProperties();
+      Object[] data = new Object[dirtyProperties.length];
+      long[] loaded = CachedBeanData.newLoaded(dirtyProperties.length);
       for (int i = 0; i < dirtyProperties.length; i++) {
         if (dirtyProperties[i]) {
           BeanProperty property = desc.propertiesIndex[i];
           if (property.isCacheDataInclude()) {
             Object val = property.getCacheDataValue(bean);
-            changes.put(property.getName(), val);
+            data[i] = val;
+            CachedBeanData.setLoaded(loaded, i);
             if (property.isNaturalKey()) {
               updateNaturalKey = true;
               changeSet.addNaturalKeyPut(desc, id, val);
@@ -659,7 +821,9 @@ final class BeanDescriptorCacheHelp<T> {
         }
       }
 
-      changeSet.addBeanUpdate(desc, id, changes, updateNaturalKey, updateRequest.getVersion());
+      long version = updateRequest.getVersion();
+      CachedBeanData changes = new CachedBeanData(null, desc.getDiscValue(), data, loaded, version, desc.getCacheModelHash());
+      changeSet.addBeanUpdate(desc, id, changes, updateNaturalKey, version);
     }
   }
 
@@ -684,11 +848,11 @@ final class BeanDescriptorCacheHelp<T> {
   /**
    * Apply changes to the bean cache entry.
    */
-  void cacheBeanUpdate(Object id, Map<String, Object> changes, boolean updateNaturalKey, long version) {
+  void cacheBeanUpdate(Object id, CachedBeanData changes, boolean updateNaturalKey, long version) {
 
     ServerCache cache = getBeanCache();
     CachedBeanData existingData = (CachedBeanData) cache.get(id);
-    if (existingData != null) {
+    if (existingData != null && isCurrentModel(id, existingData)) {
       long currentVersion = existingData.getVersion();
       if (version > 0 && version < currentVersion) {
         if (beanLog.isDebugEnabled()) {
@@ -707,7 +871,7 @@ final class BeanDescriptorCacheHelp<T> {
       }
 
       if (updateNaturalKey) {
-        Object oldKey = existingData.getData(naturalKeyProperty);
+        Object oldKey = existingData.getData(naturalKeyIndex);
         if (oldKey != null) {
           if (natLog.isDebugEnabled()) {
             natLog.debug(".. update {} REMOVE({}) - old key for ({})", cacheName, oldKey, id);
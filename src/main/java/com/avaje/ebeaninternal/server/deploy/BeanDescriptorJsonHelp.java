@@ -2,6 +2,7 @@ package com.avaje.ebeaninternal.server.deploy;
 
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebean.text.json.EJson;
+import com.avaje.ebeaninternal.server.text.json.JsonWritePlan;
 import com.avaje.ebeaninternal.server.text.json.ReadJson;
 import com.avaje.ebeaninternal.server.text.json.WriteJson;
 import com.avaje.ebeaninternal.server.text.json.WriteJson.WriteBean;
@@ -10,20 +11,65 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BeanDescriptorJsonHelp<T> {
 
+  /**
+   * The maximum number of cached plans for explicitly included properties.
+   */
+  private static final int MAX_INCLUDE_PLANS = 100;
+
   private final BeanDescriptor<T> desc;
 
   private final InheritInfo inheritInfo;
 
+  private final ConcurrentHashMap<Set<String>, JsonWritePlan> includePlans = new ConcurrentHashMap<Set<String>, JsonWritePlan>();
+
+  private volatile JsonWritePlan allPlan;
+
+  private volatile JsonWritePlan loadedPlan;
+
   public BeanDescriptorJsonHelp(BeanDescriptor<T> desc) {
     this.desc = desc;
     this.inheritInfo = desc.inheritInfo;
   }
 
+  /**
+   * Return the (cached) plan of the properties to write for the given included properties.
+   */
+  public JsonWritePlan jsonWritePlan(boolean explicitAllProps, Set<String> includeProps) {
+
+    if (explicitAllProps) {
+      JsonWritePlan plan = allPlan;
+      if (plan == null) {
+        plan = JsonWritePlan.all(desc);
+        allPlan = plan;
+      }
+      return plan;
+    }
+    if (includeProps == null) {
+      JsonWritePlan plan = loadedPlan;
+      if (plan == null) {
+        plan = JsonWritePlan.loaded(desc);
+        loadedPlan = plan;
+      }
+      return plan;
+    }
+    JsonWritePlan plan = includePlans.get(includeProps);
+    if (plan == null) {
+      plan = JsonWritePlan.include(desc, includeProps);
+      if (includePlans.size() < MAX_INCLUDE_PLANS) {
+        includePlans.put(new HashSet<String>(includeProps), plan);
+      }
+    }
+    return plan;
+  }
+
   public void jsonWrite(WriteJson writeJson, EntityBean bean, String key) throws IOException {
 
     writeJson.writeStartObject(key);
@@ -199,7 +199,7 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     this.deplyInherit = config.getDeployInherit();
     this.deployUtil = config.getDeployUtil();
 
-    this.beanManagerFactory = new BeanManagerFactory(config.getDatabasePlatform());
+    this.beanManagerFactory = new BeanManagerFactory(config.getDatabasePlatform(), serverConfig.isPersistBatchMultiRowInsert());
 
     this.updateChangesOnly = serverConfig.isUpdateChangesOnly();
 
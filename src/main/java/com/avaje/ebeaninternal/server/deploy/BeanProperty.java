@@ -34,6 +34,8 @@ import com.avaje.ebeanservice.docstore.api.mapping.DocPropertyOptions;
 import com.avaje.ebeanservice.docstore.api.mapping.DocPropertyType;
 import com.avaje.ebeanservice.docstore.api.support.DocStructure;
 import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -138,6 +140,11 @@ public class BeanProperty implements ElPropertyValue, Property {
    */
   final String name;
 
+  /**
+   * The property name pre-encoded for writing as a JSON field name.
+   */
+  final SerializableString jsonName;
+
   final int propertyIndex;
 
   /**
@@ -267,6 +274,7 @@ public class BeanProperty implements ElPropertyValue, Property {
 
     this.descriptor = descriptor;
     this.name = InternString.intern(deploy.getName());
+    this.jsonName = new SerializedString(name);
     this.propertyIndex = deploy.getPropertyIndex();
     this.indexed = deploy.isIndexed();
     this.indexName = deploy.getIndexName();
@@ -369,6 +377,7 @@ public class BeanProperty implements ElPropertyValue, Property {
 
     this.descriptor = source.descriptor;
     this.name = InternString.intern(source.getName());
+    this.jsonName = source.jsonName;
     this.propertyIndex = source.propertyIndex;
 
     this.indexed = source.isIndexed();
@@ -1292,10 +1301,10 @@ public class BeanProperty implements ElPropertyValue, Property {
     }
     Object value = getValueIntercept(bean);
     if (value == null) {
-      writeJson.writeNullField(name);
+      writeJson.writeNullField(jsonName);
     } else {
       if (scalarType != null) {
-        writeJson.writeFieldName(name);
+        writeJson.writeFieldName(jsonName);
         scalarType.jsonWrite(writeJson.gen(), value);
       } else {
         writeJson.writeValueUsingObjectMapper(name, value);
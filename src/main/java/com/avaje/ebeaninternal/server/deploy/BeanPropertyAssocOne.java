@@ -669,7 +669,7 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
 
     Object value = getValueIntercept(bean);
     if (value == null) {
-      writeJson.writeNullField(name);
+      writeJson.writeNullField(jsonName);
 
     } else {
       //noinspection StatementWithEmptyBody
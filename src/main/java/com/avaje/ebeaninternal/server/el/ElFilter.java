@@ -1,15 +1,23 @@
 package com.avaje.ebeaninternal.server.el;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.avaje.ebean.Filter;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.util.SortByClause;
+import com.avaje.ebeaninternal.util.SortByClauseParser;
 
 /**
  * Default implementation of the Filter interface.
+ * <p>
+ * When created by an ElFilterIndex the eq, in, between and startsWith predicates on
+ * indexed properties are looked up in the index. The most selective of these lookups
+ * determines the candidate beans that the other predicates are then evaluated against.
+ * </p>
  */
 public final class ElFilter<T> implements Filter<T> {
 
@@ -21,8 +29,38 @@ public final class ElFilter<T> implements Filter<T> {
 
   private String sortByClause;
 
+  private final ElFilterIndex<T> index;
+
+  /**
+   * The most selective index lookup (null when there is none).
+   */
+  private IndexMatch<T> indexMatch;
+
   public ElFilter(BeanDescriptor<T> beanDescriptor) {
+    this(beanDescriptor, null);
+  }
+
+  public ElFilter(BeanDescriptor<T> beanDescriptor, ElFilterIndex<T> index) {
     this.beanDescriptor = beanDescriptor;
+    this.index = index;
+  }
+
+  private ElPropertyIndex getIndex(String propertyName) {
+    return index == null ? null : index.getIndex(propertyName);
+  }
+
+  /**
+   * Register the result of an index lookup keeping the one with the fewest candidates.
+   *
+   * @param exact true if the candidates exactly match the matcher (so it need not be evaluated)
+   */
+  private void indexMatch(ElMatcher<T> matcher, ElPropertyIndex propertyIndex, int[] ranges, boolean exact) {
+    if (ranges != null) {
+      int count = ElPropertyIndex.count(ranges);
+      if (indexMatch == null || count < indexMatch.count) {
+        indexMatch = new IndexMatch<T>(exact ? matcher : null, propertyIndex, ranges, count);
+      }
+    }
   }
 
   private Object convertValue(String propertyName, Object value) {
@@ -61,7 +99,13 @@ public final class ElFilter<T> implements Filter<T> {
 
     ElPropertyValue elGetValue = getElGetValue(propertyName);
 
-    matches.add(new ElMatchBuilder.InSet<T>(matchingValues, elGetValue));
+    ElMatcher<T> matcher = new ElMatchBuilder.InSet<T>(matchingValues, elGetValue);
+    matches.add(matcher);
+    ElPropertyIndex propertyIndex = getIndex(propertyName);
+    if (propertyIndex != null) {
+      // hash lookup (not exact when compareTo and equals differ)
+      indexMatch(matcher, propertyIndex, propertyIndex.in(matchingValues), false);
+    }
     return this;
   }
 
@@ -70,7 +114,12 @@ public final class ElFilter<T> implements Filter<T> {
     value = convertValue(propertyName, value);
     ElComparator<T> comparator = getElComparator(propertyName);
 
-    matches.add(new ElMatchBuilder.Eq<T>(value, comparator));
+    ElMatcher<T> matcher = new ElMatchBuilder.Eq<T>(value, comparator);
+    matches.add(matcher);
+    ElPropertyIndex propertyIndex = getIndex(propertyName);
+    if (propertyIndex != null) {
+      indexMatch(matcher, propertyIndex, propertyIndex.eq(value), true);
+    }
     return this;
   }
 
@@ -92,7 +141,12 @@ public final class ElFilter<T> implements Filter<T> {
 
     ElComparator<T> elComparator = getElComparator(propertyName);
 
-    matches.add(new ElMatchBuilder.Between<T>(min, max, elComparator));
+    ElMatcher<T> matcher = new ElMatchBuilder.Between<T>(min, max, elComparator);
+    matches.add(matcher);
+    ElPropertyIndex propertyIndex = getIndex(propertyName);
+    if (propertyIndex != null) {
+      indexMatch(matcher, propertyIndex, propertyIndex.between(min, max), true);
+    }
     return this;
   }
 
@@ -202,7 +256,12 @@ public final class ElFilter<T> implements Filter<T> {
   public Filter<T> startsWith(String propertyName, String value) {
 
     ElPropertyValue elGetValue = getElGetValue(propertyName);
-    matches.add(new ElMatchBuilder.StartsWith<T>(elGetValue, value));
+    ElMatcher<T> matcher = new ElMatchBuilder.StartsWith<T>(elGetValue, value);
+    matches.add(matcher);
+    ElPropertyIndex propertyIndex = getIndex(propertyName);
+    if (propertyIndex != null) {
+      indexMatch(matcher, propertyIndex, propertyIndex.startsWith(value), true);
+    }
     return this;
   }
 
@@ -227,6 +286,10 @@ public final class ElFilter<T> implements Filter<T> {
 
   public List<T> filter(List<T> list) {
 
+    if (index != null && (list == null || list == index.getList())) {
+      return filterIndexed(index.getList());
+    }
+
     if (sortByClause != null) {
       // create shallow copy and sort
       list = new ArrayList<T>(list);
@@ -248,4 +311,131 @@ public final class ElFilter<T> implements Filter<T> {
     return filterList;
   }
 
+  /**
+   * Filter the indexed list using the index lookup and sort index if available.
+   */
+  private List<T> filterIndexed(List<T> list) {
+
+    if (sortByClause == null) {
+      return collect(list, candidatesInListOrder(), maxRows);
+    }
+
+    SortByClause sortBy = SortByClauseParser.parse(sortByClause);
+    if (sortBy.size() == 1) {
+      SortByClause.Property sortProperty = sortBy.getProperties().get(0);
+      ElPropertyIndex sortIndex = getIndex(sortProperty.getName());
+      if (sortIndex != null) {
+        boolean nullsHigh = !Boolean.FALSE.equals(sortProperty.getNullsHigh());
+        return collect(list, candidatesSorted(sortIndex, sortProperty.isAscending(), nullsHigh), maxRows);
+      }
+    }
+
+    // sort not supported by the indexes so sort the matching beans
+    List<T> filterList = collect(list, candidatesInListOrder(), 0);
+    beanDescriptor.sort(filterList, sortByClause);
+    if (maxRows > 0 && filterList.size() > maxRows) {
+      return new ArrayList<T>(filterList.subList(0, maxRows));
+    }
+    return filterList;
+  }
+
+  /**
+   * Return the candidate positions in list order (or null for all positions).
+   */
+  private int[] candidatesInListOrder() {
+    if (indexMatch == null) {
+      return null;
+    }
+    int[] positions = indexMatch.positions();
+    Arrays.sort(positions);
+    return positions;
+  }
+
+  /**
+   * Return the candidate positions ordered by the sort index.
+   */
+  private int[] candidatesSorted(ElPropertyIndex sortIndex, boolean ascending, boolean nullsHigh) {
+    if (indexMatch == null) {
+      return sortIndex.order(ascending, nullsHigh);
+    }
+    int[] positions = indexMatch.positions();
+    long[] keys = new long[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      keys[i] = sortIndex.sortKey(positions[i], ascending, nullsHigh);
+    }
+    Arrays.sort(keys);
+    for (int i = 0; i < keys.length; i++) {
+      positions[i] = (int) keys[i];
+    }
+    return positions;
+  }
+
+  /**
+   * Collect the beans at the candidate positions that match the predicates.
+   */
+  private List<T> collect(List<T> list, int[] positions, int maxRows) {
+
+    ElMatcher<T> exactMatcher = (indexMatch == null) ? null : indexMatch.exactMatcher;
+    int count = (positions == null) ? list.size() : positions.length;
+
+    ArrayList<T> filterList = new ArrayList<T>();
+    for (int i = 0; i < count; i++) {
+      T bean = list.get(positions == null ? i : positions[i]);
+      if (isMatch(bean, exactMatcher)) {
+        filterList.add(bean);
+        if (maxRows > 0 && filterList.size() >= maxRows) {
+          break;
+        }
+      }
+    }
+    return filterList;
+  }
+
+  /**
+   * Return true if the bean matches all the predicates other than the one the index matched exactly.
+   */
+  private boolean isMatch(T bean, ElMatcher<T> exactMatcher) {
+    for (int i = 0; i < matches.size(); i++) {
+      ElMatcher<T> matcher = matches.get(i);
+      if (matcher != exactMatcher && !matcher.isMatch(bean)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The candidate ranges from an index lookup.
+   */
+  private static final class IndexMatch<T> {
+
+    final ElMatcher<T> exactMatcher;
+
+    final ElPropertyIndex propertyIndex;
+
+    final int[] ranges;
+
+    final int count;
+
+    IndexMatch(ElMatcher<T> exactMatcher, ElPropertyIndex propertyIndex, int[] ranges, int count) {
+      this.exactMatcher = exactMatcher;
+      this.propertyIndex = propertyIndex;
+      this.ranges = ranges;
+      this.count = count;
+    }
+
+    /**
+     * Return the positions of the candidate beans.
+     */
+    int[] positions() {
+      int[] positions = new int[count];
+      int next = 0;
+      for (int i = 0; i < ranges.length; i += 2) {
+        for (int offset = ranges[i]; offset < ranges[i + 1]; offset++) {
+          positions[next++] = propertyIndex.positionAt(offset);
+        }
+      }
+      return positions;
+    }
+  }
 }
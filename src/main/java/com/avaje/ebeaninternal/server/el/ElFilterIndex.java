@@ -0,0 +1,64 @@
+package com.avaje.ebeaninternal.server.el;
+
+import com.avaje.ebean.Filter;
+import com.avaje.ebean.FilterIndex;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Default implementation of FilterIndex.
+ * <p>
+ * Holds an ElPropertyIndex for each indexed property built on a snapshot of the list.
+ * </p>
+ */
+public final class ElFilterIndex<T> implements FilterIndex<T> {
+
+  private final BeanDescriptor<T> beanDescriptor;
+
+  private final List<T> list;
+
+  private final Map<String, ElPropertyIndex> indexes = new LinkedHashMap<String, ElPropertyIndex>();
+
+  /**
+   * Build the indexes for the given properties.
+   */
+  public ElFilterIndex(BeanDescriptor<T> beanDescriptor, List<T> list, String... properties) {
+    this.beanDescriptor = beanDescriptor;
+    this.list = Collections.unmodifiableList(new ArrayList<T>(list));
+    for (int i = 0; i < properties.length; i++) {
+      ElPropertyValue elGetValue = beanDescriptor.getElGetValue(properties[i]);
+      if (elGetValue == null) {
+        throw new IllegalArgumentException("Property [" + properties[i] + "] not found on " + beanDescriptor.getFullName());
+      }
+      indexes.put(properties[i], new ElPropertyIndex(elGetValue, this.list));
+    }
+  }
+
+  @Override
+  public Filter<T> filter() {
+    return new ElFilter<T>(beanDescriptor, this);
+  }
+
+  @Override
+  public List<T> getList() {
+    return list;
+  }
+
+  @Override
+  public Set<String> getIndexedProperties() {
+    return Collections.unmodifiableSet(indexes.keySet());
+  }
+
+  /**
+   * Return the index for the given property (or null if the property is not indexed).
+   */
+  ElPropertyIndex getIndex(String propertyName) {
+    return indexes.get(propertyName);
+  }
+}
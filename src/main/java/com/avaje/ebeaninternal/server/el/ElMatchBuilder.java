@@ -107,7 +107,7 @@ class ElMatchBuilder {
 
     public boolean isMatch(T bean) {
       String v = (String) elGetValue.pathGet(bean);
-      return value.startsWith(v);
+      return v != null && v.startsWith(value);
     }
   }
 
@@ -118,7 +118,7 @@ class ElMatchBuilder {
 
     public boolean isMatch(T bean) {
       String v = (String) elGetValue.pathGet(bean);
-      return value.endsWith(v);
+      return v != null && v.endsWith(value);
     }
   }
 
@@ -0,0 +1,309 @@
+package com.avaje.ebeaninternal.server.el;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sorted and hash index on a property of a list of beans.
+ * <p>
+ * Positions of the beans in the list are sorted by the property value (ascending
+ * with nulls last and in list order for equal values). Equal values form a group
+ * which is a contiguous range of the sorted positions and the hash index maps each
+ * distinct value to its range. Lookups return ranges as pairs of (from, to) offsets
+ * into the sorted positions.
+ * </p>
+ */
+final class ElPropertyIndex {
+
+  private static final int[] NO_RANGES = new int[0];
+
+  private final String propertyName;
+
+  private final int size;
+
+  /**
+   * Positions of the beans sorted by property value (non null values then nulls).
+   */
+  private final int[] sorted;
+
+  /**
+   * The non null property values in sorted order.
+   */
+  private final Object[] values;
+
+  /**
+   * The group of each bean by position (-1 for null values).
+   */
+  private final int[] group;
+
+  /**
+   * The offset into sorted where each group starts (with a final entry for the end).
+   */
+  private final int[] groupStart;
+
+  private final Map<Object, Integer> groupByValue;
+
+  private final boolean stringValues;
+
+  /**
+   * Positions ordered by asc/desc and nullsHigh/nullsLow built on demand.
+   */
+  private final int[][] orders = new int[4][];
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  ElPropertyIndex(ElPropertyValue elGetValue, List<?> list) {
+
+    this.propertyName = elGetValue.getElName();
+    this.size = list.size();
+
+    final Object[] byPosition = new Object[size];
+    List<Integer> nonNull = new ArrayList<Integer>(size);
+    int nullCount = 0;
+    boolean allStrings = true;
+    for (int i = 0; i < size; i++) {
+      Object value = elGetValue.pathGet(list.get(i));
+      if (value == null) {
+        nullCount++;
+      } else {
+        if (!(value instanceof Comparable)) {
+          throw new IllegalArgumentException("Property [" + propertyName + "] has values of type " + value.getClass()
+              + " which is not Comparable and can not be indexed");
+        }
+        allStrings = allStrings && value instanceof String;
+        byPosition[i] = value;
+        nonNull.add(i);
+      }
+    }
+
+    Integer[] positions = nonNull.toArray(new Integer[nonNull.size()]);
+    // stable sort so equal values remain in list order
+    Arrays.sort(positions, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer p1, Integer p2) {
+        return ((Comparable) byPosition[p1]).compareTo(byPosition[p2]);
+      }
+    });
+
+    int nonNullCount = positions.length;
+    this.sorted = new int[size];
+    this.values = new Object[nonNullCount];
+    this.group = new int[size];
+    this.groupByValue = new HashMap<Object, Integer>();
+
+    List<Integer> starts = new ArrayList<Integer>();
+    for (int i = 0; i < nonNullCount; i++) {
+      int pos = positions[i];
+      sorted[i] = pos;
+      values[i] = byPosition[pos];
+      if (i == 0 || ((Comparable) values[i - 1]).compareTo(values[i]) != 0) {
+        starts.add(i);
+        groupByValue.put(values[i], starts.size() - 1);
+      }
+      group[pos] = starts.size() - 1;
+    }
+    starts.add(nonNullCount);
+
+    this.groupStart = new int[starts.size()];
+    for (int i = 0; i < groupStart.length; i++) {
+      groupStart[i] = starts.get(i);
+    }
+
+    int next = nonNullCount;
+    for (int i = 0; i < size; i++) {
+      if (byPosition[i] == null) {
+        sorted[next++] = i;
+        group[i] = -1;
+      }
+    }
+    this.stringValues = allStrings && nullCount < size;
+  }
+
+  /**
+   * Return the name of the indexed property.
+   */
+  String getPropertyName() {
+    return propertyName;
+  }
+
+  /**
+   * Return the bean position at the given offset into the sorted positions.
+   */
+  int positionAt(int offset) {
+    return sorted[offset];
+  }
+
+  /**
+   * Return the number of beans covered by the ranges.
+   */
+  static int count(int[] ranges) {
+    int count = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      count += ranges[i + 1] - ranges[i];
+    }
+    return count;
+  }
+
+  /**
+   * Return the range of beans equal to the value (by compareTo).
+   */
+  int[] eq(Object value) {
+    if (value == null) {
+      return range(values.length, size);
+    }
+    return range(lowerBound(value), upperBound(value));
+  }
+
+  /**
+   * Return the ranges of beans with a value in the set (by equals using the hash index).
+   */
+  int[] in(Set<?> matchingValues) {
+    int[] ranges = new int[matchingValues.size() * 2];
+    int count = 0;
+    for (Object value : matchingValues) {
+      Integer groupIndex = (value == null) ? null : groupByValue.get(value);
+      if (groupIndex != null) {
+        ranges[count++] = groupStart[groupIndex];
+        ranges[count++] = groupStart[groupIndex + 1];
+      }
+    }
+    return count == ranges.length ? ranges : Arrays.copyOf(ranges, count);
+  }
+
+  /**
+   * Return the range of beans with a value between min and max inclusive (or null
+   * if a bound is null in which case the index is not used).
+   */
+  int[] between(Object min, Object max) {
+    if (min == null || max == null) {
+      return null;
+    }
+    return range(lowerBound(min), upperBound(max));
+  }
+
+  /**
+   * Return the range of beans with a value that starts with the prefix (or null if the
+   * values are not strings in which case the index is not used).
+   */
+  int[] startsWith(String prefix) {
+    if (prefix == null || !stringValues) {
+      return null;
+    }
+    int from = lowerBound(prefix);
+    int to = from;
+    while (to < values.length && ((String) values[to]).startsWith(prefix)) {
+      to++;
+    }
+    return range(from, to);
+  }
+
+  private static int[] range(int from, int to) {
+    return from >= to ? NO_RANGES : new int[]{from, to};
+  }
+
+  /**
+   * Return the first offset with a value greater than or equal to the given value.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private int lowerBound(Object value) {
+    Comparable c = (Comparable) value;
+    int low = 0;
+    int high = values.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (c.compareTo(values[mid]) > 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Return the first offset with a value greater than the given value.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private int upperBound(Object value) {
+    Comparable c = (Comparable) value;
+    int low = 0;
+    int high = values.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (c.compareTo(values[mid]) >= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Return a sort key for the bean at the given position.
+   * <p>
+   * Ordering by this key orders by the property value (as per ElComparatorProperty)
+   * and then by position which matches the stable sort of the list.
+   * </p>
+   */
+  long sortKey(int position, boolean ascending, boolean nullsHigh) {
+    int groupCount = groupStart.length - 1;
+    int g = group[position];
+    long rank;
+    if (g == -1) {
+      // nulls high means nulls last ascending and first descending
+      rank = (nullsHigh == ascending) ? groupCount + 1 : 0;
+    } else {
+      rank = ascending ? g + 1 : groupCount - g;
+    }
+    return (rank << 32) | position;
+  }
+
+  /**
+   * Return all the positions ordered by the property value.
+   */
+  synchronized int[] order(boolean ascending, boolean nullsHigh) {
+    int key = (ascending ? 0 : 2) + (nullsHigh ? 0 : 1);
+    int[] order = orders[key];
+    if (order == null) {
+      order = buildOrder(ascending, nullsHigh);
+      orders[key] = order;
+    }
+    return order;
+  }
+
+  private int[] buildOrder(boolean ascending, boolean nullsHigh) {
+
+    if (ascending && nullsHigh) {
+      return sorted;
+    }
+    int nonNullCount = values.length;
+    int nullCount = size - nonNullCount;
+    boolean nullsFirst = (nullsHigh != ascending);
+
+    int[] order = new int[size];
+    int next = 0;
+    if (nullsFirst) {
+      System.arraycopy(sorted, nonNullCount, order, 0, nullCount);
+      next = nullCount;
+    }
+    if (ascending) {
+      System.arraycopy(sorted, 0, order, next, nonNullCount);
+    } else {
+      // groups in reverse with positions in list order within each group
+      for (int g = groupStart.length - 2; g >= 0; g--) {
+        int len = groupStart[g + 1] - groupStart[g];
+        System.arraycopy(sorted, groupStart[g], order, next, len);
+        next += len;
+      }
+    }
+    if (!nullsFirst) {
+      System.arraycopy(sorted, nonNullCount, order, size - nullCount, nullCount);
+    }
+    return order;
+  }
+}
@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.server.expression;
 
+import com.avaje.ebean.NamedParam;
 import com.avaje.ebean.event.BeanQueryRequest;
 import com.avaje.ebeaninternal.api.ManyWhereJoins;
 import com.avaje.ebeaninternal.api.SpiExpression;
@@ -31,6 +32,20 @@ public abstract class AbstractExpression implements SpiExpression {
     propertyContainsMany(propName, desc, manyWhereJoin);
   }
 
+  /**
+   * Check that the value of an association property is not a NamedParam.
+   * <p>
+   * The id values of an association property are extracted from the bean so a NamedParam
+   * can not be used and the id property should be used instead.
+   * </p>
+   */
+  protected void checkAssocIdValue(Object value) {
+    if (value instanceof NamedParam) {
+      throw new IllegalArgumentException("NamedParam " + value + " is not supported on the association property ["
+          + propName + "]. Use the id property of the association instead such as [" + propName + ".id]");
+    }
+  }
+
   /**
    * Check the logical property path for containing a 'many' property.
    */
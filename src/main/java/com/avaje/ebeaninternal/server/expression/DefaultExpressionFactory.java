@@ -32,9 +32,16 @@ public class DefaultExpressionFactory implements SpiExpressionFactory {
 
   private final boolean equalsWithNullAsNoop;
 
+  private final boolean inPadding;
+
   public DefaultExpressionFactory(boolean equalsWithNullAsNoop, boolean nativeIlike) {
+    this(equalsWithNullAsNoop, nativeIlike, false);
+  }
+
+  public DefaultExpressionFactory(boolean equalsWithNullAsNoop, boolean nativeIlike, boolean inPadding) {
     this.equalsWithNullAsNoop = equalsWithNullAsNoop;
     this.nativeIlike = nativeIlike;
+    this.inPadding = inPadding;
   }
 
   public ExpressionFactory createExpressionFactory(){
@@ -321,7 +328,7 @@ public class DefaultExpressionFactory implements SpiExpressionFactory {
    * In - property has a value in the array of values.
    */
   public Expression in(String propertyName, Object[] values) {
-    return new InExpression(propertyName, values, false);
+    return new InExpression(propertyName, values, false, inPadding);
   }
 
   /**
@@ -335,21 +342,21 @@ public class DefaultExpressionFactory implements SpiExpressionFactory {
    * In - property has a value in the collection of values.
    */
   public Expression in(String propertyName, Collection<?> values) {
-    return new InExpression(propertyName, values, false);
+    return new InExpression(propertyName, values, false, inPadding);
   }
 
   /**
    * In - property has a value in the array of values.
    */
   public Expression notIn(String propertyName, Object[] values) {
-    return new InExpression(propertyName, values, true);
+    return new InExpression(propertyName, values, true, inPadding);
   }
 
   /**
    * Not In - property has a value in the collection of values.
    */
   public Expression notIn(String propertyName, Collection<?> values) {
-    return new InExpression(propertyName, values, true);
+    return new InExpression(propertyName, values, true, inPadding);
   }
 
   /**
@@ -399,14 +406,14 @@ public class DefaultExpressionFactory implements SpiExpressionFactory {
    * Id IN a list of id values.
    */
   public Expression idIn(List<?> idList) {
-    return new IdInExpression(idList);
+    return new IdInExpression(idList, inPadding);
   }
 
   /**
    * Id IN a list of id values.
    */
   public Expression idIn(Object... idValues) {
-    return new IdInExpression(Arrays.asList(idValues));
+    return new IdInExpression(Arrays.asList(idValues), inPadding);
   }
 
   /**
@@ -317,6 +317,11 @@ public class DefaultExpressionList<T> implements SpiExpressionList<T> {
     query.findEach(consumer);
   }
 
+  @Override
+  public void findEachPipelined(QueryEachConsumer<T> consumer) {
+    query.findEachPipelined(consumer);
+  }
+
   @Override
   public void findEachWhile(QueryEachWhileConsumer<T> consumer) {
     query.findEachWhile(consumer);
@@ -2,8 +2,13 @@ package com.avaje.ebeaninternal.server.expression;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.avaje.ebean.NamedParam;
 import com.avaje.ebeaninternal.api.SpiExpressionList;
 import com.avaje.ebeaninternal.api.SpiExpressionRequest;
 import com.avaje.ebeaninternal.server.core.DbExpressionHandler;
@@ -33,6 +38,11 @@ public class DefaultExpressionRequest implements SpiExpressionRequest {
 
   private StringBuilder bindLog;
 
+  /**
+   * Positions of encryption keys in the bind values (null when there are none).
+   */
+  private BitSet encryptKeys;
+
   public DefaultExpressionRequest(SpiOrmQueryRequest<?> queryRequest, DeployParser deployParser, Binder binder, SpiExpressionList<?> expressionList) {
     this.queryRequest = queryRequest;
     this.beanDescriptor = queryRequest.getBeanDescriptor();
@@ -51,6 +61,59 @@ public class DefaultExpressionRequest implements SpiExpressionRequest {
     this.expressionList = null;
   }
 
+  /**
+   * Create for binding a copy of compiled bind values.
+   */
+  private DefaultExpressionRequest(SpiOrmQueryRequest<?> queryRequest, Binder binder) {
+    this.queryRequest = queryRequest;
+    this.beanDescriptor = queryRequest.getBeanDescriptor();
+    this.deployParser = null;
+    this.binder = binder;
+    this.expressionList = null;
+  }
+
+  /**
+   * Return a copy of this request for binding with the NamedParam bind values replaced
+   * by the supplied parameter values.
+   *
+   * @throws IllegalArgumentException if no value (or a collection) is supplied for a NamedParam
+   */
+  public DefaultExpressionRequest bindCopy(SpiOrmQueryRequest<?> queryRequest, Map<String, Object> params) {
+
+    DefaultExpressionRequest copy = new DefaultExpressionRequest(queryRequest, binder);
+    for (int i = 0; i < bindValues.size(); i++) {
+      Object value = bindValues.get(i);
+      if (encryptKeys != null && encryptKeys.get(i)) {
+        copy.addBindEncryptKey(value);
+      } else if (value instanceof NamedParam) {
+        String name = ((NamedParam) value).getName();
+        if (!params.containsKey(name)) {
+          throw new IllegalArgumentException("No value supplied for parameter [" + name + "]");
+        }
+        Object paramValue = params.get(name);
+        if (paramValue instanceof Collection) {
+          throw new IllegalArgumentException("A collection can not be bound to parameter [" + name + "]");
+        }
+        copy.addBindValue(paramValue);
+      } else {
+        copy.addBindValue(value);
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Add the names of the NamedParam bind values.
+   */
+  public void addNamedParams(Set<String> names) {
+    for (int i = 0; i < bindValues.size(); i++) {
+      Object value = bindValues.get(i);
+      if (value instanceof NamedParam) {
+        names.add(((NamedParam) value).getName());
+      }
+    }
+  }
+
   /**
    * Build sql for the underlying expression list.
    */
@@ -123,6 +186,10 @@ public class DefaultExpressionRequest implements SpiExpressionRequest {
 
   @Override
   public void addBindEncryptKey(Object bindValue) {
+    if (encryptKeys == null) {
+      encryptKeys = new BitSet();
+    }
+    encryptKeys.set(bindValues.size());
     bindValues.add(bindValue);
     bindLog("****");
   }
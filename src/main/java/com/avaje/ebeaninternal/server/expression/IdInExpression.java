@@ -18,8 +18,28 @@ public class IdInExpression extends NonPrepareExpression {
 
   private final List<?> idList;
 
+  /**
+   * The number of id values to bind which is larger than the number of ids when padded.
+   */
+  private final int bindCount;
+
   public IdInExpression(List<?> idList) {
+    this(idList, false);
+  }
+
+  /**
+   * Create with padding of the number of bind values (see InPadding).
+   */
+  public IdInExpression(List<?> idList, boolean padding) {
     this.idList = idList;
+    this.bindCount = padding ? InPadding.size(idList.size()) : idList.size();
+  }
+
+  /**
+   * Return the id values.
+   */
+  public List<?> getIdList() {
+    return idList;
   }
 
   @Override
@@ -45,8 +65,9 @@ public class IdInExpression extends NonPrepareExpression {
     BeanDescriptor<?> descriptor = r.getBeanDescriptor();
     IdBinder idBinder = descriptor.getIdBinder();
 
-    for (int i = 0; i < idList.size(); i++) {
-      idBinder.addIdInBindValue(request, idList.get(i));
+    for (int i = 0; i < bindCount; i++) {
+      // padded positions repeat the last id
+      idBinder.addIdInBindValue(request, idList.get(Math.min(i, idList.size() - 1)));
     }
   }
 
@@ -60,7 +81,7 @@ public class IdInExpression extends NonPrepareExpression {
     IdBinder idBinder = descriptor.getIdBinder();
 
     request.append(descriptor.getIdBinder().getBindIdInSql(null));
-    String inClause = idBinder.getIdInValueExpr(idList.size());
+    String inClause = idBinder.getIdInValueExpr(bindCount);
     request.append(inClause);
   }
 
@@ -72,7 +93,7 @@ public class IdInExpression extends NonPrepareExpression {
     IdBinder idBinder = descriptor.getIdBinder();
 
     request.append(descriptor.getIdBinderInLHSSql());
-    String inClause = idBinder.getIdInValueExpr(idList.size());
+    String inClause = idBinder.getIdInValueExpr(bindCount);
     request.append(inClause);
   }
 
@@ -81,8 +102,8 @@ public class IdInExpression extends NonPrepareExpression {
    */
   @Override
   public void queryPlanHash(HashQueryPlanBuilder builder) {
-    builder.add(IdInExpression.class).add(idList.size());
-    builder.bind(idList.size());
+    builder.add(IdInExpression.class).add(bindCount);
+    builder.bind(bindCount);
   }
 
   @Override
@@ -97,7 +118,7 @@ public class IdInExpression extends NonPrepareExpression {
     }
 
     IdInExpression that = (IdInExpression) other;
-    return this.idList.size() == that.idList.size();
+    return this.bindCount == that.bindCount;
   }
 
   @Override
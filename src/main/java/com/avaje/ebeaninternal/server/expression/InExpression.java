@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.server.expression;
 
+import com.avaje.ebean.NamedParam;
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebeaninternal.api.HashQueryPlanBuilder;
 import com.avaje.ebeaninternal.api.SpiExpression;
@@ -15,16 +16,28 @@ class InExpression extends AbstractExpression {
 
   private final Object[] values;
 
+  /**
+   * The number of bind values which is larger than the number of values when padded.
+   */
+  private final int bindCount;
+
   InExpression(String propertyName, Collection<?> coll, boolean not) {
-    super(propertyName);
-    this.values = coll.toArray(new Object[coll.size()]);
-    this.not = not;
+    this(propertyName, coll, not, false);
   }
 
   InExpression(String propertyName, Object[] array, boolean not) {
+    this(propertyName, array, not, false);
+  }
+
+  InExpression(String propertyName, Collection<?> coll, boolean not, boolean padding) {
+    this(propertyName, coll.toArray(new Object[coll.size()]), not, padding);
+  }
+
+  InExpression(String propertyName, Object[] array, boolean not, boolean padding) {
     super(propertyName);
     this.values = array;
     this.not = not;
+    this.bindCount = padding ? InPadding.size(array.length) : array.length;
   }
 
   @Override
@@ -40,13 +53,17 @@ class InExpression extends AbstractExpression {
       prop = null;
     }
 
-    for (int i = 0; i < values.length; i++) {
+    for (int i = 0; i < bindCount; i++) {
+      // padded positions repeat the last value
+      Object value = values[Math.min(i, values.length - 1)];
       if (prop == null) {
-        request.addBindValue(values[i]);
+        checkInValue(value);
+        request.addBindValue(value);
 
       } else {
         // extract the id values from the bean
-        Object[] ids = prop.getAssocIdValues((EntityBean) values[i]);
+        checkAssocIdValue(value);
+        Object[] ids = prop.getAssocIdValues((EntityBean) value);
         if (ids != null) {
           for (int j = 0; j < ids.length; j++) {
             request.addBindValue(ids[j]);
@@ -56,6 +73,20 @@ class InExpression extends AbstractExpression {
     }
   }
 
+  /**
+   * Check that the value is not a NamedParam.
+   * <p>
+   * The number of bind values of an IN expression is fixed when the query is compiled so
+   * a NamedParam (that could be bound to a collection of values) is not supported.
+   * </p>
+   */
+  private void checkInValue(Object value) {
+    if (value instanceof NamedParam) {
+      throw new IllegalArgumentException("NamedParam " + value + " is not supported in the IN expression on ["
+          + propName + "] as the number of bind values is fixed when the query is compiled");
+    }
+  }
+
   @Override
   public void addSql(SpiExpressionRequest request) {
 
@@ -72,7 +103,7 @@ class InExpression extends AbstractExpression {
 
     if (prop != null) {
       request.append(prop.getAssocIdInExpr(propName));
-      String inClause = prop.getAssocIdInValueExpr(values.length);
+      String inClause = prop.getAssocIdInValueExpr(bindCount);
       request.append(inClause);
 
     } else {
@@ -81,7 +112,7 @@ class InExpression extends AbstractExpression {
         request.append(" not");
       }
       request.append(" in (?");
-      for (int i = 1; i < values.length; i++) {
+      for (int i = 1; i < bindCount; i++) {
         request.append(", ").append("?");
       }
 
@@ -90,12 +121,12 @@ class InExpression extends AbstractExpression {
   }
 
   /**
-   * Based on the number of values in the in clause.
+   * Based on the number of bind values in the in clause (which is bounded when padded).
    */
   @Override
   public void queryPlanHash(HashQueryPlanBuilder builder) {
-    builder.add(InExpression.class).add(propName).add(values.length).add(not);
-    builder.bind(values.length);
+    builder.add(InExpression.class).add(propName).add(bindCount).add(not);
+    builder.bind(bindCount);
   }
 
   @Override
@@ -116,7 +147,7 @@ class InExpression extends AbstractExpression {
     InExpression that = (InExpression) other;
     return propName.equals(that.propName)
         && not == that.not
-        && values.length == that.values.length;
+        && bindCount == that.bindCount;
   }
 
   @Override
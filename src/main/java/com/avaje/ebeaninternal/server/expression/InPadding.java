@@ -0,0 +1,39 @@
+package com.avaje.ebeaninternal.server.expression;
+
+/**
+ * Determines the number of bind values used for IN clauses when padding is used.
+ * <p>
+ * Padding the number of bind values to a bounded set of sizes means that IN clauses
+ * with different numbers of values share the same query plan and the same SQL
+ * statement (which improves the use of the query plan cache and the database
+ * statement cache). The padded positions are bound with a repeat of the last value
+ * which does not change the result of the IN (or NOT IN) clause.
+ * </p>
+ */
+final class InPadding {
+
+  /**
+   * The padded sizes (sizes up to 5 and over 1000 are not padded).
+   */
+  private static final int[] SIZES = {5, 10, 20, 50, 100, 200, 500, 1000};
+
+  private InPadding() {
+  }
+
+  /**
+   * Return the number of bind values to use for the given number of values.
+   */
+  static int size(int count) {
+    if (count <= SIZES[0]) {
+      return count;
+    }
+    for (int i = 1; i < SIZES.length; i++) {
+      if (count <= SIZES[i]) {
+        return SIZES[i];
+      }
+    }
+    // not padded beyond the largest size so as to not push large
+    // IN clauses over the bind parameter limit of the database
+    return count;
+  }
+}
@@ -344,6 +344,11 @@ class JunctionExpression<T> implements SpiJunction<T>, SpiExpression, Expression
     exprList.findEach(consumer);
   }
 
+  @Override
+  public void findEachPipelined(QueryEachConsumer<T> consumer) {
+    exprList.findEachPipelined(consumer);
+  }
+
   @Override
   public void findEachWhile(QueryEachWhileConsumer<T> consumer) {
     exprList.findEachWhile(consumer);
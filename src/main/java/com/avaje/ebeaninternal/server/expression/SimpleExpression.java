@@ -57,6 +57,7 @@ public class SimpleExpression extends AbstractExpression {
     ElPropertyValue prop = getElProp(request);
     if (prop != null) {
       if (prop.isAssocId()) {
+        checkAssocIdValue(value);
         Object[] ids = prop.getAssocIdValues((EntityBean) value);
         if (ids != null) {
           for (int i = 0; i < ids.length; i++) {
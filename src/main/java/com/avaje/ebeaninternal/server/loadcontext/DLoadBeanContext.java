@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.server.loadcontext;
 
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.BeanLoader;
 import com.avaje.ebean.bean.EntityBeanIntercept;
 import com.avaje.ebean.bean.PersistenceContext;
@@ -70,7 +71,7 @@ public class DLoadBeanContext extends DLoadBaseContext implements LoadBeanContex
     return buffer;
   }
 
-  public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, boolean forEach) {
+  public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, Transaction transaction, boolean forEach) {
 
     if (!queryFetch) {
       throw new IllegalStateException("Not expecting loadSecondaryQuery() to be called?");
@@ -79,7 +80,7 @@ public class DLoadBeanContext extends DLoadBaseContext implements LoadBeanContex
       if (bufferList != null) {
         for (LoadBuffer loadBuffer : bufferList) {
           if (!loadBuffer.list.isEmpty()) {
-            LoadBeanRequest req = new LoadBeanRequest(loadBuffer, parentRequest);
+            LoadBeanRequest req = new LoadBeanRequest(loadBuffer, parentRequest, transaction);
             parent.getEbeanServer().loadBean(req);
             if (!queryProps.isQueryFetchAll()) {
               // Stop - only fetch the first batch ... the rest will be lazy loaded
@@ -20,6 +20,7 @@ import com.avaje.ebeaninternal.server.el.ElPropertyValue;
 import com.avaje.ebeaninternal.server.querydefn.OrmQueryProperties;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -185,9 +186,22 @@ public class DLoadContext implements LoadContext {
   public void executeSecondaryQueries(OrmQueryRequest<?> parentRequest, boolean forEach) {
 
     if (secQuery != null) {
+      SecondaryQueryExecutor parallel = ebeanServer.getSecondaryQueryExecutor();
+      if (parallel != null && !forEach && secQuery.size() > 1 && parentRequest.isQueryOnlyTransaction()) {
+        int parallelism = parallel.parallelism(parentRequest.getQuery().getQueryJoinParallelism());
+        if (parallelism > 1) {
+          // the query join paths are independent (nested paths are part of their parent secondary query)
+          List<LoadSecondaryQuery> loads = new ArrayList<LoadSecondaryQuery>(secQuery.size());
+          for (int i = 0; i < secQuery.size(); i++) {
+            loads.add(getLoadSecondaryQuery(secQuery.get(i).getPath()));
+          }
+          parallel.execute(parentRequest, loads, parallelism);
+          return;
+        }
+      }
       for (int i = 0; i < secQuery.size(); i++) {
         LoadSecondaryQuery load = getLoadSecondaryQuery(secQuery.get(i).getPath());
-        load.loadSecondaryQuery(parentRequest, forEach);
+        load.loadSecondaryQuery(parentRequest, parentRequest.getTransaction(), forEach);
       }
     }
   }
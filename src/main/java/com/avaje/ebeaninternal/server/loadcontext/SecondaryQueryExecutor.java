@@ -0,0 +1,207 @@
+package com.avaje.ebeaninternal.server.loadcontext;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebeaninternal.api.LoadSecondaryQuery;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
+
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the secondary queries (query joins) of a query in parallel.
+ * <p>
+ * The calling thread executes secondary queries using the transaction of the
+ * parent query and helper tasks executed by the BackgroundExecutor execute
+ * the other secondary queries each using their own query only transaction (and
+ * hence their own connection).
+ * </p>
+ * <p>
+ * A global limit bounds the number of helper tasks across all queries. When no
+ * permit is available the secondary queries are executed by the calling thread
+ * and when a helper task has not started by the time the calling thread has
+ * finished its work it is cancelled. The beans loaded are merged into the
+ * persistence context of the parent query (which supports concurrent use).
+ * </p>
+ */
+public final class SecondaryQueryExecutor {
+
+  private final SpiEbeanServer server;
+
+  private final BackgroundExecutor executor;
+
+  /**
+   * Permits for the helper tasks across all queries.
+   */
+  private final Semaphore permits;
+
+  /**
+   * The default maximum parallelism for a query.
+   */
+  private final int defaultParallelism;
+
+  /**
+   * Create with the global limit of helper tasks and default per query parallelism.
+   */
+  public SecondaryQueryExecutor(SpiEbeanServer server, BackgroundExecutor executor, int maxParallel, int defaultParallelism) {
+    this.server = server;
+    this.executor = executor;
+    this.permits = new Semaphore(Math.max(0, maxParallel));
+    this.defaultParallelism = defaultParallelism;
+  }
+
+  /**
+   * Return the parallelism to use for a query given the value set on the query (0 when not set).
+   */
+  int parallelism(int queryParallelism) {
+    return queryParallelism > 0 ? queryParallelism : defaultParallelism;
+  }
+
+  /**
+   * Execute the secondary queries with at most the given parallelism.
+   */
+  void execute(OrmQueryRequest<?> parentRequest, List<LoadSecondaryQuery> loads, int parallelism) {
+
+    Work work = new Work(parentRequest, loads);
+
+    int maxHelpers = Math.min(parallelism, loads.size()) - 1;
+    List<Helper> helpers = new ArrayList<Helper>(maxHelpers);
+    for (int i = 0; i < maxHelpers; i++) {
+      if (!permits.tryAcquire()) {
+        // global limit reached
+        break;
+      }
+      Helper helper = new Helper(work);
+      helpers.add(helper);
+      try {
+        executor.execute(helper);
+      } catch (RuntimeException e) {
+        // executor rejected the task
+        helper.cancel();
+        break;
+      }
+    }
+
+    try {
+      // this thread uses the transaction of the parent request
+      work.run(parentRequest.getTransaction());
+    } finally {
+      for (Helper helper : helpers) {
+        helper.cancel();
+      }
+      for (Helper helper : helpers) {
+        helper.await();
+      }
+    }
+    work.checkError();
+  }
+
+  /**
+   * The secondary queries shared by the calling thread and the helpers.
+   */
+  private static final class Work {
+
+    private final OrmQueryRequest<?> parentRequest;
+
+    private final List<LoadSecondaryQuery> loads;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile RuntimeException error;
+
+    Work(OrmQueryRequest<?> parentRequest, List<LoadSecondaryQuery> loads) {
+      this.parentRequest = parentRequest;
+      this.loads = loads;
+    }
+
+    /**
+     * Return true if there are secondary queries not yet started.
+     */
+    boolean hasMore() {
+      return error == null && next.get() < loads.size();
+    }
+
+    void run(SpiTransaction transaction) {
+      int i;
+      while (error == null && (i = next.getAndIncrement()) < loads.size()) {
+        try {
+          loads.get(i).loadSecondaryQuery(parentRequest, transaction, false);
+        } catch (RuntimeException e) {
+          error = e;
+          throw e;
+        }
+      }
+    }
+
+    void checkError() {
+      RuntimeException e = error;
+      if (e != null) {
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * A task executing secondary queries with its own transaction.
+   */
+  private final class Helper implements Runnable {
+
+    private final Work work;
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    Helper(Work work) {
+      this.work = work;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        // cancelled by the calling thread
+        return;
+      }
+      try {
+        if (work.hasMore()) {
+          SpiTransaction transaction = server.createQueryTransaction();
+          try {
+            work.run(transaction);
+          } finally {
+            transaction.end();
+          }
+        }
+      } catch (RuntimeException e) {
+        // error held by work and rethrown by the calling thread
+      } finally {
+        permits.release();
+        finished.countDown();
+      }
+    }
+
+    /**
+     * Cancel the helper if it has not started.
+     */
+    void cancel() {
+      if (claimed.compareAndSet(false, true)) {
+        permits.release();
+        finished.countDown();
+      }
+    }
+
+    void await() {
+      try {
+        finished.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PersistenceException("Interrupted waiting for secondary queries", e);
+      }
+    }
+  }
+}
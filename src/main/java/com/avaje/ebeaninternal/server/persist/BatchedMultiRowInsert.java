@@ -0,0 +1,502 @@
+package com.avaje.ebeaninternal.server.persist;
+
+import com.avaje.ebeaninternal.server.core.timezone.DataTimeZone;
+import com.avaje.ebeaninternal.server.type.DataBind;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batched insert that is executed as multi-row insert statements.
+ * <p>
+ * Rather than binding to a PreparedStatement and using addBatch() the bind values
+ * of each row are captured by a DataBind. On execution the rows are written as
+ * <code>insert into ... values (..),(..),(..)</code> statements with as many rows
+ * per statement as the bind parameter limit allows.
+ * </p>
+ * <p>
+ * The generated keys (when used) are returned by the database in insert order and
+ * set back to the beans in that order.
+ * </p>
+ */
+public class BatchedMultiRowInsert extends BatchedPstmt {
+
+  private static final String VALUES = " values (";
+
+  /**
+   * The kinds of captured bind values (the DataBind method used to bind them).
+   */
+  private static final int OBJECT = 0;
+  private static final int OBJECT_TYPE = 1;
+  private static final int NULL = 2;
+  private static final int STRING = 3;
+  private static final int INT = 4;
+  private static final int LONG = 5;
+  private static final int SHORT = 6;
+  private static final int FLOAT = 7;
+  private static final int DOUBLE = 8;
+  private static final int BIGDECIMAL = 9;
+  private static final int DATE = 10;
+  private static final int TIMESTAMP = 11;
+  private static final int TIME = 12;
+  private static final int BOOLEAN = 13;
+  private static final int BYTES = 14;
+  private static final int BYTE = 15;
+  private static final int CHAR = 16;
+  private static final int BINARY_STREAM = 17;
+  private static final int BLOB = 18;
+  private static final int CLOB = 19;
+  private static final int ARRAY = 20;
+
+  private final Connection connection;
+
+  private final DataTimeZone dataTimeZone;
+
+  /**
+   * The identity columns to return as generated keys (null when not used).
+   */
+  private final String[] genKeyColumns;
+
+  private final int bindLimit;
+
+  /**
+   * The values clause of a single row including the brackets.
+   */
+  private final String rowValues;
+
+  private final List<Row> rows = new ArrayList<Row>();
+
+  private Row current;
+
+  /**
+   * The statement of the last execution (reused when the next has the same number of rows).
+   */
+  private PreparedStatement pstmt;
+
+  private int pstmtRows;
+
+  /**
+   * Create given the insert sql for a single row.
+   *
+   * @param genKeyColumns the identity columns when using getGeneratedKeys or null
+   * @param bindLimit     the maximum number of bind parameters per statement
+   */
+  public BatchedMultiRowInsert(Connection connection, DataTimeZone dataTimeZone, String sql, String[] genKeyColumns, int bindLimit) {
+    super(null, genKeyColumns != null, sql);
+    if (!isSupported(sql)) {
+      throw new IllegalArgumentException("Insert sql [" + sql + "] has no values clause for a multi-row insert");
+    }
+    this.connection = connection;
+    this.dataTimeZone = dataTimeZone;
+    this.genKeyColumns = genKeyColumns;
+    this.bindLimit = bindLimit;
+    this.rowValues = sql.substring(sql.lastIndexOf(VALUES) + VALUES.length() - 1);
+  }
+
+  /**
+   * Return true if the insert sql ends with a values clause that can be repeated per row.
+   */
+  public static boolean isSupported(String sql) {
+    int pos = sql.lastIndexOf(VALUES);
+    return pos > -1 && sql.endsWith(")");
+  }
+
+  /**
+   * Return the number of rows.
+   */
+  @Override
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * Add a row with its post execute processing.
+   */
+  @Override
+  public void add(BatchPostExecute batchExecute) {
+    current = new Row(batchExecute);
+    rows.add(current);
+  }
+
+  /**
+   * Return the DataBind that captures the bind values of the current (last added) row.
+   */
+  public DataBind rowBind() {
+    return new RowBind(dataTimeZone, connection, current);
+  }
+
+  /**
+   * Execute the rows as multi-row insert statements.
+   */
+  @Override
+  public void executeBatch(boolean getGeneratedKeys) throws SQLException {
+
+    int start = 0;
+    while (start < rows.size()) {
+      int paramCount = rows.get(start).size;
+      int maxRows = Math.max(1, bindLimit / Math.max(1, paramCount));
+      int end = start + 1;
+      while (end < rows.size() && end - start < maxRows && rows.get(end).size == paramCount) {
+        end++;
+      }
+      execute(start, end, getGeneratedKeys && genKeyColumns != null);
+      start = end;
+    }
+    for (int i = 0; i < rows.size(); i++) {
+      rows.get(i).postExecute.postExecute();
+    }
+    close();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    rows.clear();
+    current = null;
+    if (pstmt != null) {
+      PreparedStatement stmt = pstmt;
+      pstmt = null;
+      stmt.close();
+    }
+  }
+
+  /**
+   * Execute the rows from start (inclusive) to end (exclusive) as one statement.
+   */
+  private void execute(int start, int end, boolean getGeneratedKeys) throws SQLException {
+
+    int rowCount = end - start;
+    PreparedStatement stmt = prepare(rowCount);
+
+    DataBind dataBind = new DataBind(dataTimeZone, stmt, connection);
+    for (int i = start; i < end; i++) {
+      rows.get(i).bind(dataBind);
+    }
+
+    int result = stmt.executeUpdate();
+    if (result != rowCount && result != Statement.SUCCESS_NO_INFO) {
+      throw new SQLException("Multi-row insert of " + rowCount + " rows returned row count " + result);
+    }
+    int rowResult = (result == Statement.SUCCESS_NO_INFO) ? result : 1;
+    for (int i = start; i < end; i++) {
+      rows.get(i).postExecute.checkRowCount(rowResult);
+    }
+    if (getGeneratedKeys) {
+      readGeneratedKeys(stmt, start, end);
+    }
+  }
+
+  /**
+   * Return a statement for the given number of rows reusing the prior statement if possible.
+   */
+  private PreparedStatement prepare(int rowCount) throws SQLException {
+    if (pstmt != null) {
+      if (pstmtRows == rowCount) {
+        return pstmt;
+      }
+      pstmt.close();
+      pstmt = null;
+    }
+
+    String sql = getSql();
+    StringBuilder sb = new StringBuilder(sql.length() + (rowValues.length() + 1) * (rowCount - 1));
+    sb.append(sql);
+    for (int i = 1; i < rowCount; i++) {
+      sb.append(",").append(rowValues);
+    }
+    if (genKeyColumns != null) {
+      pstmt = connection.prepareStatement(sb.toString(), genKeyColumns);
+    } else {
+      pstmt = connection.prepareStatement(sb.toString());
+    }
+    pstmtRows = rowCount;
+    return pstmt;
+  }
+
+  private void readGeneratedKeys(PreparedStatement stmt, int start, int end) throws SQLException {
+
+    int index = start;
+    ResultSet rset = stmt.getGeneratedKeys();
+    try {
+      while (index < end && rset.next()) {
+        Object idValue = rset.getObject(1);
+        rows.get(index).postExecute.setGeneratedKey(idValue);
+        index++;
+      }
+    } finally {
+      rset.close();
+    }
+    if (index != end) {
+      throw new SQLException("Multi-row insert of " + (end - start) + " rows returned " + (index - start) + " generated keys");
+    }
+  }
+
+  /**
+   * The captured bind values of a row in bind order.
+   */
+  private static final class Row {
+
+    private final BatchPostExecute postExecute;
+
+    private int[] kinds = new int[8];
+
+    private int[] sqlTypes = new int[8];
+
+    private Object[] values = new Object[8];
+
+    private Object[] extras;
+
+    /**
+     * The number of bind values.
+     */
+    private int size;
+
+    Row(BatchPostExecute postExecute) {
+      this.postExecute = postExecute;
+    }
+
+    void add(int kind, Object value) {
+      add(kind, value, 0, null);
+    }
+
+    void add(int kind, Object value, int sqlType, Object extra) {
+      if (size == kinds.length) {
+        int newLength = size * 2;
+        kinds = Arrays.copyOf(kinds, newLength);
+        sqlTypes = Arrays.copyOf(sqlTypes, newLength);
+        values = Arrays.copyOf(values, newLength);
+        if (extras != null) {
+          extras = Arrays.copyOf(extras, newLength);
+        }
+      }
+      if (extra != null) {
+        if (extras == null) {
+          extras = new Object[kinds.length];
+        }
+        extras[size] = extra;
+      }
+      kinds[size] = kind;
+      sqlTypes[size] = sqlType;
+      values[size] = value;
+      size++;
+    }
+
+    /**
+     * Bind the captured values (at the next positions of the DataBind).
+     */
+    void bind(DataBind b) throws SQLException {
+      for (int i = 0; i < size; i++) {
+        Object value = values[i];
+        switch (kinds[i]) {
+          case OBJECT:
+            b.setObject(value);
+            break;
+          case OBJECT_TYPE:
+            b.setObject(value, sqlTypes[i]);
+            break;
+          case NULL:
+            b.setNull(sqlTypes[i]);
+            break;
+          case STRING:
+            b.setString((String) value);
+            break;
+          case INT:
+            b.setInt((Integer) value);
+            break;
+          case LONG:
+            b.setLong((Long) value);
+            break;
+          case SHORT:
+            b.setShort((Short) value);
+            break;
+          case FLOAT:
+            b.setFloat((Float) value);
+            break;
+          case DOUBLE:
+            b.setDouble((Double) value);
+            break;
+          case BIGDECIMAL:
+            b.setBigDecimal((BigDecimal) value);
+            break;
+          case DATE:
+            b.setDate((java.sql.Date) value);
+            break;
+          case TIMESTAMP:
+            b.setTimestamp((Timestamp) value);
+            break;
+          case TIME:
+            b.setTime((Time) value);
+            break;
+          case BOOLEAN:
+            b.setBoolean((Boolean) value);
+            break;
+          case BYTES:
+            b.setBytes((byte[]) value);
+            break;
+          case BYTE:
+            b.setByte((Byte) value);
+            break;
+          case CHAR:
+            b.setChar((Character) value);
+            break;
+          case BINARY_STREAM:
+            b.setBinaryStream((InputStream) value, (Long) extras[i]);
+            break;
+          case BLOB:
+            b.setBlob((byte[]) value);
+            break;
+          case CLOB:
+            b.setClob((String) value);
+            break;
+          case ARRAY:
+            b.setArray((String) extras[i], (Object[]) value);
+            break;
+          default:
+            throw new IllegalStateException("Unknown bind kind " + kinds[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * DataBind that captures the bind values of a row rather than binding to a statement.
+   */
+  private static final class RowBind extends DataBind {
+
+    private final Row row;
+
+    RowBind(DataTimeZone dataTimeZone, Connection connection, Row row) {
+      super(dataTimeZone, null, connection);
+      this.row = row;
+    }
+
+    @Override
+    public void close() {
+      // no statement, the rows are bound on execution
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+      throw new SQLException("executeUpdate not supported capturing a multi-row insert");
+    }
+
+    @Override
+    public int currentPos() {
+      return row.size;
+    }
+
+    @Override
+    public void setObject(Object value) throws SQLException {
+      row.add(OBJECT, value);
+    }
+
+    @Override
+    public void setObject(Object value, int sqlType) throws SQLException {
+      row.add(OBJECT_TYPE, value, sqlType, null);
+    }
+
+    @Override
+    public void setNull(int jdbcType) throws SQLException {
+      row.add(NULL, null, jdbcType, null);
+    }
+
+    @Override
+    public void setString(String s) throws SQLException {
+      row.add(STRING, s);
+    }
+
+    @Override
+    public void setInt(int i) throws SQLException {
+      row.add(INT, i);
+    }
+
+    @Override
+    public void setLong(long i) throws SQLException {
+      row.add(LONG, i);
+    }
+
+    @Override
+    public void setShort(short i) throws SQLException {
+      row.add(SHORT, i);
+    }
+
+    @Override
+    public void setFloat(float i) throws SQLException {
+      row.add(FLOAT, i);
+    }
+
+    @Override
+    public void setDouble(double i) throws SQLException {
+      row.add(DOUBLE, i);
+    }
+
+    @Override
+    public void setBigDecimal(BigDecimal v) throws SQLException {
+      row.add(BIGDECIMAL, v);
+    }
+
+    @Override
+    public void setDate(java.sql.Date v) throws SQLException {
+      row.add(DATE, v);
+    }
+
+    @Override
+    public void setTimestamp(Timestamp v) throws SQLException {
+      row.add(TIMESTAMP, v);
+    }
+
+    @Override
+    public void setTime(Time v) throws SQLException {
+      row.add(TIME, v);
+    }
+
+    @Override
+    public void setBoolean(boolean v) throws SQLException {
+      row.add(BOOLEAN, v);
+    }
+
+    @Override
+    public void setBytes(byte[] v) throws SQLException {
+      row.add(BYTES, v);
+    }
+
+    @Override
+    public void setByte(byte v) throws SQLException {
+      row.add(BYTE, v);
+    }
+
+    @Override
+    public void setChar(char v) throws SQLException {
+      row.add(CHAR, v);
+    }
+
+    @Override
+    public void setBinaryStream(InputStream inputStream, long length) throws SQLException {
+      row.add(BINARY_STREAM, inputStream, 0, length);
+    }
+
+    @Override
+    public void setBlob(byte[] bytes) throws SQLException {
+      row.add(BLOB, bytes);
+    }
+
+    @Override
+    public void setClob(String content) throws SQLException {
+      row.add(CLOB, content);
+    }
+
+    @Override
+    public void setArray(String arrayType, Object[] elements) throws SQLException {
+      row.add(ARRAY, elements, 0, arrayType);
+    }
+  }
+}
@@ -40,6 +40,16 @@ public class BatchedPstmtHolder {
    * This will return null if no matching PreparedStatement is found.
    */
   public PreparedStatement getStmt(String stmtKey, BatchPostExecute postExecute) {
+    BatchedPstmt bs = getBatchedPstmt(stmtKey, postExecute);
+    return (bs == null) ? null : bs.getStatement();
+  }
+
+  /**
+   * Return the BatchedPstmt if it has already been used in this Batch adding
+   * the post execute processing for the bean/row to it.
+   * This will return null if no matching BatchedPstmt is found.
+   */
+  public BatchedPstmt getBatchedPstmt(String stmtKey, BatchPostExecute postExecute) {
     BatchedPstmt bs = stmtMap.get(stmtKey);
     if (bs == null) {
       // the PreparedStatement has need been created
@@ -54,7 +64,7 @@ public class BatchedPstmtHolder {
     if (bsSize > maxSize) {
       maxSize = bsSize;
     }
-    return bs.getStatement();
+    return bs;
   }
 
   /**
@@ -0,0 +1,81 @@
+package com.avaje.ebeaninternal.server.persist;
+
+import com.avaje.ebean.bean.EntityBean;
+import com.avaje.ebean.bean.EntityBeanIntercept;
+import com.avaje.ebean.bean.PersistenceContext;
+
+/**
+ * The property values and persistence state (new, loaded, changed and dirty) of a bean
+ * at a point in time.
+ * <p>
+ * Used by GroupCommit to restore a bean when the transaction that saved it is rolled
+ * back such that it can be saved again.
+ * </p>
+ * <p>
+ * The snapshot is shallow. Property values are restored by reference so a mutable value
+ * (such as a java.util.Date) that was modified in place is not restored. Saving a bean
+ * sets new values (ids, versions and generated timestamps) rather than modifying the
+ * existing values so this is sufficient for the bean types that GroupCommit groups
+ * (which do not have embedded beans or cascading saves).
+ * </p>
+ */
+final class BeanSnapshot {
+
+  private final EntityBean bean;
+
+  private final Object[] values;
+
+  private final Object[] origValues;
+
+  private final boolean[] loadedProps;
+
+  private final boolean[] changedProps;
+
+  private final boolean isNew;
+
+  private final boolean dirty;
+
+  private final PersistenceContext persistenceContext;
+
+  BeanSnapshot(EntityBean bean) {
+    this.bean = bean;
+    EntityBeanIntercept intercept = bean._ebean_getIntercept();
+    int length = intercept.getPropertyLength();
+    this.values = new Object[length];
+    this.origValues = new Object[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = bean._ebean_getField(i);
+      origValues[i] = intercept.getOrigValue(i);
+    }
+    this.loadedProps = intercept.getLoaded().clone();
+    boolean[] changed = intercept.getChanged();
+    this.changedProps = (changed == null) ? null : changed.clone();
+    this.isNew = intercept.isNew();
+    this.dirty = intercept.isDirty();
+    this.persistenceContext = intercept.getPersistenceContext();
+  }
+
+  /**
+   * Restore the property values and persistence state of the bean.
+   */
+  void restore() {
+
+    EntityBeanIntercept intercept = bean._ebean_getIntercept();
+    // clears the changed properties, original values and dirty state
+    intercept.setLoaded();
+    if (isNew) {
+      intercept.setNew();
+    }
+    for (int i = 0; i < values.length; i++) {
+      bean._ebean_setField(i, values[i]);
+      if (changedProps != null && changedProps[i]) {
+        // record the change again along with the original value
+        intercept.preSetter(true, i, origValues[i], values[i]);
+        intercept.setChangedProperty(i);
+      }
+    }
+    System.arraycopy(loadedProps, 0, intercept.getLoaded(), 0, loadedProps.length);
+    intercept.setDirty(dirty);
+    intercept.setPersistenceContext(persistenceContext);
+  }
+}
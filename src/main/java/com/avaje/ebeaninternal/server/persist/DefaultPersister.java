@@ -74,11 +74,46 @@ public final class DefaultPersister implements Persister {
 
   private final boolean updatesDeleteMissingChildren;
 
+  /**
+   * Groups saves that would use implicit transactions (null when group commit is not used).
+   */
+  private final GroupCommit groupCommit;
+
   public DefaultPersister(SpiEbeanServer server, Binder binder, BeanDescriptorManager descMgr) {
     this.server = server;
     this.updatesDeleteMissingChildren = server.getServerConfig().isUpdatesDeleteMissingChildren();
     this.beanDescriptorManager = descMgr;
     this.persistExecute = new DefaultPersistExecute(binder, server.getServerConfig().getPersistBatchSize());
+    int groupCommitMillis = server.getServerConfig().getGroupCommitMillis();
+    this.groupCommit = (groupCommitMillis <= 0) ? null
+        : new GroupCommit(this, server, groupCommitMillis, server.getServerConfig().getGroupCommitMaxBeans());
+  }
+
+  @Override
+  public void shutdown() {
+    if (groupCommit != null) {
+      groupCommit.shutdown();
+    }
+  }
+
+  /**
+   * Return true if the save should be part of a group commit.
+   * <p>
+   * That is, group commit is on, there is no explicit or current transaction such
+   * that the save would otherwise use its own implicit transaction and the bean type
+   * can be saved by the group commit thread.
+   * </p>
+   */
+  private boolean isGroupCommit(EntityBean bean, Transaction t) {
+    if (groupCommit == null || t != null) {
+      return false;
+    }
+    SpiTransaction current = server.getCurrentServerTransaction();
+    if (current != null && current.isActive()) {
+      return false;
+    }
+    BeanDescriptor<?> desc = beanDescriptorManager.getBeanDescriptor(bean.getClass());
+    return desc != null && groupCommit.isGroupable(desc);
   }
 
   /**
@@ -352,6 +387,18 @@ public final class DefaultPersister implements Persister {
    */
   public void update(EntityBean entityBean, Transaction t, boolean deleteMissingChildren) {
 
+    if (isGroupCommit(entityBean, t)) {
+      groupCommit.save(entityBean, false, deleteMissingChildren);
+    } else {
+      updateBean(entityBean, t, deleteMissingChildren);
+    }
+  }
+
+  /**
+   * Update the bean using the given transaction (or an implicit one).
+   */
+  void updateBean(EntityBean entityBean, Transaction t, boolean deleteMissingChildren) {
+
     PersistRequestBean<?> req = createRequest(entityBean, t, PersistRequest.Type.UPDATE);
     req.setDeleteMissingChildren(deleteMissingChildren);
     req.checkDraft();
@@ -393,6 +440,18 @@ public final class DefaultPersister implements Persister {
    */
   public void insert(EntityBean bean, Transaction t) {
 
+    if (isGroupCommit(bean, t)) {
+      groupCommit.save(bean, true, false);
+    } else {
+      insertBean(bean, t);
+    }
+  }
+
+  /**
+   * Insert the bean using the given transaction (or an implicit one).
+   */
+  void insertBean(EntityBean bean, Transaction t) {
+
     PersistRequestBean<?> req = createRequest(bean, t, PersistRequest.Type.INSERT);
     try {
       req.initTransIfRequiredWithBatchCascade();
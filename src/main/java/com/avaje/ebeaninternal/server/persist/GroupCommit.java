@@ -0,0 +1,342 @@
+package com.avaje.ebeaninternal.server.persist;
+
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.bean.EntityBean;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.deploy.generatedproperty.GeneratedProperty;
+import com.avaje.ebeaninternal.server.deploy.generatedproperty.GeneratedWhoCreated;
+import com.avaje.ebeaninternal.server.deploy.generatedproperty.GeneratedWhoModified;
+import com.avaje.ebeaninternal.server.lib.DaemonThreadFactory;
+import com.avaje.ebeaninternal.server.util.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the saves of beans that would otherwise each use their own implicit
+ * transaction into a single batched transaction.
+ * <p>
+ * Callers queue their bean and wait. A background thread takes the queued beans over
+ * the group commit window (or until the maximum group size is reached), saves them
+ * using one batched transaction and commits once. The single commit means there is
+ * one TransactionEvent and hence one post commit processing for the group.
+ * </p>
+ * <p>
+ * If the group fails it is rolled back, each bean is restored to its state before the
+ * group saved it and each caller then saves its bean in its own implicit transaction
+ * such that each caller gets its own success or failure.
+ * </p>
+ * <p>
+ * As the beans are saved by the group commit thread only bean types where the save
+ * does not depend on the state of the calling thread and where the snapshot of the
+ * bean fully restores it are grouped. That is, bean types without a persist controller,
+ * without who created/modified properties and without cascading saves or embedded beans.
+ * A save on the group commit thread itself is never grouped.
+ * </p>
+ */
+final class GroupCommit {
+
+  private static final Logger logger = LoggerFactory.getLogger(GroupCommit.class);
+
+  private final DefaultPersister persister;
+
+  private final SpiEbeanServer server;
+
+  private final long windowNanos;
+
+  private final int maxBeans;
+
+  private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<Entry>();
+
+  private final ExecutorService executor;
+
+  private final Object lock = new Object();
+
+  private final LongAdder groupCount = new LongAdder();
+
+  private final LongAdder beanCount = new LongAdder();
+
+  private final LongAdder failedGroupCount = new LongAdder();
+
+  /**
+   * Whether each bean type (by full name) can be saved as part of a group.
+   */
+  private final ConcurrentHashMap<String, Boolean> groupTypes = new ConcurrentHashMap<String, Boolean>();
+
+  private volatile Thread groupThread;
+
+  private volatile boolean shutdown;
+
+  GroupCommit(DefaultPersister persister, SpiEbeanServer server, int windowMillis, int maxBeans) {
+    this.persister = persister;
+    this.server = server;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.maxBeans = Math.max(1, maxBeans);
+    this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("ebean-group-commit-" + server.getName() + "-"));
+    this.executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        processQueue();
+      }
+    });
+  }
+
+  /**
+   * Return true if the bean can be saved as part of a group from the current thread.
+   */
+  boolean isGroupable(BeanDescriptor<?> desc) {
+    if (Thread.currentThread() == groupThread) {
+      // a save by a controller or listener invoked while saving a group
+      return false;
+    }
+    Boolean groupable = groupTypes.get(desc.getFullName());
+    if (groupable == null) {
+      groupable = isGroupableType(desc);
+      groupTypes.put(desc.getFullName(), groupable);
+    }
+    return groupable;
+  }
+
+  /**
+   * Return true if saving the bean type depends only on the bean (and not on the thread
+   * saving it) and the bean can be restored from a snapshot if the group fails.
+   */
+  private boolean isGroupableType(BeanDescriptor<?> desc) {
+    if (desc.getPersistController() != null
+        || desc.propertiesEmbedded().length > 0
+        || desc.propertiesOneImportedSave().length > 0
+        || desc.propertiesOneExportedSave().length > 0
+        || desc.propertiesManySave().length > 0) {
+      return false;
+    }
+    for (BeanProperty prop : desc.propertiesNonTransient()) {
+      GeneratedProperty generated = prop.getGeneratedProperty();
+      if (generated instanceof GeneratedWhoCreated || generated instanceof GeneratedWhoModified) {
+        // the current user is obtained from the calling thread
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Save the bean as part of a group commit returning when the group has committed.
+   * <p>
+   * If the group failed or group commit has been shutdown then the bean is saved in
+   * its own implicit transaction.
+   * </p>
+   */
+  void save(EntityBean bean, boolean insert, boolean deleteMissingChildren) {
+
+    Entry entry = new Entry(bean, insert, deleteMissingChildren);
+    if (submit(entry) && entry.await()) {
+      // saved and committed as part of the group
+      return;
+    }
+    entry.saveIndividually(persister);
+  }
+
+  private boolean submit(Entry entry) {
+    synchronized (lock) {
+      if (shutdown) {
+        return false;
+      }
+      queue.add(entry);
+      return true;
+    }
+  }
+
+  /**
+   * Stop taking new beans, commit the beans already queued and stop the background thread.
+   */
+  void shutdown() {
+    synchronized (lock) {
+      shutdown = true;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+        logger.warn("Timed out waiting for group commit to complete");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Return the number of groups committed.
+   */
+  long getGroupCount() {
+    return groupCount.sum();
+  }
+
+  /**
+   * Return the number of beans saved in committed groups.
+   */
+  long getBeanCount() {
+    return beanCount.sum();
+  }
+
+  /**
+   * Return the number of groups that failed and were saved individually.
+   */
+  long getFailedGroupCount() {
+    return failedGroupCount.sum();
+  }
+
+  private void processQueue() {
+    groupThread = Thread.currentThread();
+    while (!shutdown || !queue.isEmpty()) {
+      try {
+        Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          commit(collectGroup(first));
+        }
+      } catch (InterruptedException e) {
+        // continue until shutdown and the queue is empty
+      } catch (Throwable e) {
+        logger.error("Error in group commit", e);
+      }
+    }
+  }
+
+  /**
+   * Collect the beans queued over the window up to the maximum group size.
+   */
+  private List<Entry> collectGroup(Entry first) throws InterruptedException {
+
+    List<Entry> group = new ArrayList<Entry>();
+    group.add(first);
+    long deadline = System.nanoTime() + windowNanos;
+    while (group.size() < maxBeans) {
+      long wait = deadline - System.nanoTime();
+      Entry next = (wait <= 0 || shutdown) ? queue.poll() : queue.poll(wait, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        break;
+      }
+      group.add(next);
+    }
+    return group;
+  }
+
+  private void commit(List<Entry> group) {
+
+    if (group.size() == 1) {
+      // nothing to group so the caller saves it as normal
+      group.get(0).complete(false);
+      return;
+    }
+
+    boolean success = false;
+    Transaction transaction = server.createTransaction();
+    try {
+      transaction.setBatchMode(true);
+      transaction.setBatchSize(group.size());
+      for (int i = 0; i < group.size(); i++) {
+        group.get(i).save(persister, transaction);
+      }
+      transaction.commit();
+      success = true;
+
+    } catch (RuntimeException e) {
+      logger.debug("Group commit of {} beans failed, saving each individually", group.size(), e);
+
+    } finally {
+      transaction.end();
+      if (success) {
+        groupCount.increment();
+        beanCount.add(group.size());
+      } else {
+        failedGroupCount.increment();
+        // undo the changes the rolled back save made to the beans (loaded state, ids, versions)
+        for (int i = 0; i < group.size(); i++) {
+          group.get(i).restore();
+        }
+      }
+      for (int i = 0; i < group.size(); i++) {
+        group.get(i).complete(success);
+      }
+    }
+  }
+
+  /**
+   * A bean to save with the latch the caller waits on.
+   */
+  private static final class Entry {
+
+    private final EntityBean bean;
+
+    private final boolean insert;
+
+    private final boolean deleteMissingChildren;
+
+    /**
+     * The state of the bean before it is saved by the group.
+     */
+    private final BeanSnapshot snapshot;
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private volatile boolean committed;
+
+    Entry(EntityBean bean, boolean insert, boolean deleteMissingChildren) {
+      this.bean = bean;
+      this.insert = insert;
+      this.deleteMissingChildren = deleteMissingChildren;
+      this.snapshot = new BeanSnapshot(bean);
+    }
+
+    void save(DefaultPersister persister, Transaction transaction) {
+      if (insert) {
+        persister.insertBean(bean, transaction);
+      } else {
+        persister.updateBean(bean, transaction, deleteMissingChildren);
+      }
+    }
+
+    void restore() {
+      snapshot.restore();
+    }
+
+    void saveIndividually(DefaultPersister persister) {
+      save(persister, null);
+    }
+
+    void complete(boolean committed) {
+      this.committed = committed;
+      latch.countDown();
+    }
+
+    /**
+     * Wait for the group to complete returning true if the bean was committed.
+     */
+    boolean await() {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            latch.await();
+            return committed;
+          } catch (InterruptedException e) {
+            // the bean is part of a group so wait for the outcome
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
@@ -33,7 +33,7 @@ public class DeleteHandler extends DmlHandler {
 		if (persistRequest.isBatched()) {
 			pstmt = getPstmt(t, sql, persistRequest, false);
 		} else {
-			pstmt = getPstmt(t, sql, false);
+			pstmt = getPstmtNonBatch(t, sql, false);
 		}
 		dataBind = bind(pstmt);
 		meta.bind(persistRequest, this);
@@ -1,8 +1,10 @@
 package com.avaje.ebeaninternal.server.persist.dml;
 
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.lib.util.StringHelper;
 import com.avaje.ebeaninternal.server.persist.BeanPersister;
+import com.avaje.ebeaninternal.server.util.TimedMetric;
 
 import javax.persistence.PersistenceException;
 import java.sql.SQLException;
@@ -24,12 +26,20 @@ public final class DmlBeanPersister implements BeanPersister {
 
 	private final DeleteMeta deleteMeta;
 
-	
-	public DmlBeanPersister(UpdateMeta updateMeta, InsertMeta insertMeta, DeleteMeta deleteMeta) {
+	private final TimedMetric metricInsert;
+
+	private final TimedMetric metricUpdate;
+
+	private final TimedMetric metricDelete;
+
+	public DmlBeanPersister(BeanDescriptor<?> desc, UpdateMeta updateMeta, InsertMeta insertMeta, DeleteMeta deleteMeta) {
 
 		this.updateMeta = updateMeta;
 		this.insertMeta = insertMeta;
 		this.deleteMeta = deleteMeta;
+		this.metricInsert = desc.getMetricInsert();
+		this.metricUpdate = desc.getMetricUpdate();
+		this.metricDelete = desc.getMetricDelete();
 	}
 
 	/**
@@ -38,7 +48,7 @@ public final class DmlBeanPersister implements BeanPersister {
 	public int delete(PersistRequestBean<?> request) {
 
 		DeleteHandler delete = new DeleteHandler(request, deleteMeta);
-		return execute(request, delete);
+		return execute(request, delete, metricDelete);
 	}
 
 	/**
@@ -47,7 +57,7 @@ public final class DmlBeanPersister implements BeanPersister {
 	public void insert(PersistRequestBean<?> request) {
 
 		InsertHandler insert = new InsertHandler(request, insertMeta);
-		execute(request, insert);
+		execute(request, insert, metricInsert);
 	}
 
 	/**
@@ -56,15 +66,19 @@ public final class DmlBeanPersister implements BeanPersister {
 	public void update(PersistRequestBean<?> request) {
 
 		UpdateHandler update = new UpdateHandler(request, updateMeta);
-		execute(request, update);
+		execute(request, update, metricUpdate);
 	}
 
 	/**
 	 * execute request taking batching into account.
+	 * <p>
+	 * The execution time is only collected for non batched requests.
+	 * </p>
 	 */
-	private int execute(PersistRequestBean<?> request, PersistHandler handler) {
+	private int execute(PersistRequestBean<?> request, PersistHandler handler, TimedMetric metric) {
 
     boolean batched = request.isBatched();
+		long startNanos = System.nanoTime();
 		try {
 			handler.bind();
 			if (batched) {
@@ -72,7 +86,9 @@ public final class DmlBeanPersister implements BeanPersister {
         return -1;
 
 			} else {
-				return handler.execute();
+				int rows = handler.execute();
+				metric.addSinceNanos(startNanos);
+				return rows;
 			}
 
 		} catch (SQLException e) {
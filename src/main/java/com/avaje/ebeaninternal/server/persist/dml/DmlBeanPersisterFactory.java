@@ -12,8 +12,8 @@ public class DmlBeanPersisterFactory implements BeanPersisterFactory {
 	
 	private final MetaFactory metaFactory;
 	
-	public DmlBeanPersisterFactory(DatabasePlatform dbPlatform) {
-		this.metaFactory = new MetaFactory(dbPlatform);
+	public DmlBeanPersisterFactory(DatabasePlatform dbPlatform, boolean multiRowInsert) {
+		this.metaFactory = new MetaFactory(dbPlatform, multiRowInsert);
 	}
 	
 	
@@ -26,7 +26,7 @@ public class DmlBeanPersisterFactory implements BeanPersisterFactory {
 		DeleteMeta delMeta = metaFactory.createDelete(desc);
 		InsertMeta insMeta = metaFactory.createInsert(desc);
 		
-		return new DmlBeanPersister(updMeta, insMeta, delMeta);
+		return new DmlBeanPersister(desc, updMeta, insMeta, delMeta);
 		
 	}
 	
@@ -7,6 +7,7 @@ import com.avaje.ebeaninternal.server.lib.util.Str;
 import com.avaje.ebeaninternal.server.persist.BatchedPstmt;
 import com.avaje.ebeaninternal.server.persist.BatchedPstmtHolder;
 import com.avaje.ebeaninternal.server.persist.dmlbind.BindableRequest;
+import com.avaje.ebeaninternal.server.transaction.PstmtCache;
 import com.avaje.ebeaninternal.server.transaction.TransactionManager;
 import com.avaje.ebeaninternal.server.type.DataBind;
 import org.slf4j.Logger;
@@ -51,6 +52,11 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
    */
   protected Object versionValue;
 
+  /**
+   * The transaction statement cache the statement is returned to on close (null when not cached).
+   */
+  private PstmtCache pstmtCache;
+
   protected DmlHandler(PersistRequestBean<?> persistRequest, boolean emptyStringToNull) {
     this.now = System.currentTimeMillis();
     this.persistRequest = persistRequest;
@@ -123,7 +129,11 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
   public void close() {
     try {
       if (dataBind != null) {
-        dataBind.close();
+        if (pstmtCache != null) {
+          pstmtCache.release(sql, dataBind.getPstmt());
+        } else {
+          dataBind.close();
+        }
       }
     } catch (SQLException ex) {
       logger.error(null, ex);
@@ -264,6 +274,25 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
     }
   }
 
+  /**
+   * Return a prepared statement for non batched execution.
+   * <p>
+   * Statements without generated keys are reused via the transaction statement cache when
+   * that is enabled.
+   * </p>
+   */
+  protected PreparedStatement getPstmtNonBatch(SpiTransaction t, String sql, boolean genKeys) throws SQLException {
+    if (!genKeys) {
+      PstmtCache cache = t.getPstmtCache();
+      if (cache != null) {
+        pstmtCache = cache;
+        PreparedStatement pstmt = cache.take(sql);
+        return (pstmt != null) ? pstmt : getPstmt(t, sql, false);
+      }
+    }
+    return getPstmt(t, sql, genKeys);
+  }
+
   /**
    * Return a prepared statement taking into account batch requirements.
    */
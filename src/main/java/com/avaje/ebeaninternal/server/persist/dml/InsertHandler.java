@@ -8,7 +8,10 @@ import com.avaje.ebeaninternal.server.core.Message;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.persist.BatchedMultiRowInsert;
+import com.avaje.ebeaninternal.server.persist.BatchedPstmtHolder;
 import com.avaje.ebeaninternal.server.persist.DmlUtil;
+import com.avaje.ebeaninternal.server.type.DataBind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +51,11 @@ public class InsertHandler extends DmlHandler {
    */
   private String selectLastInsertedId;
 
+  /**
+   * Set when the values are captured for a batched multi-row insert.
+   */
+  private boolean multiRowBind;
+
   /**
    * Create to handle the insert execution.
    */
@@ -91,13 +99,16 @@ public class InsertHandler extends DmlHandler {
     // get the appropriate sql
     sql = meta.getSql(withId, persistRequest.isPublish());
 
-    PreparedStatement pstmt;
     if (persistRequest.isBatched()) {
-      pstmt = getPstmt(t, sql, persistRequest, useGeneratedKeys);
+      int multiRowBindLimit = meta.getMultiRowBindLimit(useGeneratedKeys);
+      if (multiRowBindLimit > 0 && BatchedMultiRowInsert.isSupported(sql)) {
+        dataBind = bindMultiRow(t, sql, multiRowBindLimit);
+      } else {
+        dataBind = bind(getPstmt(t, sql, persistRequest, useGeneratedKeys));
+      }
     } else {
-      pstmt = getPstmt(t, sql, useGeneratedKeys);
+      dataBind = bind(getPstmtNonBatch(t, sql, useGeneratedKeys));
     }
-    dataBind = bind(pstmt);
     meta.bind(this, bean, withId, persistRequest.isPublish());
 
     logSql(sql);
@@ -117,6 +128,34 @@ public class InsertHandler extends DmlHandler {
     }
   }
 
+  /**
+   * Return the DataBind that captures the bind values for a batched multi-row insert.
+   */
+  private DataBind bindMultiRow(SpiTransaction t, String sql, int bindLimit) {
+
+    BatchedPstmtHolder batch = t.getBatchControl().getPstmtHolder();
+    BatchedMultiRowInsert multiRowInsert = (BatchedMultiRowInsert) batch.getBatchedPstmt(sql, persistRequest);
+    if (multiRowInsert == null) {
+      String[] genKeyColumns = useGeneratedKeys ? meta.getIdentityDbColumns() : null;
+      multiRowInsert = new BatchedMultiRowInsert(t.getInternalConnection(), persistRequest.getDataTimeZone(), sql, genKeyColumns, bindLimit);
+      batch.addStmt(multiRowInsert, persistRequest);
+    }
+    multiRowBind = true;
+    return multiRowInsert.rowBind();
+  }
+
+  /**
+   * Add this for batch execution.
+   */
+  @Override
+  public void addBatch() throws SQLException {
+    if (multiRowBind) {
+      // the row values are captured and bound on execution of the multi-row insert
+      return;
+    }
+    super.addBatch();
+  }
+
   /**
    * Execute the insert in a normal non batch fashion. Additionally using
    * getGeneratedKeys if required.
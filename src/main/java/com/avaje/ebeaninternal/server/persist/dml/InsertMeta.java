@@ -46,9 +46,21 @@ public final class InsertMeta {
 
   private final boolean emptyStringToNull;
 
-  public InsertMeta(DatabasePlatform dbPlatform, BeanDescriptor<?> desc, Bindable shadowFKey, BindableId id, BindableList all) {
+  /**
+   * The bind parameter limit for batched multi-row inserts (0 when not used).
+   */
+  private final int multiRowBindLimit;
+
+  /**
+   * Set when multi-row inserts can be used with getGeneratedKeys.
+   */
+  private final boolean multiRowGeneratedKeys;
+
+  public InsertMeta(DatabasePlatform dbPlatform, BeanDescriptor<?> desc, Bindable shadowFKey, BindableId id, BindableList all, boolean multiRowInsert) {
 
     this.emptyStringToNull = dbPlatform.isTreatEmptyStringsAsNull();
+    this.multiRowBindLimit = multiRowInsert ? dbPlatform.getMaxBindParameters() : 0;
+    this.multiRowGeneratedKeys = dbPlatform.isMultiRowInsertGeneratedKeys();
     this.discriminator = getDiscriminator(desc);
     this.id = id;
     this.all = all;
@@ -135,6 +147,18 @@ public final class InsertMeta {
     return supportsGetGeneratedKeys;
   }
 
+  /**
+   * Return the bind parameter limit to use for a batched multi-row insert or 0
+   * if batched inserts should use standard JDBC batch.
+   */
+  public int getMultiRowBindLimit(boolean useGeneratedKeys) {
+    if (useGeneratedKeys && !multiRowGeneratedKeys) {
+      // keys for all the rows are not returned
+      return 0;
+    }
+    return multiRowBindLimit;
+  }
+
   /**
    * Return true if the Id can be derived from other property values.
    */
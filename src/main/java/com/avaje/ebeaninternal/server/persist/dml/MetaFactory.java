@@ -39,8 +39,14 @@ public class MetaFactory {
 
   private final boolean emptyStringAsNull;
 
-  public MetaFactory(DatabasePlatform dbPlatform) {
+  /**
+   * Set when batched inserts should use multi-row insert statements.
+   */
+  private final boolean multiRowInsert;
+
+  public MetaFactory(DatabasePlatform dbPlatform, boolean multiRowInsert) {
     this.dbPlatform = dbPlatform;
+    this.multiRowInsert = multiRowInsert && dbPlatform.isMultiRowInsert();
     this.emptyStringAsNull = dbPlatform.isTreatEmptyStringsAsNull();
 
     // to bind encryption data before or after the encryption key
@@ -107,6 +113,6 @@ public class MetaFactory {
       shadowFkey = new BindableUnidirectional(desc, unidirectional);
     }
 
-    return new InsertMeta(dbPlatform, desc, shadowFkey, id, allBindable);
+    return new InsertMeta(dbPlatform, desc, shadowFkey, id, allBindable, multiRowInsert);
   }
 }
@@ -44,7 +44,7 @@ public class UpdateHandler extends DmlHandler {
     if (persistRequest.isBatched()) {
       pstmt = getPstmt(t, sql, persistRequest, false);
     } else {
-      pstmt = getPstmt(t, sql, false);
+      pstmt = getPstmtNonBatch(t, sql, false);
     }
     dataBind = bind(pstmt);
     meta.bind(persistRequest, this, updatePlan);
@@ -23,6 +23,7 @@ import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocMany;
 import com.avaje.ebeaninternal.server.deploy.DbReadContext;
 import com.avaje.ebeaninternal.server.lib.util.StringHelper;
+import com.avaje.ebeaninternal.server.transaction.PstmtCache;
 import com.avaje.ebeaninternal.server.type.DataBind;
 import com.avaje.ebeaninternal.server.type.DataReader;
 import org.slf4j.Logger;
@@ -153,6 +154,11 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
    */
   private PreparedStatement pstmt;
 
+  /**
+   * The transaction statement cache the statement is returned to on close (null when not cached).
+   */
+  private PstmtCache pstmtCache;
+
   private boolean cancelled;
 
   private String bindLog;
@@ -263,6 +269,10 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
     return predicates;
   }
 
+  public CQueryPlan getQueryPlan() {
+    return queryPlan;
+  }
+
   public SpiOrmQueryRequest<?> getQueryRequest() {
     return request;
   }
@@ -324,6 +334,13 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
         // Use forward only hints for large resultSet processing (Issue 56, MySql specific)
         pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
         pstmt.setFetchSize(Integer.MIN_VALUE);
+      } else if (query.getTimeout() <= 0 && query.getBufferFetchSizeHint() <= 0 && t.getPstmtCache() != null) {
+        // reuse the statement within the transaction (no statement settings to reset)
+        pstmtCache = t.getPstmtCache();
+        pstmt = pstmtCache.take(sql);
+        if (pstmt == null) {
+          pstmt = conn.prepareStatement(sql);
+        }
       } else {
         pstmt = conn.prepareStatement(sql);
       }
@@ -370,7 +387,11 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
     }
     try {
       if (pstmt != null) {
-        pstmt.close();
+        if (pstmtCache != null && !cancelled) {
+          pstmtCache.release(sql, pstmt);
+        } else {
+          pstmt.close();
+        }
         pstmt = null;
       }
     } catch (SQLException e) {
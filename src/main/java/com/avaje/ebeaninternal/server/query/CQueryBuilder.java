@@ -279,6 +279,12 @@ public class CQueryBuilder {
    */
   public <T> CQuery<T> buildQuery(OrmQueryRequest<T> request) {
 
+    CQueryPlan compiledPlan = request.getCompiledPlan();
+    if (compiledPlan != null) {
+      // compiled query so the plan and bind values are already determined
+      return new CQuery<T>(request, request.getCompiledPredicates(), compiledPlan);
+    }
+
     CQueryPredicates predicates = new CQueryPredicates(binder, request);
 
     CQueryPlan queryPlan = request.getQueryPlan();
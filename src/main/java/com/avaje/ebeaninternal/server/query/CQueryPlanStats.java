@@ -10,8 +10,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import com.avaje.ebean.bean.ObjectGraphNode;
 import com.avaje.ebean.meta.MetaQueryPlanOriginCount;
 import com.avaje.ebean.meta.MetaQueryPlanStatistic;
+import com.avaje.ebeaninternal.server.util.LatencyHistogram;
 import com.avaje.ebeaninternal.server.util.LongAdder;
-import com.avaje.ebeaninternal.server.util.LongMaxUpdater;
 
 /**
  * Statistics for a specific query plan that can accumulate.
@@ -20,14 +20,13 @@ public final class CQueryPlanStats {
 
   private final CQueryPlan queryPlan;
 
-  private final LongAdder count = new LongAdder();
-
-  private final LongAdder totalTime = new LongAdder();
+  /**
+   * The execution times (providing the count, total, max and percentiles).
+   */
+  private final LatencyHistogram timeHistogram = new LatencyHistogram();
 
   private final LongAdder totalBeans = new LongAdder();
 
-  private final LongMaxUpdater maxTime = new LongMaxUpdater();
-
   private final AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
 
   private long lastQueryTime;
@@ -48,10 +47,8 @@ public final class CQueryPlanStats {
    */
   public void add(long loadedBeanCount, long timeMicros, ObjectGraphNode objectGraphNode) {
 
-    count.increment();
     totalBeans.add(loadedBeanCount);
-    totalTime.add(timeMicros);
-    maxTime.update(timeMicros);
+    timeHistogram.add(timeMicros);
 
     // not safe but should be atomic
     lastQueryTime = System.currentTimeMillis();
@@ -76,10 +73,8 @@ public final class CQueryPlanStats {
   public void reset() {
 
     // Racey but near enough for our purposes as we don't want locks
-    count.reset();
     totalBeans.reset();
-    totalTime.reset();
-    maxTime.reset();
+    timeHistogram.reset();
     startTime.set(System.currentTimeMillis());
 
     if (origins != null) {
@@ -105,10 +100,11 @@ public final class CQueryPlanStats {
 
     // not guaranteed to be consistent due to time gaps between getting each value out of LongAdders but can live with that
     // relative to the cost of making sure count and totalTime etc are all guaranteed to be consistent
+    LatencyHistogram.Snapshot times = timeHistogram.getSnapshot(reset);
     if (reset) {
-      return new Snapshot(queryPlan, count.sumThenReset(), totalTime.sumThenReset(), totalBeans.sumThenReset(), maxTime.maxThenReset(), startTime.getAndSet(System.currentTimeMillis()), lastQueryTime, origins);
+      return new Snapshot(queryPlan, times, totalBeans.sumThenReset(), startTime.getAndSet(System.currentTimeMillis()), lastQueryTime, origins);
     }
-    return new Snapshot(queryPlan, count.sum(), totalTime.sum(), totalBeans.sum(), maxTime.max(), startTime.get(), lastQueryTime, origins);
+    return new Snapshot(queryPlan, times, totalBeans.sum(), startTime.get(), lastQueryTime, origins);
   }
 
   /**
@@ -170,23 +166,25 @@ public final class CQueryPlanStats {
     private final long maxTime;
     private final long startTime;
     private final long lastQueryTime;
+    private final LatencyHistogram.Snapshot times;
     private final List<MetaQueryPlanOriginCount> origins;
 
-    public Snapshot(CQueryPlan queryPlan, long count, long totalTime, long totalBeans, long maxTime, long startTime, long lastQueryTime,
+    public Snapshot(CQueryPlan queryPlan, LatencyHistogram.Snapshot times, long totalBeans, long startTime, long lastQueryTime,
                     List<MetaQueryPlanOriginCount> origins) {
 
       this.queryPlan = queryPlan;
-      this.count = count;
-      this.totalTime = totalTime;
+      this.times = times;
+      this.count = times.getCount();
+      this.totalTime = times.getTotal();
       this.totalBeans = totalBeans;
-      this.maxTime = maxTime;
+      this.maxTime = times.getMax();
       this.startTime = startTime;
       this.lastQueryTime = lastQueryTime;
       this.origins = origins;
     }
 
     public String toString() {
-      return queryPlan + " count:" + count + " time:" + totalTime + " maxTime:" + maxTime + " beans:" + totalBeans
+      return queryPlan + " count:" + count + " time:" + totalTime + " maxTime:" + maxTime + " p95:" + times.getPercentile(95) + " beans:" + totalBeans
           + " start:" + startTime + " lastQuery:" + lastQueryTime + " origins:" + origins;
     }
 
@@ -245,6 +243,11 @@ public final class CQueryPlanStats {
       return count < 1 ? 0 : totalTime / count;
     }
 
+    @Override
+    public long getPercentileTimeMicros(double percentile) {
+      return times.getPercentile(percentile);
+    }
+
     @Override
     public long getAvgLoadedBeans() {
       return count < 1 ? 0 : totalBeans / count;
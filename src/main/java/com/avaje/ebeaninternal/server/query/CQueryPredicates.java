@@ -23,6 +23,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -114,6 +115,42 @@ public class CQueryPredicates {
     this.idValue = query.getId();
   }
 
+  /**
+   * Return a copy of these predicates for the request of a compiled query execution
+   * with the NamedParam bind values replaced by the supplied parameter values.
+   * <p>
+   * Only the bind values are copied as the SQL has already been built into the query plan.
+   * </p>
+   */
+  public CQueryPredicates bindCopy(OrmQueryRequest<?> request, Map<String, Object> params) {
+    CQueryPredicates copy = new CQueryPredicates(binder, request);
+    if (where != null) {
+      copy.where = where.bindCopy(request, params);
+    }
+    if (filterMany != null) {
+      copy.filterMany = filterMany.bindCopy(request, params);
+    }
+    if (having != null) {
+      copy.having = having.bindCopy(request, params);
+    }
+    return copy;
+  }
+
+  /**
+   * Add the names of NamedParam bind values in the where, filterMany and having expressions.
+   */
+  public void addNamedParams(Set<String> names) {
+    if (where != null) {
+      where.addNamedParams(names);
+    }
+    if (filterMany != null) {
+      filterMany.addNamedParams(names);
+    }
+    if (having != null) {
+      having.addNamedParams(names);
+    }
+  }
+
   public String bind(PreparedStatement stmt,  Connection connection) throws SQLException {
     return bind(binder.dataBind(stmt, connection));
   }
@@ -111,8 +111,8 @@ public class DefaultOrmQueryEngine implements OrmQueryEngine {
       }
     }
 
-    if (!result.isEmpty() && query.isUseQueryCache()) {
-      // load the query result into the query cache
+    if (query.isUseQueryCache()) {
+      // load the query result into the query cache (an empty result is not cached)
       request.putToQueryCache(result);
     }
 
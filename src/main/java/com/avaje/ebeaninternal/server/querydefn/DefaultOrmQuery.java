@@ -81,6 +81,8 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
    */
   private int lazyLoadBatchSize;
 
+  private int queryJoinParallelism;
+
   private OrderBy<T> orderBy;
 
   private String loadMode;
@@ -334,6 +336,17 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
     return this;
   }
 
+  @Override
+  public int getQueryJoinParallelism() {
+    return queryJoinParallelism;
+  }
+
+  @Override
+  public Query<T> setQueryJoinParallelism(int parallelism) {
+    this.queryJoinParallelism = parallelism;
+    return this;
+  }
+
   @Override
   public String getLazyLoadProperty() {
     return lazyLoadProperty;
@@ -557,6 +570,7 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
     copy.distinct = distinct;
     copy.sqlDistinct = sqlDistinct;
     copy.timeout = timeout;
+    copy.queryJoinParallelism = queryJoinParallelism;
     copy.mapKey = mapKey;
     copy.id = id;
     copy.loadBeanCache = loadBeanCache;
@@ -764,12 +778,12 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
   private List<SpiQuery<?>> loggedSecondaryQueries;
 
   @Override
-  public List<SpiQuery<?>> getLoggedSecondaryQueries() {
+  public synchronized List<SpiQuery<?>> getLoggedSecondaryQueries() {
     return loggedSecondaryQueries;
   }
 
   @Override
-  public void logSecondaryQuery(SpiQuery<?> query) {
+  public synchronized void logSecondaryQuery(SpiQuery<?> query) {
     if (loggedSecondaryQueries == null) {
       loggedSecondaryQueries = new ArrayList<SpiQuery<?>>();
     }
@@ -1036,6 +1050,11 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
     server.findEach(this, consumer, null);
   }
 
+  @Override
+  public void findEachPipelined(QueryEachConsumer<T> consumer) {
+    server.findEachPipelined(this, consumer, null);
+  }
+
   @Override
   public List<Version<T>> findVersions() {
     this.temporalMode = TemporalMode.VERSIONS;
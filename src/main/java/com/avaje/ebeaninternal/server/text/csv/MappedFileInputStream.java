@@ -0,0 +1,96 @@
+package com.avaje.ebeaninternal.server.text.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * InputStream that reads a file by memory mapping it a region at a time.
+ * <p>
+ * Used to read large CSV files leaving the paging of the file content to the
+ * operating system. Regions are mapped sequentially such that files larger
+ * than 2GB are supported.
+ * </p>
+ */
+class MappedFileInputStream extends InputStream {
+
+  /**
+   * The size of each mapped region (64MB).
+   */
+  static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+  private final RandomAccessFile file;
+
+  private final FileChannel channel;
+
+  private final long length;
+
+  private final int regionSize;
+
+  private long position;
+
+  private MappedByteBuffer buffer;
+
+  MappedFileInputStream(File file) throws IOException {
+    this(file, DEFAULT_REGION_SIZE);
+  }
+
+  MappedFileInputStream(File file, int regionSize) throws IOException {
+    this.file = new RandomAccessFile(file, "r");
+    this.channel = this.file.getChannel();
+    this.length = channel.size();
+    this.regionSize = regionSize;
+  }
+
+  /**
+   * Return true if there is content to read mapping the next region if required.
+   */
+  private boolean nextRegion() throws IOException {
+    if (buffer != null && buffer.hasRemaining()) {
+      return true;
+    }
+    if (position >= length) {
+      return false;
+    }
+    long size = Math.min(regionSize, length - position);
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    position += size;
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextRegion()) {
+      return -1;
+    }
+    return buffer.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] bytes, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextRegion()) {
+      return -1;
+    }
+    int count = Math.min(len, buffer.remaining());
+    buffer.get(bytes, off, count);
+    return count;
+  }
+
+  @Override
+  public int available() throws IOException {
+    long available = (buffer == null ? 0 : buffer.remaining()) + (length - position);
+    return (int) Math.min(Integer.MAX_VALUE, available);
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer = null;
+    file.close();
+  }
+}
@@ -1,5 +1,7 @@
 package com.avaje.ebeaninternal.server.text.csv;
 
+import java.io.File;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.sql.Types;
 import java.text.DateFormat;
@@ -10,25 +12,44 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebean.plugin.ExpressionPath;
 import com.avaje.ebean.text.StringParser;
 import com.avaje.ebean.text.TextException;
 import com.avaje.ebean.text.TimeStringParser;
 import com.avaje.ebean.text.csv.CsvCallback;
+import com.avaje.ebean.text.csv.CsvParallelCallback;
 import com.avaje.ebean.text.csv.CsvReader;
 import com.avaje.ebean.text.csv.DefaultCsvCallback;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocOne;
 import com.avaje.ebeaninternal.server.el.ElPropertyValue;
+import com.avaje.ebeaninternal.server.lib.DaemonThreadFactory;
 
 /**
  * Implementation of the CsvReader
  */
 public class TCsvReader<T> implements CsvReader<T> {
 
+	private static final Logger logger = LoggerFactory.getLogger(TCsvReader.class);
+
+	/**
+	 * The number of persist batches in each chunk when processing in parallel.
+	 */
+	private static final int CHUNK_BATCHES = 10;
+
 	private static final TimeStringParser TIME_PARSER = new TimeStringParser();
 
 	private final EbeanServer server;
@@ -55,6 +76,11 @@ public class TCsvReader<T> implements CsvReader<T> {
 
 	private boolean addPropertiesFromHeader;
 
+	/**
+	 * The number of threads used to convert and save the rows.
+	 */
+	private int parallelism = 1;
+
 	public TCsvReader(EbeanServer server, BeanDescriptor<T> descriptor) {
 		this.server = server;
 		this.descriptor = descriptor;
@@ -97,6 +123,10 @@ public class TCsvReader<T> implements CsvReader<T> {
 		this.logInfoFrequency = logInfoFrequency;
 	}
 
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
 	public void addIgnore() {
 		columnList.add(ignoreColumn);
 	}
@@ -123,8 +153,7 @@ public class TCsvReader<T> implements CsvReader<T> {
 			locale = defaultLocale;
 		}
 
-		SimpleDateFormat sdf = new SimpleDateFormat(dateTimeFormat, locale);
-		DateTimeParser parser = new DateTimeParser(sdf, dateTimeFormat, elProp);
+		DateTimeParser parser = new DateTimeParser(dateTimeFormat, locale, elProp);
 
 		CsvColumn column = new CsvColumn(elProp, parser);
 		columnList.add(column);
@@ -154,11 +183,30 @@ public class TCsvReader<T> implements CsvReader<T> {
 		columnList.add(column);
 	}
 
+	public void process(File file) throws Exception {
+		Reader reader = new InputStreamReader(new MappedFileInputStream(file), "UTF-8");
+		try {
+			process(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	public void process(File file, CsvCallback<T> callback) throws Exception {
+		Reader reader = new InputStreamReader(new MappedFileInputStream(file), "UTF-8");
+		try {
+			process(reader, callback);
+		} finally {
+			reader.close();
+		}
+	}
+
 	public void process(Reader reader) throws Exception {
 		DefaultCsvCallback<T> callback = new DefaultCsvCallback<T>(persistBatchSize, logInfoFrequency);
 		process(reader, callback);
 	}
 
+	@SuppressWarnings("unchecked")
 	public void process(Reader reader, CsvCallback<T> callback) throws Exception {
 
 		if (reader == null) {
@@ -167,6 +215,10 @@ public class TCsvReader<T> implements CsvReader<T> {
 		if (callback == null) {
 			throw new NullPointerException("callback is null?");
 		}
+		if (parallelism > 1 && callback instanceof CsvParallelCallback) {
+			processParallel(reader, (CsvParallelCallback<T>) callback);
+			return;
+		}
 
 		CsvUtilReader utilReader = new CsvUtilReader(reader);
 
@@ -193,12 +245,7 @@ public class TCsvReader<T> implements CsvReader<T> {
 
 				if (callback.processLine(row, line)) {
 					// the line content is expected to be ok for processing
-					if (line.length != columnList.size()) {
-						// we have not got the expected number of columns
-						String msg = "Error at line " + row + ". Expected [" + columnList.size() + "] columns "
-						        + "but instead we have [" + line.length + "].  Line[" + Arrays.toString(line) + "]";
-						throw new TextException(msg);
-					}
+					checkColumns(row, line);
 
 					T bean = buildBeanFromLineContent(row, line);
 
@@ -217,6 +264,114 @@ public class TCsvReader<T> implements CsvReader<T> {
 		}
 	}
 
+	/**
+	 * Process the rows in chunks converting and saving each chunk on a worker
+	 * thread with its own transaction.
+	 * <p>
+	 * Reading and splitting the lines is done on the calling thread. The
+	 * conversion of the column values (StringParser) and saving is done by the
+	 * workers. The number of chunks in flight is bounded so memory use does not
+	 * grow with the size of the content. Each chunk is committed independently
+	 * so a worker never waits on another chunk while holding its transaction.
+	 * The committed row ranges are passed to the callback and logged on failure
+	 * such that the caller knows exactly which rows were committed.
+	 * </p>
+	 */
+	protected void processParallel(Reader reader, CsvParallelCallback<T> callback) throws Exception {
+
+		CsvUtilReader utilReader = new CsvUtilReader(reader);
+
+		callback.beginParallel(server);
+
+		if (hasHeader) {
+			String[] line = utilReader.readNext();
+			if (addPropertiesFromHeader) {
+				addPropertiesFromHeader(line);
+			}
+			callback.readHeader(line);
+		}
+
+		int batchSize = callback.getPersistBatchSize();
+		int chunkSize = Math.max(1, batchSize) * CHUNK_BATCHES;
+		ChunkResults results = new ChunkResults(callback);
+		Semaphore inFlight = new Semaphore(parallelism * 2);
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("ebean-csv-"));
+		int row = 0;
+		try {
+			Chunk chunk = new Chunk(chunkSize);
+			String[] line;
+			while ((line = utilReader.readNext()) != null && !results.isFailed()) {
+				++row;
+				if (callback.processLine(row, line)) {
+					chunk.add(row, line);
+					if (chunk.size() == chunkSize) {
+						inFlight.acquire();
+						executor.execute(new ChunkTask(chunk, batchSize, results, inFlight));
+						chunk = new Chunk(chunkSize);
+					}
+				}
+			}
+			if (chunk.size() > 0 && !results.isFailed()) {
+				inFlight.acquire();
+				executor.execute(new ChunkTask(chunk, batchSize, results, inFlight));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			results.fail(e);
+
+		} catch (Exception e) {
+			results.fail(e);
+
+		} finally {
+			awaitTermination(executor);
+		}
+
+		Exception error = results.getError();
+		if (error != null) {
+			logger.info("Csv failed, committed rows[" + callback.getRowCount() + "] rowRanges" + results.getCommittedRanges());
+			callback.endWithError(row, error);
+			throw error;
+		}
+		callback.end(row);
+	}
+
+	/**
+	 * Wait for the chunks in flight to complete preserving the interrupt status.
+	 */
+	private void awaitTermination(ExecutorService executor) {
+
+		executor.shutdown();
+		boolean interrupted = Thread.interrupted();
+		try {
+			while (true) {
+				try {
+					if (executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+						return;
+					}
+				} catch (InterruptedException e) {
+					// the running chunks still complete (and commit or roll back)
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Check the line has the expected number of columns.
+	 */
+	private void checkColumns(int row, String[] line) {
+		if (line.length != columnList.size()) {
+			// we have not got the expected number of columns
+			String msg = "Error at line " + row + ". Expected [" + columnList.size() + "] columns "
+			        + "but instead we have [" + line.length + "].  Line[" + Arrays.toString(line) + "]";
+			throw new TextException(msg);
+		}
+	}
+
 	private void addPropertiesFromHeader(String[] line) {
 		for (int i = 0; i < line.length; i++) {
 			ElPropertyValue elProp = descriptor.getElGetValue(line[i]);
@@ -312,26 +467,189 @@ public class TCsvReader<T> implements CsvReader<T> {
 		}
 	}
 
+	/**
+	 * The lines of a chunk of rows.
+	 */
+	private static class Chunk {
+
+		private final int[] rows;
+		private final List<String[]> lines;
+
+		Chunk(int size) {
+			this.rows = new int[size];
+			this.lines = new ArrayList<String[]>(size);
+		}
+
+		void add(int row, String[] line) {
+			rows[lines.size()] = row;
+			lines.add(line);
+		}
+
+		int size() {
+			return lines.size();
+		}
+	}
+
+	/**
+	 * Converts and saves a chunk of rows in its own transaction.
+	 */
+	private class ChunkTask implements Runnable {
+
+		private final Chunk chunk;
+		private final int batchSize;
+		private final ChunkResults results;
+		private final Semaphore inFlight;
+
+		ChunkTask(Chunk chunk, int batchSize, ChunkResults results, Semaphore inFlight) {
+			this.chunk = chunk;
+			this.batchSize = batchSize;
+			this.results = results;
+			this.inFlight = inFlight;
+		}
+
+		public void run() {
+			try {
+				if (!results.isFailed()) {
+					process();
+				}
+			} finally {
+				inFlight.release();
+			}
+		}
+
+		private void process() {
+
+			Transaction transaction = null;
+			try {
+				List<T> beans = new ArrayList<T>(chunk.size());
+				for (int i = 0; i < chunk.size(); i++) {
+					String[] line = chunk.lines.get(i);
+					checkColumns(chunk.rows[i], line);
+					beans.add(buildBeanFromLineContent(chunk.rows[i], line));
+				}
+
+				transaction = server.createTransaction();
+				if (batchSize > 1) {
+					transaction.setBatchMode(true);
+					transaction.setBatchSize(batchSize);
+					transaction.setBatchGetGeneratedKeys(false);
+				} else {
+					transaction.setBatchMode(false);
+				}
+				for (int i = 0; i < beans.size(); i++) {
+					server.save(beans.get(i), transaction);
+				}
+				transaction.commit();
+				results.committed(chunk.rows[0], chunk.rows[chunk.size() - 1], chunk.size());
+
+			} catch (Exception e) {
+				results.fail(e);
+
+			} finally {
+				if (transaction != null) {
+					transaction.end();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Holds the first error and the committed row ranges (passing them to the callback).
+	 */
+	private static class ChunkResults {
+
+		private final CsvParallelCallback<?> callback;
+
+		/**
+		 * The committed row ranges (from and to pairs) merged when contiguous.
+		 */
+		private final TreeMap<Integer, Integer> committedRanges = new TreeMap<Integer, Integer>();
+
+		private volatile Exception error;
+
+		ChunkResults(CsvParallelCallback<?> callback) {
+			this.callback = callback;
+		}
+
+		void committed(int fromRow, int toRow, int rows) {
+			synchronized (committedRanges) {
+				addRange(fromRow, toRow);
+			}
+			callback.committed(fromRow, toRow, rows);
+		}
+
+		private void addRange(int fromRow, int toRow) {
+			Map.Entry<Integer, Integer> before = committedRanges.lowerEntry(fromRow);
+			if (before != null && before.getValue() == fromRow - 1) {
+				fromRow = before.getKey();
+			}
+			Integer after = committedRanges.remove(toRow + 1);
+			if (after != null) {
+				toRow = after;
+			}
+			committedRanges.put(fromRow, toRow);
+		}
+
+		/**
+		 * Return the committed row ranges in the form [1-300, 601-900].
+		 */
+		String getCommittedRanges() {
+			StringBuilder sb = new StringBuilder("[");
+			synchronized (committedRanges) {
+				for (Map.Entry<Integer, Integer> entry : committedRanges.entrySet()) {
+					if (sb.length() > 1) {
+						sb.append(", ");
+					}
+					sb.append(entry.getKey()).append("-").append(entry.getValue());
+				}
+			}
+			return sb.append("]").toString();
+		}
+
+		synchronized void fail(Exception e) {
+			if (error == null) {
+				error = e;
+			}
+		}
+
+		boolean isFailed() {
+			return error != null;
+		}
+
+		Exception getError() {
+			return error;
+		}
+	}
+
 	/**
 	 * A StringParser for converting custom date/time/datetime strings into
 	 * appropriate java types (Date, Calendar, SQL Date, Time, Timestamp, JODA
 	 * etc).
+	 * <p>
+	 * SimpleDateFormat is not thread safe so each thread uses its own instance
+	 * (rows are converted by multiple threads when processing in parallel).
+	 * </p>
 	 */
 	private static class DateTimeParser implements StringParser {
 
-		private final DateFormat dateFormat;
+		private final ThreadLocal<DateFormat> dateFormat;
 		private final ExpressionPath path;
 		private final String format;
 
-		DateTimeParser(DateFormat dateFormat, String format, ExpressionPath path) {
-			this.dateFormat = dateFormat;
+		DateTimeParser(final String format, final Locale locale, ExpressionPath path) {
 			this.path = path;
 			this.format = format;
+			this.dateFormat = new ThreadLocal<DateFormat>() {
+				@Override
+				protected DateFormat initialValue() {
+					return new SimpleDateFormat(format, locale);
+				}
+			};
 		}
 
 		public Object parse(String value) {
 			try {
-				Date dt = dateFormat.parse(value);
+				Date dt = dateFormat.get().parse(value);
 				return path.parseDateTime(dt.getTime());
 
 			} catch (ParseException e) {
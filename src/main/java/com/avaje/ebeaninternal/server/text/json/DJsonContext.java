@@ -1,6 +1,8 @@
 package com.avaje.ebeaninternal.server.text.json;
 
 import com.avaje.ebean.FetchPath;
+import com.avaje.ebean.QueryEachConsumer;
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebean.config.JsonConfig;
 import com.avaje.ebean.plugin.BeanType;
@@ -162,14 +164,7 @@ public class DJsonContext implements JsonContext {
     try {
 
       List<T> list = new ArrayList<T>();
-
-      JsonToken currentToken = src.getCurrentToken();
-      if (currentToken != JsonToken.START_ARRAY) {
-        JsonToken event = src.nextToken();
-        if (event != JsonToken.START_ARRAY) {
-          throw new JsonParseException("Expecting start_array event but got " + event, src.getCurrentLocation());
-        }
-      }
+      readStartArray(src);
 
       do {
         T bean = desc.jsonRead(readJson, null);
@@ -186,6 +181,130 @@ public class DJsonContext implements JsonContext {
     }
   }
 
+  /**
+   * Read the start of the json array (if not already read).
+   */
+  private void readStartArray(JsonParser src) throws IOException {
+    JsonToken currentToken = src.getCurrentToken();
+    if (currentToken != JsonToken.START_ARRAY) {
+      JsonToken event = src.nextToken();
+      if (event != JsonToken.START_ARRAY) {
+        throw new JsonParseException("Expecting start_array event but got " + event, src.getCurrentLocation());
+      }
+    }
+  }
+
+  @Override
+  public <T> void toEach(Class<T> cls, Reader jsonReader, QueryEachConsumer<T> consumer) throws JsonIOException {
+    toEach(cls, createParser(jsonReader), null, consumer);
+  }
+
+  @Override
+  public <T> void toEach(Class<T> cls, JsonParser src, JsonReadOptions options, QueryEachConsumer<T> consumer) throws JsonIOException {
+    readEach(getDescriptor(cls), src, options, consumer, server.getServerConfig().getPersistBatchSize());
+  }
+
+  /**
+   * Read the beans of the json array passing each to the consumer returning the number of beans read.
+   * <p>
+   * Unless provided by the options the persistence context is reset every chunkSize beans
+   * such that it does not hold all the beans read.
+   * </p>
+   */
+  private <T> int readEach(BeanDescriptor<T> desc, JsonParser src, JsonReadOptions options, QueryEachConsumer<T> consumer, int chunkSize) {
+
+    ReadJson readJson = new ReadJson(desc, src, options, determineObjectMapper(options));
+    boolean resetContext = (options == null || options.getPersistenceContext() == null);
+    try {
+      readStartArray(src);
+      int count = 0;
+      do {
+        T bean = desc.jsonRead(readJson, null);
+        if (bean == null) {
+          return count;
+        }
+        consumer.accept(bean);
+        count++;
+        if (resetContext && count % chunkSize == 0) {
+          readJson = readJson.forJson(src, true);
+        }
+      } while (true);
+
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  @Override
+  public <T> int insertAll(Class<T> cls, Reader jsonReader) throws JsonIOException {
+    return insertAll(cls, createParser(jsonReader), null, 0, null);
+  }
+
+  @Override
+  public <T> int insertAll(Class<T> cls, JsonParser src, JsonReadOptions options, int batchSize, Transaction transaction) throws JsonIOException {
+
+    int chunkSize = (batchSize > 0) ? batchSize : server.getServerConfig().getPersistBatchSize();
+    BeanDescriptor<T> desc = getDescriptor(cls);
+
+    Transaction txn = transaction;
+    if (txn == null) {
+      txn = server.beginTransaction();
+      txn.setBatchMode(true);
+      txn.setBatchSize(chunkSize);
+    }
+    try {
+      InsertChunks<T> chunks = new InsertChunks<T>(server, txn, chunkSize);
+      int count = readEach(desc, src, options, chunks, chunkSize);
+      chunks.flush();
+      if (transaction == null) {
+        txn.commit();
+      }
+      return count;
+
+    } finally {
+      if (transaction == null) {
+        txn.end();
+      }
+    }
+  }
+
+  /**
+   * Collects the beans read and inserts them in chunks.
+   */
+  private static final class InsertChunks<T> implements QueryEachConsumer<T> {
+
+    private final SpiEbeanServer server;
+
+    private final Transaction transaction;
+
+    private final int chunkSize;
+
+    private final List<T> chunk;
+
+    InsertChunks(SpiEbeanServer server, Transaction transaction, int chunkSize) {
+      this.server = server;
+      this.transaction = transaction;
+      this.chunkSize = chunkSize;
+      this.chunk = new ArrayList<T>(chunkSize);
+    }
+
+    @Override
+    public void accept(T bean) {
+      chunk.add(bean);
+      if (chunk.size() >= chunkSize) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (!chunk.isEmpty()) {
+        server.insertAll(chunk, transaction);
+        transaction.flushBatch();
+        chunk.clear();
+      }
+    }
+  }
+
   public Object toObject(Type genericType, String json) throws JsonIOException {
 
     return toObject(genericType, createParser(new StringReader(json)));
@@ -0,0 +1,99 @@
+package com.avaje.ebeaninternal.server.text.json;
+
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The properties of a bean type to write as JSON resolved once for a given set of
+ * included properties.
+ * <p>
+ * Plans are cached per BeanDescriptor such that writing a bean does not need to check
+ * each property against the included property names.
+ * </p>
+ */
+public final class JsonWritePlan {
+
+  private static final BeanProperty[] EMPTY = new BeanProperty[0];
+
+  private final BeanProperty idProperty;
+
+  private final BeanProperty[] properties;
+
+  private final BeanProperty[] transientProperties;
+
+  private final boolean loadedOnly;
+
+  /**
+   * Create a plan that includes all properties (explicitAllProps).
+   */
+  public static JsonWritePlan all(BeanDescriptor<?> desc) {
+    return new JsonWritePlan(desc.getIdProperty(), desc.propertiesNonTransient(), desc.propertiesTransient(), false);
+  }
+
+  /**
+   * Create a plan that includes the loaded properties (and all transient properties).
+   */
+  public static JsonWritePlan loaded(BeanDescriptor<?> desc) {
+    return new JsonWritePlan(desc.getIdProperty(), desc.propertiesNonTransient(), desc.propertiesTransient(), true);
+  }
+
+  /**
+   * Create a plan that includes only the explicitly included properties.
+   */
+  public static JsonWritePlan include(BeanDescriptor<?> desc, Set<String> includeProps) {
+    BeanProperty idProperty = desc.getIdProperty();
+    if (idProperty != null && !includeProps.contains(idProperty.getName())) {
+      idProperty = null;
+    }
+    return new JsonWritePlan(idProperty, filter(desc.propertiesNonTransient(), includeProps), filter(desc.propertiesTransient(), includeProps), false);
+  }
+
+  private static BeanProperty[] filter(BeanProperty[] props, Set<String> includeProps) {
+    List<BeanProperty> list = new ArrayList<BeanProperty>();
+    for (int i = 0; i < props.length; i++) {
+      if (includeProps.contains(props[i].getName())) {
+        list.add(props[i]);
+      }
+    }
+    return list.isEmpty() ? EMPTY : list.toArray(new BeanProperty[list.size()]);
+  }
+
+  private JsonWritePlan(BeanProperty idProperty, BeanProperty[] properties, BeanProperty[] transientProperties, boolean loadedOnly) {
+    this.idProperty = idProperty;
+    this.properties = properties;
+    this.transientProperties = transientProperties;
+    this.loadedOnly = loadedOnly;
+  }
+
+  /**
+   * Return the id property (null when not included).
+   */
+  public BeanProperty getIdProperty() {
+    return idProperty;
+  }
+
+  /**
+   * Return the non transient properties to write.
+   */
+  public BeanProperty[] getProperties() {
+    return properties;
+  }
+
+  /**
+   * Return the transient properties to write.
+   */
+  public BeanProperty[] getTransientProperties() {
+    return transientProperties;
+  }
+
+  /**
+   * Return true if only the loaded (non transient) properties are written.
+   */
+  public boolean isLoadedOnly() {
+    return loadedOnly;
+  }
+}
@@ -2,6 +2,7 @@ package com.avaje.ebeaninternal.server.text.json;
 
 import com.avaje.ebean.FetchPath;
 import com.avaje.ebean.bean.EntityBean;
+import com.avaje.ebean.bean.EntityBeanIntercept;
 import com.avaje.ebean.config.JsonConfig;
 import com.avaje.ebean.text.json.JsonIOException;
 import com.avaje.ebean.text.json.JsonWriteBeanVisitor;
@@ -11,12 +12,14 @@ import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
 import com.avaje.ebeaninternal.server.util.ArrayStack;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,6 +41,11 @@ public class WriteJson implements JsonWriter {
 
   private final JsonConfig.Include include;
 
+  /**
+   * The include properties and visitor per path.
+   */
+  private Map<String, PathPlan> pathPlans;
+
   /**
    * Construct for full bean use (normal).
    */
@@ -174,6 +182,31 @@ public class WriteJson implements JsonWriter {
     }
   }
 
+  /**
+   * Write a pre-encoded field name.
+   */
+  public void writeFieldName(SerializableString name) {
+    try {
+      generator.writeFieldName(name);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * Write a null value with a pre-encoded field name (if null values are included).
+   */
+  public void writeNullField(SerializableString name) {
+    if (isIncludeNull()) {
+      try {
+        generator.writeFieldName(name);
+        generator.writeNull();
+      } catch (IOException e) {
+        throw new JsonIOException(e);
+      }
+    }
+  }
+
   @Override
   public void writeNullField(String name) {
     if (isIncludeNull()) {
@@ -383,12 +416,31 @@ public class WriteJson implements JsonWriter {
 
   public WriteBean createWriteBean(BeanDescriptor<?> desc, EntityBean bean) {
 
-    String path = pathStack.peekWithNull();
-    JsonWriteBeanVisitor visitor = (visitors == null) ? null : visitors.get(path);
-    if (fetchPath == null) {
-      return new WriteBean(desc, bean, visitor);
+    return new WriteBean(getPathPlan(pathStack.peekWithNull()), desc, bean);
+  }
+
+  /**
+   * Return the include properties and visitor for the path (resolved once per path).
+   */
+  private PathPlan getPathPlan(String path) {
+
+    if (pathPlans == null) {
+      pathPlans = new HashMap<String, PathPlan>();
+    }
+    PathPlan pathPlan = pathPlans.get(path);
+    if (pathPlan == null) {
+      pathPlan = createPathPlan(path);
+      pathPlans.put(path, pathPlan);
     }
+    return pathPlan;
+  }
 
+  private PathPlan createPathPlan(String path) {
+
+    JsonWriteBeanVisitor<?> visitor = (visitors == null) ? null : visitors.get(path);
+    if (fetchPath == null) {
+      return new PathPlan(false, null, visitor);
+    }
     boolean explicitAllProps = false;
     Set<String> currentIncludeProps = fetchPath.getProperties(path);
     if (currentIncludeProps != null) {
@@ -397,7 +449,7 @@ public class WriteJson implements JsonWriter {
         currentIncludeProps = null;
       }
     }
-    return new WriteBean(desc, explicitAllProps, currentIncludeProps, bean, visitor);
+    return new PathPlan(explicitAllProps, currentIncludeProps, visitor);
   }
 
   public void writeValueUsingObjectMapper(String name, Object value) {
@@ -427,77 +479,78 @@ public class WriteJson implements JsonWriter {
     return (ObjectMapper) objectMapper;
   }
 
-  public static class WriteBean {
+  /**
+   * The include properties and visitor of a path with the write plan of the bean type.
+   */
+  private static final class PathPlan {
 
     final boolean explicitAllProps;
-    final Set<String> currentIncludeProps;
-    final BeanDescriptor<?> desc;
-    final EntityBean currentBean;
-    final JsonWriteBeanVisitor visitor;
+    final Set<String> includeProps;
+    final JsonWriteBeanVisitor<?> visitor;
 
-    WriteBean(BeanDescriptor<?> desc, EntityBean currentBean, JsonWriteBeanVisitor visitor) {
-      this(desc, false, null, currentBean, visitor);
-    }
+    /**
+     * The last bean type and plan (the beans of a path are typically all the same type).
+     */
+    private BeanDescriptor<?> lastDesc;
+    private JsonWritePlan lastPlan;
 
-    WriteBean(BeanDescriptor<?> desc, boolean explicitAllProps, Set<String> currentIncludeProps, EntityBean currentBean, JsonWriteBeanVisitor visitor) {
-      super();
-      this.desc = desc;
-      this.currentBean = currentBean;
+    PathPlan(boolean explicitAllProps, Set<String> includeProps, JsonWriteBeanVisitor<?> visitor) {
       this.explicitAllProps = explicitAllProps;
-      this.currentIncludeProps = currentIncludeProps;
+      this.includeProps = includeProps;
       this.visitor = visitor;
     }
 
-    private boolean isReferenceOnly() {
-      return !explicitAllProps && currentIncludeProps == null && currentBean._ebean_getIntercept().isReference();
-    }
-
-    private boolean isIncludeProperty(BeanProperty prop) {
-      if (explicitAllProps)
-        return true;
-      if (currentIncludeProps != null) {
-        // explicitly controlled by pathProperties
-        return currentIncludeProps.contains(prop.getName());
-      } else {
-        // include only loaded properties
-        return currentBean._ebean_getIntercept().isLoadedProperty(prop.getPropertyIndex());
+    JsonWritePlan plan(BeanDescriptor<?> desc) {
+      if (desc != lastDesc) {
+        lastPlan = desc.jsonWritePlan(explicitAllProps, includeProps);
+        lastDesc = desc;
       }
+      return lastPlan;
     }
+  }
 
-    private boolean isIncludeTransientProperty(BeanProperty prop) {
-      if (!explicitAllProps && currentIncludeProps != null) {
-        // explicitly controlled by pathProperties
-        return currentIncludeProps.contains(prop.getName());
-      } else {
-        // by default include transient properties
-        return true;
-      }
+  public static class WriteBean {
+
+    final PathPlan pathPlan;
+    final Set<String> currentIncludeProps;
+    final BeanDescriptor<?> desc;
+    final EntityBean currentBean;
+    final JsonWriteBeanVisitor visitor;
+
+    WriteBean(PathPlan pathPlan, BeanDescriptor<?> desc, EntityBean currentBean) {
+      this.pathPlan = pathPlan;
+      this.currentIncludeProps = pathPlan.includeProps;
+      this.desc = desc;
+      this.currentBean = currentBean;
+      this.visitor = pathPlan.visitor;
     }
 
     @SuppressWarnings("unchecked")
     public void write(WriteJson writeJson) {
 
       try {
-        BeanProperty beanProp = desc.getIdProperty();
+        JsonWritePlan plan = pathPlan.plan(desc);
+        boolean loadedOnly = plan.isLoadedOnly();
+        EntityBeanIntercept ebi = currentBean._ebean_getIntercept();
+
+        BeanProperty beanProp = plan.getIdProperty();
         if (beanProp != null) {
-          if (isIncludeProperty(beanProp)) {
+          if (!loadedOnly || ebi.isLoadedProperty(beanProp.getPropertyIndex())) {
             beanProp.jsonWrite(writeJson, currentBean);
           }
         }
 
-        if (!isReferenceOnly()) {
+        if (!loadedOnly || !ebi.isReference()) {
           // render all the properties and invoke lazy loading if required
-          BeanProperty[] props = desc.propertiesNonTransient();
+          BeanProperty[] props = plan.getProperties();
           for (int j = 0; j < props.length; j++) {
-            if (isIncludeProperty(props[j])) {
+            if (!loadedOnly || ebi.isLoadedProperty(props[j].getPropertyIndex())) {
               props[j].jsonWrite(writeJson, currentBean);
             }
           }
-          props = desc.propertiesTransient();
+          props = plan.getTransientProperties();
           for (int j = 0; j < props.length; j++) {
-            if (isIncludeTransientProperty(props[j])) {
-              props[j].jsonWrite(writeJson, currentBean);
-            }
+            props[j].jsonWrite(writeJson, currentBean);
           }
         }
 
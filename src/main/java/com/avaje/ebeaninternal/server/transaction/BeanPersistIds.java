@@ -166,7 +166,10 @@ public class BeanPersistIds {
     return sb.toString();
   }
 
-  void addId(PersistRequest.Type type, Serializable id) {
+  /**
+   * Add an id for the given type of change.
+   */
+  public void addId(PersistRequest.Type type, Serializable id) {
     switch (type) {
       case INSERT:
         addInsertId(id);
@@ -209,7 +212,24 @@ public class BeanPersistIds {
     return beanDescriptor;
   }
 
-  List<Object> getDeleteIds() {
+  /**
+   * Return the ids of inserted beans (or null).
+   */
+  public List<Object> getInsertIds() {
+    return insertIds;
+  }
+
+  /**
+   * Return the ids of updated beans (or null).
+   */
+  public List<Object> getUpdateIds() {
+    return updateIds;
+  }
+
+  /**
+   * Return the ids of deleted beans (or null).
+   */
+  public List<Object> getDeleteIds() {
     return deleteIds;
   }
 
@@ -0,0 +1,237 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import com.avaje.ebean.bean.PersistenceContext;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent implementation of PersistenceContext.
+ * <p>
+ * An alternative to DefaultPersistenceContext for large object graphs and queries
+ * where secondary loading runs concurrently. There is a separate context per bean
+ * type such that writes to one type do not contend with others and reads take no lock.
+ * </p>
+ * <p>
+ * Long and Integer ids are held in primitive keyed maps (no node per entry) and
+ * other id types are held in a ConcurrentHashMap.
+ * </p>
+ *
+ * @see com.avaje.ebean.config.ServerConfig#setPersistenceContextConcurrent(boolean)
+ */
+public final class ConcurrentPersistenceContext implements PersistenceContext {
+
+  /**
+   * Map used hold caches. One cache per bean type.
+   */
+  private final ConcurrentHashMap<Class<?>, ClassContext> typeCache = new ConcurrentHashMap<Class<?>, ClassContext>();
+
+  /**
+   * Create a new PersistenceContext.
+   */
+  public ConcurrentPersistenceContext() {
+  }
+
+  /**
+   * Set an object into the PersistenceContext.
+   */
+  public void put(Class<?> rootType, Object id, Object bean) {
+    getClassContext(rootType).put(id, bean);
+  }
+
+  public Object putIfAbsent(Class<?> rootType, Object id, Object bean) {
+    return getClassContext(rootType).putIfAbsent(id, bean);
+  }
+
+  /**
+   * Return an object given its type and unique id.
+   */
+  public Object get(Class<?> rootType, Object id) {
+    ClassContext classMap = typeCache.get(rootType);
+    return classMap == null ? null : classMap.get(id);
+  }
+
+  public WithOption getWithOption(Class<?> rootType, Object id) {
+    ClassContext classMap = typeCache.get(rootType);
+    return classMap == null ? null : classMap.getWithOption(id);
+  }
+
+  /**
+   * Return the number of beans of the given type in the persistence context.
+   */
+  public int size(Class<?> rootType) {
+    ClassContext classMap = typeCache.get(rootType);
+    return classMap == null ? 0 : classMap.size();
+  }
+
+  /**
+   * Clear the PersistenceContext.
+   */
+  public void clear() {
+    typeCache.clear();
+  }
+
+  public void clear(Class<?> rootType) {
+    ClassContext classMap = typeCache.get(rootType);
+    if (classMap != null) {
+      classMap.clear();
+    }
+  }
+
+  public void deleted(Class<?> rootType, Object id) {
+    ClassContext classMap = typeCache.get(rootType);
+    if (classMap != null && id != null) {
+      classMap.deleted(id);
+    }
+  }
+
+  public void clear(Class<?> rootType, Object id) {
+    ClassContext classMap = typeCache.get(rootType);
+    if (classMap != null && id != null) {
+      classMap.remove(id);
+    }
+  }
+
+  public String toString() {
+    return typeCache.toString();
+  }
+
+  private ClassContext getClassContext(Class<?> rootType) {
+
+    ClassContext classMap = typeCache.get(rootType);
+    if (classMap == null) {
+      ClassContext newMap = new ClassContext();
+      classMap = typeCache.putIfAbsent(rootType, newMap);
+      if (classMap == null) {
+        classMap = newMap;
+      }
+    }
+    return classMap;
+  }
+
+  private static class ClassContext {
+
+    /**
+     * Beans with Long ids.
+     */
+    private final LongKeyedBeanMap longMap = new LongKeyedBeanMap();
+
+    /**
+     * Beans with Integer ids (separate to Long to keep equals() semantics of the ids).
+     */
+    private final LongKeyedBeanMap intMap = new LongKeyedBeanMap();
+
+    /**
+     * Beans with other id types (created on demand).
+     */
+    private volatile ConcurrentMap<Object, Object> objectMap;
+
+    private volatile Set<Object> deleteSet;
+
+    private ClassContext() {
+    }
+
+    public String toString() {
+      return "size:" + size();
+    }
+
+    private ConcurrentMap<Object, Object> objectMap() {
+      ConcurrentMap<Object, Object> map = objectMap;
+      if (map == null) {
+        synchronized (this) {
+          map = objectMap;
+          if (map == null) {
+            map = new ConcurrentHashMap<Object, Object>();
+            objectMap = map;
+          }
+        }
+      }
+      return map;
+    }
+
+    private WithOption getWithOption(Object id) {
+      Set<Object> deleted = deleteSet;
+      if (deleted != null && deleted.contains(id)) {
+        return WithOption.DELETED;
+      }
+      Object bean = get(id);
+      return (bean == null) ? null : new WithOption(bean);
+    }
+
+    private Object get(Object id) {
+      if (id instanceof Long) {
+        return longMap.get((Long) id);
+      }
+      if (id instanceof Integer) {
+        return intMap.get((Integer) id);
+      }
+      ConcurrentMap<Object, Object> map = objectMap;
+      return (map == null) ? null : map.get(id);
+    }
+
+    private Object putIfAbsent(Object id, Object bean) {
+      if (id instanceof Long) {
+        return longMap.putIfAbsent((Long) id, bean);
+      }
+      if (id instanceof Integer) {
+        return intMap.putIfAbsent((Integer) id, bean);
+      }
+      return objectMap().putIfAbsent(id, bean);
+    }
+
+    private void put(Object id, Object bean) {
+      if (id instanceof Long) {
+        longMap.put((Long) id, bean);
+      } else if (id instanceof Integer) {
+        intMap.put((Integer) id, bean);
+      } else {
+        objectMap().put(id, bean);
+      }
+    }
+
+    private int size() {
+      ConcurrentMap<Object, Object> map = objectMap;
+      return longMap.size() + intMap.size() + (map == null ? 0 : map.size());
+    }
+
+    private void clear() {
+      longMap.clear();
+      intMap.clear();
+      ConcurrentMap<Object, Object> map = objectMap;
+      if (map != null) {
+        map.clear();
+      }
+    }
+
+    private void remove(Object id) {
+      if (id instanceof Long) {
+        longMap.remove((Long) id);
+      } else if (id instanceof Integer) {
+        intMap.remove((Integer) id);
+      } else {
+        ConcurrentMap<Object, Object> map = objectMap;
+        if (map != null) {
+          map.remove(id);
+        }
+      }
+    }
+
+    private void deleted(Object id) {
+      Set<Object> deleted = deleteSet;
+      if (deleted == null) {
+        synchronized (this) {
+          deleted = deleteSet;
+          if (deleted == null) {
+            deleted = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+            deleteSet = deleted;
+          }
+        }
+      }
+      deleted.add(id);
+      remove(id);
+    }
+  }
+
+}
@@ -36,6 +36,14 @@ public class ExternalJdbcTransaction extends JdbcTransaction {
     super(id, explicit, connection, manager);
   }
 
+  /**
+   * Statements are not cached as the transaction does not end (and could not close them).
+   */
+  @Override
+  public PstmtCache getPstmtCache() {
+    return null;
+  }
+
   /**
    * This will always throw a PersistenceException.
    * <p>
@@ -75,6 +75,11 @@ public class JdbcTransaction implements SpiTransaction {
    */
   protected BatchControl batchControl;
 
+  /**
+   * Cache of PreparedStatements reused within this transaction (created lazily when enabled).
+   */
+  protected PstmtCache pstmtCache;
+
   /**
    * The event which holds persisted beans.
    */
@@ -165,7 +170,7 @@ public class JdbcTransaction implements SpiTransaction {
       this.batchMode = manager == null ? PersistBatch.NONE : manager.getPersistBatch();
       this.batchOnCascadeMode = manager == null ? PersistBatch.NONE : manager.getPersistBatchOnCascade();
       this.onQueryOnly = manager == null ? OnQueryOnly.ROLLBACK : manager.getOnQueryOnly();
-      this.persistenceContext = new DefaultPersistenceContext();
+      this.persistenceContext = manager == null ? new DefaultPersistenceContext() : manager.createPersistenceContext();
 
       checkAutoCommit(connection);
 
@@ -650,6 +655,25 @@ public class JdbcTransaction implements SpiTransaction {
     return batchControl;
   }
 
+  @Override
+  public PstmtCache getPstmtCache() {
+    if (pstmtCache == null && active && manager != null) {
+      pstmtCache = manager.createPstmtCache();
+    }
+    return pstmtCache;
+  }
+
+  /**
+   * Close the cached PreparedStatements prior to the connection being closed.
+   */
+  protected void closePstmtCache() {
+    if (pstmtCache != null) {
+      pstmtCache.close();
+      manager.collectPstmtCacheStatistics(pstmtCache);
+      pstmtCache = null;
+    }
+  }
+
   /**
    * Set the BatchControl to the transaction. This is done once per transaction
    * on the first persist request.
@@ -780,6 +804,7 @@ public class JdbcTransaction implements SpiTransaction {
   }
 
   protected void deactivate() {
+    closePstmtCache();
     try {
       if (localReadOnly) {
         // reset readOnly status prior to returning to pool
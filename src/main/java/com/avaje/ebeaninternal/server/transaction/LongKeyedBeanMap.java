@@ -0,0 +1,239 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent map of beans keyed by primitive long id values.
+ * <p>
+ * Used by ConcurrentPersistenceContext for Long and Integer ids such that the
+ * keys are not held boxed and there is no per entry node allocation. The map is
+ * split into stripes where writes lock a single stripe and reads take no lock.
+ * </p>
+ * <p>
+ * Each stripe is an open addressing (linear probing) table. The value slot is
+ * written last (volatile) and read first which publishes the key slot to readers.
+ * Removed entries are marked with a tombstone until the next resize.
+ * </p>
+ */
+final class LongKeyedBeanMap {
+
+  private static final int STRIPES = 16;
+
+  private static final int STRIPE_MASK = STRIPES - 1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final Object TOMBSTONE = new Object();
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  LongKeyedBeanMap() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Spread the bits of the key such that sequential ids spread across stripes and slots.
+   */
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private Stripe stripe(int hash) {
+    return stripes[(hash >>> 28) & STRIPE_MASK];
+  }
+
+  /**
+   * Return the bean for the given id (no locking).
+   */
+  Object get(long key) {
+    int hash = hash(key);
+    return stripe(hash).get(key, hash);
+  }
+
+  /**
+   * Put the bean returning the prior value.
+   */
+  Object put(long key, Object bean) {
+    int hash = hash(key);
+    return stripe(hash).put(key, hash, bean, false);
+  }
+
+  /**
+   * Put the bean if absent returning the existing bean or null if the put was successful.
+   */
+  Object putIfAbsent(long key, Object bean) {
+    int hash = hash(key);
+    return stripe(hash).put(key, hash, bean, true);
+  }
+
+  /**
+   * Remove the bean for the given id.
+   */
+  Object remove(long key) {
+    int hash = hash(key);
+    return stripe(hash).remove(key, hash);
+  }
+
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      size += stripe.size;
+    }
+    return size;
+  }
+
+  void clear() {
+    for (Stripe stripe : stripes) {
+      stripe.clear();
+    }
+  }
+
+  /**
+   * The keys and values of a stripe replaced as a whole on resize.
+   */
+  private static final class Table {
+
+    final long[] keys;
+    final AtomicReferenceArray<Object> values;
+    final int mask;
+
+    Table(int capacity) {
+      this.keys = new long[capacity];
+      this.values = new AtomicReferenceArray<Object>(capacity);
+      this.mask = capacity - 1;
+    }
+  }
+
+  private static final class Stripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    private volatile int size;
+
+    /**
+     * Number of used slots including tombstones (only accessed under the lock).
+     */
+    private int used;
+
+    Object get(long key, int hash) {
+      Table tab = table;
+      int mask = tab.mask;
+      int i = hash & mask;
+      while (true) {
+        Object value = tab.values.get(i);
+        if (value == null) {
+          return null;
+        }
+        if (tab.keys[i] == key) {
+          return (value == TOMBSTONE) ? null : value;
+        }
+        i = (i + 1) & mask;
+      }
+    }
+
+    Object put(long key, int hash, Object bean, boolean onlyIfAbsent) {
+      lock.lock();
+      try {
+        Table tab = table;
+        int mask = tab.mask;
+        int i = hash & mask;
+        while (true) {
+          Object value = tab.values.get(i);
+          if (value == null) {
+            tab.keys[i] = key;
+            tab.values.set(i, bean);
+            size++;
+            if (++used * 4 > tab.keys.length * 3) {
+              resize(tab);
+            }
+            return null;
+          }
+          if (tab.keys[i] == key) {
+            if (value == TOMBSTONE) {
+              tab.values.set(i, bean);
+              size++;
+              return null;
+            }
+            if (!onlyIfAbsent) {
+              tab.values.set(i, bean);
+            }
+            return value;
+          }
+          i = (i + 1) & mask;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    Object remove(long key, int hash) {
+      lock.lock();
+      try {
+        Table tab = table;
+        int mask = tab.mask;
+        int i = hash & mask;
+        while (true) {
+          Object value = tab.values.get(i);
+          if (value == null) {
+            return null;
+          }
+          if (tab.keys[i] == key) {
+            if (value == TOMBSTONE) {
+              return null;
+            }
+            tab.values.set(i, TOMBSTONE);
+            size--;
+            return value;
+          }
+          i = (i + 1) & mask;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clear() {
+      lock.lock();
+      try {
+        table = new Table(INITIAL_CAPACITY);
+        size = 0;
+        used = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Copy the live entries into a new table and publish it (under the lock).
+     */
+    private void resize(Table oldTable) {
+      int capacity = oldTable.keys.length;
+      if (size * 2 > capacity) {
+        // grow rather than just purge tombstones
+        capacity = capacity << 1;
+      }
+      Table newTable = new Table(capacity);
+      int mask = newTable.mask;
+      for (int j = 0; j < oldTable.keys.length; j++) {
+        Object value = oldTable.values.get(j);
+        if (value != null && value != TOMBSTONE) {
+          long key = oldTable.keys[j];
+          int i = hash(key) & mask;
+          while (newTable.values.get(i) != null) {
+            i = (i + 1) & mask;
+          }
+          newTable.keys[i] = key;
+          newTable.values.set(i, value);
+        }
+      }
+      used = size;
+      table = newTable;
+    }
+  }
+}
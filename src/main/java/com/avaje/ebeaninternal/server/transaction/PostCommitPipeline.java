@@ -0,0 +1,412 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import com.avaje.ebeaninternal.server.cache.CacheChangeSet;
+import com.avaje.ebeaninternal.server.cluster.ClusterManager;
+import com.avaje.ebeaninternal.server.lib.DaemonThreadFactory;
+import com.avaje.ebeaninternal.server.util.LongAdder;
+import com.avaje.ebeanservice.docstore.api.DocStoreUpdates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated pipeline for post commit processing.
+ * <p>
+ * Rather than a task per transaction on the shared background executor each part of
+ * the post commit processing has its own stage with a bounded queue and a thread.
+ * The stages are L2 cache changes, persist listeners, cluster broadcast and document
+ * store updates. Each stage processes its queue in commit order.
+ * </p>
+ * <p>
+ * Every transaction goes through the cache stage first which applies its L2 cache
+ * changes and then passes it on to the listener, cluster and document store stages.
+ * This keeps the order of the post commit processing of each transaction such that
+ * a persist listener or another server in the cluster does not see a transaction
+ * before its cache changes have been applied.
+ * </p>
+ * <p>
+ * A stage takes all the queued entries at once such that the cache changes of many
+ * transactions are merged and applied together and the cluster and document store
+ * stages send the events of many transactions together. When a stage queue is full
+ * the committing thread waits for space (back pressure). A transaction committed by
+ * a stage thread itself (for example a persist listener that saves) is processed by
+ * that thread rather than waiting on a queue.
+ * </p>
+ */
+public final class PostCommitPipeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(PostCommitPipeline.class);
+
+  private final Stage<PostCommitProcessing> cacheStage;
+
+  private final Stage<PostCommitProcessing> listenerStage;
+
+  private final Stage<RemoteTransactionEvent> clusterStage;
+
+  private final Stage<PostCommitProcessing> docStoreStage;
+
+  private final List<Stage<?>> stages;
+
+  PostCommitPipeline(final TransactionManager manager, final ClusterManager clusterManager, int queueCapacity) {
+
+    final String serverName = manager.getServerName();
+    ThreadFactory threadFactory = new DaemonThreadFactory("ebean-postcommit-" + serverName + "-");
+
+    this.cacheStage = new Stage<PostCommitProcessing>("cache", queueCapacity, threadFactory) {
+      @Override
+      void process(List<PostCommitProcessing> entries) {
+        // apply the cache changes of the transactions together
+        CacheChangeSet cacheChanges = null;
+        for (int i = 0; i < entries.size(); i++) {
+          CacheChangeSet changes = entries.get(i).getCacheChanges();
+          if (changes != null) {
+            if (cacheChanges == null) {
+              cacheChanges = changes;
+            } else {
+              cacheChanges.merge(changes);
+            }
+          }
+        }
+        if (cacheChanges != null) {
+          try {
+            manager.processViewInvalidation(cacheChanges.apply());
+          } catch (RuntimeException e) {
+            // still notify the other stages
+            logger.error("Error applying post commit cache changes", e);
+          }
+        }
+        // then the other stages in commit order
+        for (int i = 0; i < entries.size(); i++) {
+          submitNotify(entries.get(i));
+        }
+      }
+    };
+
+    this.listenerStage = new Stage<PostCommitProcessing>("listener", queueCapacity, threadFactory) {
+      @Override
+      void process(List<PostCommitProcessing> entries) {
+        for (int i = 0; i < entries.size(); i++) {
+          entries.get(i).notifyPersistListeners();
+        }
+      }
+    };
+
+    this.clusterStage = new Stage<RemoteTransactionEvent>("cluster", queueCapacity, threadFactory) {
+      @Override
+      void process(List<RemoteTransactionEvent> entries) {
+        RemoteTransactionEvent remoteEvent = entries.get(0);
+        if (entries.size() > 1) {
+          remoteEvent = new RemoteTransactionEvent(serverName);
+          for (int i = 0; i < entries.size(); i++) {
+            remoteEvent.merge(entries.get(i));
+          }
+        }
+        if (logger.isDebugEnabled()) {
+          logger.debug("Cluster Send: {}", remoteEvent);
+        }
+        clusterManager.broadcast(remoteEvent);
+      }
+    };
+
+    this.docStoreStage = new Stage<PostCommitProcessing>("docstore", queueCapacity, threadFactory) {
+      @Override
+      void process(List<PostCommitProcessing> entries) {
+        // send together the updates of consecutive transactions with the same batch size
+        DocStoreUpdates docStoreUpdates = null;
+        int batchSize = 0;
+        for (int i = 0; i < entries.size(); i++) {
+          PostCommitProcessing entry = entries.get(i);
+          DocStoreUpdates updates = entry.createDocStoreUpdates();
+          if (updates != null) {
+            if (docStoreUpdates != null && batchSize != entry.getDocStoreBatchSize()) {
+              manager.processDocStoreUpdates(docStoreUpdates, batchSize);
+              docStoreUpdates = null;
+            }
+            if (docStoreUpdates == null) {
+              docStoreUpdates = updates;
+              batchSize = entry.getDocStoreBatchSize();
+            } else {
+              docStoreUpdates.addAll(updates);
+            }
+          }
+        }
+        if (docStoreUpdates != null) {
+          manager.processDocStoreUpdates(docStoreUpdates, batchSize);
+        }
+      }
+    };
+
+    List<Stage<?>> list = Arrays.<Stage<?>>asList(cacheStage, listenerStage, clusterStage, docStoreStage);
+    this.stages = Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Start the stage threads.
+   */
+  void start() {
+    for (Stage<?> stage : stages) {
+      stage.start();
+    }
+  }
+
+  /**
+   * Queue the post commit processing of a transaction.
+   * <p>
+   * This waits if the cache stage queue is full. A transaction committed by a stage
+   * thread is processed by that thread as waiting on a full queue could deadlock.
+   * </p>
+   */
+  void submit(PostCommitProcessing postCommit) {
+    if (isStageThread()) {
+      postCommit.backgroundNotify().run();
+    } else {
+      cacheStage.put(postCommit);
+    }
+  }
+
+  private boolean isStageThread() {
+    Thread current = Thread.currentThread();
+    for (int i = 0; i < stages.size(); i++) {
+      if (stages.get(i).thread == current) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Queue the transaction to the listener, cluster and document store stages it requires.
+   */
+  private void submitNotify(PostCommitProcessing postCommit) {
+    if (postCommit.isPersistListenerNotify()) {
+      listenerStage.put(postCommit);
+    }
+    RemoteTransactionEvent remoteEvent = postCommit.getRemoteTransactionEvent();
+    if (remoteEvent != null) {
+      clusterStage.put(remoteEvent);
+    }
+    if (postCommit.isDocStoreUpdate()) {
+      docStoreStage.put(postCommit);
+    }
+  }
+
+  /**
+   * Return the stages (cache, listener, cluster and docstore) for their metrics.
+   */
+  public List<Stage<?>> getStages() {
+    return stages;
+  }
+
+  /**
+   * Process the entries already queued and stop the stage threads.
+   * <p>
+   * The cache stage is shutdown first as it passes its entries on to the other stages.
+   * </p>
+   */
+  void shutdown() {
+    for (Stage<?> stage : stages) {
+      stage.shutdown();
+    }
+  }
+
+  /**
+   * A stage with a bounded queue processed by its own thread.
+   */
+  public abstract static class Stage<E> {
+
+    private static final int MAX_DRAIN = 1000;
+
+    private static final long OFFER_WAIT_MILLIS = 100;
+
+    private final String name;
+
+    private final BlockingQueue<Entry<E>> queue;
+
+    private final Thread thread;
+
+    private final LongAdder processedCount = new LongAdder();
+
+    private volatile long lagMillis;
+
+    private volatile long maxLagMillis;
+
+    private volatile boolean shutdown;
+
+    Stage(String name, int queueCapacity, ThreadFactory threadFactory) {
+      this.name = name;
+      this.queue = new ArrayBlockingQueue<Entry<E>>(queueCapacity);
+      this.thread = threadFactory.newThread(new Runnable() {
+        @Override
+        public void run() {
+          processQueue();
+        }
+      });
+    }
+
+    /**
+     * Start the stage thread.
+     */
+    void start() {
+      thread.start();
+    }
+
+    /**
+     * Process the entries taken from the queue together.
+     */
+    abstract void process(List<E> entries);
+
+    /**
+     * Add an entry waiting if the queue is full.
+     * <p>
+     * The entry is processed by the calling thread when the stage has shutdown or when
+     * called from the stage thread itself (which would otherwise wait on its own queue).
+     * </p>
+     */
+    void put(E entry) {
+      if (Thread.currentThread() != thread && enqueue(new Entry<E>(entry))) {
+        return;
+      }
+      process(Collections.singletonList(entry));
+      processedCount.increment();
+    }
+
+    /**
+     * Add the entry to the queue returning false if the stage has shutdown.
+     */
+    private boolean enqueue(Entry<E> queueEntry) {
+      boolean interrupted = false;
+      try {
+        while (!shutdown) {
+          try {
+            if (queue.offer(queueEntry, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+              // if the stage shutdown meanwhile the entry may be queued after the final drain
+              // so take it back unless the stage has already taken it
+              return !shutdown || !queue.remove(queueEntry);
+            }
+          } catch (InterruptedException e) {
+            // the commit has occurred so the entry must still be processed
+            interrupted = true;
+          }
+        }
+        return false;
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private void processQueue() {
+      List<Entry<E>> entries = new ArrayList<Entry<E>>();
+      List<E> values = new ArrayList<E>();
+      while (!shutdown || !queue.isEmpty()) {
+        try {
+          Entry<E> first = queue.poll(100, TimeUnit.MILLISECONDS);
+          if (first != null) {
+            entries.add(first);
+            queue.drainTo(entries, MAX_DRAIN - 1);
+            for (int i = 0; i < entries.size(); i++) {
+              values.add(entries.get(i).value);
+            }
+            // lag of the oldest entry
+            long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - first.queuedNanos);
+            lagMillis = lag;
+            if (lag > maxLagMillis) {
+              maxLagMillis = lag;
+            }
+            process(values);
+            processedCount.add(values.size());
+          }
+        } catch (InterruptedException e) {
+          // continue until shutdown and the queue is empty
+        } catch (Throwable e) {
+          logger.error("Error in post commit " + name + " processing", e);
+        } finally {
+          entries.clear();
+          values.clear();
+        }
+      }
+    }
+
+    void shutdown() {
+      shutdown = true;
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(30));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (thread.isAlive()) {
+        logger.warn("Timed out waiting for post commit " + name + " processing to complete");
+        return;
+      }
+      // entries queued after the stage thread finished
+      Entry<E> entry;
+      while ((entry = queue.poll()) != null) {
+        process(Collections.singletonList(entry.value));
+        processedCount.increment();
+      }
+    }
+
+    /**
+     * Return the name of the stage.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Return the number of entries waiting in the queue.
+     */
+    public int getQueueDepth() {
+      return queue.size();
+    }
+
+    /**
+     * Return the number of entries processed.
+     */
+    public long getProcessedCount() {
+      return processedCount.sum();
+    }
+
+    /**
+     * Return the time in millis the oldest entry of the last processed group waited in the queue.
+     */
+    public long getLagMillis() {
+      return lagMillis;
+    }
+
+    /**
+     * Return the maximum time in millis an entry waited in the queue.
+     */
+    public long getMaxLagMillis() {
+      return maxLagMillis;
+    }
+
+    @Override
+    public String toString() {
+      return name + " depth:" + getQueueDepth() + " processed:" + getProcessedCount() + " lag:" + lagMillis + " maxLag:" + maxLagMillis;
+    }
+  }
+
+  /**
+   * A queued entry with the time it was queued.
+   */
+  private static final class Entry<E> {
+
+    final E value;
+
+    final long queuedNanos = System.nanoTime();
+
+    Entry(E value) {
+      this.value = value;
+    }
+  }
+}
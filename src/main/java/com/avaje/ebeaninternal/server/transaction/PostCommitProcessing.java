@@ -109,28 +109,51 @@ public final class PostCommitProcessing {
    */
   private void processDocStoreUpdates() {
 
-    if (isDocStoreUpdate()) {
-      // collect 'bulk update' and 'queue' events
-      DocStoreUpdates docStoreUpdates = new DocStoreUpdates();
-      event.addDocStoreUpdates(docStoreUpdates);
-      if (deleteByIdMap != null) {
-        deleteByIdMap.addDocStoreUpdates(docStoreUpdates, txnDocStoreMode);
-      }
+    DocStoreUpdates docStoreUpdates = createDocStoreUpdates();
+    if (docStoreUpdates != null) {
+      // send to docstore / ElasticSearch and/or queue
+      manager.processDocStoreUpdates(docStoreUpdates, txnDocStoreBatchSize);
+    }
+  }
 
-      if (!docStoreUpdates.isEmpty()) {
-        // send to docstore / ElasticSearch and/or queue
-        manager.processDocStoreUpdates(docStoreUpdates, txnDocStoreBatchSize);
-      }
+  /**
+   * Return the document store updates for this transaction (or null if there are none).
+   */
+  DocStoreUpdates createDocStoreUpdates() {
+
+    if (!isDocStoreUpdate()) {
+      return null;
+    }
+    // collect 'bulk update' and 'queue' events
+    DocStoreUpdates docStoreUpdates = new DocStoreUpdates();
+    event.addDocStoreUpdates(docStoreUpdates);
+    if (deleteByIdMap != null) {
+      deleteByIdMap.addDocStoreUpdates(docStoreUpdates, txnDocStoreMode);
     }
+    return docStoreUpdates.isEmpty() ? null : docStoreUpdates;
+  }
+
+  /**
+   * Return the batch size for sending the document store updates.
+   */
+  int getDocStoreBatchSize() {
+    return txnDocStoreBatchSize;
   }
 
   /**
    * Return true if updates to the document store occur for this transaction.
    */
-  private boolean isDocStoreUpdate() {
+  boolean isDocStoreUpdate() {
     return manager.isDocStoreActive() && (txnDocStoreMode == null || txnDocStoreMode != DocStoreMode.IGNORE);
   }
 
+  /**
+   * Return the events to send to the cluster (or null if there are none).
+   */
+  RemoteTransactionEvent getRemoteTransactionEvent() {
+    return (remoteTransactionEvent == null || remoteTransactionEvent.isEmpty()) ? null : remoteTransactionEvent;
+  }
+
   private void notifyCluster() {
     if (remoteTransactionEvent != null && !remoteTransactionEvent.isEmpty()) {
       // send the interesting events to the cluster
@@ -148,17 +171,52 @@ public final class PostCommitProcessing {
   Runnable backgroundNotify() {
     return new Runnable() {
       public void run() {
-        if (cacheChanges != null) {
-          manager.processViewInvalidation(cacheChanges.apply());
-        }
-        localPersistListenersNotify();
+        applyCacheChanges();
+        notifyPersistListeners();
         notifyCluster();
         processDocStoreUpdates();
       }
     };
   }
 
-  private void localPersistListenersNotify() {
+  /**
+   * Return true if there are cache changes to apply.
+   */
+  boolean isCacheChanges() {
+    return cacheChanges != null;
+  }
+
+  /**
+   * Return the changes to apply to the L2 cache (or null if there are none).
+   */
+  CacheChangeSet getCacheChanges() {
+    return cacheChanges;
+  }
+
+  /**
+   * Apply the changes to the L2 cache.
+   */
+  void applyCacheChanges() {
+    if (cacheChanges != null) {
+      manager.processViewInvalidation(cacheChanges.apply());
+    }
+  }
+
+  /**
+   * Return true if there are persist requests or table events for the listeners.
+   */
+  boolean isPersistListenerNotify() {
+    if (persistBeanRequests != null && !persistBeanRequests.isEmpty()) {
+      return true;
+    }
+    TransactionEventTable eventTables = event.getEventTables();
+    return eventTables != null && !eventTables.isEmpty();
+  }
+
+  /**
+   * Notify the local BeanPersistListeners and BulkTableEventListeners.
+   */
+  void notifyPersistListeners() {
     if (persistBeanRequests != null) {
       for (int i = 0; i < persistBeanRequests.size(); i++) {
         persistBeanRequests.get(i).notifyLocalPersistListener();
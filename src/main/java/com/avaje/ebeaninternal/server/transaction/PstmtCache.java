@@ -0,0 +1,144 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of PreparedStatements scoped to a transaction (and hence its connection).
+ * <p>
+ * Statements are keyed by their SQL. A statement is taken out of the cache while it
+ * is in use and returned to the cache when the query or DML has completed such that
+ * a statement is never shared (for example, by a lazy loading query executed while
+ * iterating a query with the same SQL).
+ * </p>
+ * <p>
+ * The cache is closed when the transaction ends closing all the cached statements.
+ * </p>
+ */
+public final class PstmtCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(PstmtCache.class);
+
+  private final LruMap cache;
+
+  private long hitCount;
+
+  private long missCount;
+
+  private boolean closed;
+
+  /**
+   * Create with the maximum number of statements to cache.
+   */
+  public PstmtCache(int maxSize) {
+    this.cache = new LruMap(maxSize);
+  }
+
+  /**
+   * Take the statement for the given SQL out of the cache returning null if there is none.
+   */
+  public synchronized PreparedStatement take(String sql) {
+    PreparedStatement pstmt = cache.remove(sql);
+    if (pstmt == null) {
+      missCount++;
+    } else {
+      hitCount++;
+    }
+    return pstmt;
+  }
+
+  /**
+   * Return the statement to the cache once it has been used.
+   * <p>
+   * If the cache has been closed or the statement can not be cleared then the
+   * statement is closed instead.
+   * </p>
+   */
+  public synchronized void release(String sql, PreparedStatement pstmt) {
+    if (closed) {
+      closeStatement(pstmt);
+      return;
+    }
+    try {
+      pstmt.clearParameters();
+      PreparedStatement existing = cache.put(sql, pstmt);
+      if (existing != null) {
+        // same SQL was in use concurrently (nested) so close the other one
+        closeStatement(existing);
+      }
+    } catch (SQLException e) {
+      closeStatement(pstmt);
+    }
+  }
+
+  /**
+   * Return the number of times a statement was taken from the cache.
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the number of times a statement was not found in the cache.
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Return the number of statements in the cache.
+   */
+  public synchronized int size() {
+    return cache.size();
+  }
+
+  /**
+   * Close all the cached statements.
+   */
+  public synchronized void close() {
+    closed = true;
+    Iterator<PreparedStatement> it = cache.values().iterator();
+    while (it.hasNext()) {
+      closeStatement(it.next());
+    }
+    cache.clear();
+  }
+
+  private static void closeStatement(PreparedStatement pstmt) {
+    try {
+      pstmt.close();
+    } catch (SQLException e) {
+      logger.warn("Error closing cached PreparedStatement", e);
+    }
+  }
+
+  /**
+   * Access ordered map closing the least recently used statement when the maximum size is exceeded.
+   */
+  private static class LruMap extends LinkedHashMap<String, PreparedStatement> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    LruMap(int maxSize) {
+      super(maxSize * 2, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+      if (size() > maxSize) {
+        closeStatement(eldest.getValue());
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -82,6 +82,25 @@ public class RemoteTransactionEvent implements Runnable {
     tableList.add(tableIud);
   }
 
+  /**
+   * Merge the events of another transaction into this one such that they are sent as one message.
+   * <p>
+   * The deletes by id of the other transaction are added as bean persist ids which is
+   * how they are written to the cluster message.
+   * </p>
+   */
+  public void merge(RemoteTransactionEvent other) {
+    beanPersistList.addAll(other.beanPersistList);
+    if (other.deleteByIdMap != null) {
+      beanPersistList.addAll(other.deleteByIdMap.values());
+    }
+    if (other.tableList != null) {
+      for (int i = 0; i < other.tableList.size(); i++) {
+        addTableIUD(other.tableList.get(i));
+      }
+    }
+  }
+
   public String getServerName() {
     return serverName;
   }
@@ -98,6 +117,13 @@ public class RemoteTransactionEvent implements Runnable {
     this.deleteByIdMap = deleteByIdMap;
   }
 
+  /**
+   * Return the beans deleted by id (or null).
+   */
+  public DeleteByIdMap getDeleteByIdMap() {
+    return deleteByIdMap;
+  }
+
   public List<TableIUD> getTableIUDList() {
     return tableList;
   }
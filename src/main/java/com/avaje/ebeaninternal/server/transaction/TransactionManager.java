@@ -1,6 +1,7 @@
 package com.avaje.ebeaninternal.server.transaction;
 
 import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebean.config.PersistBatch;
 import com.avaje.ebean.config.ServerConfig;
 import com.avaje.ebean.config.dbplatform.DatabasePlatform.OnQueryOnly;
@@ -16,6 +17,7 @@ import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
 import com.avaje.ebeaninternal.server.cluster.ClusterManager;
 import com.avaje.ebeaninternal.server.core.bootup.BootupClasses;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptorManager;
+import com.avaje.ebeaninternal.server.util.LongAdder;
 import org.avaje.datasource.DataSourcePool;
 import com.avaje.ebeanservice.docstore.api.DocStoreUpdateProcessor;
 import com.avaje.ebeanservice.docstore.api.DocStoreUpdates;
@@ -107,6 +109,25 @@ public class TransactionManager {
 
   private final boolean viewInvalidation;
 
+  /**
+   * Set true to use the concurrent PersistenceContext implementation.
+   */
+  private final boolean persistenceContextConcurrent;
+
+  /**
+   * The maximum number of PreparedStatements cached per transaction (0 for no caching).
+   */
+  private final int pstmtCacheSize;
+
+  private final LongAdder pstmtCacheHits = new LongAdder();
+
+  private final LongAdder pstmtCacheMisses = new LongAdder();
+
+  /**
+   * The dedicated post commit pipeline (null to use the background executor).
+   */
+  private final PostCommitPipeline postCommitPipeline;
+
   /**
    * Create the TransactionManager
    */
@@ -115,6 +136,8 @@ public class TransactionManager {
 
     this.persistBatch = config.getPersistBatch();
     this.persistBatchOnCascade = config.appliedPersistBatchOnCascade();
+    this.persistenceContextConcurrent = config.isPersistenceContextConcurrent();
+    this.pstmtCacheSize = config.getTransactionPstmtCacheSize();
     this.beanDescriptorManager = descMgr;
     this.viewInvalidation = descMgr.requiresViewEntityCacheInvalidation();
     this.changeLogPrepare = descMgr.getChangeLogPrepare();
@@ -134,14 +157,30 @@ public class TransactionManager {
     this.externalTransPrefix = "e";
 
     this.onQueryOnly = initOnQueryOnly(config.getDatabasePlatform().getOnQueryOnly(), dataSource);
+
+    int postCommitQueueCapacity = config.getPostCommitQueueCapacity();
+    this.postCommitPipeline = (postCommitQueueCapacity <= 0) ? null : new PostCommitPipeline(this, clusterManager, postCommitQueueCapacity);
+    if (postCommitPipeline != null) {
+      postCommitPipeline.start();
+    }
   }
 
   public void shutdown(boolean shutdownDataSource, boolean deregisterDriver) {
+    if (postCommitPipeline != null) {
+      postCommitPipeline.shutdown();
+    }
     if (shutdownDataSource && (dataSource instanceof DataSourcePool)) {
       ((DataSourcePool) dataSource).shutdown(deregisterDriver);
     }
   }
 
+  /**
+   * Return the post commit pipeline with its stage metrics (null when not used).
+   */
+  public PostCommitPipeline getPostCommitPipeline() {
+    return postCommitPipeline;
+  }
+
   public boolean isDocStoreActive() {
     return docStoreActive;
   }
@@ -162,6 +201,42 @@ public class TransactionManager {
     return persistBatchOnCascade;
   }
 
+  /**
+   * Create a PreparedStatement cache for a transaction returning null if statements are not cached.
+   */
+  public PstmtCache createPstmtCache() {
+    return pstmtCacheSize <= 0 ? null : new PstmtCache(pstmtCacheSize);
+  }
+
+  /**
+   * Collect the hit and miss counts of a transaction PreparedStatement cache.
+   */
+  public void collectPstmtCacheStatistics(PstmtCache pstmtCache) {
+    pstmtCacheHits.add(pstmtCache.getHitCount());
+    pstmtCacheMisses.add(pstmtCache.getMissCount());
+  }
+
+  /**
+   * Return the number of PreparedStatements reused from the transaction statement caches.
+   */
+  public long getPstmtCacheHitCount() {
+    return pstmtCacheHits.sum();
+  }
+
+  /**
+   * Return the number of PreparedStatements prepared when using the transaction statement caches.
+   */
+  public long getPstmtCacheMissCount() {
+    return pstmtCacheMisses.sum();
+  }
+
+  /**
+   * Create a new PersistenceContext for a transaction.
+   */
+  public PersistenceContext createPersistenceContext() {
+    return persistenceContextConcurrent ? new ConcurrentPersistenceContext() : new DefaultPersistenceContext();
+  }
+
   /**
    * Return the behaviour to use when a query only transaction is committed.
    * <p>
@@ -403,7 +478,7 @@ public class TransactionManager {
 
       PostCommitProcessing postCommit = new PostCommitProcessing(clusterManager, this, transaction);
       postCommit.notifyLocalCache(viewInvalidation);
-      backgroundExecutor.execute(postCommit.backgroundNotify());
+      postCommitBackground(postCommit);
 
       for (TransactionEventListener listener : transactionEventListeners) {
         listener.postTransactionCommit(transaction);
@@ -428,7 +503,18 @@ public class TransactionManager {
 
     PostCommitProcessing postCommit = new PostCommitProcessing(clusterManager, this, event);
     postCommit.notifyLocalCache(viewInvalidation);
-    backgroundExecutor.execute(postCommit.backgroundNotify());
+    postCommitBackground(postCommit);
+  }
+
+  /**
+   * Queue the background part of the post commit processing.
+   */
+  private void postCommitBackground(PostCommitProcessing postCommit) {
+    if (postCommitPipeline != null) {
+      postCommitPipeline.submit(postCommit);
+    } else {
+      backgroundExecutor.execute(postCommit.backgroundNotify());
+    }
   }
 
   /**
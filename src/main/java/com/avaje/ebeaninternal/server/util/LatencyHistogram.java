@@ -0,0 +1,180 @@
+package com.avaje.ebeaninternal.server.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent histogram of execution times in microseconds.
+ * <p>
+ * Values are recorded into log linear buckets (in the style of HdrHistogram) with
+ * each power of 2 split into 16 sub buckets such that the percentiles have a
+ * relative error of at most 1/16 (6.25%). Values up to 31 micros are exact and
+ * values of 2^37 micros (about 38 hours) or more are recorded in the last bucket.
+ * </p>
+ * <p>
+ * Recording a value is an increment of a single bucket. Like the LongAdder based
+ * statistics a reset is not atomic with respect to concurrent recording.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BITS = 4;
+
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+
+  /**
+   * Values below this are recorded exactly (one bucket per value).
+   */
+  private static final int LINEAR_LIMIT = SUB_COUNT << 1;
+
+  private static final int MAX_EXPONENT = 36;
+
+  private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BITS) * SUB_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder total = new LongAdder();
+
+  private final LongMaxUpdater max = new LongMaxUpdater();
+
+  /**
+   * Return the bucket index for the given value.
+   */
+  static int index(long value) {
+    if (value < LINEAR_LIMIT) {
+      return value < 0 ? 0 : (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int shift = exponent - SUB_BITS;
+    int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+    return LINEAR_LIMIT + (shift - 1) * SUB_COUNT + sub;
+  }
+
+  /**
+   * Return the highest value recorded into the given bucket.
+   */
+  static long highestValue(int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    int shift = (index - LINEAR_LIMIT) / SUB_COUNT + 1;
+    int sub = (index - LINEAR_LIMIT) % SUB_COUNT;
+    long lowest = ((long) (SUB_COUNT + sub)) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * Record an execution time in microseconds.
+   */
+  public void add(long micros) {
+    buckets.incrementAndGet(index(micros));
+    total.add(micros);
+    max.update(micros);
+  }
+
+  /**
+   * Reset the histogram.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    total.reset();
+    max.reset();
+  }
+
+  /**
+   * Return a snapshot of the histogram optionally resetting it.
+   */
+  public Snapshot getSnapshot(boolean reset) {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      long c = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+      counts[i] = c;
+      count += c;
+    }
+    long totalMicros = reset ? total.sumThenReset() : total.sum();
+    long maxMicros = reset ? max.maxThenReset() : max.max();
+    return new Snapshot(counts, count, totalMicros, count == 0 ? 0 : maxMicros);
+  }
+
+  /**
+   * A snapshot of the histogram.
+   */
+  public static final class Snapshot {
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long total;
+
+    private final long max;
+
+    Snapshot(long[] counts, long count, long total, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    public String toString() {
+      return "count:" + count + " mean:" + getMean() + " p50:" + getPercentile(50) + " p95:" + getPercentile(95)
+          + " p99:" + getPercentile(99) + " max:" + max;
+    }
+
+    /**
+     * Return the number of values recorded.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Return the total of the values recorded.
+     */
+    public long getTotal() {
+      return total;
+    }
+
+    /**
+     * Return the max value recorded.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Return the mean of the values recorded.
+     */
+    public long getMean() {
+      return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Return the value at the given percentile (0 to 100) or 0 when no values are recorded.
+     * <p>
+     * The value returned is the highest value of the bucket the percentile falls
+     * into (so it does not under report) limited by the max value recorded.
+     * </p>
+     */
+    public long getPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      double ratio = Math.min(100d, Math.max(0d, percentile)) / 100d;
+      long rank = Math.max(1, (long) Math.ceil(ratio * count));
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        cumulative += counts[i];
+        if (cumulative >= rank) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package com.avaje.ebeaninternal.server.util;
+
+import com.avaje.ebean.meta.MetaPlanCacheStatistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of query or update plans.
+ * <p>
+ * Reads are lock free and stamp the entry with the time of access. The stamp is a
+ * plain field that is only written when it is older than {@link #ACCESS_RESOLUTION_NANOS}
+ * such that hits on a hot plan mostly only read the entry. When a put
+ * takes the size over the maximum the least recently used plans are evicted
+ * down to 90% of the maximum (such that trimming is not performed on every put).
+ * </p>
+ */
+public final class PlanCache<K, V> {
+
+  /**
+   * The resolution of the access time used for LRU eviction.
+   */
+  static final long ACCESS_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final Comparator<Candidate<?>> BY_LAST_ACCESS = new Comparator<Candidate<?>>() {
+    @Override
+    public int compare(Candidate<?> c1, Candidate<?> c2) {
+      // compare the difference as nanoTime values can wrap
+      long diff = c1.lastAccess - c2.lastAccess;
+      return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+    }
+  };
+
+  private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<K, Entry<V>>();
+
+  private final ReentrantLock trimLock = new ReentrantLock();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictCount = new LongAdder();
+
+  private final Class<?> beanType;
+
+  private final String name;
+
+  private final int maxSize;
+
+  private final int trimSize;
+
+  /**
+   * Create the plan cache.
+   *
+   * @param maxSize the maximum number of plans held or 0 for unbounded
+   */
+  public PlanCache(Class<?> beanType, String name, int maxSize) {
+    this.beanType = beanType;
+    this.name = name;
+    this.maxSize = Math.max(0, maxSize);
+    this.trimSize = (int) (this.maxSize * 0.9);
+  }
+
+  /**
+   * Return the plan for the given key or null if not in the cache.
+   */
+  public V get(K key) {
+    Entry<V> entry = map.get(key);
+    if (entry == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    long now = System.nanoTime();
+    if (now - entry.lastAccess > ACCESS_RESOLUTION_NANOS) {
+      // racy write is fine as eviction is approximate
+      entry.lastAccess = now;
+    }
+    return entry.value;
+  }
+
+  /**
+   * Put the plan into the cache evicting least recently used plans if required.
+   */
+  public void put(K key, V value) {
+    map.put(key, new Entry<V>(value, System.nanoTime()));
+    if (maxSize > 0 && map.size() > maxSize) {
+      trim();
+    }
+  }
+
+  /**
+   * Return the plans currently held.
+   */
+  public List<V> values() {
+    List<V> list = new ArrayList<V>(map.size());
+    for (Entry<V> entry : map.values()) {
+      list.add(entry.value);
+    }
+    return list;
+  }
+
+  /**
+   * Return the number of plans held.
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Remove all the plans.
+   */
+  public void clear() {
+    map.clear();
+  }
+
+  /**
+   * Return the statistics optionally resetting the counters.
+   */
+  public MetaPlanCacheStatistic getStatistics(boolean reset) {
+    if (reset) {
+      return new Statistic(beanType, name, maxSize, map.size(), hitCount.sumThenReset(), missCount.sumThenReset(), evictCount.sumThenReset());
+    } else {
+      return new Statistic(beanType, name, maxSize, map.size(), hitCount.sum(), missCount.sum(), evictCount.sum());
+    }
+  }
+
+  /**
+   * Evict the least recently used plans (skipped if another thread is trimming).
+   */
+  private void trim() {
+    if (!trimLock.tryLock()) {
+      return;
+    }
+    try {
+      int toRemove = map.size() - trimSize;
+      if (toRemove <= 0) {
+        return;
+      }
+      // sort on a copy of the access times as reads can change them
+      List<Candidate<K>> candidates = new ArrayList<Candidate<K>>(map.size());
+      for (Map.Entry<K, Entry<V>> entry : map.entrySet()) {
+        candidates.add(new Candidate<K>(entry.getKey(), entry.getValue()));
+      }
+      Collections.sort(candidates, BY_LAST_ACCESS);
+
+      int removed = 0;
+      for (int i = 0; i < candidates.size() && removed < toRemove; i++) {
+        Candidate<K> candidate = candidates.get(i);
+        if (map.remove(candidate.key, candidate.entry)) {
+          removed++;
+        }
+      }
+      evictCount.add(removed);
+    } finally {
+      trimLock.unlock();
+    }
+  }
+
+  private static final class Entry<V> {
+
+    final V value;
+
+    long lastAccess;
+
+    Entry(V value, long lastAccess) {
+      this.value = value;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  /**
+   * An entry considered for eviction with its access time at the start of the trim.
+   */
+  private static final class Candidate<K> {
+
+    final K key;
+
+    final Entry<?> entry;
+
+    final long lastAccess;
+
+    Candidate(K key, Entry<?> entry) {
+      this.key = key;
+      this.entry = entry;
+      this.lastAccess = entry.lastAccess;
+    }
+  }
+
+  private static final class Statistic implements MetaPlanCacheStatistic {
+
+    private final Class<?> beanType;
+    private final String name;
+    private final int maxSize;
+    private final int size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    Statistic(Class<?> beanType, String name, int maxSize, int size, long hitCount, long missCount, long evictionCount) {
+      this.beanType = beanType;
+      this.name = name;
+      this.maxSize = maxSize;
+      this.size = size;
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+    }
+
+    public String toString() {
+      return beanType.getSimpleName() + " " + name + " size:" + size + " maxSize:" + maxSize
+          + " hit:" + hitCount + " miss:" + missCount + " evict:" + evictionCount;
+    }
+
+    @Override
+    public Class<?> getBeanType() {
+      return beanType;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public int getMaxSize() {
+      return maxSize;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    @Override
+    public long getMissCount() {
+      return missCount;
+    }
+
+    @Override
+    public long getEvictionCount() {
+      return evictionCount;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.avaje.ebeaninternal.server.util;
+
+import com.avaje.ebean.meta.MetaTimedStatistic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution time histogram for a bean type and operation.
+ */
+public final class TimedMetric {
+
+  private final Class<?> beanType;
+
+  private final String name;
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  private final AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
+
+  public TimedMetric(Class<?> beanType, String name) {
+    this.beanType = beanType;
+    this.name = name;
+  }
+
+  /**
+   * Add an execution given the start time in nanos (System.nanoTime()).
+   */
+  public void addSinceNanos(long startNanos) {
+    histogram.add((System.nanoTime() - startNanos) / 1000L);
+  }
+
+  /**
+   * Add an execution time in microseconds.
+   */
+  public void add(long micros) {
+    histogram.add(micros);
+  }
+
+  /**
+   * Return the statistic optionally resetting the histogram.
+   */
+  public MetaTimedStatistic getStatistic(boolean reset) {
+    long start = reset ? startTime.getAndSet(System.currentTimeMillis()) : startTime.get();
+    return new Statistic(beanType, name, start, histogram.getSnapshot(reset));
+  }
+
+  private static final class Statistic implements MetaTimedStatistic {
+
+    private final Class<?> beanType;
+    private final String name;
+    private final long startTime;
+    private final LatencyHistogram.Snapshot snapshot;
+
+    Statistic(Class<?> beanType, String name, long startTime, LatencyHistogram.Snapshot snapshot) {
+      this.beanType = beanType;
+      this.name = name;
+      this.startTime = startTime;
+      this.snapshot = snapshot;
+    }
+
+    public String toString() {
+      return beanType.getSimpleName() + " " + name + " " + snapshot;
+    }
+
+    @Override
+    public Class<?> getBeanType() {
+      return beanType;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public long getCount() {
+      return snapshot.getCount();
+    }
+
+    @Override
+    public long getTotalTimeMicros() {
+      return snapshot.getTotal();
+    }
+
+    @Override
+    public long getMaxTimeMicros() {
+      return snapshot.getMax();
+    }
+
+    @Override
+    public long getMeanTimeMicros() {
+      return snapshot.getMean();
+    }
+
+    @Override
+    public long getPercentileTimeMicros(double percentile) {
+      return snapshot.getPercentile(percentile);
+    }
+
+    @Override
+    public long getCollectionStart() {
+      return startTime;
+    }
+  }
+}
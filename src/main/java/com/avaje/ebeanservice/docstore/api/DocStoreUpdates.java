@@ -42,6 +42,16 @@ public class DocStoreUpdates {
     return persistEvents.isEmpty() && deleteEvents.isEmpty() && nestedEvents.isEmpty() && queueEntries.isEmpty();
   }
 
+  /**
+   * Add all the updates from another DocStoreUpdates.
+   */
+  public void addAll(DocStoreUpdates other) {
+    persistEvents.addAll(other.persistEvents);
+    deleteEvents.addAll(other.deleteEvents);
+    nestedEvents.addAll(other.nestedEvents);
+    queueEntries.addAll(other.queueEntries);
+  }
+
   /**
    * Add a persist request.
    */
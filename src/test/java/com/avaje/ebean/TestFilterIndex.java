@@ -0,0 +1,103 @@
+package com.avaje.ebean;
+
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestFilterIndex extends BaseTestCase {
+
+  private List<Order> orders() {
+    ResetBasicData.reset();
+    List<Order> orders = new ArrayList<Order>();
+    // repeat the orders to get duplicate values and a larger list
+    for (int i = 0; i < 20; i++) {
+      orders.addAll(Ebean.find(Order.class).fetch("customer").order().asc("id").findList());
+    }
+    return orders;
+  }
+
+  @Test
+  public void eq_in_between_startsWith() {
+
+    List<Order> orders = orders();
+    FilterIndex<Order> index = Ebean.createFilterIndex(Order.class, orders, "status", "id", "customer.name");
+    assertThat(index.getIndexedProperties()).containsExactly("status", "id", "customer.name");
+
+    assertSame(orders,
+        index.filter().eq("status", Order.Status.NEW),
+        Ebean.filter(Order.class).eq("status", Order.Status.NEW));
+
+    HashSet<Order.Status> statuses = new HashSet<Order.Status>(Arrays.asList(Order.Status.NEW, Order.Status.SHIPPED));
+    assertSame(orders,
+        index.filter().in("status", statuses),
+        Ebean.filter(Order.class).in("status", statuses));
+
+    assertSame(orders,
+        index.filter().between("id", 2, 3).eq("status", Order.Status.NEW),
+        Ebean.filter(Order.class).between("id", 2, 3).eq("status", Order.Status.NEW));
+
+    assertSame(orders,
+        index.filter().startsWith("customer.name", "Ro").sort("id desc").maxRows(7),
+        Ebean.filter(Order.class).startsWith("customer.name", "Ro").sort("id desc").maxRows(7));
+
+    List<Order> noMatch = index.filter().eq("status", Order.Status.NEW).eq("id", -1).filter(null);
+    assertThat(noMatch).isEmpty();
+  }
+
+  @Test
+  public void sort() {
+
+    List<Order> orders = orders();
+    FilterIndex<Order> index = Ebean.createFilterIndex(Order.class, orders, "status", "id", "shipDate");
+
+    for (String sort : new String[]{"id", "id desc", "shipDate", "shipDate desc", "shipDate nullsLow", "shipDate desc nullsLow", "status, id desc"}) {
+      assertSame(orders,
+          index.filter().sort(sort),
+          Ebean.filter(Order.class).sort(sort));
+
+      assertSame(orders,
+          index.filter().eq("status", Order.Status.NEW).sort(sort).maxRows(5),
+          Ebean.filter(Order.class).eq("status", Order.Status.NEW).sort(sort).maxRows(5));
+    }
+  }
+
+  @Test
+  public void otherList_scans() {
+
+    List<Order> orders = orders();
+    FilterIndex<Order> index = Ebean.createFilterIndex(Order.class, orders, "status");
+
+    List<Order> subList = orders.subList(0, 5);
+    List<Order> result = index.filter().eq("status", Order.Status.NEW).filter(subList);
+    assertThat(result).isEqualTo(Ebean.filter(Order.class).eq("status", Order.Status.NEW).filter(subList));
+  }
+
+  @Test
+  public void createFilterIndex_byBeanType() {
+
+    ResetBasicData.reset();
+
+    FilterIndex<Customer> index = Ebean.createFilterIndex(Customer.class, "name");
+    List<Customer> list = index.filter().eq("name", "Rob").filter(index.getList());
+    assertThat(list).hasSize(1);
+    assertThat(list.get(0).getName()).isEqualTo("Rob");
+  }
+
+  private void assertSame(List<Order> orders, Filter<Order> indexed, Filter<Order> scan) {
+    List<Order> expected = scan.filter(orders);
+    List<Order> actual = indexed.filter(null);
+    assertThat(actual).hasSize(expected.size());
+    for (int i = 0; i < expected.size(); i++) {
+      // same instance in the same order
+      assertThat(actual.get(i)).isSameAs(expected.get(i));
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.avaje.ebean.cache;
+
+import com.avaje.ebeaninternal.server.cache.DefaultServerCache;
+import org.junit.Test;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServerCacheAdapterTest {
+
+  private Set<Object> keys(Object... keys) {
+    Set<Object> set = new LinkedHashSet<Object>();
+    for (Object key : keys) {
+      set.add(key);
+    }
+    return set;
+  }
+
+  @Test
+  public void getAll_when_adapter() {
+
+    DefaultServerCache cache = new DefaultServerCache("foo", new ServerCacheOptions());
+    cache.put("A", "a");
+    cache.put("C", "c");
+
+    Map<Object, Object> all = ServerCacheAdapter.getAll(cache, keys("A", "B", "C"));
+    assertThat(all).hasSize(2);
+    assertThat(all.get("A")).isEqualTo("a");
+    assertThat(all.get("C")).isEqualTo("c");
+  }
+
+  @Test
+  public void getAll_when_plainServerCache_expect_readByKey() {
+
+    // a ServerCache plugin that does not extend ServerCacheAdapter
+    ServerCache cache = mock(ServerCache.class);
+    when(cache.get("A")).thenReturn("a");
+
+    Map<Object, Object> all = ServerCacheAdapter.getAll(cache, keys("A", "B"));
+    assertThat(all).hasSize(1);
+    assertThat(all.get("A")).isEqualTo("a");
+  }
+}
@@ -0,0 +1,174 @@
+package com.avaje.ebean.config.dbplatform;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.Transaction;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SequenceIdGeneratorTest {
+
+  @Test
+  public void nextId_unique() {
+
+    TestExecutor executor = new TestExecutor(1);
+    try {
+      TestSequenceIdGenerator gen = new TestSequenceIdGenerator(executor, 10);
+      Set<Long> ids = new HashSet<Long>();
+      for (int i = 0; i < 1000; i++) {
+        ids.add((Long) gen.nextId(null));
+      }
+      assertThat(ids).hasSize(1000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void nextId_concurrent_unique() throws InterruptedException {
+
+    final TestExecutor executor = new TestExecutor(2);
+    try {
+      final TestSequenceIdGenerator gen = new TestSequenceIdGenerator(executor, 20);
+      final int threads = 8;
+      final int perThread = 5000;
+      final List<Long> ids = Collections.synchronizedList(new ArrayList<Long>());
+      final CountDownLatch done = new CountDownLatch(threads);
+
+      for (int t = 0; t < threads; t++) {
+        new Thread(new Runnable() {
+          @Override
+          public void run() {
+            List<Long> mine = new ArrayList<Long>(perThread);
+            for (int i = 0; i < perThread; i++) {
+              mine.add((Long) gen.nextId(null));
+            }
+            ids.addAll(mine);
+            done.countDown();
+          }
+        }).start();
+      }
+      assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+
+      Set<Long> unique = new HashSet<Long>(ids);
+      assertThat(unique).hasSize(threads * perThread);
+      // batch size grows with the rate of use
+      assertThat(gen.maxLoadSize).isGreaterThan(20);
+      assertThat(gen.maxLoadSize).isLessThanOrEqualTo(2000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void preAllocateIds_noCap() throws InterruptedException {
+
+    TestExecutor executor = new TestExecutor(1);
+    try {
+      TestSequenceIdGenerator gen = new TestSequenceIdGenerator(executor, 20);
+      gen.preAllocateIds(25000);
+      executor.awaitIdle();
+
+      assertThat(gen.loaded.get()).isEqualTo(25000);
+      // loaded in chunks of at most 10000
+      assertThat(gen.maxLoadSize).isEqualTo(10000);
+
+      // already available so no further loading
+      gen.preAllocateIds(20000);
+      executor.awaitIdle();
+      assertThat(gen.loaded.get()).isEqualTo(25000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void preAllocateIds_smallerThanBatch_ignored() throws InterruptedException {
+
+    TestExecutor executor = new TestExecutor(1);
+    try {
+      TestSequenceIdGenerator gen = new TestSequenceIdGenerator(executor, 20);
+      gen.preAllocateIds(15);
+      executor.awaitIdle();
+      assertThat(gen.loaded.get()).isEqualTo(0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  static class TestSequenceIdGenerator extends SequenceIdGenerator {
+
+    final AtomicLong sequence = new AtomicLong();
+
+    final AtomicLong loaded = new AtomicLong();
+
+    volatile int maxLoadSize;
+
+    TestSequenceIdGenerator(BackgroundExecutor be, int batchSize) {
+      super(be, null, "test_seq", batchSize);
+    }
+
+    @Override
+    public String getSql(int batchSize) {
+      return null;
+    }
+
+    @Override
+    protected synchronized ArrayList<Long> getMoreIds(int loadSize, Transaction t) {
+      if (loadSize > maxLoadSize) {
+        maxLoadSize = loadSize;
+      }
+      ArrayList<Long> ids = new ArrayList<Long>(loadSize);
+      for (int i = 0; i < loadSize; i++) {
+        ids.add(sequence.incrementAndGet());
+      }
+      loaded.addAndGet(loadSize);
+      return ids;
+    }
+  }
+
+  static class TestExecutor implements BackgroundExecutor {
+
+    final ExecutorService service;
+
+    TestExecutor(int threads) {
+      this.service = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public void execute(Runnable r) {
+      service.execute(r);
+    }
+
+    @Override
+    public void executePeriodically(Runnable r, long delay, TimeUnit unit) {
+      throw new UnsupportedOperationException();
+    }
+
+    void awaitIdle() throws InterruptedException {
+      final CountDownLatch latch = new CountDownLatch(1);
+      service.execute(new Runnable() {
+        @Override
+        public void run() {
+          latch.countDown();
+        }
+      });
+      latch.await(10, TimeUnit.SECONDS);
+    }
+
+    void shutdown() {
+      service.shutdown();
+    }
+  }
+}
@@ -5,6 +5,7 @@ import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebean.bean.CallStack;
 import com.avaje.ebean.bean.EntityBeanIntercept;
 import com.avaje.ebean.bean.ObjectGraphNode;
+import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebean.cache.ServerCacheManager;
 import com.avaje.ebean.config.ServerConfig;
 import com.avaje.ebean.config.dbplatform.DatabasePlatform;
@@ -16,6 +17,7 @@ import com.avaje.ebean.text.csv.CsvReader;
 import com.avaje.ebean.text.json.JsonContext;
 import com.avaje.ebeaninternal.server.core.timezone.DataTimeZone;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.loadcontext.SecondaryQueryExecutor;
 import com.avaje.ebeaninternal.server.query.CQuery;
 import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
 
@@ -85,6 +87,16 @@ public class TDSpiEbeanServer implements SpiEbeanServer {
     return null;
   }
 
+  @Override
+  public SecondaryQueryExecutor getSecondaryQueryExecutor() {
+    return null;
+  }
+
+  @Override
+  public PersistenceContext createPersistenceContext() {
+    return null;
+  }
+
   @Override
   public DocumentStore docStore() {
     return null;
@@ -285,6 +297,11 @@ public class TDSpiEbeanServer implements SpiEbeanServer {
     return null;
   }
 
+  @Override
+  public <T> CompiledQuery<T> createCompiledQuery(Query<T> query) {
+    return null;
+  }
+
   @Override
   public <T> Query<T> createQuery(Class<T> beanType) {
     return null;
@@ -310,6 +327,16 @@ public class TDSpiEbeanServer implements SpiEbeanServer {
     return null;
   }
 
+  @Override
+  public <T> FilterIndex<T> createFilterIndex(Class<T> beanType, List<T> list, String... properties) {
+    return null;
+  }
+
+  @Override
+  public <T> FilterIndex<T> createFilterIndex(Class<T> beanType, String... properties) {
+    return null;
+  }
+
   @Override
   public <T> void sort(List<T> list, String sortByClause) {
 
@@ -460,6 +487,11 @@ public class TDSpiEbeanServer implements SpiEbeanServer {
 
   }
 
+  @Override
+  public <T> void findEachPipelined(Query<T> query, QueryEachConsumer<T> consumer, Transaction transaction) {
+
+  }
+
   @Override
   public <T> void findEachWhile(Query<T> query, QueryEachWhileConsumer<T> consumer, Transaction transaction) {
 
@@ -0,0 +1,65 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CacheChangeSetTest {
+
+  @Test
+  public void merge_queryCacheClear_appliedOnce() {
+
+    BeanDescriptor<?> desc = mock(BeanDescriptor.class);
+
+    CacheChangeSet first = new CacheChangeSet(false);
+    first.addClearQuery(desc);
+    CacheChangeSet second = new CacheChangeSet(false);
+    second.addClearQuery(desc);
+
+    first.merge(second);
+    first.apply();
+
+    verify(desc, times(1)).queryCacheClear();
+  }
+
+  @Test
+  public void merge_manyPutThenRemove_removed() {
+
+    BeanDescriptor<?> desc = mock(BeanDescriptor.class);
+    CachedManyIds ids = new CachedManyIds();
+
+    CacheChangeSet first = new CacheChangeSet(false);
+    first.addManyPut(desc, "details", 1L, ids);
+    CacheChangeSet second = new CacheChangeSet(false);
+    second.addManyRemove(desc, "details", 1L);
+
+    first.merge(second);
+    first.apply();
+
+    verify(desc).cacheManyPropPut("details", 1L, ids);
+    verify(desc).cacheManyPropRemove("details", 1L);
+  }
+
+  @Test
+  public void merge_manyClear_onlyClears() {
+
+    BeanDescriptor<?> desc = mock(BeanDescriptor.class);
+
+    CacheChangeSet first = new CacheChangeSet(false);
+    first.addManyRemove(desc, "details", 1L);
+    CacheChangeSet second = new CacheChangeSet(false);
+    second.addManyClear(desc, "details");
+
+    first.merge(second);
+    first.apply();
+
+    verify(desc, times(1)).cacheManyPropClear("details");
+    verify(desc, never()).cacheManyPropRemove(anyString(), any());
+  }
+}
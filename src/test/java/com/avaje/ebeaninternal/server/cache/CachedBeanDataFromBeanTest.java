@@ -13,6 +13,8 @@ import org.junit.Test;
 import java.sql.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class CachedBeanDataFromBeanTest extends BaseTestCase {
 
@@ -38,13 +40,48 @@ public class CachedBeanDataFromBeanTest extends BaseTestCase {
 
     CachedBeanData cacheData = CachedBeanDataFromBean.extract(desc, (EntityBean) customer);
 
-    assertEquals(cacheData.getData("id"), "42");
-    assertEquals(cacheData.getData("name"), "Rob");
-    assertEquals(cacheData.getData("billingAddress"), "12");
-    assertEquals(cacheData.getData("anniversary"), "9223372036825200000");
+    assertEquals(cacheData.getData(index(desc, "id")), "42");
+    assertEquals(cacheData.getData(index(desc, "name")), "Rob");
+    assertEquals(cacheData.getData(index(desc, "billingAddress")), "12");
+    assertEquals(cacheData.getData(index(desc, "anniversary")), "9223372036825200000");
   }
 
 
+  @Test
+  public void update() {
+
+    BeanDescriptor<Customer> desc = server.getBeanDescriptor(Customer.class);
+
+    Customer customer = new Customer();
+    customer.setId(42);
+    customer.setName("Rob");
+
+    CachedBeanData cacheData = CachedBeanDataFromBean.extract(desc, (EntityBean) customer);
+
+    int nameIndex = index(desc, "name");
+    int smallnoteIndex = index(desc, "smallnote");
+    assertFalse(cacheData.isLoaded(smallnoteIndex));
+
+    Object[] data = new Object[cacheData.getPropertyLength()];
+    long[] loaded = CachedBeanData.newLoaded(data.length);
+    data[nameIndex] = "Jim";
+    data[smallnoteIndex] = "note";
+    CachedBeanData.setLoaded(loaded, nameIndex);
+    CachedBeanData.setLoaded(loaded, smallnoteIndex);
+
+    CachedBeanData updated = cacheData.update(new CachedBeanData(null, null, data, loaded, 2, cacheData.getModelHash()), 2);
+
+    assertEquals(2, updated.getVersion());
+    assertEquals("42", updated.getData(index(desc, "id")));
+    assertEquals("Jim", updated.getData(nameIndex));
+    assertEquals("note", updated.getData(smallnoteIndex));
+    assertTrue(updated.isLoaded(smallnoteIndex));
+
+    // copy on write so the original is unchanged
+    assertEquals("Rob", cacheData.getData(nameIndex));
+    assertFalse(cacheData.isLoaded(smallnoteIndex));
+  }
+
   @Test
   public void inheritance() {
 
@@ -64,4 +101,8 @@ public class CachedBeanDataFromBeanTest extends BaseTestCase {
     assertEquals(newCar.getDriver(), car.getDriver());
     assertEquals(newCar.getNotes(), car.getNotes());
   }
-}
\ No newline at end of file
+
+  private int index(BeanDescriptor<?> desc, String propertyName) {
+    return desc.getBeanProperty(propertyName).getPropertyIndex();
+  }
+}
@@ -3,9 +3,11 @@ package com.avaje.ebeaninternal.server.cache;
 import com.avaje.ebean.BaseTestCase;
 import com.avaje.ebean.Ebean;
 import com.avaje.ebean.bean.EntityBean;
+import com.avaje.ebean.cache.ServerCache;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
 import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.EBasicVer;
 import com.avaje.tests.model.basic.ResetBasicData;
 import com.avaje.tests.model.basic.TBytesOnly;
 import org.junit.Test;
@@ -16,11 +18,12 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 
@@ -29,13 +32,18 @@ public class CachedBeanDataSerializeTest extends BaseTestCase {
   @Test
   public void write() throws IOException, ClassNotFoundException {
 
-    Map<String, Object> map = new LinkedHashMap<String,Object>();
-    map.put("name", "rob");
-    map.put("some", "thing");
-    map.put("whenCreated", ""+System.currentTimeMillis());
+    Object[] data = new Object[70];
+    long[] loaded = CachedBeanData.newLoaded(data.length);
+    data[0] = "rob";
+    data[2] = "thing";
+    data[66] = ""+System.currentTimeMillis();
+    CachedBeanData.setLoaded(loaded, 0);
+    CachedBeanData.setLoaded(loaded, 2);
+    CachedBeanData.setLoaded(loaded, 3);
+    CachedBeanData.setLoaded(loaded, 66);
 
     long version = System.currentTimeMillis();
-    CachedBeanData write = new CachedBeanData(null, "C", map, version);
+    CachedBeanData write = new CachedBeanData(null, "C", data, loaded, version, 42);
 
     ByteArrayOutputStream os = new ByteArrayOutputStream();
     ObjectOutputStream oos = new ObjectOutputStream(os);
@@ -52,10 +60,14 @@ public class CachedBeanDataSerializeTest extends BaseTestCase {
     CachedBeanData read = new CachedBeanData();
     read.readExternal(ois);
 
+    assertEquals(42, read.getModelHash());
     assertEquals(read.getVersion(), write.getVersion());
     assertEquals(read.getWhenCreated(), write.getWhenCreated());
     assertEquals(read.getDiscValue(), write.getDiscValue());
-    assertEquals(read.getData(), write.getData());
+    assertSameData(read, write);
+    assertTrue(read.isLoaded(3));
+    assertNull(read.getData(3));
+    assertFalse(read.isLoaded(1));
   }
 
 
@@ -80,7 +92,7 @@ public class CachedBeanDataSerializeTest extends BaseTestCase {
 
     CachedBeanData read = readFromStream(bytes);
 
-    assertEquals(read.getData(), extract.getData());
+    assertSameData(read, extract);
 
     Customer loadCustomer = new Customer();
     CachedBeanDataToBean.load(desc, (EntityBean)loadCustomer, read, new DefaultPersistenceContext());
@@ -108,7 +120,7 @@ public class CachedBeanDataSerializeTest extends BaseTestCase {
     byte[] bytes = os.toByteArray();
 
     CachedBeanData read = readFromStream(bytes);
-    byte[] extraContent = (byte[])extract.getData("content");
+    byte[] extraContent = (byte[])extract.getData(desc.getBeanProperty("content").getPropertyIndex());
 
     assertEquals(stringContent, new String(extraContent));
     assertTrue(Arrays.equals(bean.getContent(), extraContent));
@@ -120,6 +132,38 @@ public class CachedBeanDataSerializeTest extends BaseTestCase {
     assertTrue(Arrays.equals(loadBean.getContent(), bean.getContent()));
   }
 
+  @Test
+  public void differentModel_expect_cacheMiss() {
+
+    EBasicVer bean = new EBasicVer();
+    bean.setName("modelHash");
+    Ebean.save(bean);
+
+    BeanDescriptor<EBasicVer> desc = getBeanDescriptor(EBasicVer.class);
+    ServerCache beanCache = Ebean.getServerCacheManager().getBeanCache(EBasicVer.class);
+
+    CachedBeanData current = CachedBeanDataFromBean.extract(desc, (EntityBean) bean);
+    assertEquals(desc.getCacheModelHash(), current.getModelHash());
+    beanCache.put(bean.getId(), current);
+    assertNotNull(desc.cacheBeanGet(bean.getId(), null, null));
+
+    // positional data written by a different version of the model
+    int length = current.getPropertyLength();
+    CachedBeanData other = new CachedBeanData(null, null, new Object[length], CachedBeanData.newLoaded(length), 0, desc.getCacheModelHash() + 1);
+    beanCache.put(bean.getId(), other);
+
+    assertNull(desc.cacheBeanGet(bean.getId(), null, null));
+    assertNull(beanCache.get(bean.getId()));
+  }
+
+  private void assertSameData(CachedBeanData read, CachedBeanData write) {
+    assertEquals(read.getPropertyLength(), write.getPropertyLength());
+    for (int i = 0; i < write.getPropertyLength(); i++) {
+      assertEquals(read.isLoaded(i), write.isLoaded(i));
+      assertEquals(read.getData(i), write.getData(i));
+    }
+  }
+
   private CachedBeanData readFromStream(byte[] bytes) throws IOException, ClassNotFoundException {
 
     ByteArrayInputStream is = new ByteArrayInputStream(bytes);
@@ -3,6 +3,11 @@ package com.avaje.ebeaninternal.server.cache;
 import com.avaje.ebean.cache.ServerCacheOptions;
 import org.junit.Test;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.Assert.*;
 
 public class DefaultServerCacheTest {
@@ -85,4 +90,45 @@ public class DefaultServerCacheTest {
     assertEquals(cache.trimFrequency, 42);
   }
 
-}
\ No newline at end of file
+
+  @Test
+  public void testGetHotEntries() throws Exception {
+
+    DefaultServerCache cache = createCache();
+    cache.put("A", "A");
+    cache.put("B", "B");
+    cache.put("C", "C");
+    cache.get("B");
+    cache.get("B");
+    cache.get("C");
+
+    List<DefaultServerCache.CacheEntry> hot = cache.getHotEntries(10);
+    assertEquals(2, hot.size());
+    assertEquals("B", hot.get(0).getKey());
+    assertEquals("C", hot.get(1).getKey());
+
+    hot = cache.getHotEntries(1);
+    assertEquals(1, hot.size());
+    assertEquals("B", hot.get(0).getKey());
+  }
+
+  @Test
+  public void testGetAll() throws Exception {
+
+    DefaultServerCache cache = createCache();
+    cache.put("A", "a");
+    cache.put("C", "c");
+
+    Set<Object> keys = new LinkedHashSet<Object>();
+    keys.add("A");
+    keys.add("B");
+    keys.add("C");
+
+    Map<Object, Object> all = cache.getAll(keys);
+    assertEquals(2, all.size());
+    assertEquals("a", all.get("A"));
+    assertEquals("c", all.get("C"));
+    assertEquals(2, cache.getStatistics(false).getHitCount());
+    assertEquals(1, cache.getStatistics(false).getMissCount());
+  }
+}
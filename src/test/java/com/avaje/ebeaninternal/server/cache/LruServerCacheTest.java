@@ -0,0 +1,151 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.cache.ServerCacheEvictionMode;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebean.cache.ServerCacheStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LruServerCacheTest {
+
+  private LruServerCache createCache(int maxSize, int maxIdleSecs, int maxSecsToLive) {
+
+    ServerCacheOptions cacheOptions = new ServerCacheOptions();
+    cacheOptions.setMaxSize(maxSize);
+    cacheOptions.setMaxIdleSecs(maxIdleSecs);
+    cacheOptions.setMaxSecsToLive(maxSecsToLive);
+    cacheOptions.setEvictionMode(ServerCacheEvictionMode.LRU);
+
+    return new LruServerCache("foo", cacheOptions);
+  }
+
+  @Test
+  public void put_when_exceedsMaxSize_expect_leastRecentlyUsedEvicted() {
+
+    LruServerCache cache = createCache(3, 0, 0);
+    cache.put("A", "A");
+    cache.put("B", "B");
+    cache.put("C", "C");
+
+    // A becomes most recently used
+    assertEquals("A", cache.get("A"));
+    cache.put("D", "D");
+
+    assertEquals(3, cache.size());
+    assertNull(cache.get("B"));
+    assertEquals("A", cache.get("A"));
+    assertEquals("C", cache.get("C"));
+    assertEquals("D", cache.get("D"));
+
+    ServerCacheStatistics statistics = cache.getStatistics(false);
+    assertEquals(1, statistics.getEvictByLRU());
+  }
+
+  @Test
+  public void put_replace_expect_sizeUnchanged() {
+
+    LruServerCache cache = createCache(2, 0, 0);
+    cache.put("A", "A");
+    cache.put("A", "A2");
+    cache.put("B", "B");
+
+    assertEquals(2, cache.size());
+    assertEquals("A2", cache.get("A"));
+    assertEquals("B", cache.get("B"));
+  }
+
+  @Test
+  public void remove_and_clear() {
+
+    LruServerCache cache = createCache(10, 0, 0);
+    cache.put("A", "A");
+    cache.put("B", "B");
+    assertEquals("A", cache.remove("A"));
+    assertNull(cache.remove("A"));
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+
+    // lists are reset and usable after clear
+    cache.put("C", "C");
+    assertEquals("C", cache.get("C"));
+  }
+
+  @Test
+  public void runEviction_when_idle_expect_evicted() throws InterruptedException {
+
+    LruServerCache cache = createCache(10, 1, 0);
+    cache.put("A", "A");
+    cache.put("B", "B");
+    Thread.sleep(1100);
+    cache.put("C", "C");
+
+    cache.runEviction();
+
+    assertEquals(1, cache.size());
+    assertEquals("C", cache.get("C"));
+    assertEquals(2, cache.getStatistics(false).getEvictByIdle());
+  }
+
+  @Test
+  public void get_when_timeToLiveExceeded_expect_miss() throws InterruptedException {
+
+    LruServerCache cache = createCache(10, 0, 1);
+    cache.put("A", "A");
+    Thread.sleep(1100);
+
+    assertNull(cache.get("A"));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getStatistics(false).getEvictByTTL());
+  }
+
+  @Test
+  public void get_manyReads_expect_recentlyReadKept() {
+
+    LruServerCache cache = createCache(3, 0, 0);
+    cache.put("A", "A");
+    cache.put("B", "B");
+    cache.put("C", "C");
+
+    // more reads than a read buffer holds, some drained by the reads themselves
+    for (int i = 0; i < 100; i++) {
+      assertEquals("A", cache.get("A"));
+      assertEquals("C", cache.get("C"));
+    }
+    cache.put("D", "D");
+
+    assertNull(cache.get("B"));
+    assertEquals(3, cache.size());
+    assertEquals(1, cache.getStatistics(false).getEvictByLRU());
+  }
+
+  @Test
+  public void replaceEntry_when_expected_expect_replaced() {
+
+    LruServerCache cache = createCache(10, 0, 0);
+    cache.put("A", "A");
+    DefaultServerCache.CacheEntry current = cache.map.get("A");
+
+    assertNotNull(cache.replaceEntry("A", current, "A2"));
+    assertNull(cache.replaceEntry("A", current, "A3"));
+    assertEquals("A2", cache.get("A"));
+
+    cache.removeEntry("A", current);
+    assertEquals(1, cache.size());
+    cache.removeEntry("A", cache.map.get("A"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void factory_when_lruMode_expect_lruCache() {
+
+    ServerCacheOptions cacheOptions = new ServerCacheOptions();
+    cacheOptions.setEvictionMode(ServerCacheEvictionMode.LRU);
+
+    DefaultServerCacheFactory factory = new DefaultServerCacheFactory();
+    assertTrue(factory.createCache(null, "foo", cacheOptions) instanceof LruServerCache);
+    assertFalse(factory.createCache(null, "foo", new ServerCacheOptions()) instanceof LruServerCache);
+  }
+}
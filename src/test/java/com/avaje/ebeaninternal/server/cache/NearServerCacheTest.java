@@ -0,0 +1,279 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheAdapter;
+import com.avaje.ebean.cache.ServerCacheFactory;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebean.cache.ServerCacheStatistics;
+import com.avaje.ebean.cache.ServerCacheType;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class NearServerCacheTest {
+
+  private final FakeRemoteCache remote = new FakeRemoteCache();
+
+  private NearServerCache createCache() {
+
+    ServerCacheOptions options = new ServerCacheOptions();
+    options.setMaxSize(10);
+    options.setMaxSecsToLive(60);
+    return new NearServerCache(remote, new LruServerCache("near", options));
+  }
+
+  @Test
+  public void get_servedFromNear() {
+
+    NearServerCache cache = createCache();
+    remote.put("A", "a");
+
+    assertEquals("a", cache.get("A"));
+    assertEquals("a", cache.get("A"));
+    assertEquals("a", cache.get("A"));
+    assertEquals(1, remote.getCount);
+
+    assertNull(cache.get("B"));
+    assertEquals(2, remote.getCount);
+  }
+
+  @Test
+  public void put_remove_writeThrough() {
+
+    NearServerCache cache = createCache();
+    cache.put("A", "a");
+    assertEquals("a", remote.map.get("A"));
+    assertEquals("a", cache.get("A"));
+    assertEquals(0, remote.getCount);
+
+    cache.remove("A");
+    assertNull(remote.map.get("A"));
+    assertNull(cache.get("A"));
+
+    cache.put("B", "b");
+    cache.clear();
+    assertTrue(remote.map.isEmpty());
+    assertEquals(0, cache.getNear().size());
+  }
+
+  @Test
+  public void get_removedDuringRemoteGet_notPutIntoNear() {
+
+    final NearServerCache cache = createCache();
+    remote.put("A", "a");
+    remote.onGet = new Runnable() {
+      @Override
+      public void run() {
+        // invalidation from a concurrent commit
+        cache.remove("X");
+      }
+    };
+
+    assertEquals("a", cache.get("A"));
+    assertEquals(0, cache.getNear().size());
+
+    remote.onGet = null;
+    assertEquals("a", cache.get("A"));
+    assertEquals(1, cache.getNear().size());
+  }
+
+  @Test
+  public void get_olderVersion_doesNotReplaceNewer() {
+
+    final NearServerCache cache = createCache();
+    final CachedBeanData newer = data(2);
+    remote.put("A", data(1));
+    remote.onGet = new Runnable() {
+      @Override
+      public void run() {
+        cache.getNear().put("A", newer);
+      }
+    };
+
+    assertEquals(1, ((CachedBeanData) cache.get("A")).getVersion());
+    remote.onGet = null;
+    assertSame(newer, cache.get("A"));
+  }
+
+  @Test
+  public void get_putDuringRemoteGet_notOverwritten() {
+
+    final NearServerCache cache = createCache();
+    remote.put("A", "a");
+    remote.onGet = new Runnable() {
+      @Override
+      public void run() {
+        // put from a concurrent commit after the remote read
+        cache.put("A", "a2");
+        remote.map.put("A", "a");
+      }
+    };
+
+    assertEquals("a", cache.get("A"));
+    assertEquals("a2", cache.getNear().get("A"));
+  }
+
+  @Test
+  public void get_versionCheck_notCountedAsNearHit() {
+
+    final NearServerCache cache = createCache();
+    remote.put("A", data(1));
+    remote.onGet = new Runnable() {
+      @Override
+      public void run() {
+        cache.getNear().put("A", data(2));
+      }
+    };
+
+    cache.get("A");
+    ServerCacheStatistics nearStats = cache.getNear().getStatistics(false);
+    assertEquals(0, nearStats.getHitCount());
+    assertEquals(1, nearStats.getMissCount());
+  }
+
+  @Test
+  public void getAll() {
+
+    NearServerCache cache = createCache();
+    remote.put("A", "a");
+    remote.put("B", "b");
+    cache.get("A");
+
+    Set<Object> keys = new LinkedHashSet<Object>();
+    keys.add("A");
+    keys.add("B");
+    keys.add("C");
+
+    Map<Object, Object> all = cache.getAll(keys);
+    assertEquals(2, all.size());
+    assertEquals("a", all.get("A"));
+    assertEquals("b", all.get("B"));
+    assertEquals(1, remote.getAllKeys);
+
+    // B now in near
+    assertEquals("b", cache.get("B"));
+    assertEquals(1, remote.getCount);
+  }
+
+  @Test
+  public void getStatistics() {
+
+    NearServerCache cache = createCache();
+    remote.put("A", "a");
+    cache.get("A");
+    cache.get("A");
+    cache.get("A");
+    cache.get("B");
+    assertEquals(75, cache.getHitRatio());
+
+    ServerCacheStatistics statistics = cache.getStatistics(true);
+    assertEquals(3, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(2, statistics.getNearHitCount());
+    assertEquals(2, statistics.getNearMissCount());
+    assertEquals(1, statistics.getNearSize());
+
+    statistics = cache.getStatistics(false);
+    assertEquals(0, statistics.getHitCount());
+    assertEquals(0, statistics.getNearHitCount());
+  }
+
+  @Test
+  public void factory_wrapsRemoteOnly() {
+
+    ServerCacheFactory remoteFactory = new ServerCacheFactory() {
+      @Override
+      public ServerCache createCache(ServerCacheType type, String cacheKey, ServerCacheOptions cacheOptions) {
+        return "local".equals(cacheKey) ? new DefaultServerCache(cacheKey, cacheOptions) : new FakeRemoteCache();
+      }
+    };
+    NearServerCacheFactory factory = new NearServerCacheFactory(remoteFactory, null, 100, 30);
+
+    ServerCacheOptions options = new ServerCacheOptions();
+    options.setMaxSize(1000);
+
+    ServerCache cache = factory.createCache(ServerCacheType.BEAN, "remote", options);
+    assertTrue(cache instanceof NearServerCache);
+    assertEquals(100, ((NearServerCache) cache).getNear().getStatistics(false).getMaxSize());
+
+    assertTrue(factory.createCache(ServerCacheType.BEAN, "local", options) instanceof DefaultServerCache);
+  }
+
+  private static CachedBeanData data(long version) {
+    return new CachedBeanData(null, null, new Object[0], new long[0], version, 0);
+  }
+
+  /**
+   * In-process fake of a remote cache.
+   */
+  static class FakeRemoteCache extends ServerCacheAdapter {
+
+    final Map<Object, Object> map = new ConcurrentHashMap<Object, Object>();
+
+    int getCount;
+
+    int getAllKeys;
+
+    Runnable onGet;
+
+    @Override
+    public Object get(Object id) {
+      getCount++;
+      if (onGet != null) {
+        onGet.run();
+      }
+      return map.get(id);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Set<Object> keys) {
+      getAllKeys++;
+      Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+      for (Object key : keys) {
+        Object value = map.get(key);
+        if (value != null) {
+          result.put(key, value);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public Object put(Object id, Object value) {
+      return map.put(id, value);
+    }
+
+    @Override
+    public Object remove(Object id) {
+      return map.remove(id);
+    }
+
+    @Override
+    public void clear() {
+      map.clear();
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public int getHitRatio() {
+      return 0;
+    }
+
+    @Override
+    public ServerCacheStatistics getStatistics(boolean reset) {
+      ServerCacheStatistics statistics = new ServerCacheStatistics();
+      statistics.setSize(map.size());
+      return statistics;
+    }
+  }
+}
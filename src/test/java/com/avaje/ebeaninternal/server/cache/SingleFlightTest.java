@@ -0,0 +1,159 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SingleFlightTest {
+
+  @Test
+  public void begin_noOtherLoad_isLoader() {
+
+    SingleFlight flight = new SingleFlight(1000);
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+    assertThat(flight.begin("b")).isEqualTo(SingleFlight.Result.LOAD);
+    assertThat(flight.size()).isEqualTo(2);
+
+    flight.end("a", false);
+    flight.end("b", false);
+    assertThat(flight.size()).isEqualTo(0);
+
+    // can load again after end
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+    flight.end("a", false);
+  }
+
+  @Test
+  public void begin_sameThread_doesNotWait() {
+
+    SingleFlight flight = new SingleFlight(10000);
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+
+    long start = System.currentTimeMillis();
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.CHECK_CACHE);
+    assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+
+    flight.end("a", false);
+    assertThat(flight.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void begin_concurrent_singleLoader() throws InterruptedException {
+
+    final SingleFlight flight = new SingleFlight(10000);
+    final int threads = 10;
+    final AtomicInteger loaders = new AtomicInteger();
+    final AtomicInteger waiters = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(threads);
+
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+
+    for (int i = 0; i < threads; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          if (flight.begin("a") == SingleFlight.Result.LOAD) {
+            loaders.incrementAndGet();
+            flight.end("a", false);
+          } else {
+            waiters.incrementAndGet();
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+
+    // wait for the threads to be waiting on the load
+    long until = System.currentTimeMillis() + 5000;
+    while (flight.getCoalescedCount() < threads && System.currentTimeMillis() < until) {
+      Thread.sleep(10);
+    }
+    assertThat(done.getCount()).isEqualTo(threads);
+
+    flight.end("a", false);
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(loaders.get()).isEqualTo(0);
+    assertThat(waiters.get()).isEqualTo(threads);
+    assertThat(flight.getCoalescedCount()).isEqualTo(threads);
+  }
+
+  @Test
+  public void begin_waitTimeout() {
+
+    final SingleFlight flight = new SingleFlight(50);
+    final AtomicInteger result = new AtomicInteger(-1);
+
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+    Thread other = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        result.set(flight.begin("a").ordinal());
+      }
+    });
+    other.start();
+    try {
+      other.join(5000);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    // returned after the wait time without the load ending
+    assertThat(result.get()).isEqualTo(SingleFlight.Result.CHECK_CACHE.ordinal());
+    flight.end("a", false);
+  }
+
+  @Test
+  public void end_notLoader_ignored() throws InterruptedException {
+
+    final SingleFlight flight = new SingleFlight(1000);
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+
+    Thread other = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        flight.end("a", false);
+      }
+    });
+    other.start();
+    other.join(5000);
+
+    assertThat(flight.size()).isEqualTo(1);
+    flight.end("a", false);
+    assertThat(flight.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void end_empty_waitersGetEmpty() throws InterruptedException {
+
+    final SingleFlight flight = new SingleFlight(10000);
+    final AtomicReference<SingleFlight.Result> result = new AtomicReference<SingleFlight.Result>();
+
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+    Thread other = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        result.set(flight.begin("a"));
+      }
+    });
+    other.start();
+
+    long until = System.currentTimeMillis() + 5000;
+    while (flight.getCoalescedCount() < 1 && System.currentTimeMillis() < until) {
+      Thread.sleep(10);
+    }
+    flight.end("a", true);
+    other.join(5000);
+
+    // the waiting thread does not execute the query again
+    assertThat(result.get()).isEqualTo(SingleFlight.Result.EMPTY);
+
+    // the next miss loads again
+    assertThat(flight.begin("a")).isEqualTo(SingleFlight.Result.LOAD);
+    flight.end("a", false);
+  }
+}
@@ -0,0 +1,105 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class BatchingClusterBroadcastTest {
+
+  private final LoopbackClusterTransport.Hub hub = new LoopbackClusterTransport.Hub();
+
+  @Test
+  public void broadcast_coalescedWithinWindow() throws Exception {
+
+    TestBroadcast sender = new TestBroadcast(hub, 60000, 1000);
+    TestBroadcast receiver = new TestBroadcast(hub, 60000, 1000);
+    sender.startup();
+    receiver.startup();
+    try {
+      for (int i = 0; i < 50; i++) {
+        sender.broadcast(event("o_customer", false, true, false));
+        sender.broadcast(event("o_order", true, false, false));
+      }
+      assertEquals(0, hub.getMessageCount());
+
+      sender.flush();
+      assertEquals(1, hub.getMessageCount());
+      assertEquals(1, receiver.received.size());
+      assertTrue(sender.received.isEmpty());
+
+      ClusterInvalidation received = receiver.received.get(0);
+      assertEquals("db", received.getServerName());
+      assertEquals(2, received.getTables().size());
+      assertEquals(Integer.valueOf(2), received.getTables().get("o_customer"));
+      assertEquals(Integer.valueOf(1), received.getTables().get("o_order"));
+
+      // nothing pending
+      sender.flush();
+      assertEquals(1, hub.getMessageCount());
+
+    } finally {
+      sender.shutdown();
+      receiver.shutdown();
+    }
+  }
+
+  @Test
+  public void broadcast_sentByWindow() throws Exception {
+
+    TestBroadcast sender = new TestBroadcast(hub, 20, 1000);
+    TestBroadcast receiver = new TestBroadcast(hub, 20, 1000);
+    sender.startup();
+    receiver.startup();
+    try {
+      sender.broadcast(event("o_customer", true, false, false));
+      sender.broadcast(event("o_customer", false, false, true));
+      for (int i = 0; i < 100 && receiver.received.isEmpty(); i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, receiver.received.size());
+      assertEquals(Integer.valueOf(5), receiver.received.get(0).getTables().get("o_customer"));
+    } finally {
+      sender.shutdown();
+      receiver.shutdown();
+    }
+  }
+
+  @Test
+  public void shutdown_sendsPending() {
+
+    TestBroadcast sender = new TestBroadcast(hub, 60000, 1000);
+    TestBroadcast receiver = new TestBroadcast(hub, 60000, 1000);
+    sender.startup();
+    receiver.startup();
+
+    sender.broadcast(event("o_customer", false, true, false));
+    sender.shutdown();
+    receiver.shutdown();
+    assertEquals(1, receiver.received.size());
+  }
+
+  private RemoteTransactionEvent event(String table, boolean insert, boolean update, boolean delete) {
+    RemoteTransactionEvent event = new RemoteTransactionEvent("db");
+    event.addTableIUD(new TableIUD(table, insert, update, delete));
+    return event;
+  }
+
+  static class TestBroadcast extends BatchingClusterBroadcast {
+
+    final List<ClusterInvalidation> received = new CopyOnWriteArrayList<ClusterInvalidation>();
+
+    TestBroadcast(LoopbackClusterTransport.Hub hub, long windowMillis, int maxPendingIds) {
+      super(null, new LoopbackClusterTransport(hub), windowMillis, maxPendingIds, 512);
+    }
+
+    @Override
+    protected void process(ClusterInvalidation invalidation) {
+      received.add(invalidation);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.core.PersistRequest;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.id.IdBinder;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClusterInvalidationTest {
+
+  @Test
+  public void write_read_numericIds() throws Exception {
+
+    ClusterInvalidation invalidation = new ClusterInvalidation("db");
+    invalidation.addIds("Customer", null, ids(1L, 2L), ids(5L, -3L, 1000000L), null);
+    invalidation.addIds("Order", null, null, null, ids(7, 8, 9));
+
+    ClusterInvalidation read = ClusterInvalidation.read(invalidation.write(1000), null);
+    assertEquals("db", read.getServerName());
+    assertEquals(8, read.getIdCount());
+    assertEquals(set(1L, 2L), read.getIds("Customer", PersistRequest.Type.INSERT));
+    assertEquals(set(-3L, 5L, 1000000L), read.getIds("Customer", PersistRequest.Type.UPDATE));
+    assertTrue(read.getIds("Customer", PersistRequest.Type.DELETE).isEmpty());
+    assertEquals(set(7L, 8L, 9L), read.getIds("Order", PersistRequest.Type.DELETE));
+  }
+
+  @Test
+  public void write_read_stringIds() throws Exception {
+
+    ClusterInvalidation invalidation = new ClusterInvalidation("db");
+    invalidation.addIds("Country", null, null, ids("NZ", "AU"), null);
+
+    ClusterInvalidation read = ClusterInvalidation.read(invalidation.write(1000), null);
+    assertEquals(set("NZ", "AU"), read.getIds("Country", PersistRequest.Type.UPDATE));
+  }
+
+  @Test
+  public void write_read_idBinderIds() throws Exception {
+
+    IdBinder idBinder = uuidBinder();
+    UUID uuid = UUID.randomUUID();
+    ClusterInvalidation invalidation = new ClusterInvalidation("db");
+    invalidation.addIds("Document", idBinder, null, ids(uuid), null);
+    byte[] message = invalidation.write(1000);
+
+    BeanDescriptor<?> desc = mock(BeanDescriptor.class);
+    when(desc.getIdBinder()).thenReturn(idBinder);
+    SpiEbeanServer server = mock(SpiEbeanServer.class);
+    doReturn(desc).when(server).getBeanDescriptorById("Document");
+    ClusterManager manager = mock(ClusterManager.class);
+    when(manager.getServer("db")).thenReturn(server);
+
+    ClusterInvalidation read = ClusterInvalidation.read(message, manager);
+    assertEquals(set(uuid), read.getIds("Document", PersistRequest.Type.UPDATE));
+  }
+
+  @Test(expected = IOException.class)
+  public void read_idBinderIds_unknownServer() throws Exception {
+
+    ClusterInvalidation invalidation = new ClusterInvalidation("db");
+    invalidation.addIds("Document", uuidBinder(), null, ids(UUID.randomUUID()), null);
+
+    ClusterInvalidation.read(invalidation.write(1000), mock(ClusterManager.class));
+  }
+
+  @Test
+  public void add_deduplicates() throws Exception {
+
+    ClusterInvalidation invalidation = new ClusterInvalidation("db");
+    invalidation.addIds("Customer", null, null, ids(1L, 2L), null);
+    invalidation.addIds("Customer", null, null, ids(2L, 3L), ids(3L));
+    invalidation.addTable("o_customer", 2);
+    invalidation.addTable("o_customer", 4);
+    assertEquals(4, invalidation.getIdCount());
+
+    ClusterInvalidation read = ClusterInvalidation.read(invalidation.write(1000), null);
+    // the delete of 3 covers the update
+    assertEquals(set(1L, 2L), read.getIds("Customer", PersistRequest.Type.UPDATE));
+    // writing does not change the pending ids
+    assertEquals(set(1L, 2L, 3L), invalidation.getIds("Customer", PersistRequest.Type.UPDATE));
+    assertEquals(4, invalidation.getIdCount());
+    assertEquals(set(3L), read.getIds("Customer", PersistRequest.Type.DELETE));
+    assertEquals(Integer.valueOf(6), read.getTables().get("o_customer"));
+  }
+
+  @Test
+  public void write_compact() throws Exception {
+
+    List<Object> updateIds = new ArrayList<Object>();
+    for (long i = 100000; i < 110000; i++) {
+      updateIds.add(i);
+    }
+    ClusterInvalidation invalidation = new ClusterInvalidation("db");
+    invalidation.addIds("Customer", null, null, updateIds, null);
+
+    byte[] uncompressed = invalidation.write(Integer.MAX_VALUE);
+    // sequential ids are 1 byte per id as delta varint
+    assertTrue(uncompressed.length < 10100);
+
+    byte[] compressed = invalidation.write(512);
+    assertTrue(compressed.length < uncompressed.length / 10);
+
+    ClusterInvalidation read = ClusterInvalidation.read(compressed, null);
+    assertEquals(10000, read.getIds("Customer", PersistRequest.Type.UPDATE).size());
+    assertTrue(read.getIds("Customer", PersistRequest.Type.UPDATE).contains(109999L));
+  }
+
+  @Test(expected = IOException.class)
+  public void read_exceedsMaxSize() throws Exception {
+
+    byte[] large = new byte[ClusterInvalidation.MAX_MESSAGE_SIZE + 1];
+    Deflater deflater = new Deflater();
+    deflater.setInput(large);
+    deflater.finish();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(1);
+    byte[] chunk = new byte[1024];
+    while (!deflater.finished()) {
+      out.write(chunk, 0, deflater.deflate(chunk));
+    }
+    deflater.end();
+
+    ClusterInvalidation.read(out.toByteArray(), null);
+  }
+
+  /**
+   * IdBinder that writes UUID ids as two longs.
+   */
+  private static IdBinder uuidBinder() throws IOException {
+
+    IdBinder idBinder = mock(IdBinder.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        DataOutput out = (DataOutput) invocation.getArguments()[0];
+        UUID id = (UUID) invocation.getArguments()[1];
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        return null;
+      }
+    }).when(idBinder).writeData(any(DataOutput.class), any());
+    when(idBinder.readData(any(DataInput.class))).thenAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        DataInput in = (DataInput) invocation.getArguments()[0];
+        return new UUID(in.readLong(), in.readLong());
+      }
+    });
+    return idBinder;
+  }
+
+  private static List<Object> ids(Object... ids) {
+    return Arrays.asList(ids);
+  }
+
+  private static Set<Object> set(Object... ids) {
+    return new java.util.HashSet<Object>(Arrays.asList(ids));
+  }
+}
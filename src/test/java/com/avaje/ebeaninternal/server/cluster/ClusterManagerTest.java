@@ -0,0 +1,39 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import com.avaje.ebean.config.ContainerConfig;
+import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class ClusterManagerTest {
+
+  @Test
+  public void create_withTransportFactory_expect_batchingBroadcast() {
+
+    Properties properties = new Properties();
+    properties.setProperty("ebean.cluster.active", "true");
+    properties.setProperty("ebean.cluster.batchWindowMillis", "60000");
+
+    ContainerConfig config = new ContainerConfig();
+    config.loadFromProperties(properties);
+    assertEquals(60000, config.getClusterBatchWindowMillis());
+
+    ClusterManager manager = new ClusterManager(config);
+    assertTrue(manager.isClustering());
+
+    long before = LoopbackClusterTransportFactory.HUB.getMessageCount();
+    RemoteTransactionEvent event = new RemoteTransactionEvent("db");
+    event.addTableIUD(new TableIUD("o_customer", false, true, false));
+    manager.broadcast(event);
+    manager.broadcast(event);
+    assertEquals(before, LoopbackClusterTransportFactory.HUB.getMessageCount());
+
+    // the pending changes are sent together on shutdown
+    manager.shutdown();
+    assertEquals(before + 1, LoopbackClusterTransportFactory.HUB.getMessageCount());
+  }
+}
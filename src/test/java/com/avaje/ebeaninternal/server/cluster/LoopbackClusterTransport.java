@@ -0,0 +1,75 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In process transport where the members of a cluster are connected by a shared hub.
+ * <p>
+ * Messages are delivered synchronously to the other started members which makes this
+ * suitable for testing.
+ * </p>
+ */
+public class LoopbackClusterTransport implements ClusterTransport {
+
+  private final Hub hub;
+
+  private volatile Listener listener;
+
+  /**
+   * Create a member of the cluster connected to the given hub.
+   */
+  public LoopbackClusterTransport(Hub hub) {
+    this.hub = hub;
+  }
+
+  @Override
+  public void startup(Listener listener) {
+    this.listener = listener;
+    hub.members.add(this);
+  }
+
+  @Override
+  public void shutdown() {
+    hub.members.remove(this);
+    listener = null;
+  }
+
+  @Override
+  public void send(byte[] message) {
+    hub.messageCount.incrementAndGet();
+    hub.byteCount.addAndGet(message.length);
+    for (LoopbackClusterTransport member : hub.members) {
+      Listener memberListener = member.listener;
+      if (member != this && memberListener != null) {
+        memberListener.onMessage(message);
+      }
+    }
+  }
+
+  /**
+   * Connects the members of a loopback cluster.
+   */
+  public static class Hub {
+
+    private final CopyOnWriteArrayList<LoopbackClusterTransport> members = new CopyOnWriteArrayList<LoopbackClusterTransport>();
+
+    private final AtomicLong messageCount = new AtomicLong();
+
+    private final AtomicLong byteCount = new AtomicLong();
+
+    /**
+     * Return the number of messages sent.
+     */
+    public long getMessageCount() {
+      return messageCount.get();
+    }
+
+    /**
+     * Return the total size in bytes of the messages sent.
+     */
+    public long getByteCount() {
+      return byteCount.get();
+    }
+  }
+}
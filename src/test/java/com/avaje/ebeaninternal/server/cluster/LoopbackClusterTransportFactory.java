@@ -0,0 +1,16 @@
+package com.avaje.ebeaninternal.server.cluster;
+
+import java.util.Properties;
+
+/**
+ * Creates loopback transports connected to a shared hub for testing.
+ */
+public class LoopbackClusterTransportFactory implements ClusterTransportFactory {
+
+  static final LoopbackClusterTransport.Hub HUB = new LoopbackClusterTransport.Hub();
+
+  @Override
+  public ClusterTransport create(ClusterManager manager, Properties properties) {
+    return new LoopbackClusterTransport(HUB);
+  }
+}
@@ -0,0 +1,249 @@
+package com.avaje.ebeaninternal.server.core;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.QueryEachConsumer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class QueryEachPipelineTest {
+
+  @Test
+  public void process_singleConsumer_inOrder() {
+
+    TestExecutor executor = new TestExecutor(2);
+    try {
+      QueryEachPipeline pipeline = new QueryEachPipeline(executor, 10, 1);
+      ListIterator it = new ListIterator(1000);
+      final List<Integer> consumed = Collections.synchronizedList(new ArrayList<Integer>());
+
+      pipeline.process(it, new QueryEachConsumer<Integer>() {
+        @Override
+        public void accept(Integer bean) {
+          consumed.add(bean);
+        }
+      });
+
+      assertThat(it.closed).isTrue();
+      assertThat(consumed).hasSize(1000);
+      for (int i = 0; i < 1000; i++) {
+        assertThat(consumed.get(i)).isEqualTo(i);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void process_when_consumerStartsLate_expect_notConcurrent() {
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExecutorService service = Executors.newSingleThreadExecutor();
+    // executor that starts the consumer task only after reading has started
+    BackgroundExecutor executor = new BackgroundExecutor() {
+      @Override
+      public void execute(final Runnable r) {
+        service.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            r.run();
+          }
+        });
+      }
+
+      @Override
+      public void executePeriodically(Runnable r, long delay, TimeUnit unit) {
+      }
+    };
+
+    try {
+      QueryEachPipeline pipeline = new QueryEachPipeline(executor, 2, 1);
+      final ListIterator it = new ListIterator(200) {
+        @Override
+        public boolean hasNext() {
+          release.countDown();
+          return super.hasNext();
+        }
+      };
+      final AtomicInteger concurrent = new AtomicInteger();
+      final AtomicInteger maxConcurrent = new AtomicInteger();
+      final List<Integer> consumed = Collections.synchronizedList(new ArrayList<Integer>());
+      final List<Boolean> closedWhenConsumed = Collections.synchronizedList(new ArrayList<Boolean>());
+
+      pipeline.process(it, new QueryEachConsumer<Integer>() {
+        @Override
+        public void accept(Integer bean) {
+          int count = concurrent.incrementAndGet();
+          if (count > maxConcurrent.get()) {
+            maxConcurrent.set(count);
+          }
+          consumed.add(bean);
+          closedWhenConsumed.add(it.closed);
+          concurrent.decrementAndGet();
+        }
+      });
+
+      assertThat(maxConcurrent.get()).isEqualTo(1);
+      assertThat(consumed).hasSize(200);
+      for (int i = 0; i < 200; i++) {
+        assertThat(consumed.get(i)).isEqualTo(i);
+      }
+      // the iterator (transaction) is closed after the beans are consumed
+      assertThat(closedWhenConsumed).doesNotContain(Boolean.TRUE);
+      assertThat(it.closed).isTrue();
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  public void process_multipleConsumers() {
+
+    TestExecutor executor = new TestExecutor(4);
+    try {
+      QueryEachPipeline pipeline = new QueryEachPipeline(executor, 5, 4);
+      ListIterator it = new ListIterator(5000);
+      final List<Integer> consumed = Collections.synchronizedList(new ArrayList<Integer>());
+
+      pipeline.process(it, new QueryEachConsumer<Integer>() {
+        @Override
+        public void accept(Integer bean) {
+          consumed.add(bean);
+        }
+      });
+
+      assertThat(it.closed).isTrue();
+      assertThat(consumed).hasSize(5000);
+      assertThat(new java.util.HashSet<Integer>(consumed)).hasSize(5000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void process_when_executorDoesNotRun_expect_processedByCaller() {
+
+    // executor that never runs the consumer tasks
+    BackgroundExecutor executor = new BackgroundExecutor() {
+      @Override
+      public void execute(Runnable r) {
+      }
+
+      @Override
+      public void executePeriodically(Runnable r, long delay, TimeUnit unit) {
+      }
+    };
+
+    QueryEachPipeline pipeline = new QueryEachPipeline(executor, 3, 2);
+    ListIterator it = new ListIterator(20);
+    final List<Integer> consumed = new ArrayList<Integer>();
+
+    pipeline.process(it, new QueryEachConsumer<Integer>() {
+      @Override
+      public void accept(Integer bean) {
+        consumed.add(bean);
+      }
+    });
+
+    assertThat(it.closed).isTrue();
+    assertThat(consumed).hasSize(20);
+  }
+
+  @Test
+  public void process_when_consumerThrows() {
+
+    TestExecutor executor = new TestExecutor(1);
+    try {
+      QueryEachPipeline pipeline = new QueryEachPipeline(executor, 2, 1);
+      ListIterator it = new ListIterator(100000);
+
+      try {
+        pipeline.process(it, new QueryEachConsumer<Integer>() {
+          @Override
+          public void accept(Integer bean) {
+            if (bean == 10) {
+              throw new IllegalStateException("cause a failure");
+            }
+          }
+        });
+        fail("never get here");
+      } catch (IllegalStateException e) {
+        assertThat(e.getMessage()).isEqualTo("cause a failure");
+      }
+
+      assertThat(it.closed).isTrue();
+      assertThat(it.position).isLessThan(100000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  static class TestExecutor implements BackgroundExecutor {
+
+    final ExecutorService service;
+
+    TestExecutor(int threads) {
+      this.service = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public void execute(Runnable r) {
+      service.execute(r);
+    }
+
+    @Override
+    public void executePeriodically(Runnable r, long delay, TimeUnit unit) {
+      throw new UnsupportedOperationException();
+    }
+
+    void shutdown() {
+      service.shutdown();
+    }
+  }
+
+  static class ListIterator implements QueryIterator<Integer> {
+
+    final int size;
+    int position;
+    volatile boolean closed;
+
+    ListIterator(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < size;
+    }
+
+    @Override
+    public Integer next() {
+      return position++;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -3,11 +3,15 @@ package com.avaje.ebeaninternal.server.deploy;
 import com.avaje.ebean.BaseTestCase;
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebean.plugin.Property;
+import com.avaje.ebeaninternal.server.text.json.JsonWritePlan;
 import com.avaje.tests.model.basic.Customer;
 import com.avaje.tests.model.basic.Order;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -60,4 +64,30 @@ public class BeanDescriptorTest extends BaseTestCase {
     assertThat(to.getName()).isEqualTo("rob");
   }
 
-}
\ No newline at end of file
+  @Test
+  public void jsonWritePlan_cached() {
+
+    JsonWritePlan loaded = customerDesc.jsonWritePlan(false, null);
+    assertThat(loaded.isLoadedOnly()).isTrue();
+    assertThat(customerDesc.jsonWritePlan(false, null)).isSameAs(loaded);
+
+    JsonWritePlan all = customerDesc.jsonWritePlan(true, null);
+    assertThat(all.isLoadedOnly()).isFalse();
+    assertThat(customerDesc.jsonWritePlan(true, null)).isSameAs(all);
+  }
+
+  @Test
+  public void jsonWritePlan_includeProperties() {
+
+    Set<String> include = new HashSet<String>(Arrays.asList("name", "status"));
+    JsonWritePlan plan = customerDesc.jsonWritePlan(false, include);
+
+    assertThat(plan.isLoadedOnly()).isFalse();
+    assertThat(plan.getIdProperty()).isNull();
+    assertThat(plan.getProperties()).extracting("name").containsOnly("name", "status");
+
+    // cached by the included property names
+    Set<String> sameInclude = new HashSet<String>(Arrays.asList("status", "name"));
+    assertThat(customerDesc.jsonWritePlan(false, sameInclude)).isSameAs(plan);
+  }
+}
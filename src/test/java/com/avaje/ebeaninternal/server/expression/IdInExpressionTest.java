@@ -33,6 +33,15 @@ public class IdInExpressionTest {
     assertThat(exp(10).isSameByPlan(exp(10, 20))).isFalse();
   }
 
+  @Test
+  public void isSameByPlan_when_padded_sameBucket() {
+
+    IdInExpression ex1 = new IdInExpression(Arrays.asList(1, 2, 3, 4, 5, 6), true);
+    IdInExpression ex2 = new IdInExpression(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), true);
+    assertThat(ex1.isSameByPlan(ex2)).isTrue();
+    assertThat(ex1.isSameByPlan(exp(1, 2, 3, 4, 5, 6))).isFalse();
+  }
+
   @Test
   public void isSameByBind_when_sameBindValues() {
 
@@ -84,6 +84,26 @@ public class InExpressionTest {
     assertEquals(b1.build(), b2.build());
   }
 
+  @Test
+  public void queryPlanHash_given_padding_should_samePlanHashInBucket() throws Exception {
+
+    InExpression ex1 = new InExpression("foo", values(1, 2, 3, 4, 5, 6), false, true);
+    InExpression ex2 = new InExpression("foo", values(1, 2, 3, 4, 5, 6, 7, 8, 9), false, true);
+    InExpression ex3 = new InExpression("foo", values(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11), false, true);
+
+    HashQueryPlanBuilder b1 = new HashQueryPlanBuilder();
+    ex1.queryPlanHash(b1);
+
+    HashQueryPlanBuilder b2 = new HashQueryPlanBuilder();
+    ex2.queryPlanHash(b2);
+
+    HashQueryPlanBuilder b3 = new HashQueryPlanBuilder();
+    ex3.queryPlanHash(b3);
+
+    assertEquals(b1.build(), b2.build());
+    assertNotEquals(b1.build(), b3.build());
+  }
+
   List<Integer> values(int... vals) {
     ArrayList list = new ArrayList<Integer>();
     for (int i = 0; i < vals.length; i++) {
@@ -127,6 +147,15 @@ public class InExpressionTest {
     assertThat(exp("a", false, 10).isSameByPlan(exp("a", false, 10, 20))).isFalse();
   }
 
+  @Test
+  public void isSameByPlan_when_padded_sameBucket() {
+
+    InExpression ex1 = new InExpression("a", Arrays.asList(1, 2, 3, 4, 5, 6, 7), false, true);
+    InExpression ex2 = new InExpression("a", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), false, true);
+    assertThat(ex1.isSameByPlan(ex2)).isTrue();
+    assertThat(ex1.isSameByBind(ex2)).isFalse();
+  }
+
   @Test
   public void isSameByBind_when_sameBindValues() {
 
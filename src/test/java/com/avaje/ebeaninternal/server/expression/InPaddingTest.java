@@ -0,0 +1,33 @@
+package com.avaje.ebeaninternal.server.expression;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class InPaddingTest {
+
+  @Test
+  public void size_small_notPadded() {
+    assertEquals(0, InPadding.size(0));
+    assertEquals(1, InPadding.size(1));
+    assertEquals(3, InPadding.size(3));
+    assertEquals(5, InPadding.size(5));
+  }
+
+  @Test
+  public void size_padded() {
+    assertEquals(10, InPadding.size(6));
+    assertEquals(10, InPadding.size(10));
+    assertEquals(20, InPadding.size(11));
+    assertEquals(50, InPadding.size(21));
+    assertEquals(100, InPadding.size(99));
+    assertEquals(500, InPadding.size(201));
+    assertEquals(1000, InPadding.size(1000));
+  }
+
+  @Test
+  public void size_large_notPadded() {
+    assertEquals(1001, InPadding.size(1001));
+    assertEquals(5000, InPadding.size(5000));
+  }
+}
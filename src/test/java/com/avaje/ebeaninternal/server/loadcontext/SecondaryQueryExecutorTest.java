@@ -0,0 +1,166 @@
+package com.avaje.ebeaninternal.server.loadcontext;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebeaninternal.api.LoadSecondaryQuery;
+import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.api.TDSpiEbeanServer;
+import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
+import com.avaje.ebeaninternal.server.core.OrmQueryRequestTestHelper;
+import com.avaje.ebeaninternal.server.transaction.JdbcTransaction;
+import com.avaje.tests.model.basic.Customer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class SecondaryQueryExecutorTest extends BaseTestCase {
+
+  private final ExecutorService service = Executors.newFixedThreadPool(4);
+
+  private final AtomicInteger transactionsEnded = new AtomicInteger();
+
+  private final TDSpiEbeanServer server = new TDSpiEbeanServer() {
+    @Override
+    public SpiTransaction createQueryTransaction() {
+      return new JdbcTransaction("t", false, null, null) {
+        @Override
+        public void end() {
+          transactionsEnded.incrementAndGet();
+        }
+      };
+    }
+  };
+
+  private final BackgroundExecutor executor = new BackgroundExecutor() {
+    @Override
+    public void execute(Runnable r) {
+      service.execute(r);
+    }
+
+    @Override
+    public void executePeriodically(Runnable r, long delay, TimeUnit unit) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private final OrmQueryRequest<Customer> parentRequest = OrmQueryRequestTestHelper.queryRequest(Ebean.find(Customer.class));
+
+  @After
+  public void shutdown() {
+    service.shutdown();
+  }
+
+  @Test
+  public void execute_inParallel() {
+
+    SecondaryQueryExecutor secondary = new SecondaryQueryExecutor(server, executor, 10, 4);
+
+    // each load waits until all 4 are executing concurrently
+    CountDownLatch allStarted = new CountDownLatch(4);
+    List<LoadSecondaryQuery> loads = new ArrayList<LoadSecondaryQuery>();
+    for (int i = 0; i < 4; i++) {
+      loads.add(new TestLoad(allStarted));
+    }
+
+    secondary.execute(parentRequest, loads, 4);
+
+    Set<Transaction> transactions = TestLoad.transactions(loads);
+    assertThat(transactions).hasSize(4);
+    assertThat(transactionsEnded.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void execute_globalLimit_expect_remainingOnCallingThread() {
+
+    // only 1 helper allowed across all queries
+    SecondaryQueryExecutor secondary = new SecondaryQueryExecutor(server, executor, 1, 4);
+
+    List<LoadSecondaryQuery> loads = new ArrayList<LoadSecondaryQuery>();
+    for (int i = 0; i < 6; i++) {
+      loads.add(new TestLoad(null));
+    }
+
+    secondary.execute(parentRequest, loads, 4);
+
+    for (LoadSecondaryQuery load : loads) {
+      assertThat(((TestLoad) load).count.get()).isEqualTo(1);
+    }
+    assertThat(TestLoad.transactions(loads).size()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void execute_when_loadThrows() {
+
+    SecondaryQueryExecutor secondary = new SecondaryQueryExecutor(server, executor, 10, 4);
+
+    List<LoadSecondaryQuery> loads = new ArrayList<LoadSecondaryQuery>();
+    loads.add(new TestLoad(null));
+    loads.add(new LoadSecondaryQuery() {
+      @Override
+      public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, Transaction transaction, boolean forEach) {
+        throw new IllegalStateException("cause a failure");
+      }
+    });
+
+    try {
+      secondary.execute(parentRequest, loads, 2);
+      fail("never get here");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).isEqualTo("cause a failure");
+    }
+  }
+
+  static class TestLoad implements LoadSecondaryQuery {
+
+    final CountDownLatch allStarted;
+
+    final AtomicInteger count = new AtomicInteger();
+
+    volatile Transaction transaction;
+
+    TestLoad(CountDownLatch allStarted) {
+      this.allStarted = allStarted;
+    }
+
+    static Set<Transaction> transactions(List<LoadSecondaryQuery> loads) {
+      Set<Transaction> set = new HashSet<Transaction>();
+      for (LoadSecondaryQuery load : loads) {
+        Transaction txn = ((TestLoad) load).transaction;
+        set.add(txn == null ? NO_TXN : txn);
+      }
+      return set;
+    }
+
+    static final Transaction NO_TXN = new JdbcTransaction("none", false, null, null);
+
+    @Override
+    public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, Transaction transaction, boolean forEach) {
+      this.transaction = transaction;
+      count.incrementAndGet();
+      if (allStarted != null) {
+        allStarted.countDown();
+        try {
+          if (!allStarted.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("not executed in parallel");
+          }
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.avaje.ebeaninternal.server.persist;
+
+import com.avaje.ebeaninternal.server.type.DataBind;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchedMultiRowInsertTest {
+
+  private static final String SQL = "insert into foo (id, name) values (?,?)";
+
+  @Test
+  public void executeBatch_splitByBindLimit() throws SQLException {
+
+    Connection connection = mock(Connection.class);
+    PreparedStatement twoRows = mock(PreparedStatement.class);
+    PreparedStatement oneRow = mock(PreparedStatement.class);
+    when(connection.prepareStatement(SQL + ",(?,?)")).thenReturn(twoRows);
+    when(connection.prepareStatement(SQL)).thenReturn(oneRow);
+    when(twoRows.executeUpdate()).thenReturn(2);
+    when(oneRow.executeUpdate()).thenReturn(1);
+
+    // 4 bind parameters allowed per statement so 2 rows per statement
+    BatchedMultiRowInsert insert = new BatchedMultiRowInsert(connection, null, SQL, null, 4);
+
+    List<Post> posts = addRows(insert, 5);
+    assertThat(insert.size()).isEqualTo(5);
+
+    insert.executeBatch(true);
+
+    // statement for 2 rows reused
+    verify(connection, times(1)).prepareStatement(SQL + ",(?,?)");
+    verify(twoRows, times(2)).executeUpdate();
+    verify(twoRows).setLong(1, 0L);
+    verify(twoRows).setString(2, "n0");
+    verify(twoRows).setLong(3, 1L);
+    verify(twoRows).setString(4, "n1");
+    verify(twoRows).setLong(3, 3L);
+    verify(oneRow).setLong(1, 4L);
+    verify(oneRow).setString(2, "n4");
+    verify(twoRows).close();
+    verify(oneRow).close();
+
+    for (Post post : posts) {
+      assertThat(post.rowCount).isEqualTo(1);
+      assertThat(post.executed).isTrue();
+    }
+  }
+
+  @Test
+  public void executeBatch_withGeneratedKeys() throws SQLException {
+
+    String[] genKeyColumns = {"id"};
+    Connection connection = mock(Connection.class);
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    ResultSet keys = mock(ResultSet.class);
+    when(connection.prepareStatement(SQL + ",(?,?),(?,?)", genKeyColumns)).thenReturn(stmt);
+    when(stmt.executeUpdate()).thenReturn(3);
+    when(stmt.getGeneratedKeys()).thenReturn(keys);
+    when(keys.next()).thenReturn(true, true, true, false);
+    when(keys.getObject(1)).thenReturn(10L, 11L, 12L);
+
+    BatchedMultiRowInsert insert = new BatchedMultiRowInsert(connection, null, SQL, genKeyColumns, 100);
+    List<Post> posts = addRows(insert, 3);
+    insert.executeBatch(true);
+
+    assertThat(posts.get(0).generatedKey).isEqualTo(10L);
+    assertThat(posts.get(1).generatedKey).isEqualTo(11L);
+    assertThat(posts.get(2).generatedKey).isEqualTo(12L);
+  }
+
+  @Test(expected = SQLException.class)
+  public void executeBatch_when_rowCountMismatch() throws SQLException {
+
+    Connection connection = mock(Connection.class);
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(stmt);
+    when(stmt.executeUpdate()).thenReturn(1);
+
+    BatchedMultiRowInsert insert = new BatchedMultiRowInsert(connection, null, SQL, null, 100);
+    addRows(insert, 2);
+    insert.executeBatch(false);
+  }
+
+  @Test
+  public void executeBatch_withNullsAndTypedObjects() throws SQLException {
+
+    Connection connection = mock(Connection.class);
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    when(connection.prepareStatement(SQL + ",(?,?)")).thenReturn(stmt);
+    when(stmt.executeUpdate()).thenReturn(2);
+
+    BatchedMultiRowInsert insert = new BatchedMultiRowInsert(connection, null, SQL, null, 100);
+    insert.add(new Post());
+    DataBind row = insert.rowBind();
+    row.setInt(1);
+    row.setNull(Types.VARCHAR);
+    insert.add(new Post());
+    row = insert.rowBind();
+    row.setInt(2);
+    row.setObject("x", Types.VARCHAR);
+    assertThat(row.currentPos()).isEqualTo(2);
+
+    insert.executeBatch(false);
+
+    verify(stmt).setInt(1, 1);
+    verify(stmt).setNull(2, Types.VARCHAR);
+    verify(stmt).setInt(3, 2);
+    verify(stmt).setObject(4, "x", Types.VARCHAR);
+  }
+
+  @Test
+  public void isSupported() {
+    assertThat(BatchedMultiRowInsert.isSupported(SQL)).isTrue();
+    assertThat(BatchedMultiRowInsert.isSupported("insert into foo (id) select id from bar")).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void create_when_noValuesClause() {
+    new BatchedMultiRowInsert(mock(Connection.class), null, "insert into foo (id) select id from bar", null, 100);
+  }
+
+  private List<Post> addRows(BatchedMultiRowInsert insert, int count) throws SQLException {
+    List<Post> posts = new ArrayList<Post>();
+    for (int i = 0; i < count; i++) {
+      Post post = new Post();
+      posts.add(post);
+      insert.add(post);
+      DataBind capture = insert.rowBind();
+      capture.setLong(i);
+      capture.setString("n" + i);
+    }
+    return posts;
+  }
+
+  static class Post implements BatchPostExecute {
+
+    int rowCount;
+    Object generatedKey;
+    boolean executed;
+
+    @Override
+    public void checkRowCount(int rowCount) {
+      this.rowCount = rowCount;
+    }
+
+    @Override
+    public void setGeneratedKey(Object idValue) {
+      this.generatedKey = idValue;
+    }
+
+    @Override
+    public void postExecute() {
+      executed = true;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.avaje.ebeaninternal.server.text.csv;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MappedFileInputStreamTest {
+
+  private File file(byte[] content) throws Exception {
+    File file = File.createTempFile("mapped", ".csv");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  @Test
+  public void read_acrossRegions() throws Exception {
+
+    byte[] content = new byte[1000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+
+    MappedFileInputStream in = new MappedFileInputStream(file(content), 64);
+    try {
+      assertEquals(1000, in.available());
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[100];
+      int len;
+      while ((len = in.read(buffer, 0, buffer.length)) != -1) {
+        out.write(buffer, 0, len);
+      }
+      assertArrayEquals(content, out.toByteArray());
+      assertEquals(-1, in.read());
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void read_singleBytes() throws Exception {
+
+    MappedFileInputStream in = new MappedFileInputStream(file(new byte[]{1, (byte) 200, 3}), 2);
+    try {
+      assertEquals(1, in.read());
+      assertEquals(200, in.read());
+      assertEquals(3, in.read());
+      assertEquals(-1, in.read());
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void read_empty() throws Exception {
+
+    MappedFileInputStream in = new MappedFileInputStream(file(new byte[0]));
+    try {
+      assertEquals(-1, in.read());
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import com.avaje.ebean.bean.PersistenceContext;
+import com.avaje.tests.model.basic.Customer;
+import org.junit.Test;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class ConcurrentPersistenceContextTest extends DefaultPersistenceContextTest {
+
+  @Override
+  PersistenceContext pc() {
+    return new ConcurrentPersistenceContext();
+  }
+
+  @Test
+  public void put_get_longAndIntegerIdsAreDistinct() throws Exception {
+
+    PersistenceContext pc = pc();
+    pc.put(Customer.class, 42, customer42);
+
+    assertThat(pc.get(Customer.class, 42L)).isNull();
+    assertThat(pc.get(Customer.class, 42)).isSameAs(customer42);
+  }
+
+  @Test
+  public void put_get_otherIdType() throws Exception {
+
+    PersistenceContext pc = pc();
+    pc.put(Customer.class, "A42", customer42);
+
+    assertThat(pc.get(Customer.class, "A42")).isSameAs(customer42);
+    assertThat(pc.size(Customer.class)).isEqualTo(1);
+  }
+}
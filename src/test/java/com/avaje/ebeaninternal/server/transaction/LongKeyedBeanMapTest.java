@@ -0,0 +1,52 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class LongKeyedBeanMapTest {
+
+  @Test
+  public void put_get_remove_withResize() {
+
+    LongKeyedBeanMap map = new LongKeyedBeanMap();
+    for (long i = 0; i < 10000; i++) {
+      assertThat(map.put(i, "v" + i)).isNull();
+    }
+    assertThat(map.size()).isEqualTo(10000);
+    for (long i = 0; i < 10000; i++) {
+      assertThat(map.get(i)).isEqualTo("v" + i);
+    }
+    for (long i = 0; i < 10000; i += 2) {
+      assertThat(map.remove(i)).isEqualTo("v" + i);
+    }
+    assertThat(map.size()).isEqualTo(5000);
+    assertThat(map.get(2)).isNull();
+    assertThat(map.get(3)).isEqualTo("v3");
+  }
+
+  @Test
+  public void putIfAbsent() {
+
+    LongKeyedBeanMap map = new LongKeyedBeanMap();
+    assertThat(map.putIfAbsent(-1, "a")).isNull();
+    assertThat(map.putIfAbsent(-1, "b")).isEqualTo("a");
+    assertThat(map.get(-1)).isEqualTo("a");
+
+    map.remove(-1);
+    assertThat(map.putIfAbsent(-1, "c")).isNull();
+    assertThat(map.get(-1)).isEqualTo("c");
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void clear() {
+
+    LongKeyedBeanMap map = new LongKeyedBeanMap();
+    map.put(1, "a");
+    map.put(Long.MAX_VALUE, "b");
+    map.clear();
+    assertThat(map.size()).isEqualTo(0);
+    assertThat(map.get(1)).isNull();
+  }
+}
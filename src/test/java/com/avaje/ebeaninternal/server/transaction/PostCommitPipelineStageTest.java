@@ -0,0 +1,148 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import com.avaje.ebeaninternal.server.lib.DaemonThreadFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PostCommitPipelineStageTest {
+
+  /**
+   * Stage that records the groups it processes and can be blocked.
+   */
+  private static class RecordingStage extends PostCommitPipeline.Stage<Integer> {
+
+    final List<List<Integer>> groups = Collections.synchronizedList(new ArrayList<List<Integer>>());
+
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final CountDownLatch release = new CountDownLatch(1);
+
+    RecordingStage(int queueCapacity) {
+      super("test", queueCapacity, new DaemonThreadFactory("test-stage-"));
+      start();
+    }
+
+    @Override
+    void process(List<Integer> entries) {
+      started.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      groups.add(new ArrayList<Integer>(entries));
+    }
+
+    List<Integer> processed() {
+      List<Integer> all = new ArrayList<Integer>();
+      synchronized (groups) {
+        for (List<Integer> group : groups) {
+          all.addAll(group);
+        }
+      }
+      return all;
+    }
+  }
+
+  @Test
+  public void queuedEntries_processedTogetherInOrder() throws InterruptedException {
+
+    RecordingStage stage = new RecordingStage(100);
+
+    // first entry blocks the stage thread while the others queue up
+    stage.put(0);
+    assertThat(stage.started.await(5, TimeUnit.SECONDS)).isTrue();
+    for (int i = 1; i < 10; i++) {
+      stage.put(i);
+    }
+    assertThat(stage.getQueueDepth()).isEqualTo(9);
+
+    stage.release.countDown();
+    stage.shutdown();
+
+    assertThat(stage.getQueueDepth()).isEqualTo(0);
+    assertThat(stage.getProcessedCount()).isEqualTo(10);
+    assertThat(stage.processed()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    // the 9 queued entries are processed as one group
+    assertThat(stage.groups).hasSize(2);
+    assertThat(stage.getMaxLagMillis()).isGreaterThanOrEqualTo(stage.getLagMillis());
+  }
+
+  @Test
+  public void put_waitsWhenQueueFull() throws InterruptedException {
+
+    final RecordingStage stage = new RecordingStage(2);
+    stage.put(0);
+    assertThat(stage.started.await(5, TimeUnit.SECONDS)).isTrue();
+    stage.put(1);
+    stage.put(2);
+
+    final CountDownLatch added = new CountDownLatch(1);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        stage.put(3);
+        added.countDown();
+      }
+    });
+    producer.start();
+
+    // queue is full so the producer waits
+    assertThat(added.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+    stage.release.countDown();
+    assertThat(added.await(5, TimeUnit.SECONDS)).isTrue();
+    producer.join();
+
+    stage.shutdown();
+    assertThat(stage.processed()).containsExactly(0, 1, 2, 3);
+  }
+
+  @Test
+  public void put_fromStageThread_processedInline() throws InterruptedException {
+
+    final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch done = new CountDownLatch(1);
+
+    PostCommitPipeline.Stage<Integer> stage = new PostCommitPipeline.Stage<Integer>("test", 1, new DaemonThreadFactory("test-stage-")) {
+      @Override
+      void process(List<Integer> entries) {
+        for (Integer entry : entries) {
+          processed.add(entry);
+          if (entry == 0) {
+            // like a listener that saves, more entries than the queue holds
+            for (int i = 1; i <= 3; i++) {
+              put(i);
+            }
+            done.countDown();
+          }
+        }
+      }
+    };
+    stage.start();
+
+    stage.put(0);
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    stage.shutdown();
+    assertThat(processed).containsExactly(0, 1, 2, 3);
+    assertThat(stage.getProcessedCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void put_afterShutdown_processedByCaller() {
+
+    RecordingStage stage = new RecordingStage(10);
+    stage.release.countDown();
+    stage.shutdown();
+
+    stage.put(42);
+    assertThat(stage.processed()).containsExactly(42);
+  }
+}
@@ -0,0 +1,98 @@
+package com.avaje.ebeaninternal.server.transaction;
+
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class PstmtCacheTest {
+
+  @Test
+  public void take_release_reused() throws SQLException {
+
+    PstmtCache cache = new PstmtCache(10);
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+
+    assertNull(cache.take("select 1"));
+    cache.release("select 1", pstmt);
+    verify(pstmt).clearParameters();
+
+    assertSame(pstmt, cache.take("select 1"));
+    // taken out of the cache while in use
+    assertNull(cache.take("select 1"));
+
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    verify(pstmt, never()).close();
+  }
+
+  @Test
+  public void release_lruEvicted_closed() throws SQLException {
+
+    PstmtCache cache = new PstmtCache(2);
+    PreparedStatement p1 = mock(PreparedStatement.class);
+    PreparedStatement p2 = mock(PreparedStatement.class);
+    PreparedStatement p3 = mock(PreparedStatement.class);
+
+    cache.release("s1", p1);
+    cache.release("s2", p2);
+    // s1 becomes most recently used
+    cache.release("s1", cache.take("s1"));
+    cache.release("s3", p3);
+
+    assertEquals(2, cache.size());
+    verify(p2).close();
+    verify(p1, never()).close();
+    assertNull(cache.take("s2"));
+  }
+
+  @Test
+  public void release_sameSqlInUse_closesExisting() throws SQLException {
+
+    PstmtCache cache = new PstmtCache(10);
+    PreparedStatement p1 = mock(PreparedStatement.class);
+    PreparedStatement p2 = mock(PreparedStatement.class);
+
+    cache.release("s1", p1);
+    cache.release("s1", p2);
+
+    verify(p1).close();
+    assertSame(p2, cache.take("s1"));
+  }
+
+  @Test
+  public void release_clearFails_closed() throws SQLException {
+
+    PstmtCache cache = new PstmtCache(10);
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    doThrow(new SQLException("broken")).when(pstmt).clearParameters();
+
+    cache.release("s1", pstmt);
+    verify(pstmt).close();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void close_closesAll_and_laterReleaseCloses() throws SQLException {
+
+    PstmtCache cache = new PstmtCache(10);
+    PreparedStatement p1 = mock(PreparedStatement.class);
+    PreparedStatement p2 = mock(PreparedStatement.class);
+    cache.release("s1", p1);
+
+    cache.close();
+    verify(p1).close();
+    assertEquals(0, cache.size());
+
+    cache.release("s2", p2);
+    verify(p2).close();
+  }
+}
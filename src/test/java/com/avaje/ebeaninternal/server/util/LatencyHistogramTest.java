@@ -0,0 +1,58 @@
+package com.avaje.ebeaninternal.server.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void index_highestValue() {
+
+    for (long value = 0; value < 100000; value++) {
+      int index = LatencyHistogram.index(value);
+      assertThat(LatencyHistogram.highestValue(index)).isGreaterThanOrEqualTo(value);
+      if (index > 0) {
+        assertThat(LatencyHistogram.highestValue(index - 1)).isLessThan(value);
+      }
+    }
+    assertThat(LatencyHistogram.index(-1)).isEqualTo(0);
+    assertThat(LatencyHistogram.index(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.index(1L << 37));
+  }
+
+  @Test
+  public void getPercentile() {
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.add(i);
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.getSnapshot(false);
+    assertThat(snapshot.getCount()).isEqualTo(1000);
+    assertThat(snapshot.getTotal()).isEqualTo(500500);
+    assertThat(snapshot.getMax()).isEqualTo(1000);
+    assertThat(snapshot.getMean()).isEqualTo(500);
+
+    // within the 6.25% relative error and not under reported
+    assertThat(snapshot.getPercentile(50)).isBetween(500L, 531L);
+    assertThat(snapshot.getPercentile(99)).isBetween(990L, 1000L);
+    assertThat(snapshot.getPercentile(100)).isEqualTo(1000);
+    assertThat(snapshot.getPercentile(0)).isEqualTo(1);
+  }
+
+  @Test
+  public void getSnapshot_withReset() {
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.add(10);
+    histogram.add(20);
+
+    assertThat(histogram.getSnapshot(true).getCount()).isEqualTo(2);
+
+    LatencyHistogram.Snapshot snapshot = histogram.getSnapshot(false);
+    assertThat(snapshot.getCount()).isEqualTo(0);
+    assertThat(snapshot.getMax()).isEqualTo(0);
+    assertThat(snapshot.getPercentile(99)).isEqualTo(0);
+  }
+}
@@ -0,0 +1,71 @@
+package com.avaje.ebeaninternal.server.util;
+
+import com.avaje.ebean.meta.MetaPlanCacheStatistic;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlanCacheTest {
+
+  @Test
+  public void getPut() {
+
+    PlanCache<Integer, String> cache = new PlanCache<Integer, String>(String.class, "query", 10);
+    assertThat(cache.get(1)).isNull();
+    cache.put(1, "one");
+    assertThat(cache.get(1)).isEqualTo("one");
+
+    MetaPlanCacheStatistic statistics = cache.getStatistics(true);
+    assertThat(statistics.getName()).isEqualTo("query");
+    assertThat(statistics.getSize()).isEqualTo(1);
+    assertThat(statistics.getMaxSize()).isEqualTo(10);
+    assertThat(statistics.getHitCount()).isEqualTo(1);
+    assertThat(statistics.getMissCount()).isEqualTo(1);
+    assertThat(statistics.getEvictionCount()).isEqualTo(0);
+
+    // counters reset
+    statistics = cache.getStatistics(false);
+    assertThat(statistics.getHitCount()).isEqualTo(0);
+    assertThat(statistics.getMissCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_when_overMaxSize_expect_leastRecentlyUsedEvicted() throws InterruptedException {
+
+    PlanCache<Integer, String> cache = new PlanCache<Integer, String>(String.class, "query", 10);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, "v" + i);
+    }
+    // access times are only updated past the resolution
+    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(PlanCache.ACCESS_RESOLUTION_NANOS) + 5);
+    // access the first 3 such that they are most recently used
+    for (int i = 0; i < 3; i++) {
+      cache.get(i);
+    }
+
+    cache.put(10, "v10");
+
+    // trimmed down to 90% of max size
+    assertThat(cache.size()).isEqualTo(9);
+    assertThat(cache.getStatistics(false).getEvictionCount()).isEqualTo(2);
+    for (int i = 0; i < 3; i++) {
+      assertThat(cache.get(i)).isEqualTo("v" + i);
+    }
+    assertThat(cache.get(3)).isNull();
+    assertThat(cache.get(4)).isNull();
+    assertThat(cache.get(10)).isEqualTo("v10");
+  }
+
+  @Test
+  public void put_when_unbounded() {
+
+    PlanCache<Integer, String> cache = new PlanCache<Integer, String>(String.class, "update", 0);
+    for (int i = 0; i < 5000; i++) {
+      cache.put(i, "v" + i);
+    }
+    assertThat(cache.size()).isEqualTo(5000);
+    assertThat(cache.getStatistics(false).getEvictionCount()).isEqualTo(0);
+  }
+}
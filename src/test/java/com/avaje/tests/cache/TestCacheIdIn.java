@@ -0,0 +1,71 @@
+package com.avaje.tests.cache;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.ResetBasicData;
+import org.avaje.ebeantest.LoggedSqlCollector;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestCacheIdIn extends BaseTestCase {
+
+  @Test
+  public void findList_idIn_partlyCached() {
+
+    ResetBasicData.reset();
+
+    Ebean.getServerCacheManager().clear(Country.class);
+    ServerCache countryCache = Ebean.getServerCacheManager().getBeanCache(Country.class);
+
+    // load NZ into the bean cache
+    Ebean.find(Country.class, "NZ");
+    assertThat(countryCache.get("NZ")).isNotNull();
+
+    LoggedSqlCollector.start();
+    List<Country> list = Ebean.find(Country.class).where().idIn("AU", "NZ").findList();
+    List<String> sql = LoggedSqlCollector.stop();
+
+    // in the order of the ids
+    assertThat(list).hasSize(2);
+    assertThat(list.get(0).getCode()).isEqualTo("AU");
+    assertThat(list.get(1).getCode()).isEqualTo("NZ");
+
+    // only AU was queried
+    assertThat(sql).hasSize(1);
+    assertThat(sql.get(0)).contains(" in (?)");
+
+    // AU is now also in the bean cache
+    assertThat(countryCache.get("AU")).isNotNull();
+
+    LoggedSqlCollector.start();
+    list = Ebean.find(Country.class).where().idIn("NZ", "AU").findList();
+    sql = LoggedSqlCollector.stop();
+
+    assertThat(list).hasSize(2);
+    assertThat(list.get(0).getCode()).isEqualTo("NZ");
+    assertThat(sql).isEmpty();
+  }
+
+  @Test
+  public void findList_idIn_withOrderBy_notUsingCache() {
+
+    ResetBasicData.reset();
+
+    Ebean.getServerCacheManager().clear(Country.class);
+    Ebean.find(Country.class, "NZ");
+    Ebean.find(Country.class, "AU");
+
+    LoggedSqlCollector.start();
+    List<Country> list = Ebean.find(Country.class).where().idIn("NZ", "AU").orderBy("code").findList();
+    List<String> sql = LoggedSqlCollector.stop();
+
+    assertThat(list).hasSize(2);
+    assertThat(list.get(0).getCode()).isEqualTo("AU");
+    assertThat(sql).hasSize(1);
+  }
+}
@@ -0,0 +1,92 @@
+package com.avaje.tests.cache;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.cache.CacheWarmer;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.ResetBasicData;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestCacheWarming extends BaseTestCase {
+
+  @Test
+  public void snapshotAndWarm() throws IOException {
+
+    ResetBasicData.reset();
+
+    Ebean.getServerCacheManager().clear(Country.class);
+    ServerCache countryCache = Ebean.getServerCacheManager().getBeanCache(Country.class);
+
+    // load and then hit the cache
+    Ebean.find(Country.class, "NZ");
+    Ebean.find(Country.class, "NZ");
+    Ebean.find(Country.class, "NZ");
+    assertThat(countryCache.get("NZ")).isNotNull();
+
+    File file = File.createTempFile("cache-warming", ".snapshot");
+    try {
+      CacheWarmer warmer = new CacheWarmer((SpiEbeanServer) Ebean.getDefaultServer(), file, 100);
+      warmer.writeSnapshot();
+      assertThat(file.length()).isGreaterThan(0);
+
+      Ebean.getServerCacheManager().clear(Country.class);
+      assertThat(countryCache.size()).isEqualTo(0);
+
+      warmer.warm();
+      assertThat(countryCache.get("NZ")).isNotNull();
+
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void periodicSnapshot_beforeWarm_notWritten() throws IOException {
+
+    File file = File.createTempFile("cache-warming", ".snapshot");
+    try {
+      CacheWarmer warmer = new CacheWarmer((SpiEbeanServer) Ebean.getDefaultServer(), file, 100);
+      warmer.writePeriodicSnapshot();
+      // the snapshot of the last run is kept until the caches are warmed
+      assertThat(file.length()).isEqualTo(0);
+
+      warmer.warm();
+      Ebean.find(Country.class, "NZ");
+      Ebean.find(Country.class, "NZ");
+      warmer.writePeriodicSnapshot();
+      assertThat(file.length()).isGreaterThan(0);
+
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void warm_invalidSnapshot_ignored() throws IOException {
+
+    File file = File.createTempFile("cache-warming", ".snapshot");
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5, 1, 2, 3});
+    } finally {
+      out.close();
+    }
+    try {
+      Ebean.getServerCacheManager().clear(Country.class);
+      CacheWarmer warmer = new CacheWarmer((SpiEbeanServer) Ebean.getDefaultServer(), file, 100);
+      warmer.warm();
+      assertThat(Ebean.getServerCacheManager().getBeanCache(Country.class).size()).isEqualTo(0);
+
+    } finally {
+      file.delete();
+    }
+  }
+}
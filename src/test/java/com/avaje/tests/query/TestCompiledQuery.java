@@ -0,0 +1,144 @@
+package com.avaje.tests.query;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.CompiledQuery;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.NamedParam;
+import com.avaje.ebean.Query;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestCompiledQuery extends BaseTestCase {
+
+  @Test
+  public void findList() {
+
+    ResetBasicData.reset();
+
+    Query<Customer> query = Ebean.find(Customer.class)
+        .where()
+        .gt("id", new NamedParam("minId"))
+        .eq("status", new NamedParam("status"))
+        .orderBy().asc("id");
+
+    CompiledQuery<Customer> compiled = Ebean.createCompiledQuery(query);
+    assertThat(compiled.getParameterNames()).containsExactly("minId", "status");
+    assertThat(compiled.getGeneratedSql()).contains("t0.id > ?");
+
+    for (Customer.Status status : Customer.Status.values()) {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put("minId", 0);
+      params.put("status", status);
+
+      List<Customer> expected = Ebean.find(Customer.class)
+          .where().gt("id", 0).eq("status", status)
+          .orderBy().asc("id")
+          .findList();
+
+      List<Customer> list = compiled.findList(params);
+      assertThat(list).hasSize(expected.size());
+      for (int i = 0; i < list.size(); i++) {
+        assertThat(list.get(i).getId()).isEqualTo(expected.get(i).getId());
+      }
+    }
+  }
+
+  @Test
+  public void findList_withFetchAndMaxRows() {
+
+    ResetBasicData.reset();
+
+    CompiledQuery<Order> compiled = Ebean.createCompiledQuery(
+        Ebean.find(Order.class)
+            .fetch("customer", "name")
+            .where().eq("customer.id", new NamedParam("customerId"))
+            .setMaxRows(100));
+
+    Customer customer = Ebean.find(Customer.class).where().eq("name", "Rob").findUnique();
+
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("customerId", customer.getId());
+
+    List<Order> orders = compiled.findList(params);
+    assertThat(orders).isNotEmpty();
+    for (Order order : orders) {
+      assertThat(order.getCustomer().getId()).isEqualTo(customer.getId());
+    }
+  }
+
+  @Test
+  public void findUnique() {
+
+    ResetBasicData.reset();
+
+    CompiledQuery<Customer> compiled = Ebean.createCompiledQuery(
+        Ebean.find(Customer.class).where().eq("name", new NamedParam("name")).query());
+
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("name", "Rob");
+    Customer rob = compiled.findUnique(params);
+    assertThat(rob).isNotNull();
+    assertThat(rob.getName()).isEqualTo("Rob");
+
+    params.put("name", "DoesNotExist");
+    assertThat(compiled.findUnique(params)).isNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void findList_missingParameter() {
+
+    CompiledQuery<Customer> compiled = Ebean.createCompiledQuery(
+        Ebean.find(Customer.class).where().eq("name", new NamedParam("name")).query());
+
+    compiled.findList(new HashMap<String, Object>());
+  }
+
+  @Test
+  public void create_namedParamOnAssociation_expect_rejected() {
+
+    try {
+      Ebean.createCompiledQuery(
+          Ebean.find(Order.class).where().eq("customer", new NamedParam("customer")).query());
+      throw new AssertionError("expected an error");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("[customer]").contains("customer.id");
+    }
+  }
+
+  @Test
+  public void create_namedParamInExpression_expect_rejected() {
+
+    try {
+      Ebean.createCompiledQuery(
+          Ebean.find(Customer.class).where().in("name", new NamedParam("names")).query());
+      throw new AssertionError("expected an error");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("IN expression").contains("[name]");
+    }
+  }
+
+  @Test
+  public void findList_collectionParameter_expect_rejected() {
+
+    CompiledQuery<Customer> compiled = Ebean.createCompiledQuery(
+        Ebean.find(Customer.class).where().eq("name", new NamedParam("name")).query());
+
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("name", Arrays.asList("Rob", "Fiona"));
+    try {
+      compiled.findList(params);
+      throw new AssertionError("expected an error");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("[name]");
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.avaje.tests.query;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.FetchConfig;
+import com.avaje.ebean.QueryEachConsumer;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.ResetBasicData;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestQueryFindEachPipelined extends BaseTestCase {
+
+  @Test
+  public void test() {
+
+    ResetBasicData.reset();
+
+    int expected = Ebean.find(Customer.class).where().gt("id", 0).findRowCount();
+
+    final AtomicInteger counter = new AtomicInteger();
+    final AtomicInteger contacts = new AtomicInteger();
+
+    Ebean.find(Customer.class)
+        .setAutoTune(false)
+        .fetch("contacts", new FetchConfig().query(2))
+        .where().gt("id", 0)
+        .orderBy("id")
+        .findEachPipelined(new QueryEachConsumer<Customer>() {
+          @Override
+          public void accept(Customer customer) {
+            counter.incrementAndGet();
+            contacts.addAndGet(customer.getContacts().size());
+            customer.getName();
+          }
+        });
+
+    assertThat(counter.get()).isEqualTo(expected);
+    assertThat(contacts.get()).isGreaterThan(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void consumerThrowingException() {
+
+    ResetBasicData.reset();
+
+    Ebean.find(Customer.class)
+        .where().gt("id", 0)
+        .findEachPipelined(new QueryEachConsumer<Customer>() {
+          @Override
+          public void accept(Customer customer) {
+            throw new IllegalStateException("cause a failure");
+          }
+        });
+  }
+}
@@ -44,6 +44,8 @@ public class TestObjectGraphNodeStatsCollection extends BaseTestCase {
     List<MetaQueryPlanStatistic> planStatistics = infoManager.collectQueryPlanStatistics(true);
     for (MetaQueryPlanStatistic planStatistic : planStatistics) {
       planStatistic.getSql();
+      Assert.assertTrue(planStatistic.getPercentileTimeMicros(50) <= planStatistic.getPercentileTimeMicros(99));
+      Assert.assertTrue(planStatistic.getPercentileTimeMicros(99) <= planStatistic.getMaxTimeMicros());
     }
     
   }
@@ -0,0 +1,144 @@
+package com.avaje.tests.text.csv;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.text.csv.CsvReader;
+import com.avaje.ebean.text.csv.DefaultCsvCallback;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.ResetBasicData;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestCsvReaderParallel extends BaseTestCase {
+
+  private File csvFile(String prefix, int count) throws Exception {
+    File file = File.createTempFile("csvParallel", ".csv");
+    file.deleteOnExit();
+    FileWriter writer = new FileWriter(file);
+    try {
+      writer.write("status,name,anniversary\n");
+      for (int i = 0; i < count; i++) {
+        writer.write("NEW,\"" + prefix + i + "\",0" + (1 + i % 9) + "-JAN-2009\n");
+      }
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  @Test
+  public void process_parallel() throws Exception {
+
+    ResetBasicData.reset();
+
+    CsvReader<Customer> csvReader = Ebean.createCsvReader(Customer.class);
+    csvReader.setIgnoreHeader();
+    csvReader.setPersistBatchSize(3);
+    csvReader.setParallelism(4);
+    csvReader.setLogInfoFrequency(40);
+
+    csvReader.addProperty("status");
+    csvReader.addProperty("name");
+    csvReader.addDateTime("anniversary", "dd-MMM-yyyy", Locale.GERMAN);
+
+    csvReader.process(csvFile("parCsv", 95));
+
+    int rows = Ebean.find(Customer.class).where().startsWith("name", "parCsv").findRowCount();
+    assertThat(rows).isEqualTo(95);
+  }
+
+  @Test
+  public void process_parallel_withDefaultCallback_expect_metrics() throws Exception {
+
+    ResetBasicData.reset();
+
+    CsvReader<Customer> csvReader = Ebean.createCsvReader(Customer.class);
+    csvReader.setIgnoreHeader();
+    csvReader.setParallelism(3);
+
+    csvReader.addProperty("status");
+    csvReader.addProperty("name");
+    csvReader.addDateTime("anniversary", "dd-MMM-yyyy", Locale.GERMAN);
+
+    DefaultCsvCallback<Customer> callback = new DefaultCsvCallback<Customer>(5, 0);
+    csvReader.process(csvFile("parCsvCb", 120), callback);
+
+    assertThat(callback.getRowCount()).isEqualTo(120);
+    assertThat(callback.getExeMillis()).isGreaterThanOrEqualTo(0);
+    int rows = Ebean.find(Customer.class).where().startsWith("name", "parCsvCb").findRowCount();
+    assertThat(rows).isEqualTo(120);
+  }
+
+  @Test
+  public void process_parallel_withCallbackSubclass_expect_committedRanges() throws Exception {
+
+    ResetBasicData.reset();
+
+    CsvReader<Customer> csvReader = Ebean.createCsvReader(Customer.class);
+    csvReader.setIgnoreHeader();
+    csvReader.setParallelism(3);
+
+    csvReader.addProperty("status");
+    csvReader.addProperty("name");
+    csvReader.addDateTime("anniversary", "dd-MMM-yyyy", Locale.GERMAN);
+
+    final List<int[]> ranges = Collections.synchronizedList(new ArrayList<int[]>());
+    DefaultCsvCallback<Customer> callback = new DefaultCsvCallback<Customer>(5, 0) {
+      @Override
+      public synchronized void committed(int fromRow, int toRow, int rows) {
+        super.committed(fromRow, toRow, rows);
+        ranges.add(new int[]{fromRow, toRow, rows});
+      }
+    };
+    csvReader.process(csvFile("parCsvSub", 120), callback);
+
+    assertThat(callback.getRowCount()).isEqualTo(120);
+
+    // chunks of 50 rows (10 batches of 5) committed in any order
+    int rowCount = 0;
+    for (int[] range : ranges) {
+      assertThat(range[1] - range[0] + 1).isEqualTo(range[2]);
+      rowCount += range[2];
+    }
+    assertThat(ranges).hasSize(3);
+    assertThat(rowCount).isEqualTo(120);
+  }
+
+  @Test
+  public void process_parallel_error() throws Exception {
+
+    ResetBasicData.reset();
+
+    File file = File.createTempFile("csvParallel", ".csv");
+    file.deleteOnExit();
+    FileWriter writer = new FileWriter(file);
+    try {
+      writer.write("NEW,\"parCsvErr\",01-JAN-2009\n");
+      writer.write("NEW,\"parCsvErr\",notADate\n");
+    } finally {
+      writer.close();
+    }
+
+    CsvReader<Customer> csvReader = Ebean.createCsvReader(Customer.class);
+    csvReader.setPersistBatchSize(1);
+    csvReader.setParallelism(2);
+    csvReader.addProperty("status");
+    csvReader.addProperty("name");
+    csvReader.addDateTime("anniversary", "dd-MMM-yyyy", Locale.GERMAN);
+
+    try {
+      csvReader.process(file);
+      throw new AssertionError("expected an error");
+    } catch (RuntimeException e) {
+      assertThat(e.getMessage()).contains("Error at line: 2");
+    }
+  }
+}
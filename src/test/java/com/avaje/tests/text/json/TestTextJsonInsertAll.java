@@ -0,0 +1,70 @@
+package com.avaje.tests.text.json;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.QueryEachConsumer;
+import com.avaje.ebean.text.json.JsonContext;
+import com.avaje.tests.model.basic.EBasic;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestTextJsonInsertAll extends BaseTestCase {
+
+  private String json(String prefix, int count) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append("{\"name\":\"").append(prefix).append(i).append("\",\"status\":\"ACTIVE\"}");
+    }
+    return sb.append("]").toString();
+  }
+
+  @Test
+  public void toEach() {
+
+    JsonContext jsonContext = Ebean.json();
+
+    final List<EBasic> beans = new ArrayList<EBasic>();
+    jsonContext.toEach(EBasic.class, new StringReader(json("each", 45)), new QueryEachConsumer<EBasic>() {
+      @Override
+      public void accept(EBasic bean) {
+        beans.add(bean);
+      }
+    });
+
+    assertThat(beans).hasSize(45);
+    assertThat(beans.get(0).getName()).isEqualTo("each0");
+    assertThat(beans.get(44).getName()).isEqualTo("each44");
+    assertThat(beans.get(44).getStatus()).isEqualTo(EBasic.Status.ACTIVE);
+  }
+
+  @Test
+  public void toEach_emptyArray() {
+
+    final List<EBasic> beans = new ArrayList<EBasic>();
+    Ebean.json().toEach(EBasic.class, new StringReader("[]"), new QueryEachConsumer<EBasic>() {
+      @Override
+      public void accept(EBasic bean) {
+        beans.add(bean);
+      }
+    });
+    assertThat(beans).isEmpty();
+  }
+
+  @Test
+  public void insertAll() {
+
+    int count = Ebean.json().insertAll(EBasic.class, new StringReader(json("jsonInsertAll", 55)));
+    assertThat(count).isEqualTo(55);
+
+    int rows = Ebean.find(EBasic.class).where().startsWith("name", "jsonInsertAll").findRowCount();
+    assertThat(rows).isEqualTo(55);
+  }
+}
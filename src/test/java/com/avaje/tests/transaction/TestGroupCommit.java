@@ -0,0 +1,202 @@
+package com.avaje.tests.transaction;
+
+import com.avaje.ebean.BaseTestCase;
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.config.ServerConfig;
+import com.avaje.tests.model.basic.EBasic;
+import com.avaje.tests.model.basic.EBasicVer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestGroupCommit extends BaseTestCase {
+
+  private static EbeanServer server;
+
+  @BeforeClass
+  public static void create() {
+
+    System.setProperty("ebean.ignoreExtraDdl", "true");
+
+    ServerConfig config = new ServerConfig();
+    config.setName("groupCommit");
+
+    Properties properties = new Properties();
+    properties.setProperty("datasource.groupCommit.username", "sa");
+    properties.setProperty("datasource.groupCommit.password", "");
+    properties.setProperty("datasource.groupCommit.databaseUrl", "jdbc:h2:mem:groupCommit;");
+    properties.setProperty("datasource.groupCommit.databaseDriver", "org.h2.Driver");
+
+    config.loadFromProperties(properties);
+    config.setDefaultServer(false);
+    config.setRegister(false);
+    config.setDdlGenerate(true);
+    config.setDdlRun(true);
+    config.setGroupCommitMillis(50);
+    config.setGroupCommitMaxBeans(20);
+    config.addClass(EBasic.class);
+    config.addClass(EBasicVer.class);
+
+    server = EbeanServerFactory.create(config);
+  }
+
+  @AfterClass
+  public static void shutdown() {
+    server.shutdown(true, false);
+  }
+
+  @Test
+  public void concurrentSaves() throws Exception {
+
+    List<Future<EBasic>> results = saveConcurrently(newBeans("concurrent", 30, null));
+    for (Future<EBasic> result : results) {
+      EBasic bean = result.get();
+      assertThat(bean.getId()).isNotNull();
+      assertThat(server.find(EBasic.class, bean.getId())).isNotNull();
+    }
+    assertThat(server.find(EBasic.class).where().startsWith("name", "concurrent").findRowCount()).isEqualTo(30);
+  }
+
+  @Test
+  public void concurrentSaves_withFailure() throws Exception {
+
+    EBasic existing = new EBasic();
+    existing.setName("existing");
+    server.save(existing);
+
+    List<Future<EBasic>> results = saveConcurrently(newBeans("withFailure", 10, existing.getId()));
+
+    int failures = 0;
+    for (Future<EBasic> result : results) {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        failures++;
+      }
+    }
+    // only the bean with the duplicate id fails
+    assertThat(failures).isEqualTo(1);
+    assertThat(server.find(EBasic.class).where().startsWith("name", "withFailure").findRowCount()).isEqualTo(9);
+  }
+
+  @Test
+  public void concurrentUpdates_withFailure_beansRestored() throws Exception {
+
+    EBasicVer existing = new EBasicVer();
+    existing.setName("restoreExisting");
+    server.save(existing);
+
+    List<EBasicVer> updated = new ArrayList<EBasicVer>();
+    for (int i = 0; i < 5; i++) {
+      EBasicVer bean = new EBasicVer();
+      bean.setName("restoreUpdate" + i);
+      server.save(bean);
+      updated.add(server.find(EBasicVer.class, bean.getId()));
+    }
+
+    List<EBasicVer> beans = new ArrayList<EBasicVer>();
+    for (EBasicVer bean : updated) {
+      bean.setName(bean.getName() + "-mod");
+      beans.add(bean);
+    }
+    for (int i = 0; i < 5; i++) {
+      EBasicVer bean = new EBasicVer();
+      bean.setName("restoreInsert" + i);
+      beans.add(bean);
+    }
+    EBasicVer duplicate = new EBasicVer();
+    duplicate.setId(existing.getId());
+    duplicate.setName("restoreInsertDuplicate");
+    beans.add(duplicate);
+
+    int failures = 0;
+    for (Future<EBasicVer> result : saveConcurrently(beans)) {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        failures++;
+      }
+    }
+    assertThat(failures).isEqualTo(1);
+    assertThat(server.find(EBasicVer.class).where().startsWith("name", "restoreInsert").findRowCount()).isEqualTo(5);
+    for (EBasicVer bean : updated) {
+      assertThat(server.find(EBasicVer.class, bean.getId()).getName()).endsWith("-mod");
+    }
+
+    // the version and loaded state of the updated beans match the database
+    for (EBasicVer bean : updated) {
+      bean.setName(bean.getName() + "-again");
+      server.save(bean);
+      assertThat(server.find(EBasicVer.class, bean.getId()).getName()).endsWith("-mod-again");
+    }
+  }
+
+  @Test
+  public void explicitTransaction_notGrouped() {
+
+    Transaction transaction = server.beginTransaction();
+    try {
+      EBasic bean = new EBasic();
+      bean.setName("explicit");
+      server.save(bean);
+      transaction.rollback();
+    } finally {
+      transaction.end();
+    }
+    assertThat(server.find(EBasic.class).where().eq("name", "explicit").findRowCount()).isEqualTo(0);
+  }
+
+  /**
+   * Create new beans (one bean optionally with a duplicate id).
+   */
+  private List<EBasic> newBeans(String prefix, int count, Integer duplicateId) {
+
+    List<EBasic> beans = new ArrayList<EBasic>();
+    for (int i = 0; i < count; i++) {
+      EBasic bean = new EBasic();
+      bean.setName(prefix + i);
+      if (i == count / 2 && duplicateId != null) {
+        bean.setId(duplicateId);
+      }
+      beans.add(bean);
+    }
+    return beans;
+  }
+
+  /**
+   * Save the beans from many threads at the same time.
+   */
+  private <T> List<Future<T>> saveConcurrently(List<T> beans) {
+
+    ExecutorService executor = Executors.newFixedThreadPool(beans.size());
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<T>> results = new ArrayList<Future<T>>();
+    for (final T bean : beans) {
+      results.add(executor.submit(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          start.await();
+          server.save(bean);
+          return bean;
+        }
+      }));
+    }
+    start.countDown();
+    executor.shutdown();
+    return results;
+  }
+}